@@ -0,0 +1,81 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import de.tum.digitalagriculture.tello.commanders.CommandParser;
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing commands from text and serializing them into datagram payloads
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark {
+    @Param({"battery?", "forward 100", "go 100 -50 20 60", "curve 50 50 0 100 80 0 30"})
+    private String input;
+    private Commands.Command command;
+    private ByteBuffer buffer;
+    private ByteBuffer wire;
+
+    @Setup
+    public void setup() {
+        command = Commands.Command.parse(input);
+        buffer = ByteBuffer.allocateDirect(1024);
+        wire = ByteBuffer.allocateDirect(1024);
+        command.encode(wire);
+        wire.flip();
+    }
+
+    @Benchmark
+    public Commands.Command parse() {
+        return Commands.Command.parse(input);
+    }
+
+    /**
+     * Parse from the bytes of a datagram, like commands from a ground station
+     */
+    @Benchmark
+    public CommandParser.ParseResult parseBuffer() {
+        return CommandParser.parse(wire);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return command.toString();
+    }
+
+    /**
+     * The previous datagram encoding, kept as a baseline for {@link #encode()}
+     */
+    @Benchmark
+    public byte[] encodeString() {
+        return command.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * What the command channel sends per command
+     */
+    @Benchmark
+    public ByteBuffer encode() {
+        buffer.clear();
+        command.encode(buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,84 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import de.tum.digitalagriculture.tello.streams.FramePipe;
+import de.tum.digitalagriculture.tello.streams.FrameRing;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame cost of the {@link OpenCVFrameConverter} paths and of handing frames to the stream consumers
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameConversionBenchmark {
+    private OpenCVFrameConverter.ToMat converter;
+    private Mat mat;
+    private Frame frame;
+    private FramePipe pipe;
+    private FrameRing ring;
+
+    @Setup
+    public void setup() {
+        converter = new OpenCVFrameConverter.ToMat();
+        mat = SyntheticStream.frame();
+        // a frame that does not alias mat, like the frames of the grabber
+        frame = new OpenCVFrameConverter.ToMat().convert(mat).clone();
+        pipe = new FramePipe(4);
+        ring = new FrameRing(4, FrameRing.OverflowPolicy.DROP_OLDEST);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ring.close();
+    }
+
+    @Benchmark
+    public Mat frameToMat() {
+        return converter.convert(frame);
+    }
+
+    @Benchmark
+    public Frame matToFrame() {
+        return converter.convert(mat);
+    }
+
+    /**
+     * Copy into a pooled frame and hand it back, the path of {@code StreamWriter} and {@code StreamMultiplexer}
+     */
+    @Benchmark
+    public long framePipe() {
+        pipe.publish(converter.convert(frame));
+        var pooled = pipe.poll();
+        var publishedAt = pooled.getPublishedAt();
+        pipe.release(pooled);
+        return publishedAt;
+    }
+
+    /**
+     * Copy into the ring of {@code StreamArray} and take it out again
+     */
+    @Benchmark
+    public void frameRing(Blackhole blackhole) throws InterruptedException {
+        ring.offer(converter.convert(frame));
+        ring.poll(blackhole::consume);
+    }
+}
@@ -0,0 +1,44 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import de.tum.digitalagriculture.tello.streams.FrameLatency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of stamping and recording a frame at every stage, which the stream handlers pay once per frame
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameLatencyBenchmark {
+    private FrameLatency latency;
+    private long timestamp;
+
+    @Setup
+    public void setup() {
+        latency = new FrameLatency("benchmark", 30, 0, TimeUnit.SECONDS);
+        timestamp = 1;
+    }
+
+    @Benchmark
+    public void recordFrame() {
+        var grabbedAt = System.nanoTime();
+        latency.grabbed(grabbedAt, timestamp += 33_333);
+        var convertedAt = System.nanoTime();
+        latency.converted(grabbedAt, convertedAt);
+        latency.sunk(grabbedAt, convertedAt, System.nanoTime());
+    }
+}
@@ -0,0 +1,68 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import de.tum.digitalagriculture.tello.metrics.CommandEvent;
+import de.tum.digitalagriculture.tello.metrics.Counter;
+import de.tum.digitalagriculture.tello.metrics.LatencyHistogram;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of updating the metrics on the hot paths, and of a JFR event while no recording is running
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+    private Counter counter;
+    private LatencyHistogram histogram;
+    private long value;
+
+    @Setup
+    public void setup() {
+        counter = MetricsRegistry.global().counter("benchmark.counter");
+        histogram = MetricsRegistry.global().histogram("benchmark.histogram");
+    }
+
+    @Benchmark
+    public void increment() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(value += 1_000);
+    }
+
+    /**
+     * Four threads recording into the same histogram, like the I/O threads of a swarm
+     */
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        histogram.record(1_000_000);
+    }
+
+    @Benchmark
+    public void disabledEvent() {
+        var event = new CommandEvent();
+        if (event.shouldCommit()) {
+            event.setCommand("forward 100");
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.controllers.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing responses from the receive buffer, compared to decoding them into a string first
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultBenchmark {
+    @Param({"ok", "87", "out of range"})
+    private String response;
+    private Commands.Command command;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        command = response.equals("ok") ? new Commands.Forward(100) : Commands.ReadBattery.INSTANCE;
+        buffer = ByteBuffer.allocateDirect(1024);
+        buffer.put(response.getBytes(StandardCharsets.US_ASCII)).put((byte) '\n');
+        buffer.flip();
+    }
+
+    @Benchmark
+    public Result parseBuffer() {
+        return Result.of(command, buffer);
+    }
+
+    /**
+     * Decode the datagram into a string and parse the reading from it, like before
+     */
+    @Benchmark
+    public int decodeString() {
+        var text = StandardCharsets.UTF_8.decode(buffer.duplicate()).toString().trim();
+        return text.equalsIgnoreCase("ok") ? 0 : text.chars().allMatch(Character::isDigit) ? Integer.parseInt(text) : -1;
+    }
+}
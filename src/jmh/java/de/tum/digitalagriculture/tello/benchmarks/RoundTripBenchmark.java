@@ -0,0 +1,83 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.controllers.Result;
+import de.tum.digitalagriculture.tello.simulation.StandInDrone;
+import de.tum.digitalagriculture.tello.streams.StreamDisplay;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip latency of {@link FlightController} against a loopback {@link StandInDrone}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+    private static final int WINDOW = 32;
+    private StandInDrone drone;
+    private ScheduledThreadPoolExecutor executor;
+    private FlightController<Void, StreamDisplay.Stream> controller;
+
+    @Setup
+    public void setup() throws Exception {
+        drone = new StandInDrone(0, TimeUnit.MILLISECONDS);
+        executor = new ScheduledThreadPoolExecutor(1);
+        controller = FlightController.<Void, StreamDisplay.Stream>builder()
+                .ip("127.0.0.1")
+                .port(drone.getAddress().getPort())
+                .commandPort(0)
+                .statusPort(0)
+                .executor(executor)
+                .streamHandler(new StreamDisplay())
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        controller.close();
+        executor.shutdownNow();
+        drone.close();
+    }
+
+    @Benchmark
+    public Result sendAndRecv() {
+        return controller.sendAndRecv(Commands.ReadBattery.INSTANCE);
+    }
+
+    /**
+     * {@link #WINDOW} queries in flight at the same time, reported per query
+     */
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void pipelined(Blackhole blackhole) {
+        var futures = new ArrayList<CompletableFuture<Result>>(WINDOW);
+        for (int i = 0; i < WINDOW; i++) {
+            futures.add(controller.submit(Commands.ReadBattery.INSTANCE));
+        }
+        for (var future : futures) {
+            blackhole.consume(future.join());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import de.tum.digitalagriculture.tello.streams.FrameRing;
+import de.tum.digitalagriculture.tello.streams.FrameSink;
+import de.tum.digitalagriculture.tello.streams.StreamArray;
+import de.tum.digitalagriculture.tello.streams.StreamMultiplexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end decode throughput of the stream handlers on a synthetic clip, reported per frame
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamHandlerBenchmark {
+    private static final int FRAMES = 300;
+    private String clip;
+
+    @Setup
+    public void setup() throws Exception {
+        clip = SyntheticStream.clip(FRAMES).toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long streamArray() throws Exception {
+        var handler = new StreamArray(FRAMES, FrameRing.OverflowPolicy.DROP_OLDEST);
+        try (var stream = handler.startStream(clip)) {
+            stream.capture();
+            return stream.getData().getOffered();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public long streamMultiplexer() throws Exception {
+        var counting = new CountingSink();
+        var handler = new StreamMultiplexer().addSink("counting", counting).addSink("idle", new CountingSink());
+        try (var stream = handler.startStream(clip)) {
+            stream.capture();
+            return counting.getData();
+        }
+    }
+
+    private static final class CountingSink implements FrameSink<Long> {
+        private long frames;
+
+        @Override
+        public void accept(Mat frame) {
+            frames++;
+        }
+
+        @Override
+        public Long getData() {
+            return frames;
+        }
+    }
+}
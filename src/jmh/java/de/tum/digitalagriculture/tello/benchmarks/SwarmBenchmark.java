@@ -0,0 +1,54 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.controllers.Result;
+import de.tum.digitalagriculture.tello.controllers.SwarmController;
+import de.tum.digitalagriculture.tello.simulation.StandInSwarm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a query broadcast to a swarm of loopback {@link de.tum.digitalagriculture.tello.simulation.StandInDrone}s
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwarmBenchmark {
+    @Param({"1", "8", "32"})
+    private int drones;
+    private StandInSwarm swarm;
+    private SwarmController controller;
+
+    @Setup
+    public void setup() throws Exception {
+        swarm = new StandInSwarm(drones, 0, TimeUnit.MILLISECONDS);
+        controller = SwarmController.builder().drones(swarm.getAddresses()).localPort(0).build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        controller.close();
+        swarm.close();
+    }
+
+    @Benchmark
+    public List<Result> broadcast() {
+        return controller.broadcast(Commands.ReadBattery.INSTANCE).join();
+    }
+}
@@ -0,0 +1,74 @@
+package de.tum.digitalagriculture.tello.benchmarks;
+
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Scalar;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_imgproc.LINE_8;
+import static org.bytedeco.opencv.global.opencv_imgproc.circle;
+
+/**
+ * Synthetic frames and a raw H.264 clip that look like the stream of the Tello drone (960x720, 30 fps)
+ */
+final class SyntheticStream {
+    static final int WIDTH = 960;
+    static final int HEIGHT = 720;
+    static final int FPS = 30;
+
+    private SyntheticStream() {
+    }
+
+    /**
+     * Draw the {@code index}th frame into {@code frame}
+     *
+     * @param frame frame to draw into
+     * @param index index of the frame, changes the background and moves a circle
+     * @return {@code frame}
+     */
+    static Mat draw(Mat frame, int index) {
+        frame.put(new Scalar(index % 255, (index * 3) % 255, 100, 0));
+        circle(frame, new Point((index * 7) % WIDTH, HEIGHT / 2), 80, new Scalar(255, 255, 255, 0), -1, LINE_8, 0);
+        return frame;
+    }
+
+    /**
+     * @return a new frame with the geometry of the Tello stream
+     */
+    static Mat frame() {
+        return draw(new Mat(HEIGHT, WIDTH, CV_8UC3), 0);
+    }
+
+    /**
+     * Encode a raw H.264 clip into a temporary file
+     *
+     * @param frames number of frames in the clip
+     * @return path of the clip, deleted when the JVM exits
+     * @throws IOException failed to create or encode the file
+     */
+    static Path clip(int frames) throws IOException {
+        var path = Files.createTempFile("tello-synthetic", ".h264");
+        path.toFile().deleteOnExit();
+        var converter = new OpenCVFrameConverter.ToMat();
+        var frame = frame();
+        try (var recorder = new FFmpegFrameRecorder(path.toString(), WIDTH, HEIGHT)) {
+            recorder.setFormat("h264");
+            recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
+            recorder.setFrameRate(FPS);
+            recorder.setGopSize(FPS);
+            recorder.start();
+            for (int i = 0; i < frames; i++) {
+                recorder.record(converter.convert(draw(frame, i)));
+            }
+            recorder.stop();
+        }
+        return path;
+    }
+}
@@ -0,0 +1,95 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.commanders.PathCommander;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.mapping.CaptureScheduler;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import de.tum.digitalagriculture.tello.streams.FrameRing;
+import de.tum.digitalagriculture.tello.streams.StreamArray;
+import de.tum.digitalagriculture.tello.telemetry.PoseEstimator;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flies a lawnmower pattern over a field against the {@link DroneSimulator} and captures geotagged images with a
+ * {@link CaptureScheduler}, reporting the captured images, the frames the scheduler skipped and the heap in use
+ */
+public class CaptureBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(CaptureBenchmark.class);
+    private static final int LEG = 300;
+    private static final int SPACING = 100;
+
+    /**
+     * First argument: ground distance between two images in cm, 0 captures every frame the encoders can take, second
+     * argument: number of legs of the pattern, third argument: image format
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var distance = args.length > 0 ? Double.parseDouble(args[0]) : 50.0;
+        var legs = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        var format = args.length > 2 ? args[2] : "jpg";
+        var directory = Files.createTempDirectory("tello-capture");
+        @Cleanup var simulator = DroneSimulator.builder().commandPort(0).video(true).build();
+        var poses = new PoseEstimator();
+        var scheduler = CaptureScheduler.builder().directory(directory).poses(poses).distance(distance).format(format).build();
+        var heap = ManagementFactory.getMemoryMXBean();
+        var maxHeap = new AtomicLong();
+        scheduler.getStage().subscribe(result -> {
+            maxHeap.accumulateAndGet(heap.getHeapMemoryUsage().getUsed(), Math::max);
+            var pose = result.value().pose();
+            logger.debug("{} at x {} y {}, {} ms after grabbing", result.value().image().getFileName(),
+                    Math.round(pose.x()), Math.round(pose.y()), TimeUnit.NANOSECONDS.toMillis(result.latencyNanos()));
+        });
+        var handler = new StreamArray(30, FrameRing.OverflowPolicy.DROP_OLDEST);
+        handler.setProcessor(scheduler.getStage());
+        var executor = new ScheduledThreadPoolExecutor(2);
+        var controller = FlightController.<FrameRing, StreamArray.Stream>builder()
+                .ip("127.0.0.1")
+                .port(simulator.getAddress().getPort())
+                .executor(executor)
+                .streamHandler(handler)
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .build();
+        controller.getTelemetry().subscribe(poses);
+
+        var mission = new ArrayList<Commands.Command>();
+        mission.add(Commands.TakeOff.INSTANCE);
+        mission.add(Commands.StreamOn.INSTANCE);
+        for (var leg = 0; leg < legs; leg++) {
+            mission.add(leg % 2 == 0 ? new Commands.Forward(LEG) : new Commands.Back(LEG));
+            if (leg < legs - 1) {
+                mission.add(new Commands.Right(SPACING));
+            }
+        }
+        mission.add(Commands.StreamOff.INSTANCE);
+        mission.add(Commands.Land.INSTANCE);
+        var start = System.nanoTime();
+        controller.run(new PathCommander(mission.toArray(Commands.Command[]::new))).join();
+        var seconds = (System.nanoTime() - start) / 1e9;
+        controller.close();
+        scheduler.close();
+
+        long bytes;
+        try (var files = Files.list(directory)) {
+            bytes = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        var stage = scheduler.getStage();
+        var registry = MetricsRegistry.global();
+        logger.info("Grabbed {} frames, {}", registry.get("stream.array.grabbed"), registry.get("stream.array.total"));
+        logger.info("Captured {} {} images every {} cm in {} s ({} KB) to {}", scheduler.getCaptured(), format, distance,
+                String.format("%.1f", seconds), bytes / 1024, directory);
+        logger.info("Skipped {} frames while the encoders were busy, {} overtaken or failed, {}, {}", stage.getSkipped(),
+                stage.getDiscarded(), stage.getLatency(), stage.getProcessing());
+        logger.info("Heap in use at most {} MB while capturing", maxHeap.get() / (1024 * 1024));
+    }
+}
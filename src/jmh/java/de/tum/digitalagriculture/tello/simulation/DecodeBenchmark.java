@@ -0,0 +1,66 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.streams.FrameRing;
+import de.tum.digitalagriculture.tello.streams.FrameSampling;
+import de.tum.digitalagriculture.tello.streams.StreamArray;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Captures a recorded clip into a {@link StreamArray} with full decoding, with sub-rates and with key frames only, and
+ * logs the process CPU time per second of video and per kept frame
+ */
+public class DecodeBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(DecodeBenchmark.class);
+    private static final double FPS = 30;
+
+    /**
+     * First argument: a recorded H.264 clip, e.g. written by a remuxing StreamWriter. Without it a synthetic 30s clip
+     * with a key frame every second is rendered
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        String clip;
+        if (args.length > 0) {
+            clip = args[0];
+        } else {
+            var path = Files.createTempFile("tello-decode", ".mkv");
+            path.toFile().deleteOnExit();
+            FrameAnalysisBenchmark.render(path, 900);
+            clip = path.toString();
+        }
+        var os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        var samplings = List.of(FrameSampling.ALL, FrameSampling.every(10), FrameSampling.every(30), FrameSampling.KEY_FRAMES);
+        // the first pass warms up the JIT and the native libraries
+        for (var pass = 0; pass < 2; pass++) {
+            var fullCpu = 0L;
+            var seconds = 0.0;
+            for (var sampling : samplings) {
+                var handler = new StreamArray(30, FrameRing.OverflowPolicy.DROP_OLDEST);
+                handler.setSampling(sampling);
+                var cpuStart = os.getProcessCpuTime();
+                var start = System.nanoTime();
+                var stream = handler.startStream(clip);
+                stream.capture();
+                var wall = System.nanoTime() - start;
+                var cpu = os.getProcessCpuTime() - cpuStart;
+                var frames = stream.getLatency().getGrabbedFrames().get();
+                stream.getData().close();
+                if (sampling == FrameSampling.ALL) {
+                    fullCpu = cpu;
+                    seconds = frames / FPS;
+                }
+                if (pass == 1) {
+                    logger.info("{}: {} frames in {} ms wall time, {} ms CPU per second of video, {} ms CPU per kept frame, {}% of full decoding",
+                            sampling, frames, wall / 1_000_000, String.format("%.1f", cpu / 1e6 / seconds),
+                            String.format("%.2f", cpu / 1e6 / Math.max(frames, 1)), Math.round(100.0 * cpu / fullCpu));
+                }
+            }
+        }
+    }
+}
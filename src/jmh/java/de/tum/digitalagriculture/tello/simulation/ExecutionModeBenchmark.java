@@ -0,0 +1,145 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.commanders.PathCommander;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.streams.StreamHandler;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the {@link FlightController.ExecutionMode}s with many concurrent sessions against a {@link StandInDrone}.
+ * Every session starts a stream, executes a mission and stops the stream. All sessions share one executor with 8
+ * threads, like the main methods of the commanders
+ */
+public class ExecutionModeBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionModeBenchmark.class);
+    private static final int POOL_SIZE = 8;
+    private static final long IDLE_NANOS = 1_000_000;
+
+    /**
+     * First argument: number of sessions, second argument: motion commands per session, third argument: motion delay
+     * in ms
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var sessions = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        var moves = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        var delay = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        @Cleanup var drone = new StandInDrone(delay, TimeUnit.MILLISECONDS);
+        var threads = ManagementFactory.getThreadMXBean();
+        for (var mode : FlightController.ExecutionMode.values()) {
+            var baseline = threads.getThreadCount();
+            threads.resetPeakThreadCount();
+            var executor = new ScheduledThreadPoolExecutor(POOL_SIZE);
+            var controllers = new ArrayList<FlightController<Void, IdleStream>>(sessions);
+            for (int i = 0; i < sessions; i++) {
+                controllers.add(FlightController.<Void, IdleStream>builder()
+                        .ip("127.0.0.1")
+                        .port(drone.getAddress().getPort())
+                        .commandPort(0)
+                        .statusPort(0)
+                        .executor(executor)
+                        .streamHandler(new IdleStreamHandler())
+                        .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                        .executionMode(mode)
+                        .build());
+            }
+
+            var durations = new long[sessions];
+            var missions = new CompletableFuture<?>[sessions];
+            var start = System.nanoTime();
+            for (int i = 0; i < sessions; i++) {
+                var session = i;
+                missions[i] = controllers.get(i).run(mission(moves))
+                        .thenRun(() -> durations[session] = System.nanoTime() - start);
+            }
+            CompletableFuture.allOf(missions).join();
+            var elapsed = System.nanoTime() - start;
+            var peak = threads.getPeakThreadCount();
+
+            var closing = System.nanoTime();
+            for (var controller : controllers) {
+                controller.close();
+            }
+            var shutdown = System.nanoTime() - closing;
+
+            Arrays.sort(durations);
+            logger.info("{}: {} sessions in {} ms, session p50 {} ms, p99 {} ms, peak platform threads {} (+{}), shutdown {} ms",
+                    mode, sessions, elapsed / 1_000_000, durations[sessions / 2] / 1_000_000,
+                    durations[(int) (sessions * 0.99)] / 1_000_000, peak, peak - baseline, shutdown / 1_000_000);
+        }
+        logger.info("A single session needs at least {} ms", (moves + 2) * delay);
+    }
+
+    /**
+     * Start the stream, alternate between motion commands and queries and stop the stream
+     */
+    private static PathCommander mission(int moves) {
+        var commands = new ArrayList<Commands.Command>();
+        commands.add(Commands.StreamOn.INSTANCE);
+        for (int i = 0; i < moves; i++) {
+            commands.add(new Commands.Forward(20));
+            commands.add(Commands.ReadBattery.INSTANCE);
+        }
+        commands.add(Commands.StreamOff.INSTANCE);
+        return new PathCommander(commands.toArray(Commands.Command[]::new));
+    }
+
+    /**
+     * Stands in for a decoder: the capture loop blocks its thread until the stream is stopped
+     */
+    private static final class IdleStreamHandler implements StreamHandler<IdleStream> {
+        private IdleStream stream;
+
+        @Override
+        public IdleStream startStream(String streamUrl) {
+            stream = new IdleStream();
+            return stream;
+        }
+
+        @Override
+        public Boolean hasActiveStream() {
+            return stream != null && stream.isActive.get();
+        }
+
+        @Override
+        public void stopStream() {
+            if (stream != null) {
+                stream.isActive.set(false);
+            }
+        }
+    }
+
+    private static final class IdleStream implements StreamHandler.Stream<Void> {
+        private final AtomicBoolean isActive = new AtomicBoolean(true);
+
+        @Override
+        public void capture() {
+            while (isActive.get()) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+
+        @Override
+        public Void getData() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            isActive.set(false);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.analysis.FrameAnalysisEngine;
+import de.tum.digitalagriculture.tello.analysis.FrameMetricsFile;
+import de.tum.digitalagriculture.tello.streams.FrameRing;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_imgproc.GaussianBlur;
+import static org.bytedeco.opencv.global.opencv_imgproc.LINE_8;
+import static org.bytedeco.opencv.global.opencv_imgproc.circle;
+
+/**
+ * Renders a synthetic flight along crop rows, with hovering and blurred stretches, and analyses it with the
+ * {@link FrameAnalysisEngine}: from the video file with 1 up to 2 workers per processor, and from a {@link FrameRing}
+ * holding the last 3s
+ */
+public class FrameAnalysisBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(FrameAnalysisBenchmark.class);
+    private static final int WIDTH = 960;
+    private static final int HEIGHT = 720;
+    private static final int FPS = 30;
+    private static final int ROW_SPACING = 120;
+    private static final int PLANT_SPACING = 60;
+    private static final int RING_CAPACITY = 3 * FPS;
+
+    /**
+     * First argument: number of frames of the clip
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var frames = args.length > 0 ? Integer.parseInt(args[0]) : 900;
+        // the workers run the operations of a frame on one thread each
+        opencv_core.setNumThreads(1);
+        var video = Files.createTempFile("tello-field", ".mkv");
+        var output = Files.createTempFile("tello-field", ".metrics");
+        render(video, frames);
+        logger.info("Rendered {} frames of {}x{} to {} ({} KB)", frames, WIDTH, HEIGHT, video, Files.size(video) / 1024);
+
+        var processors = Runtime.getRuntime().availableProcessors();
+        for (var parallelism = 1; parallelism <= 2 * processors; parallelism *= 2) {
+            @Cleanup var engine = FrameAnalysisEngine.builder().parallelism(parallelism).build();
+            // the first run warms up the JIT and allocates the scratch buffers
+            engine.analyze(video.toString(), output);
+            logger.info("Video, {} processors: {}", processors, engine.analyze(video.toString(), output));
+        }
+
+        // like a StreamArray, the ring keeps the latest frames
+        @Cleanup var ring = new FrameRing(RING_CAPACITY, FrameRing.OverflowPolicy.DROP_OLDEST);
+        fill(ring, video);
+        @Cleanup var engine = FrameAnalysisEngine.builder().parallelism(processors).build();
+        logger.info("Ring, {} processors: {}", processors, engine.analyze(ring, output));
+
+        var metrics = FrameMetricsFile.read(output);
+        var duplicates = 0;
+        var blurred = 0;
+        var vegetation = 0.0;
+        var sharpness = new float[metrics.size()];
+        for (int row = 0; row < metrics.size(); row++) {
+            duplicates += metrics.isDuplicate(row) ? 1 : 0;
+            vegetation += metrics.vegetation(row);
+            sharpness[row] = metrics.sharpness(row);
+        }
+        var median = sharpness.clone();
+        Arrays.sort(median);
+        for (var value : sharpness) {
+            blurred += value < median[median.length / 2] / 2 ? 1 : 0;
+        }
+        logger.info("Read {} rows from {} ({} KB): {} duplicates, {} blurred, {}% vegetation", metrics.size(), output,
+                Files.size(output) / 1024, duplicates, blurred, Math.round(100 * vegetation / metrics.size()));
+        Files.delete(video);
+        Files.delete(output);
+    }
+
+    /**
+     * The drone flies along the rows for 3s, hovers for 1s and flies on with a shaky, blurred camera for 1s. The clip
+     * is encoded with H.264 at 30 fps with a key frame every second
+     *
+     * @param path path of the Matroska file
+     * @param frames number of frames
+     */
+    @SneakyThrows
+    static void render(Path path, int frames) {
+        var converter = new OpenCVFrameConverter.ToMat();
+        try (var frame = new Mat(HEIGHT, WIDTH, CV_8UC3);
+             var blurred = new Mat(HEIGHT, WIDTH, CV_8UC3);
+             var kernel = new Size(21, 21);
+             var recorder = new FFmpegFrameRecorder(path.toFile(), WIDTH, HEIGHT)) {
+            recorder.setFormat("matroska");
+            recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
+            recorder.setFrameRate(FPS);
+            recorder.setGopSize(FPS);
+            recorder.setVideoOption("preset", "ultrafast");
+            recorder.start();
+            var soil = new Scalar(40, 75, 115, 0);
+            var plant = new Scalar(45, 165, 70, 0);
+            var center = new Point();
+            var offset = 0;
+            for (int i = 0; i < frames; i++) {
+                var phase = i % (5 * FPS);
+                if (phase < 3 * FPS || phase >= 4 * FPS) {
+                    offset += 6;
+                }
+                draw(frame, offset, soil, plant, center);
+                if (phase >= 4 * FPS) {
+                    GaussianBlur(frame, blurred, kernel, 0);
+                    recorder.record(converter.convert(blurred));
+                } else {
+                    recorder.record(converter.convert(frame));
+                }
+            }
+            recorder.stop();
+        }
+    }
+
+    /**
+     * Rows of plants whose size varies along the row, scrolling down by {@code offset} pixels
+     */
+    private static void draw(Mat frame, int offset, Scalar soil, Scalar plant, Point center) {
+        frame.put(soil);
+        var first = Math.floorDiv(-offset, PLANT_SPACING) - 1;
+        for (int x = ROW_SPACING / 2; x < WIDTH; x += ROW_SPACING) {
+            for (int k = first; k * PLANT_SPACING + offset < HEIGHT + PLANT_SPACING; k++) {
+                var seed = k * 31 + x * 17;
+                var radius = 12 + Math.floorMod(seed * 2654435761L, 16);
+                var jitter = Math.floorMod(seed * 40503L, 21) - 10;
+                circle(frame, center.x(x + jitter).y(k * PLANT_SPACING + offset), radius, plant, -1, LINE_8, 0);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static void fill(FrameRing ring, Path video) {
+        var converter = new OpenCVFrameConverter.ToMat();
+        try (var grabber = new FFmpegFrameGrabber(video.toFile())) {
+            grabber.start();
+            for (var frame = grabber.grabImage(); frame != null; frame = grabber.grabImage()) {
+                ring.offer(converter.convert(frame));
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.controllers.CommandPolicy;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.controllers.Result;
+import de.tum.digitalagriculture.tello.streams.StreamDisplay;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flies against a {@link StandInDrone} over an emulated noisy link and reports the tail latencies of the commands.
+ * Queries of different types are mixed, so a response that is attributed to the wrong query shows up as a wrong
+ * reading
+ */
+public class LossyLinkBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(LossyLinkBenchmark.class);
+    private static final Commands.Command[] QUERIES = {Commands.ReadBattery.INSTANCE, Commands.ReadSpeed.INSTANCE, Commands.ReadWifi.INSTANCE};
+    private static final int[] READINGS = {87, 100, 90};
+
+    /**
+     * First argument: number of queries and motion commands, second argument: loss probability, third argument:
+     * maximum jitter in ms
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var commands = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        var loss = args.length > 1 ? Double.parseDouble(args[1]) : 0.05;
+        var jitter = args.length > 2 ? Long.parseLong(args[2]) : 40;
+        @Cleanup var drone = new StandInDrone(5, TimeUnit.MILLISECONDS);
+        // deadlines above the latency of the link, so only lost datagrams cause retries
+        var policy = CommandPolicy.builder()
+                .queryTimeout(Duration.ofMillis(jitter + 20))
+                .controlTimeout(Duration.ofMillis(100))
+                .motionTimeout(Duration.ofMillis(50))
+                .retryBackoff(Duration.ofMillis(5))
+                .staleWindow(Duration.ofMillis(jitter + 10))
+                .build();
+        var executor = new ScheduledThreadPoolExecutor(1);
+        @Cleanup var controller = FlightController.<Void, StreamDisplay.Stream>builder()
+                .ip("127.0.0.1")
+                .port(drone.getAddress().getPort())
+                .commandPort(0)
+                .statusPort(0)
+                .executor(executor)
+                .streamHandler(new StreamDisplay())
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .commandPolicy(policy)
+                .build();
+        drone.setLoss(loss);
+        drone.setLatency(1, jitter, TimeUnit.MILLISECONDS);
+
+        var queryLatencies = new long[commands];
+        var queryErrors = 0;
+        var wrongReadings = 0;
+        for (int i = 0; i < commands; i++) {
+            var query = i % QUERIES.length;
+            var start = System.nanoTime();
+            var result = controller.sendAndRecv(QUERIES[query]);
+            queryLatencies[i] = System.nanoTime() - start;
+            if (result.result() != Result.ResultEnum.READING) {
+                queryErrors++;
+            } else if (result.reading() != READINGS[query]) {
+                wrongReadings++;
+            }
+        }
+
+        var motionLatencies = new long[commands];
+        var motionErrors = 0;
+        for (int i = 0; i < commands; i++) {
+            var start = System.nanoTime();
+            var result = controller.sendAndRecv(i % 2 == 0 ? new Commands.Forward(20) : new Commands.Back(20));
+            motionLatencies[i] = System.nanoTime() - start;
+            if (result.result() != Result.ResultEnum.OK) {
+                motionErrors++;
+            }
+        }
+
+        logger.info("Link: {} loss, 1-{} ms latency, {} datagrams dropped", loss, jitter + 1, drone.getDropped());
+        logger.info("Queries: {} failed, {} wrong readings, {}", queryErrors, wrongReadings, percentiles(queryLatencies));
+        logger.info("Motions: {} failed, {}", motionErrors, percentiles(motionLatencies));
+    }
+
+    private static String percentiles(long[] latencies) {
+        Arrays.sort(latencies);
+        var n = latencies.length;
+        return String.format("p50 %.1f ms, p99 %.1f ms, max %.1f ms", latencies[n / 2] / 1e6,
+                latencies[Math.min(n - 1, (int) (n * 0.99))] / 1e6, latencies[n - 1] / 1e6);
+    }
+}
@@ -0,0 +1,78 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.controllers.Result;
+import de.tum.digitalagriculture.tello.streams.StreamDisplay;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the blocking {@link FlightController#sendAndRecv} path with pipelined {@link FlightController#submit}
+ * calls against a {@link StandInDrone}
+ */
+public class PipeliningBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(PipeliningBenchmark.class);
+    private static final int WINDOW = 32;
+    private static final int MOTION_SAMPLES = 10;
+
+    /**
+     * First argument: number of commands, second argument: motion delay in ms
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var commands = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        var delay = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        @Cleanup var drone = new StandInDrone(delay, TimeUnit.MILLISECONDS);
+        var executor = new ScheduledThreadPoolExecutor(2);
+        @Cleanup var controller = FlightController.<Void, StreamDisplay.Stream>builder()
+                .ip("127.0.0.1")
+                .port(drone.getAddress().getPort())
+                .commandPort(0)
+                .statusPort(0)
+                .executor(executor)
+                .streamHandler(new StreamDisplay())
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .build();
+
+        // Blocking: every query waits for the previous command
+        var start = System.nanoTime();
+        for (int i = 0; i < commands; i++) {
+            controller.sendAndRecv(Commands.ReadBattery.INSTANCE);
+        }
+        var blocking = System.nanoTime() - start;
+
+        // Pipelined: up to WINDOW queries are in flight at the same time
+        start = System.nanoTime();
+        var futures = new ArrayDeque<CompletableFuture<Result>>(WINDOW);
+        for (int i = 0; i < commands; i++) {
+            if (futures.size() == WINDOW) {
+                futures.poll().join();
+            }
+            futures.add(controller.submit(Commands.ReadBattery.INSTANCE));
+        }
+        futures.forEach(CompletableFuture::join);
+        var pipelined = System.nanoTime() - start;
+
+        // Query latency while a motion command is in flight
+        var queryDuringMotion = 0L;
+        for (int i = 0; i < MOTION_SAMPLES; i++) {
+            var motion = controller.submit(new Commands.Forward(100));
+            start = System.nanoTime();
+            controller.sendAndRecv(Commands.ReadBattery.INSTANCE);
+            queryDuringMotion += System.nanoTime() - start;
+            motion.join();
+        }
+
+        logger.info("Blocking:  {} queries in {} ms ({} us/query)", commands, blocking / 1_000_000, blocking / 1000 / commands);
+        logger.info("Pipelined: {} queries in {} ms ({} us/query)", commands, pipelined / 1_000_000, pipelined / 1000 / commands);
+        logger.info("Query during a {} ms motion command: {} us", delay, queryDuringMotion / 1000 / MOTION_SAMPLES);
+    }
+}
@@ -0,0 +1,101 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.commanders.PathCommander;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import de.tum.digitalagriculture.tello.streams.FrameProcessor;
+import de.tum.digitalagriculture.tello.streams.FrameRing;
+import de.tum.digitalagriculture.tello.streams.ProcessingStage;
+import de.tum.digitalagriculture.tello.streams.StreamArray;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Flies a mission against the {@link DroneSimulator} with a {@link ProcessingStage} on the video stream whose processor
+ * is slower than the frame rate, and compares the frames the grabber captured with the frames that were processed
+ */
+public class ProcessingBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingBenchmark.class);
+
+    /**
+     * First argument: how long the processor takes per frame in ms, second argument: number of workers
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var delay = args.length > 0 ? Long.parseLong(args[0]) : 100;
+        var workers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        @Cleanup var simulator = DroneSimulator.builder().commandPort(0).timeScale(2.0).video(true).build();
+        @Cleanup var stage = new ProcessingStage<>("markers", workers, () -> new MarkerColumn(TimeUnit.MILLISECONDS.toNanos(delay)));
+        var results = new AtomicInteger();
+        // stands in for a commander that steers along the detected rows
+        stage.subscribe(result -> {
+            if (results.incrementAndGet() % 20 == 0) {
+                logger.info("Frame {}: brightest column {}, {} ms after grabbing", result.frame(), result.value(),
+                        TimeUnit.NANOSECONDS.toMillis(result.latencyNanos()));
+            }
+        });
+        var handler = new StreamArray(30, FrameRing.OverflowPolicy.DROP_OLDEST);
+        handler.setProcessor(stage);
+        var executor = new ScheduledThreadPoolExecutor(2);
+        var controller = FlightController.<FrameRing, StreamArray.Stream>builder()
+                .ip("127.0.0.1")
+                .port(simulator.getAddress().getPort())
+                .executor(executor)
+                .streamHandler(handler)
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .build();
+        controller.run(new PathCommander(new Commands.Command[]{
+                Commands.TakeOff.INSTANCE,
+                Commands.StreamOn.INSTANCE,
+                new Commands.Forward(200),
+                new Commands.ClockWise(90),
+                new Commands.Forward(200),
+                Commands.StreamOff.INSTANCE,
+                Commands.Land.INSTANCE
+        })).join();
+        var registry = MetricsRegistry.global();
+        logger.info("Grabbed {} frames, dropped {}, {}", registry.get("stream.array.grabbed"),
+                registry.get("stream.array.dropped"), registry.get("stream.array.total"));
+        logger.info("{} workers at {} ms per frame: {}, {}, {}, {}, {}", workers, delay, stage.getProcessed(),
+                stage.getSkipped(), stage.getDiscarded(), stage.getLatency(), stage.getProcessing());
+        controller.close();
+    }
+
+    /**
+     * Finds the column with the most bright marker pixels, e.g. where a crop row would be
+     */
+    private static final class MarkerColumn implements FrameProcessor<Integer> {
+        private final long delayNanos;
+        private final Mat gray = new Mat();
+        private final Mat mask = new Mat();
+        private final Mat columns = new Mat();
+        private final int[] location = new int[2];
+
+        private MarkerColumn(long delayNanos) {
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        public Integer process(Mat frame, long grabbedAt) {
+            cvtColor(frame, gray, COLOR_BGR2GRAY);
+            threshold(gray, mask, 200, 1, THRESH_BINARY);
+            reduce(mask, columns, 0, REDUCE_SUM, CV_32S);
+            minMaxIdx(columns, null, null, null, location, null);
+            // stands in for a heavier model
+            LockSupport.parkNanos(delayNanos);
+            return location[1];
+        }
+    }
+}
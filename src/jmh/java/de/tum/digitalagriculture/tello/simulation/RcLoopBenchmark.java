@@ -0,0 +1,82 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.streams.StreamDisplay;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the send jitter of the {@link de.tum.digitalagriculture.tello.controllers.RcLoop} against a
+ * {@link StandInDrone}. A control thread updates the setpoint much faster than the loop sends it, while motion
+ * commands and queries are executed at the same time
+ */
+public class RcLoopBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(RcLoopBenchmark.class);
+    private static final long CONTROL_PERIOD_MICROS = 2_000;
+
+    /**
+     * First argument: seconds per rate, further arguments: rates in Hz
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        var rates = new int[Math.max(args.length - 1, 2)];
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                rates[i - 1] = Integer.parseInt(args[i]);
+            }
+        } else {
+            rates[0] = 20;
+            rates[1] = 50;
+        }
+        @Cleanup var drone = new StandInDrone(20, TimeUnit.MILLISECONDS);
+        var executor = new ScheduledThreadPoolExecutor(1);
+        @Cleanup var controller = FlightController.<Void, StreamDisplay.Stream>builder()
+                .ip("127.0.0.1")
+                .port(drone.getAddress().getPort())
+                .commandPort(0)
+                .statusPort(0)
+                .executor(executor)
+                .streamHandler(new StreamDisplay())
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .build();
+
+        for (var rate : rates) {
+            var received = drone.getRcReceived();
+            var rc = controller.startRcLoop(rate, 500);
+            var running = new AtomicBoolean(true);
+            var control = new Thread(() -> {
+                var step = 0;
+                while (running.get()) {
+                    var angle = step++ * CONTROL_PERIOD_MICROS / 1e6 * Math.PI;
+                    rc.set((int) (50 * Math.sin(angle)), 30, 0, (int) (20 * Math.cos(angle)));
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(CONTROL_PERIOD_MICROS));
+                }
+            }, "control");
+            control.start();
+            var end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            var commands = 0;
+            while (System.nanoTime() < end) {
+                controller.submit(Commands.ReadBattery.INSTANCE);
+                controller.sendAndRecv(new Commands.Forward(20));
+                commands += 2;
+            }
+            running.set(false);
+            control.join();
+            rc.close();
+            var jitter = rc.getJitter();
+            logger.info("{} Hz: {} ticks, {} received, {} missed, lateness mean {} us, p99 {} us, max {} us, {} other commands",
+                    rate, jitter.ticks(), drone.getRcReceived() - received, jitter.missed(),
+                    String.format("%.1f", jitter.meanMicros()), String.format("%.0f", jitter.p99Micros()),
+                    String.format("%.0f", jitter.maxMicros()), commands);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.commanders.PathCommander;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.controllers.FlightJournal;
+import de.tum.digitalagriculture.tello.controllers.RecordingController;
+import de.tum.digitalagriculture.tello.controllers.ReplayController;
+import de.tum.digitalagriculture.tello.streams.StreamWriter;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records a mission against the {@link DroneSimulator} and plays the journal back: once with the same commander
+ * against the {@link ReplayController}, once into a faster simulator as fast as possible
+ */
+public class ReplayBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayBenchmark.class);
+
+    private static Commands.Command[] mission() {
+        return new Commands.Command[]{
+                Commands.TakeOff.INSTANCE,
+                new Commands.Forward(200),
+                Commands.ReadBattery.INSTANCE,
+                new Commands.ClockWise(90),
+                new Commands.Forward(200),
+                new Commands.Up(50),
+                Commands.ReadBattery.INSTANCE,
+                new Commands.Go(-100, 50, -50, 50),
+                Commands.Land.INSTANCE
+        };
+    }
+
+    /**
+     * First argument: time scale of the simulator, second argument: speed of the replay with the commander
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var timeScale = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        var speed = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        var path = Files.createTempFile("tello-flight", ".journal");
+        @Cleanup var simulator = DroneSimulator.builder().commandPort(0).timeScale(timeScale).build();
+        var controller = controller(simulator);
+        var start = System.nanoTime();
+        try (var recorder = new RecordingController(controller, FlightJournal.create(path), controller.getTelemetry())) {
+            new PathCommander(mission()).forEachRemaining(recorder);
+        }
+        var recorded = System.nanoTime() - start;
+        controller.close();
+        var entries = FlightJournal.read(path);
+        logger.info("Recorded {} records in {} ms to {} ({} bytes)", entries.size(), TimeUnit.NANOSECONDS.toMillis(recorded),
+                path, Files.size(path));
+
+        var samples = new AtomicInteger();
+        var standIn = new ReplayController(entries, speed);
+        standIn.subscribe(sample -> samples.incrementAndGet());
+        start = System.nanoTime();
+        new PathCommander(mission()).forEachRemaining(standIn);
+        logger.info("Replayed the mission at {}x in {} ms: {} commands, {} differing, {} state samples", speed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), standIn.getCommands(), standIn.getMismatches(), samples.get());
+
+        // the same flight against a simulator that runs 50 times faster than real time
+        @Cleanup var fast = DroneSimulator.builder().commandPort(0).timeScale(50.0).build();
+        @Cleanup var target = controller(fast);
+        var summary = ReplayController.open(path, ReplayController.AS_FAST_AS_POSSIBLE).replay(target);
+        logger.info("Replayed the journal into a fast simulator in {} ms: {}", TimeUnit.NANOSECONDS.toMillis(summary.elapsedNanos()), summary);
+    }
+
+    @SneakyThrows
+    private static FlightController<String, StreamWriter.Stream> controller(DroneSimulator simulator) {
+        return FlightController.<String, StreamWriter.Stream>builder()
+                .ip("127.0.0.1")
+                .port(simulator.getAddress().getPort())
+                .executor(new ScheduledThreadPoolExecutor(1))
+                .streamHandler(new StreamWriter(Files.createTempFile("tello-flight", ".mkv").toString(), StreamWriter.Mode.REMUX))
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .build();
+    }
+}
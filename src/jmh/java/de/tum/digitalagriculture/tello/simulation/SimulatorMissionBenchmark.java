@@ -0,0 +1,65 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.commanders.PathCommander;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import de.tum.digitalagriculture.tello.streams.StreamWriter;
+import de.tum.digitalagriculture.tello.telemetry.TelemetrySample;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Flies a mission with a {@link FlightController} against the {@link DroneSimulator} and records its synthetic stream
+ */
+public class SimulatorMissionBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(SimulatorMissionBenchmark.class);
+
+    /**
+     * First argument: time scale, second argument: output file
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var timeScale = args.length > 0 ? Double.parseDouble(args[0]) : 4;
+        var output = args.length > 1 ? args[1] : Files.createTempFile("tello-simulator", ".mkv").toString();
+        // the controller binds the local command port 8889, so the simulator uses an ephemeral port on the same host
+        @Cleanup var simulator = DroneSimulator.builder().commandPort(0).timeScale(timeScale).video(true).build();
+        var executor = new ScheduledThreadPoolExecutor(2);
+        var controller = FlightController.<String, StreamWriter.Stream>builder()
+                .ip("127.0.0.1")
+                .port(simulator.getAddress().getPort())
+                .executor(executor)
+                .streamHandler(new StreamWriter(output, StreamWriter.Mode.REMUX))
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .build();
+        var start = System.nanoTime();
+        controller.run(new PathCommander(new Commands.Command[]{
+                Commands.TakeOff.INSTANCE,
+                Commands.StreamOn.INSTANCE,
+                new Commands.Forward(100),
+                new Commands.ClockWise(90),
+                new Commands.Forward(100),
+                new Commands.Up(50),
+                Commands.ReadBattery.INSTANCE,
+                new Commands.Go(-50, 50, -50, 50),
+                Commands.StreamOff.INSTANCE,
+                Commands.Land.INSTANCE
+        })).join();
+        var elapsed = System.nanoTime() - start;
+        var sample = new TelemetrySample();
+        controller.getTelemetry().getLatest(sample);
+        logger.info("Mission took {} ms, simulator state {}", elapsed / 1_000_000, simulator.getState());
+        logger.info("Telemetry: {} samples, h {} cm, yaw {}, battery {}%", controller.getTelemetry().getReceived(),
+                sample.getH(), sample.getYaw(), sample.getBat());
+        logger.info("Recorded the synthetic stream to {}, it is finalized once the stream timed out", output);
+        var metrics = Files.createTempFile("tello-metrics", ".tsv");
+        MetricsRegistry.global().dump(metrics);
+        logger.info("Dumped the metrics to {}", metrics);
+        controller.close();
+    }
+}
@@ -0,0 +1,155 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.streams.StreamWriter;
+import lombok.SneakyThrows;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.net.DatagramSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records a stream with a {@link StreamWriter} in both {@link StreamWriter.Mode}s and logs the process CPU time per
+ * recorded minute. A recorded clip is afterwards replayed over UDP at its frame rate, like the drone sends its stream,
+ * into a transcoding writer to count the frames the writer drops
+ */
+public class StreamWriterBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(StreamWriterBenchmark.class);
+    /**
+     * Time the writer gets to bind its socket before the replay starts
+     */
+    private static final long REPLAY_DELAY_MILLIS = 1000;
+    private static final long CPU_SAMPLE_NANOS = 10_000_000;
+    private static final String ENCODER_THREAD = "tello-stream-encoder";
+
+    /**
+     * First argument: url or file of the H.264 stream, e.g. {@code udp://0.0.0.0:11111} for the drone. Without it a
+     * synthetic 60s clip is rendered. Second argument: output directory
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        String url;
+        if (args.length > 0) {
+            url = args[0];
+        } else {
+            var path = Files.createTempFile("tello-writer", ".mkv");
+            path.toFile().deleteOnExit();
+            FrameAnalysisBenchmark.render(path, 1800);
+            url = path.toString();
+        }
+        var directory = args.length > 1 ? args[1] : "/tmp";
+        var os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        var executor = Executors.newSingleThreadExecutor();
+        for (var mode : StreamWriter.Mode.values()) {
+            var writer = new StreamWriter(String.format("%s/benchmark-%s.%s", directory, mode.name().toLowerCase(), mode == StreamWriter.Mode.REMUX ? "mkv" : "avi"), mode);
+            var cpuStart = os.getProcessCpuTime();
+            var start = System.nanoTime();
+            var stream = writer.startStream(url);
+            executor.submit(stream::capture).get();
+            var seconds = stream.getRecordedFrames() / stream.getFps();
+            var cpu = os.getProcessCpuTime() - cpuStart;
+            logger.info("{}: {} frames ({} s of video) in {} ms wall time, {} ms CPU per recorded minute", mode,
+                    stream.getRecordedFrames(), String.format("%.1f", seconds), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    String.format("%.0f", cpu / 1e6 / (seconds / 60)));
+            writer.close();
+        }
+        executor.shutdown();
+        if (Files.isRegularFile(Path.of(url))) {
+            replay(url, directory);
+        }
+    }
+
+    /**
+     * Send {@code clip} over UDP in real time to a transcoding {@link StreamWriter} and log what the writer grabbed,
+     * dropped and wrote
+     */
+    @SneakyThrows
+    private static void replay(String clip, String directory) {
+        int port;
+        try (var socket = new DatagramSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        // opened before the writer, grabbers are started under a global lock that the writer holds until data arrives
+        try (var grabber = new FFmpegFrameGrabber(clip)) {
+            grabber.start();
+            try (var recorder = new FFmpegFrameRecorder("udp://127.0.0.1:" + port + "?pkt_size=1460", grabber.getImageWidth(), grabber.getImageHeight())) {
+                recorder.setFormat("h264");
+                recorder.setFrameRate(grabber.getVideoFrameRate());
+                recorder.start(grabber.getFormatContext());
+                var sent = new AtomicLong();
+                var sender = new Thread(() -> send(grabber, recorder, sent), "tello-replay");
+                sender.start();
+                var threads = ManagementFactory.getThreadMXBean();
+                var grabberCpu = threads.getCurrentThreadCpuTime();
+                var writer = new StreamWriter(directory + "/benchmark-replay.avi");
+                var stream = writer.startStream("udp://0.0.0.0:" + port);
+                var encoderCpu = new AtomicLong();
+                var sampler = sampleCpu(ENCODER_THREAD, encoderCpu);
+                // returns once the grabber timed out after the end of the replay
+                stream.capture();
+                grabberCpu = threads.getCurrentThreadCpuTime() - grabberCpu;
+                sender.join();
+                sampler.join();
+                var grab = stream.getGrabCounters();
+                var grabbed = grab.getProcessed() + grab.getDropped() + 1;
+                // raw H.264 carries no frame rate, the writer falls back to 25 fps
+                logger.info("Replayed {} frames at {} fps: the writer grabbed {}, dropped {} and wrote {} frames; {}, {}",
+                        sent.get(), grabber.getVideoFrameRate(), grabbed, grab.getDropped(),
+                        stream.getRecordedFrames(), grab, stream.getEncodeCounters());
+                // with a core per thread the writer keeps up if both stay below the frame interval
+                logger.info("CPU per frame: {} ms grabbing, decoding and converting, {} ms encoding; frame interval {} ms",
+                        String.format("%.1f", grabberCpu / 1e6 / grabbed),
+                        String.format("%.1f", encoderCpu.get() / 1e6 / stream.getRecordedFrames()),
+                        String.format("%.1f", 1e3 / grabber.getVideoFrameRate()));
+                writer.close();
+                recorder.stop();
+            }
+        }
+    }
+
+    /**
+     * Sample the CPU time of the thread named {@code name} until it terminates
+     *
+     * @param name name of the thread
+     * @param cpu set to the last sampled CPU time in ns
+     * @return the sampling thread
+     */
+    private static Thread sampleCpu(String name, AtomicLong cpu) {
+        var target = Thread.getAllStackTraces().keySet().stream().filter(thread -> thread.getName().equals(name))
+                .findFirst().orElseThrow();
+        var threads = ManagementFactory.getThreadMXBean();
+        var sampler = new Thread(() -> {
+            for (var time = threads.getThreadCpuTime(target.threadId()); time >= 0; time = threads.getThreadCpuTime(target.threadId())) {
+                cpu.set(time);
+                LockSupport.parkNanos(CPU_SAMPLE_NANOS);
+            }
+        }, "tello-cpu-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+        return sampler;
+    }
+
+    /**
+     * Copy the packets of {@code grabber} to {@code recorder} at the frame rate of the clip, without re-encoding them
+     */
+    @SneakyThrows
+    private static void send(FFmpegFrameGrabber grabber, FFmpegFrameRecorder recorder, AtomicLong sent) {
+        Thread.sleep(REPLAY_DELAY_MILLIS);
+        var period = (long) (1e9 / grabber.getVideoFrameRate());
+        var next = System.nanoTime();
+        for (var packet = grabber.grabPacket(); packet != null; packet = grabber.grabPacket()) {
+            recorder.recordPacket(packet);
+            sent.incrementAndGet();
+            next += period;
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+    }
+}
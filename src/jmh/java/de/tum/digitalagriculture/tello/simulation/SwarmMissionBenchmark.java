@@ -0,0 +1,59 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.commanders.PathCommander;
+import de.tum.digitalagriculture.tello.controllers.Result;
+import de.tum.digitalagriculture.tello.controllers.SwarmController;
+import lombok.Cleanup;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flies the same mission with every drone of a {@link StandInSwarm} at once through one {@link SwarmController}
+ */
+public class SwarmMissionBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(SwarmMissionBenchmark.class);
+
+    /**
+     * First argument: number of drones, second argument: motion delay in ms
+     */
+    @SneakyThrows
+    public static void main(String[] args) {
+        var size = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        var delay = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        @Cleanup var swarm = new StandInSwarm(size, delay, TimeUnit.MILLISECONDS);
+        @Cleanup var controller = SwarmController.builder().drones(swarm.getAddresses()).localPort(0).build();
+        var executor = Executors.newFixedThreadPool(2);
+        var mission = new Commands.Command[]{
+                Commands.Init.INSTANCE,
+                Commands.TakeOff.INSTANCE,
+                new Commands.Up(50),
+                new Commands.Forward(100),
+                new Commands.ClockWise(180),
+                new Commands.Forward(100),
+                new Commands.CounterClockWise(180),
+                Commands.Land.INSTANCE,
+        };
+        var commanders = new ArrayList<PathCommander>(size);
+        for (int i = 0; i < size; i++) {
+            commanders.add(new PathCommander(mission));
+        }
+        var threads = ManagementFactory.getThreadMXBean();
+        var start = System.nanoTime();
+        var results = controller.run(commanders, executor).join();
+        var elapsed = System.nanoTime() - start;
+        var failed = results.stream().flatMap(List::stream).filter(result -> result.result() == Result.ResultEnum.ERROR).count();
+        executor.shutdown();
+
+        logger.info("{} drones flew {} commands each in {} ms, {} failed", size, mission.length, elapsed / 1_000_000, failed);
+        logger.info("A single drone needs at least {} ms for the mission", (mission.length - 1) * delay);
+        logger.info("Live threads: {} ({} of them stand-ins)", threads.getThreadCount(), 2 * size);
+    }
+}
@@ -0,0 +1,321 @@
+package de.tum.digitalagriculture.tello.analysis;
+
+import de.tum.digitalagriculture.tello.streams.FrameRing;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batch engine that computes the {@link FrameMetrics} of recorded flight video and writes them to a
+ * {@link FrameMetricsFile}.
+ * <p>
+ * Frames are decoded on the calling thread into a batch of pooled {@link Mat}s while the previous batch is analysed
+ * by a {@link ForkJoinPool}, which splits it recursively down to single frames. Every worker thread keeps its own
+ * {@link FrameAnalyzer} with its native scratch buffers. Once a batch is analysed, its frames are flagged as near
+ * duplicates in order, comparing their hashes with the last frame that was kept, and the batch is appended to the
+ * file as one row group.
+ * </p>
+ * <p>
+ * One video is analysed at a time. OpenCV parallelises some of the operations itself. With more than one worker its
+ * own threads only compete with the workers, so callers should limit them with {@code opencv_core.setNumThreads(1)}.
+ * </p>
+ */
+public class FrameAnalysisEngine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FrameAnalysisEngine.class);
+
+    /**
+     * Number of worker threads
+     *
+     * @return number of worker threads
+     */
+    @Getter
+    private final int parallelism;
+    /**
+     * Number of frames that are decoded before they are analysed
+     *
+     * @return number of frames per batch
+     */
+    @Getter
+    private final int batchSize;
+    /**
+     * Maximum number of differing hash bits of a near duplicate
+     *
+     * @return maximum number of differing hash bits of a near duplicate
+     */
+    @Getter
+    private final int duplicateDistance;
+    private final double vegetationThreshold;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<FrameAnalyzer> analyzer;
+    private final ConcurrentLinkedQueue<FrameAnalyzer> analyzers;
+    private final LongAdder analysisNanos;
+
+    /**
+     * @param parallelism number of worker threads. Defaults to the number of processors
+     * @param batchSize number of frames that are decoded before they are analysed. Defaults to 4 frames per worker
+     * @param vegetationThreshold excess green index above which a pixel counts as vegetation. Defaults to 0.1
+     * @param duplicateDistance maximum number of differing hash bits of a near duplicate. Defaults to 5
+     */
+    @Builder
+    public FrameAnalysisEngine(Integer parallelism, Integer batchSize, Double vegetationThreshold, Integer duplicateDistance) {
+        this.parallelism = Objects.requireNonNullElse(parallelism, Runtime.getRuntime().availableProcessors());
+        this.batchSize = Objects.requireNonNullElse(batchSize, 4 * this.parallelism);
+        this.vegetationThreshold = Objects.requireNonNullElse(vegetationThreshold, 0.1);
+        this.duplicateDistance = Objects.requireNonNullElse(duplicateDistance, 5);
+        if (this.parallelism <= 0 || this.batchSize <= 0) {
+            throw new IllegalArgumentException(String.format("Parallelism and batch size have to be positive but were %d and %d",
+                    this.parallelism, this.batchSize));
+        }
+        pool = new ForkJoinPool(this.parallelism);
+        analyzers = new ConcurrentLinkedQueue<>();
+        analyzer = ThreadLocal.withInitial(() -> {
+            var created = new FrameAnalyzer(this.vegetationThreshold);
+            analyzers.add(created);
+            return created;
+        });
+        analysisNanos = new LongAdder();
+    }
+
+    /**
+     * Analyse a recorded video, e.g. a file written by a {@link de.tum.digitalagriculture.tello.streams.StreamWriter}
+     *
+     * @param video path or URL of the video
+     * @param output path of the metrics file, an existing file is overwritten
+     * @return what was analysed
+     * @throws IOException failed to read the video or to write the metrics
+     */
+    public Summary analyze(@NonNull String video, @NonNull Path output) throws IOException {
+        var converter = new OpenCVFrameConverter.ToMat();
+        try (var grabber = new FFmpegFrameGrabber(video)) {
+            grabber.start();
+            return analyze(destination -> {
+                var frame = grabber.grabImage();
+                if (frame == null) {
+                    return -1;
+                }
+                // the converted Mat aliases the grabber's buffer which is reused for the next frame
+                converter.convert(frame).copyTo(destination);
+                return frame.timestamp;
+            }, output);
+        } finally {
+            converter.close();
+        }
+    }
+
+    /**
+     * Analyse the frames of a ring, e.g. the buffer of a {@link de.tum.digitalagriculture.tello.streams.StreamArray}.
+     * The ring is drained until it is empty; its frames carry no timestamps
+     *
+     * @param ring the ring
+     * @param output path of the metrics file, an existing file is overwritten
+     * @return what was analysed
+     * @throws IOException failed to write the metrics
+     */
+    public Summary analyze(@NonNull FrameRing ring, @NonNull Path output) throws IOException {
+        return analyze(destination -> ring.poll(frame -> frame.copyTo(destination)) ? 0 : -1, output);
+    }
+
+    private synchronized Summary analyze(Source source, Path output) throws IOException {
+        var start = System.nanoTime();
+        var analysisStart = analysisNanos.sum();
+        var batches = new Batch[]{new Batch(batchSize), new Batch(batchSize)};
+        var frames = 0L;
+        var duplicates = 0L;
+        var decodeNanos = 0L;
+        var lastKept = 0L;
+        try (var file = FrameMetricsFile.create(output)) {
+            ForkJoinTask<?> pending = null;
+            Batch pendingBatch = null;
+            for (var current = 0; ; current ^= 1) {
+                // decode the next batch while the workers analyse the previous one
+                var batch = batches[current];
+                var decodeStart = System.nanoTime();
+                batch.fill(source, frames);
+                decodeNanos += System.nanoTime() - decodeStart;
+                frames += batch.metrics.size;
+                if (pending != null) {
+                    pending.join();
+                    for (int row = 0; row < pendingBatch.metrics.size; row++) {
+                        var hash = pendingBatch.metrics.hash[row];
+                        var duplicate = pendingBatch.metrics.index[row] > 0 && Long.bitCount(hash ^ lastKept) <= duplicateDistance;
+                        pendingBatch.metrics.duplicate[row] = duplicate;
+                        if (duplicate) {
+                            duplicates++;
+                        } else {
+                            lastKept = hash;
+                        }
+                    }
+                    file.append(pendingBatch.metrics);
+                }
+                if (batch.metrics.size == 0) {
+                    break;
+                }
+                pending = pool.submit(new Analysis(batch, 0, batch.metrics.size));
+                pendingBatch = batch;
+            }
+        } catch (Exception exception) {
+            // the workers may still analyse the pending batch whose frames are released below
+            pool.awaitQuiescence(1, TimeUnit.MINUTES);
+            throw exception;
+        } finally {
+            for (var batch : batches) {
+                batch.release();
+            }
+        }
+        var summary = new Summary(frames, duplicates, parallelism, System.nanoTime() - start, decodeNanos,
+                analysisNanos.sum() - analysisStart);
+        logger.debug("Analysed frames to {}: {}", output, summary);
+        return summary;
+    }
+
+    /**
+     * Shut the workers down and release their scratch buffers
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Frame analysis workers did not terminate");
+                return;
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (var released = analyzers.poll(); released != null; released = analyzers.poll()) {
+            released.close();
+        }
+    }
+
+    /**
+     * Where the frames come from
+     */
+    @FunctionalInterface
+    private interface Source {
+        /**
+         * Copy the next frame into {@code destination}
+         *
+         * @param destination pooled frame that is reallocated if the size or type differs
+         * @return presentation timestamp of the frame in µs, 0 if it has none, negative at the end of the video
+         * @throws IOException failed to read the frame
+         */
+        long next(Mat destination) throws IOException;
+    }
+
+    /**
+     * Pooled frames and the metrics the workers write them to
+     */
+    private static final class Batch {
+        private final Mat[] frames;
+        private final FrameMetrics metrics;
+
+        private Batch(int size) {
+            frames = new Mat[size];
+            for (int i = 0; i < size; i++) {
+                frames[i] = new Mat();
+            }
+            metrics = new FrameMetrics(size);
+        }
+
+        private void fill(Source source, long firstIndex) throws IOException {
+            metrics.size = 0;
+            while (metrics.size < frames.length) {
+                var timestamp = source.next(frames[metrics.size]);
+                if (timestamp < 0) {
+                    return;
+                }
+                metrics.index[metrics.size] = firstIndex + metrics.size;
+                metrics.timestamp[metrics.size] = timestamp;
+                metrics.size++;
+            }
+        }
+
+        private void release() {
+            for (var frame : frames) {
+                frame.release();
+                frame.close();
+            }
+        }
+    }
+
+    /**
+     * Analyses the frames {@code from} to {@code to} of a batch, splitting them in halves down to single frames
+     */
+    private final class Analysis extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        // tasks are never serialized
+        private final transient Batch batch;
+        private final int from;
+        private final int to;
+
+        private Analysis(Batch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                var middle = (from + to) >>> 1;
+                invokeAll(new Analysis(batch, from, middle), new Analysis(batch, middle, to));
+                return;
+            }
+            var start = System.nanoTime();
+            analyzer.get().analyze(batch.frames[from], batch.metrics, from);
+            analysisNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * What an analysis did
+     *
+     * @param frames number of analysed frames
+     * @param duplicates number of frames flagged as near duplicates
+     * @param parallelism number of worker threads
+     * @param elapsedNanos how long the analysis took, including decoding and writing
+     * @param decodeNanos how long the calling thread spent decoding
+     * @param analysisNanos time the workers spent analysing frames, summed over all workers
+     */
+    public record Summary(long frames, long duplicates, int parallelism, long elapsedNanos, long decodeNanos,
+                          long analysisNanos) {
+        /**
+         * @return analysed frames per second of wall time
+         */
+        public double framesPerSecond() {
+            return elapsedNanos > 0 ? frames * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * @return frames a single worker analyses per second, excluding decoding
+         */
+        public double framesPerSecondPerCore() {
+            return analysisNanos > 0 ? frames * 1e9 / analysisNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d frames (%d duplicates) in %.2f s on %d workers: %.1f frames/s, %.1f frames/s per core, decoding %.1f frames/s",
+                    frames, duplicates, elapsedNanos / 1e9, parallelism, framesPerSecond(), framesPerSecondPerCore(),
+                    decodeNanos > 0 ? frames * 1e9 / decodeNanos : 0);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package de.tum.digitalagriculture.tello.analysis;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
+/**
+ * Computes the {@link FrameMetrics} of single BGR frames.
+ * <p>
+ * All intermediate images are kept in native scratch {@link Mat}s that are allocated for the first frame and reused
+ * as long as the frame size does not change, so analysing a frame allocates no native memory. An analyzer is
+ * therefore not thread safe; the {@link FrameAnalysisEngine} keeps one per worker thread.
+ * </p>
+ * <p>
+ * The drone only has an RGB camera, so instead of the NDVI, which needs a near infrared band, the excess green index
+ * {@code ExG = 2g - r - b} is used to tell plants from soil.
+ * </p>
+ */
+public class FrameAnalyzer implements AutoCloseable {
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    /**
+     * Excess green index above which a pixel counts as vegetation
+     *
+     * @return excess green index above which a pixel counts as vegetation
+     */
+    @Getter
+    private final double vegetationThreshold;
+    private final Mat kernel;
+    private final Mat normalized;
+    private final Mat excessGreen;
+    private final Mat vegetation;
+    private final Mat gray;
+    private final Mat laplacian;
+    private final Mat mean;
+    private final Mat deviation;
+    private final Mat thumbnail;
+    private final Size thumbnailSize;
+    private final byte[] thumbnailPixels;
+
+    /**
+     * @param vegetationThreshold excess green index above which a pixel counts as vegetation
+     */
+    public FrameAnalyzer(double vegetationThreshold) {
+        this.vegetationThreshold = vegetationThreshold;
+        // weights of the blue, green and red channel
+        kernel = new Mat(1, 3, opencv_core.CV_32F);
+        try (FloatIndexer indexer = kernel.createIndexer()) {
+            indexer.put(0, 0, -1f, 2f, -1f);
+        }
+        normalized = new Mat();
+        excessGreen = new Mat();
+        vegetation = new Mat();
+        gray = new Mat();
+        laplacian = new Mat();
+        mean = new Mat();
+        deviation = new Mat();
+        thumbnail = new Mat();
+        thumbnailSize = new Size(HASH_WIDTH, HASH_HEIGHT);
+        thumbnailPixels = new byte[HASH_WIDTH * HASH_HEIGHT];
+    }
+
+    /**
+     * Compute the metrics of {@code frame} and store them in {@code row} of {@code metrics}. The index, the timestamp
+     * and the duplicate flag are left untouched
+     *
+     * @param frame a BGR frame with 8 bits per channel
+     * @param metrics the metrics to write to
+     * @param row the row to write
+     */
+    public void analyze(@NonNull Mat frame, @NonNull FrameMetrics metrics, int row) {
+        if (frame.channels() != 3 || frame.depth() != opencv_core.CV_8U) {
+            throw new IllegalArgumentException("Expected an 8 bit BGR frame but got type " + frame.type());
+        }
+        frame.convertTo(normalized, opencv_core.CV_32F, 1 / 255.0, 0);
+        opencv_core.transform(normalized, excessGreen, kernel);
+        metrics.excessGreen[row] = (float) opencv_core.mean(excessGreen).get(0);
+        opencv_imgproc.threshold(excessGreen, vegetation, vegetationThreshold, 1, opencv_imgproc.THRESH_BINARY);
+        metrics.vegetation[row] = (float) opencv_core.countNonZero(vegetation) / vegetation.total();
+
+        opencv_imgproc.cvtColor(frame, gray, opencv_imgproc.COLOR_BGR2GRAY);
+        opencv_imgproc.Laplacian(gray, laplacian, opencv_core.CV_16S);
+        opencv_core.meanStdDev(laplacian, mean, deviation);
+        var sigma = deviation.ptr(0).getDouble();
+        metrics.sharpness[row] = (float) (sigma * sigma);
+
+        metrics.hash[row] = hash(gray);
+    }
+
+    /**
+     * Difference hash: the gray frame is shrunk to 9x8 pixels and every bit tells whether a pixel is darker than its
+     * right neighbour. Frames that look alike have hashes that differ in few bits
+     */
+    private long hash(Mat gray) {
+        opencv_imgproc.resize(gray, thumbnail, thumbnailSize, 0, 0, opencv_imgproc.INTER_AREA);
+        thumbnail.data().get(thumbnailPixels);
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                var left = thumbnailPixels[y * HASH_WIDTH + x] & 0xff;
+                var right = thumbnailPixels[y * HASH_WIDTH + x + 1] & 0xff;
+                hash = hash << 1 | (left < right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Release the native scratch memory
+     */
+    @Override
+    public void close() {
+        for (var mat : new Mat[]{kernel, normalized, excessGreen, vegetation, gray, laplacian, mean, deviation, thumbnail}) {
+            mat.release();
+            mat.close();
+        }
+        thumbnailSize.close();
+    }
+}
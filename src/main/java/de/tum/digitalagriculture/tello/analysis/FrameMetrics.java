@@ -0,0 +1,116 @@
+package de.tum.digitalagriculture.tello.analysis;
+
+import lombok.Getter;
+
+/**
+ * Column-wise metrics of a sequence of frames, one row per frame.
+ * <p>
+ * Used as the batch the workers of the {@link FrameAnalysisEngine} write into, each to its own rows, and as the result
+ * of {@link FrameMetricsFile#read(java.nio.file.Path)}.
+ * </p>
+ */
+public class FrameMetrics {
+    /**
+     * Maximum number of rows
+     *
+     * @return maximum number of rows
+     */
+    @Getter
+    private final int capacity;
+    final long[] index;
+    final long[] timestamp;
+    final float[] excessGreen;
+    final float[] vegetation;
+    final float[] sharpness;
+    final long[] hash;
+    final boolean[] duplicate;
+    int size;
+
+    /**
+     * @param capacity maximum number of rows
+     */
+    public FrameMetrics(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        index = new long[capacity];
+        timestamp = new long[capacity];
+        excessGreen = new float[capacity];
+        vegetation = new float[capacity];
+        sharpness = new float[capacity];
+        hash = new long[capacity];
+        duplicate = new boolean[capacity];
+        size = 0;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row a row
+     * @return number of the frame in its video, starting at 0
+     */
+    public long index(int row) {
+        return index[check(row)];
+    }
+
+    /**
+     * @param row a row
+     * @return presentation timestamp of the frame in µs, 0 if the frame has none
+     */
+    public long timestamp(int row) {
+        return timestamp[check(row)];
+    }
+
+    /**
+     * @param row a row
+     * @return mean excess green index {@code 2g - r - b} of the frame, with the channels scaled to [0, 1]
+     */
+    public float excessGreen(int row) {
+        return excessGreen[check(row)];
+    }
+
+    /**
+     * @param row a row
+     * @return fraction of the pixels whose excess green index is above the vegetation threshold
+     */
+    public float vegetation(int row) {
+        return vegetation[check(row)];
+    }
+
+    /**
+     * @param row a row
+     * @return variance of the Laplacian of the gray frame, low values mean a blurred frame
+     */
+    public float sharpness(int row) {
+        return sharpness[check(row)];
+    }
+
+    /**
+     * @param row a row
+     * @return 64 bit difference hash of the frame
+     */
+    public long hash(int row) {
+        return hash[check(row)];
+    }
+
+    /**
+     * @param row a row
+     * @return whether the frame is a near duplicate of the last frame that was not
+     */
+    public boolean isDuplicate(int row) {
+        return duplicate[check(row)];
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(String.format("Row %d of %d", row, size));
+        }
+        return row;
+    }
+}
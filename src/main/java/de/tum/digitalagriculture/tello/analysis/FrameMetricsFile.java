@@ -0,0 +1,218 @@
+package de.tum.digitalagriculture.tello.analysis;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Columnar file of {@link FrameMetrics}. Every appended batch is written as a row group that stores each column
+ * contiguously, so a single column can be scanned without touching the others.
+ * <p>
+ * File format (big endian):
+ * </p>
+ * <pre>
+ *     header    := magic:int "TFMC" | version:int | columns:int | column*
+ *     column    := type:byte | length:byte | name (length bytes, ASCII)
+ *     groups    := group*
+ *     group     := rows:int | the values of every column in header order
+ *     LONG      := rows 8 byte integers
+ *     FLOAT     := rows 4 byte IEEE 754 floats
+ *     BOOLEAN   := rows bytes, 0 or 1
+ * </pre>
+ * <p>
+ * Every row group is written as soon as it is appended, so the file of a crashed run can be read up to its last
+ * complete group.
+ * </p>
+ */
+public class FrameMetricsFile implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FrameMetricsFile.class);
+    private static final int MAGIC = 0x54464d43; // "TFMC"
+    private static final int VERSION = 1;
+    private static final byte LONG = 1;
+    private static final byte FLOAT = 2;
+    private static final byte BOOLEAN = 3;
+    private static final String[] NAMES = {"index", "timestamp", "exg", "vegetation", "sharpness", "hash", "duplicate"};
+    private static final byte[] TYPES = {LONG, LONG, FLOAT, FLOAT, FLOAT, LONG, BOOLEAN};
+    private static final int ROW_SIZE = 3 * Long.BYTES + 3 * Float.BYTES + Byte.BYTES;
+
+    /**
+     * Path of the file
+     *
+     * @return path of the file
+     */
+    @Getter
+    private final Path path;
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    /**
+     * Number of written rows
+     *
+     * @return number of written rows
+     */
+    @Getter
+    private long rows;
+
+    private FrameMetricsFile(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+        buffer = ByteBuffer.allocate(0);
+        rows = 0;
+    }
+
+    /**
+     * Create a new file at {@code path}. An existing file is overwritten
+     *
+     * @param path path of the file
+     * @return the opened file
+     * @throws IOException failed to create the file
+     */
+    public static FrameMetricsFile create(@NonNull Path path) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        var header = ByteBuffer.allocate(256).order(ByteOrder.BIG_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(NAMES.length);
+        for (int i = 0; i < NAMES.length; i++) {
+            var name = NAMES[i].getBytes(StandardCharsets.US_ASCII);
+            header.put(TYPES[i]).put((byte) name.length).put(name);
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return new FrameMetricsFile(path, channel);
+    }
+
+    /**
+     * Append all rows of {@code metrics} as a row group
+     *
+     * @param metrics the rows to append
+     * @throws IOException failed to write the group
+     */
+    public void append(@NonNull FrameMetrics metrics) throws IOException {
+        var count = metrics.size;
+        if (count == 0) {
+            return;
+        }
+        var size = Integer.BYTES + count * ROW_SIZE;
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+        }
+        buffer.clear();
+        buffer.putInt(count);
+        buffer.asLongBuffer().put(metrics.index, 0, count);
+        buffer.position(buffer.position() + count * Long.BYTES);
+        buffer.asLongBuffer().put(metrics.timestamp, 0, count);
+        buffer.position(buffer.position() + count * Long.BYTES);
+        buffer.asFloatBuffer().put(metrics.excessGreen, 0, count);
+        buffer.position(buffer.position() + count * Float.BYTES);
+        buffer.asFloatBuffer().put(metrics.vegetation, 0, count);
+        buffer.position(buffer.position() + count * Float.BYTES);
+        buffer.asFloatBuffer().put(metrics.sharpness, 0, count);
+        buffer.position(buffer.position() + count * Float.BYTES);
+        buffer.asLongBuffer().put(metrics.hash, 0, count);
+        buffer.position(buffer.position() + count * Long.BYTES);
+        for (int i = 0; i < count; i++) {
+            buffer.put((byte) (metrics.duplicate[i] ? 1 : 0));
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        rows += count;
+    }
+
+    /**
+     * Flush the file to the storage device and close it
+     *
+     * @throws IOException failed to flush the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        channel.force(true);
+        channel.close();
+        logger.debug("Closed frame metrics {} with {} rows", path, rows);
+    }
+
+    /**
+     * Read all complete row groups of the file at {@code path}
+     *
+     * @param path path of the file
+     * @return the rows in the order they were appended
+     * @throws IOException failed to read the file
+     * @throws IllegalArgumentException if the file has not the columns written by this version
+     */
+    public static FrameMetrics read(@NonNull Path path) throws IOException {
+        ByteBuffer file;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
+        }
+        checkHeader(path, file);
+        var groups = new ArrayList<Integer>();
+        var total = 0;
+        for (var position = file.position(); position + Integer.BYTES <= file.limit(); ) {
+            var count = file.getInt(position);
+            var end = position + Integer.BYTES + (long) count * ROW_SIZE;
+            if (count < 0 || end > file.limit()) {
+                logger.warn("Frame metrics {} end with an incomplete row group", path);
+                break;
+            }
+            groups.add(position);
+            total += count;
+            position = (int) end;
+        }
+        var metrics = new FrameMetrics(total);
+        for (var group : groups) {
+            var count = file.getInt(group);
+            var offset = metrics.size;
+            file.position(group + Integer.BYTES);
+            file.asLongBuffer().get(metrics.index, offset, count);
+            file.position(file.position() + count * Long.BYTES);
+            file.asLongBuffer().get(metrics.timestamp, offset, count);
+            file.position(file.position() + count * Long.BYTES);
+            file.asFloatBuffer().get(metrics.excessGreen, offset, count);
+            file.position(file.position() + count * Float.BYTES);
+            file.asFloatBuffer().get(metrics.vegetation, offset, count);
+            file.position(file.position() + count * Float.BYTES);
+            file.asFloatBuffer().get(metrics.sharpness, offset, count);
+            file.position(file.position() + count * Float.BYTES);
+            file.asLongBuffer().get(metrics.hash, offset, count);
+            file.position(file.position() + count * Long.BYTES);
+            for (int i = 0; i < count; i++) {
+                metrics.duplicate[offset + i] = file.get() != 0;
+            }
+            metrics.size += count;
+        }
+        return metrics;
+    }
+
+    private static void checkHeader(Path path, ByteBuffer file) {
+        var valid = file.limit() >= 3 * Integer.BYTES && file.getInt() == MAGIC && file.getInt() == VERSION
+                && file.getInt() == NAMES.length;
+        for (int i = 0; valid && i < NAMES.length; i++) {
+            var name = NAMES[i].getBytes(StandardCharsets.US_ASCII);
+            valid = file.remaining() >= 2 + name.length && file.get() == TYPES[i] && file.get() == name.length
+                    && StandardCharsets.US_ASCII.decode(file.slice(file.position(), name.length)).toString().equals(NAMES[i]);
+            if (valid) {
+                file.position(file.position() + name.length);
+            }
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("Not a frame metrics file of version " + VERSION + ": " + path);
+        }
+    }
+}
@@ -35,9 +35,11 @@ public class CliCommander implements Commander, AutoCloseable {
         } else {
             ip = "192.168.10.1"; // The ip when connected to the drone directly
         }
-        var executor = new ScheduledThreadPoolExecutor(8);
+        // only schedules the keep alive, the stream is captured on a virtual thread
+        var executor = new ScheduledThreadPoolExecutor(1);
         var streamHandler = new StreamWriter("/tmp/capture0.avi");
-//        @Cleanup var controller = new FlightController<>(ip, executor, streamHandler, FlightController.ConnectionOption.KEEP_ALIVE);
+//        @Cleanup var controller = FlightController.<String, StreamWriter.Stream>builder().ip(ip).executor(executor).streamHandler(streamHandler)
+//                .executionMode(FlightController.ExecutionMode.VIRTUAL).build();
         var controller = new PrintController(500, TimeUnit.MILLISECONDS);
         @Cleanup var commander = new CliCommander();
         commander.forEachRemaining(controller);
@@ -53,28 +55,26 @@ public class CliCommander implements Commander, AutoCloseable {
     }
 
     /**
-     * Read from STDIN. If "end" is input, return null, to end the iteration.
+     * Read from STDIN until a valid command is entered. If "end" is input or STDIN is closed, return null, to end the
+     * iteration.
      * @return the next command to be executed
      */
     @SneakyThrows
     private Commands.Command getNextCommand() {
-        if (nextCommand != null) {
-            return nextCommand;
+        while (nextCommand == null) {
+            System.out.println("Please enter your command:");
+            var input = reader.readLine();
+            if (input == null || input.equals("end")) {
+                logger.info("Finished!");
+                return null;
+            }
+            var result = CommandParser.parse(input);
+            if (result.isOk()) {
+                nextCommand = result.command();
+            } else {
+                logger.warn("Erroneous command {}: {}", input, result.message());
+            }
         }
-        System.out.println("Please enter your command:");
-        var input = reader.readLine();
-        if (input.equals("end")) {
-            logger.info("Finished!");
-            return null;
-        }
-        Commands.Command command;
-        try {
-            command = Commands.Command.parse(input);
-        } catch (IllegalArgumentException iae) {
-            logger.warn(String.format("Erroneous command: %s", input));
-            command = getNextCommand();
-        }
-        nextCommand = command;
         return nextCommand;
     }
 
@@ -0,0 +1,408 @@
+package de.tum.digitalagriculture.tello.commanders;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single-pass parser for the text form of {@link Commands.Command}s.
+ * <p>
+ * The parser walks the input with a cursor, so neither the input is split nor are intermediate strings created.
+ * Malformed input is reported as a {@link ParseResult} instead of an exception and parameters are validated against
+ * the ranges of the Tello SDK 2.0. Tokens can be separated by any number of spaces or tabs.
+ * </p>
+ */
+public final class CommandParser {
+    private static final Keyword[] KEYWORDS = Keyword.values();
+    /**
+     * Longer numbers are out of range of every command
+     */
+    private static final int MAX_DIGITS = 9;
+    /**
+     * Coordinates of go and curve must not all be in [-MIN_DISTANCE, MIN_DISTANCE]
+     */
+    private static final int MIN_DISTANCE = 20;
+
+    private CommandParser() {
+    }
+
+    /**
+     * Parse a single command
+     *
+     * @param input text of the command
+     * @return the parsed command or the reason it could not be parsed
+     */
+    public static ParseResult parse(@NonNull CharSequence input) {
+        return new Cursor() {
+            @Override
+            int length() {
+                return input.length();
+            }
+
+            @Override
+            int charAt(int index) {
+                return input.charAt(index);
+            }
+        }.parse();
+    }
+
+    /**
+     * Parse a single ASCII encoded command from the remaining bytes of {@code input}. The position of the buffer is
+     * not changed
+     *
+     * @param input buffer that holds the command between its position and limit
+     * @return the parsed command or the reason it could not be parsed. Positions are relative to the buffer's position
+     */
+    public static ParseResult parse(@NonNull ByteBuffer input) {
+        var offset = input.position();
+        var length = input.remaining();
+        return new Cursor() {
+            @Override
+            int length() {
+                return length;
+            }
+
+            @Override
+            int charAt(int index) {
+                return input.get(offset + index) & 0xff;
+            }
+        }.parse();
+    }
+
+    /**
+     * Check a command that was not parsed, e.g. one built in code or decoded from a binary mission, against the same
+     * rules as {@link #parse(CharSequence)}. The parameters are checked directly, the command is not formatted
+     *
+     * @param command command to check
+     * @return {@code command} or why it is invalid. The position is the index of the offending parameter
+     */
+    public static ParseResult validate(@NonNull Commands.Command command) {
+        var keyword = Keyword.of(command.getCommand());
+        if (keyword == null) {
+            return ParseResult.error(ParseError.UNKNOWN_COMMAND, 0);
+        }
+        if (command instanceof Commands.Flip flip) {
+            return isDirection(flip.getX()) ? ParseResult.ok(command) : ParseResult.error(ParseError.INVALID_DIRECTION, 0);
+        }
+        if (command instanceof Commands.SingleParameterCommand<?> single) {
+            return keyword.isInRange(0, (Integer) single.getX()) ? ParseResult.ok(command) : ParseResult.error(ParseError.OUT_OF_RANGE, 0);
+        }
+        if (command instanceof Commands.MultiParameterCommand<?> multi) {
+            var params = multi.getParams();
+            if (params.length != keyword.arity) {
+                return ParseResult.error(params.length < keyword.arity ? ParseError.MISSING_PARAMETER : ParseError.TOO_MANY_PARAMETERS, params.length);
+            }
+            for (int i = 0; i < params.length; i++) {
+                if (!keyword.isInRange(i, (Integer) params[i])) {
+                    return ParseResult.error(ParseError.OUT_OF_RANGE, i);
+                }
+            }
+            if ((keyword == Keyword.GO || keyword == Keyword.CURVE) && isTooClose((Integer) params[0], (Integer) params[1], (Integer) params[2])) {
+                return ParseResult.error(ParseError.TOO_CLOSE, 0);
+            }
+            if (keyword == Keyword.CURVE && isTooClose((Integer) params[3], (Integer) params[4], (Integer) params[5])) {
+                return ParseResult.error(ParseError.TOO_CLOSE, 3);
+            }
+        }
+        return ParseResult.ok(command);
+    }
+
+    private static boolean isDirection(int c) {
+        return c == 'l' || c == 'r' || c == 'f' || c == 'b';
+    }
+
+    private static boolean isTooClose(int x, int y, int z) {
+        return Math.abs(x) <= MIN_DISTANCE && Math.abs(y) <= MIN_DISTANCE && Math.abs(z) <= MIN_DISTANCE;
+    }
+
+    /**
+     * The result of parsing a command
+     *
+     * @param command the parsed command, {@code null} if parsing failed
+     * @param error why parsing failed, {@code null} on success
+     * @param position index in the input at which the error was detected
+     */
+    public record ParseResult(Commands.Command command, ParseError error, int position) {
+        private static ParseResult ok(Commands.Command command) {
+            return new ParseResult(command, null, -1);
+        }
+
+        private static ParseResult error(ParseError error, int position) {
+            return new ParseResult(null, error, position);
+        }
+
+        /**
+         * @return true if the command was parsed
+         */
+        public boolean isOk() {
+            return error == null;
+        }
+
+        /**
+         * @return a human readable description of the error
+         */
+        public String message() {
+            return isOk() ? "ok" : String.format("%s at position %d", error.getDescription(), position);
+        }
+    }
+
+    /**
+     * Why a command could not be parsed
+     */
+    public enum ParseError {
+        EMPTY("Empty input"),
+        UNKNOWN_COMMAND("Unknown command"),
+        MISSING_PARAMETER("Missing parameter"),
+        TOO_MANY_PARAMETERS("Too many parameters"),
+        INVALID_NUMBER("Parameter is not an integer"),
+        OUT_OF_RANGE("Parameter is out of range"),
+        INVALID_DIRECTION("Flip direction has to be one of l, r, f, b"),
+        TOO_CLOSE("x, y and z cannot be in [-20, 20] simultaneously");
+
+        /**
+         * Human readable description of the error
+         *
+         * @return human readable description of the error
+         */
+        @Getter
+        private final String description;
+
+        ParseError(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * The keywords of the commands with the number and the valid range of their parameters
+     */
+    private enum Keyword {
+        COMMAND("command"),
+        TAKEOFF("takeoff"),
+        LAND("land"),
+        STREAMON("streamon"),
+        STREAMOFF("streamoff"),
+        EMERGENCY("emergency"),
+        STOP("stop"),
+        READ_SPEED("speed?"),
+        READ_BATTERY("battery?"),
+        READ_TIME("time?"),
+        READ_WIFI("wifi?"),
+        UP("up", 1, 20, 500),
+        DOWN("down", 1, 20, 500),
+        LEFT("left", 1, 20, 500),
+        RIGHT("right", 1, 20, 500),
+        FORWARD("forward", 1, 20, 500),
+        BACK("back", 1, 20, 500),
+        CW("cw", 1, 1, 360),
+        CCW("ccw", 1, 1, 360),
+        SPEED("speed", 1, 10, 100),
+        FLIP("flip", 1, 0, 0),
+        GO("go", 4, -500, 500, 10, 100),
+        CURVE("curve", 7, -500, 500, 10, 60),
+        RC("rc", 4, -100, 100);
+
+        private final String text;
+        private final int arity;
+        private final int min;
+        private final int max;
+        /**
+         * Range of the last parameter, the speed of go and curve
+         */
+        private final int speedMin;
+        private final int speedMax;
+
+        Keyword(String text) {
+            this(text, 0, 0, 0);
+        }
+
+        Keyword(String text, int arity, int min, int max) {
+            this(text, arity, min, max, min, max);
+        }
+
+        Keyword(String text, int arity, int min, int max, int speedMin, int speedMax) {
+            this.text = text;
+            this.arity = arity;
+            this.min = min;
+            this.max = max;
+            this.speedMin = speedMin;
+            this.speedMax = speedMax;
+        }
+
+        private static Keyword of(String text) {
+            for (var keyword : KEYWORDS) {
+                if (keyword.text.equals(text)) {
+                    return keyword;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Check {@code value} against the range of the {@code index}th parameter
+         */
+        private boolean isInRange(int index, int value) {
+            var isSpeed = index == arity - 1;
+            return value >= (isSpeed ? speedMin : min) && value <= (isSpeed ? speedMax : max);
+        }
+    }
+
+    /**
+     * Walks over the input once. Subclasses provide access to the characters
+     */
+    private abstract static class Cursor {
+        private final int[] values = new int[Keyword.CURVE.arity];
+        private int position;
+
+        abstract int length();
+
+        abstract int charAt(int index);
+
+        private static boolean isBlank(int c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+        }
+
+        private void skipBlanks() {
+            while (position < length() && isBlank(charAt(position))) {
+                position++;
+            }
+        }
+
+        private int skipToken() {
+            while (position < length() && !isBlank(charAt(position))) {
+                position++;
+            }
+            return position;
+        }
+
+        private Keyword keyword(int start, int end) {
+            outer:
+            for (var keyword : KEYWORDS) {
+                if (keyword.text.length() != end - start) {
+                    continue;
+                }
+                for (int i = 0; i < end - start; i++) {
+                    if (keyword.text.charAt(i) != charAt(start + i)) {
+                        continue outer;
+                    }
+                }
+                return keyword;
+            }
+            return null;
+        }
+
+        ParseResult parse() {
+            skipBlanks();
+            if (position == length()) {
+                return ParseResult.error(ParseError.EMPTY, position);
+            }
+            var start = position;
+            var keyword = keyword(start, skipToken());
+            if (keyword == null) {
+                return ParseResult.error(ParseError.UNKNOWN_COMMAND, start);
+            }
+            var firstParameter = -1;
+            for (int i = 0; i < keyword.arity; i++) {
+                skipBlanks();
+                if (position == length()) {
+                    return ParseResult.error(ParseError.MISSING_PARAMETER, position);
+                }
+                if (i == 0) {
+                    firstParameter = position;
+                }
+                var error = keyword == Keyword.FLIP ? direction() : number(keyword, i);
+                if (error != null) {
+                    return error;
+                }
+            }
+            skipBlanks();
+            if (position != length()) {
+                return ParseResult.error(ParseError.TOO_MANY_PARAMETERS, position);
+            }
+            if ((keyword == Keyword.GO && isTooClose(0)) || (keyword == Keyword.CURVE && (isTooClose(0) || isTooClose(3)))) {
+                return ParseResult.error(ParseError.TOO_CLOSE, firstParameter);
+            }
+            return ParseResult.ok(create(keyword));
+        }
+
+        /**
+         * Read the flip direction into {@code values[0]}
+         */
+        private ParseResult direction() {
+            var start = position;
+            var c = charAt(position);
+            if (skipToken() - start != 1 || !isDirection(c)) {
+                return ParseResult.error(ParseError.INVALID_DIRECTION, start);
+            }
+            values[0] = c;
+            return null;
+        }
+
+        /**
+         * Read the {@code index}th parameter of {@code keyword} into {@code values}
+         */
+        private ParseResult number(Keyword keyword, int index) {
+            var start = position;
+            var negative = false;
+            var c = charAt(position);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                position++;
+            }
+            var digitsStart = position;
+            var value = 0;
+            while (position < length() && !isBlank(c = charAt(position))) {
+                if (c < '0' || c > '9') {
+                    return ParseResult.error(ParseError.INVALID_NUMBER, start);
+                }
+                if (position - digitsStart == MAX_DIGITS) {
+                    return ParseResult.error(ParseError.OUT_OF_RANGE, start);
+                }
+                value = value * 10 + (c - '0');
+                position++;
+            }
+            if (position == digitsStart) {
+                return ParseResult.error(ParseError.INVALID_NUMBER, start);
+            }
+            value = negative ? -value : value;
+            if (!keyword.isInRange(index, value)) {
+                return ParseResult.error(ParseError.OUT_OF_RANGE, start);
+            }
+            values[index] = value;
+            return null;
+        }
+
+        private boolean isTooClose(int offset) {
+            return CommandParser.isTooClose(values[offset], values[offset + 1], values[offset + 2]);
+        }
+
+        private Commands.Command create(Keyword keyword) {
+            return switch (keyword) {
+                case COMMAND -> Commands.Init.INSTANCE;
+                case TAKEOFF -> Commands.TakeOff.INSTANCE;
+                case LAND -> Commands.Land.INSTANCE;
+                case STREAMON -> Commands.StreamOn.INSTANCE;
+                case STREAMOFF -> Commands.StreamOff.INSTANCE;
+                case EMERGENCY -> Commands.Emergency.INSTANCE;
+                case STOP -> Commands.Stop.INSTANCE;
+                case READ_SPEED -> Commands.ReadSpeed.INSTANCE;
+                case READ_BATTERY -> Commands.ReadBattery.INSTANCE;
+                case READ_TIME -> Commands.ReadTime.INSTANCE;
+                case READ_WIFI -> Commands.ReadWifi.INSTANCE;
+                case UP -> new Commands.Up(values[0]);
+                case DOWN -> new Commands.Down(values[0]);
+                case LEFT -> new Commands.Left(values[0]);
+                case RIGHT -> new Commands.Right(values[0]);
+                case FORWARD -> new Commands.Forward(values[0]);
+                case BACK -> new Commands.Back(values[0]);
+                case CW -> new Commands.ClockWise(values[0]);
+                case CCW -> new Commands.CounterClockWise(values[0]);
+                case SPEED -> new Commands.Speed(values[0]);
+                case FLIP -> new Commands.Flip((char) values[0]);
+                case GO -> new Commands.Go(values[0], values[1], values[2], values[3]);
+                case CURVE -> new Commands.Curve(values[0], values[1], values[2], values[3], values[4], values[5], values[6]);
+                case RC -> new Commands.Rc(values[0], values[1], values[2], values[3]);
+            };
+        }
+    }
+}
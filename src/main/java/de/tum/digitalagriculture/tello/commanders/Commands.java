@@ -3,6 +3,10 @@ package de.tum.digitalagriculture.tello.commanders;
 import lombok.Getter;
 import lombok.NonNull;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 public class Commands {
 
     /**
@@ -17,123 +21,83 @@ public class Commands {
          */
         @Getter
         private final String command;
+        /**
+         * ASCII bytes of {@link #command}, computed once so that encoding does not allocate
+         */
+        private final byte[] wire;
 
         private Command(@NonNull String command) {
             this.command = command;
+            wire = command.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Write the command as it is sent to the drone into {@code dst}, without allocating
+         *
+         * @param dst buffer the command is written to, starting at its position
+         * @throws BufferOverflowException if {@code dst} is too small
+         */
+        public void encode(@NonNull ByteBuffer dst) {
+            dst.put(wire);
+        }
+
+        /**
+         * Write the decimal representation of {@code value} as ASCII into {@code dst}, without allocating
+         *
+         * @param dst buffer the digits are written to, starting at its position
+         * @param value value to write
+         */
+        static void putDecimal(ByteBuffer dst, int value) {
+            long remaining = value;
+            if (remaining < 0) {
+                dst.put((byte) '-');
+                remaining = -remaining;
+            }
+            var digits = 1;
+            for (long limit = 10; remaining >= limit; limit *= 10) {
+                digits++;
+            }
+            var end = dst.position() + digits;
+            if (end > dst.limit()) {
+                throw new BufferOverflowException();
+            }
+            for (int index = end - 1; index >= dst.position(); index--) {
+                dst.put(index, (byte) ('0' + remaining % 10));
+                remaining /= 10;
+            }
+            dst.position(end);
+        }
+
+        /**
+         * Write a space and a single parameter of a command
+         *
+         * @param dst buffer the parameter is written to
+         * @param parameter the parameter
+         */
+        static void putParameter(ByteBuffer dst, Object parameter) {
+            dst.put((byte) ' ');
+            if (parameter instanceof Integer) {
+                putDecimal(dst, (Integer) parameter);
+            } else if (parameter instanceof Character) {
+                dst.put((byte) (char) (Character) parameter);
+            } else {
+                dst.put(parameter.toString().getBytes(StandardCharsets.US_ASCII));
+            }
         }
 
         /**
-         * Parse a string to the corresponding command
+         * Parse a string to the corresponding command. Use {@link CommandParser} to get the error without an exception
          *
          * @param input string to parse
          * @return the parsed Command
          * @throws IllegalArgumentException on wrong input
          */
         public static Command parse(@NonNull String input) throws IllegalArgumentException {
-            var command = input.trim();
-            if (command.isEmpty()) {
-                throw new IllegalArgumentException("Passed empty string");
+            var result = CommandParser.parse(input);
+            if (!result.isOk()) {
+                throw new IllegalArgumentException(String.format("%s: %s", result.message(), input));
             }
-            var split = command.split(" ");
-            return switch (split[0]) {
-                case "command" -> new Init();
-                case "takeoff" -> new TakeOff();
-                case "land" -> new Land();
-                case "streamon" -> new StreamOn();
-                case "streamoff" -> new StreamOff();
-                case "emergency" -> new Emergency();
-                case "stop" -> new Stop();
-                case "speed?" -> new ReadSpeed();
-                case "battery?" -> new ReadBattery();
-                case "time?" -> new ReadTime();
-                case "wifi?" -> new ReadWifi();
-                case "up" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Up(Integer.parseInt(split[1]));
-                }
-                case "down" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Down(Integer.parseInt(split[1]));
-                }
-                case "left" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Left(Integer.parseInt(split[1]));
-                }
-                case "right" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Right(Integer.parseInt(split[1]));
-                }
-                case "forward" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Forward(Integer.parseInt(split[1]));
-                }
-                case "back" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Back(Integer.parseInt(split[1]));
-                }
-                case "cw" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new ClockWise(Integer.parseInt(split[1]));
-                }
-                case "ccw" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new CounterClockWise(Integer.parseInt(split[1]));
-                }
-                case "speed" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Speed(Integer.parseInt(split[1]));
-                }
-                case "flip" -> {
-                    if (split.length != 2) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Flip(split[1].charAt(0));
-                }
-                case "go" -> {
-                    if (split.length != 5) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Go(
-                            Integer.parseInt(split[1]),
-                            Integer.parseInt(split[2]),
-                            Integer.parseInt(split[3]),
-                            Integer.parseInt(split[4])
-                    );
-                }
-                case "curve" -> {
-                    if (split.length != 8) {
-                        throw new IllegalArgumentException(String.format("The number of passed parameters (%d) does not match the expected amount (1)", split.length - 1));
-                    }
-                    yield new Curve(
-                            Integer.parseInt(split[1]),
-                            Integer.parseInt(split[2]),
-                            Integer.parseInt(split[3]),
-                            Integer.parseInt(split[4]),
-                            Integer.parseInt(split[5]),
-                            Integer.parseInt(split[6]),
-                            Integer.parseInt(split[7])
-                    );
-                }
-                default -> throw new IllegalArgumentException(String.format("Unknown command: %s", command));
-            };
+            return result.command();
         }
 
         @Override
@@ -146,7 +110,12 @@ public class Commands {
      * Initialize the Tello drone to accept commands. Has to be executed before any other command is send to the drone
      */
     public static final class Init extends Command {
-        public Init() {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final Init INSTANCE = new Init();
+
+        private Init() {
             super("command");
         }
     }
@@ -155,7 +124,12 @@ public class Commands {
      * Take off with the drone
      */
     public static final class TakeOff extends Command {
-        public TakeOff() {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final TakeOff INSTANCE = new TakeOff();
+
+        private TakeOff() {
             super("takeoff");
         }
     }
@@ -164,7 +138,12 @@ public class Commands {
      * Land at the current position
      */
     public static final class Land extends Command {
-        public Land() {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final Land INSTANCE = new Land();
+
+        private Land() {
             super("land");
         }
     }
@@ -173,7 +152,12 @@ public class Commands {
      * Start a video stream. Stream can be read from UDP port 11111
      */
     public static final class StreamOn extends Command {
-        public StreamOn() {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final StreamOn INSTANCE = new StreamOn();
+
+        private StreamOn() {
             super("streamon");
         }
     }
@@ -182,7 +166,12 @@ public class Commands {
      * End a running stream
      */
     public static final class StreamOff extends Command {
-        public StreamOff() {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final StreamOff INSTANCE = new StreamOff();
+
+        private StreamOff() {
             super("streamoff");
         }
     }
@@ -191,7 +180,12 @@ public class Commands {
      * Emergency stop. Immediately shuts down motors
      */
     public static final class Emergency extends Command {
-        public Emergency() {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final Emergency INSTANCE = new Emergency();
+
+        private Emergency() {
             super("emergency");
         }
     }
@@ -200,16 +194,36 @@ public class Commands {
      * Stop the drone in flight
      */
     public static final class Stop extends Command {
-        public Stop() {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final Stop INSTANCE = new Stop();
+
+        private Stop() {
             super("stop");
         }
     }
 
+    /**
+     * Abstract class from which all read-only queries should be derived. Queries do not move the drone and can
+     * therefore be executed while a motion command is still in flight
+     */
+    public static abstract class ReadCommand extends Command {
+        private ReadCommand(@NonNull String command) {
+            super(command);
+        }
+    }
+
     /**
      * Read the current speed of the drone
      */
-    public static final class ReadSpeed extends Command {
-        public ReadSpeed() {
+    public static final class ReadSpeed extends ReadCommand {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final ReadSpeed INSTANCE = new ReadSpeed();
+
+        private ReadSpeed() {
             super("speed?");
         }
     }
@@ -217,8 +231,13 @@ public class Commands {
     /**
      * Read battery voltage
      */
-    public static final class ReadBattery extends Command {
-        public ReadBattery() {
+    public static final class ReadBattery extends ReadCommand {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final ReadBattery INSTANCE = new ReadBattery();
+
+        private ReadBattery() {
             super("battery?");
         }
     }
@@ -226,8 +245,13 @@ public class Commands {
     /**
      * Read flight time
      */
-    public static final class ReadTime extends Command {
-        public ReadTime() {
+    public static final class ReadTime extends ReadCommand {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final ReadTime INSTANCE = new ReadTime();
+
+        private ReadTime() {
             super("time?");
         }
     }
@@ -235,8 +259,13 @@ public class Commands {
     /**
      * Read WiFi signal strength
      */
-    public static final class ReadWifi extends Command {
-        public ReadWifi() {
+    public static final class ReadWifi extends ReadCommand {
+        /**
+         * The only instance, the command has no parameters
+         */
+        public static final ReadWifi INSTANCE = new ReadWifi();
+
+        private ReadWifi() {
             super("wifi?");
         }
     }
@@ -254,9 +283,15 @@ public class Commands {
             this.x = x;
         }
 
+        @Override
+        public void encode(@NonNull ByteBuffer dst) {
+            super.encode(dst);
+            putParameter(dst, x);
+        }
+
         @Override
         public String toString() {
-            return String.format("%s %s", getCommand(), getX().toString());
+            return getCommand() + " " + getX();
         }
     }
 
@@ -364,6 +399,14 @@ public class Commands {
             this.params = params;
         }
 
+        @Override
+        public void encode(@NonNull ByteBuffer dst) {
+            super.encode(dst);
+            for (var t : params) {
+                putParameter(dst, t);
+            }
+        }
+
         @Override
         public String toString() {
             StringBuilder output = new StringBuilder(getCommand());
@@ -386,7 +429,7 @@ public class Commands {
     }
 
     /**
-     * Fly in a curve to ({@code x1}, {@code y1}, {@code z1}) and ({@code x2}, {@code y2}, {@code z2}) at {@code speed} cm/s. x{1,2}, y{1,2}, z{1,2} in [-500, 500], speed in [10, 100]
+     * Fly in a curve to ({@code x1}, {@code y1}, {@code z1}) and ({@code x2}, {@code y2}, {@code z2}) at {@code speed} cm/s. x{1,2}, y{1,2}, z{1,2} in [-500, 500], speed in [10, 60]
      * <p>{@code x}, {@code y}, {@code z} cannot be set to [-20,20] simultaneously</p>
      */
     public static final class Curve extends MultiParameterCommand<Integer> {
@@ -394,4 +437,37 @@ public class Commands {
             super("curve", x1, y1, z1, x2, y2, z2, speed);
         }
     }
+
+    /**
+     * Set the remote control channels: {@code leftRight}, {@code forwardBackward}, {@code upDown} and {@code yaw} in
+     * [-100, 100]
+     * <p>The drone does not respond to this command. It is meant to be sent continuously, see
+     * {@link de.tum.digitalagriculture.tello.controllers.RcLoop}</p>
+     */
+    public static final class Rc extends MultiParameterCommand<Integer> {
+        public Rc(@NonNull Integer leftRight, @NonNull Integer forwardBackward, @NonNull Integer upDown, @NonNull Integer yaw) {
+            super("rc", leftRight, forwardBackward, upDown, yaw);
+        }
+
+        /**
+         * Write an rc command into {@code dst} without creating an {@link Rc}
+         *
+         * @param dst buffer the command is written to, starting at its position
+         * @param leftRight left/right channel in [-100, 100]
+         * @param forwardBackward forward/backward channel in [-100, 100]
+         * @param upDown up/down channel in [-100, 100]
+         * @param yaw yaw channel in [-100, 100]
+         */
+        public static void encode(@NonNull ByteBuffer dst, int leftRight, int forwardBackward, int upDown, int yaw) {
+            dst.put((byte) 'r').put((byte) 'c');
+            dst.put((byte) ' ');
+            putDecimal(dst, leftRight);
+            dst.put((byte) ' ');
+            putDecimal(dst, forwardBackward);
+            dst.put((byte) ' ');
+            putDecimal(dst, upDown);
+            dst.put((byte) ' ');
+            putDecimal(dst, yaw);
+        }
+    }
 }
@@ -0,0 +1,387 @@
+package de.tum.digitalagriculture.tello.commanders;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the commands of a mission file, so a mission can be longer than what fits into memory.
+ * <p>
+ * Two formats are supported. The text format has one command per line in the syntax of the SDK, blank lines and lines
+ * starting with {@code #} are skipped. The binary format starts with {@link #MAGIC}, followed by one record per
+ * command: an opcode byte and every parameter as a big-endian short. The format is detected from the first bytes of
+ * the file.
+ * </p>
+ * <p>
+ * The file is read through a small read-ahead buffer and a command is only parsed when it is requested, the memory
+ * used does not depend on the length of the mission. {@link #restart()} seeks back to the first command.
+ * </p>
+ */
+public class MissionFile implements Iterator<Commands.Command>, AutoCloseable {
+    /**
+     * Magic number of the binary format, "TMIS"
+     */
+    public static final int MAGIC = 0x544d4953;
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    /**
+     * Fits the longest binary record
+     */
+    private static final int MIN_BUFFER_SIZE = 64;
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final Opcode[] OPCODES = Opcode.values();
+
+    /**
+     * Path of the mission file
+     *
+     * @return path of the mission file
+     */
+    @Getter
+    private final Path path;
+    /**
+     * Format of the mission file
+     *
+     * @return format of the mission file
+     */
+    @Getter
+    private final Format format;
+    private final FileChannel channel;
+    /**
+     * Read-ahead buffer, always in read mode
+     */
+    private final ByteBuffer buffer;
+    /**
+     * View of {@link #buffer} that is limited to the current line
+     */
+    private final ByteBuffer line;
+    private boolean endOfFile;
+    private long lineNumber;
+    private Commands.Command next;
+
+    /**
+     * Open a mission file with an 8 KiB read-ahead buffer
+     *
+     * @param path path of the mission file
+     * @throws IOException failed to open the file
+     */
+    public MissionFile(@NonNull Path path) throws IOException {
+        this(path, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Open a mission file
+     *
+     * @param path path of the mission file
+     * @param bufferSize size of the read-ahead buffer. Limits the length of a line of the text format
+     * @throws IOException failed to open the file
+     */
+    public MissionFile(@NonNull Path path, int bufferSize) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, MIN_BUFFER_SIZE));
+        line = buffer.duplicate();
+        var header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() == HEADER_BYTES && header.getInt() == MAGIC) {
+            var version = header.getShort();
+            if (version != VERSION) {
+                channel.close();
+                throw new IOException(String.format("Unsupported mission file version %d", version));
+            }
+            format = Format.BINARY;
+        } else {
+            format = Format.TEXT;
+        }
+        restart();
+    }
+
+    /**
+     * Write a mission file
+     *
+     * @param path path of the file. An existing file is replaced
+     * @param format format of the file
+     * @param commands commands of the mission. Consumed lazily, so they can be generated on the fly
+     * @throws IOException failed to write the file
+     * @throws IllegalArgumentException a command is out of the range of the SDK, the file is incomplete then
+     */
+    public static void write(@NonNull Path path, @NonNull Format format, @NonNull Iterator<? extends Commands.Command> commands) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+            if (format == Format.BINARY) {
+                buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+            }
+            while (commands.hasNext()) {
+                var command = commands.next();
+                var result = CommandParser.validate(command);
+                if (!result.isOk()) {
+                    throw new IllegalArgumentException(String.format("%s: %s", result.message(), command));
+                }
+                if (buffer.remaining() < DEFAULT_BUFFER_SIZE / 2) {
+                    drain(channel, buffer);
+                }
+                if (format == Format.BINARY) {
+                    Opcode.of(command).encode(command, buffer);
+                } else {
+                    command.encode(buffer);
+                    buffer.put((byte) '\n');
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Seek back to the first command of the mission
+     */
+    @SneakyThrows
+    public void restart() {
+        channel.position(format == Format.BINARY ? HEADER_BYTES : 0);
+        buffer.clear().flip();
+        endOfFile = false;
+        lineNumber = 0;
+        next = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = format == Format.BINARY ? readBinary() : readText();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Commands.Command next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Mission finished!");
+        }
+        var command = next;
+        next = null;
+        return command;
+    }
+
+    /**
+     * Refill the read-ahead buffer, keeping the bytes that were not consumed yet
+     *
+     * @return false if the end of the file was reached
+     */
+    private boolean fill() throws IOException {
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            buffer.flip();
+            throw new IOException(String.format("Line %d of %s is longer than the read-ahead buffer", lineNumber + 1, path));
+        }
+        var read = channel.read(buffer);
+        buffer.flip();
+        endOfFile = read < 0;
+        return !endOfFile;
+    }
+
+    @SneakyThrows
+    private Commands.Command readText() {
+        while (true) {
+            var end = indexOfNewline();
+            if (end < 0) {
+                if (!endOfFile && fill()) {
+                    continue;
+                }
+                if (!buffer.hasRemaining()) {
+                    return null;
+                }
+                // the last line does not end with a newline
+                end = buffer.limit();
+            }
+            lineNumber++;
+            line.limit(end).position(buffer.position());
+            buffer.position(Math.min(end + 1, buffer.limit()));
+            if (isBlankOrComment(line)) {
+                continue;
+            }
+            var result = CommandParser.parse(line);
+            if (!result.isOk()) {
+                throw new IllegalStateException(String.format("%s:%d: %s", path, lineNumber, result.message()));
+            }
+            return result.command();
+        }
+    }
+
+    private int indexOfNewline() {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBlankOrComment(ByteBuffer line) {
+        for (int i = line.position(); i < line.limit(); i++) {
+            var c = line.get(i);
+            if (c != ' ' && c != '\t' && c != '\r') {
+                return c == '#';
+            }
+        }
+        return true;
+    }
+
+    @SneakyThrows
+    private Commands.Command readBinary() {
+        if (!ensure(1)) {
+            return null;
+        }
+        var opcode = buffer.get();
+        var offset = channel.position() - buffer.remaining() - 1;
+        if (opcode < 0 || opcode >= OPCODES.length) {
+            throw new IllegalStateException(String.format("%s: unknown opcode %d at offset %d", path, opcode, offset));
+        }
+        var decoder = OPCODES[opcode];
+        if (!ensure(decoder.arity * Short.BYTES)) {
+            throw new IllegalStateException(String.format("%s: truncated record at the end of the file", path));
+        }
+        var command = decoder.decode(buffer);
+        // the shorts are not range checked by decoding, reject the same missions as the text format
+        var result = CommandParser.validate(command);
+        if (!result.isOk()) {
+            throw new IllegalStateException(String.format("%s: %s in record at offset %d: %s", path, result.error().getDescription(), offset, command));
+        }
+        return command;
+    }
+
+    /**
+     * Make sure at least {@code bytes} bytes are buffered
+     *
+     * @return false if the file ended before
+     */
+    private boolean ensure(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            if (endOfFile || !fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Formats of mission files
+     */
+    public enum Format {
+        /**
+         * One command per line in the syntax of the SDK
+         */
+        TEXT,
+        /**
+         * Opcode byte and short parameters per command
+         */
+        BINARY
+    }
+
+    /**
+     * Opcodes of the binary format. The ordinal is written to the file, new opcodes have to be appended
+     */
+    private enum Opcode {
+        INIT(0), TAKEOFF(0), LAND(0), STREAMON(0), STREAMOFF(0), EMERGENCY(0), STOP(0),
+        READ_SPEED(0), READ_BATTERY(0), READ_TIME(0), READ_WIFI(0),
+        UP(1), DOWN(1), LEFT(1), RIGHT(1), FORWARD(1), BACK(1), CW(1), CCW(1), SPEED(1), FLIP(1),
+        GO(4), CURVE(7), RC(4);
+
+        private final int arity;
+
+        Opcode(int arity) {
+            this.arity = arity;
+        }
+
+        private static Opcode of(Commands.Command command) {
+            return switch (command) {
+                case Commands.Init ignored -> INIT;
+                case Commands.TakeOff ignored -> TAKEOFF;
+                case Commands.Land ignored -> LAND;
+                case Commands.StreamOn ignored -> STREAMON;
+                case Commands.StreamOff ignored -> STREAMOFF;
+                case Commands.Emergency ignored -> EMERGENCY;
+                case Commands.Stop ignored -> STOP;
+                case Commands.ReadSpeed ignored -> READ_SPEED;
+                case Commands.ReadBattery ignored -> READ_BATTERY;
+                case Commands.ReadTime ignored -> READ_TIME;
+                case Commands.ReadWifi ignored -> READ_WIFI;
+                case Commands.Up ignored -> UP;
+                case Commands.Down ignored -> DOWN;
+                case Commands.Left ignored -> LEFT;
+                case Commands.Right ignored -> RIGHT;
+                case Commands.Forward ignored -> FORWARD;
+                case Commands.Back ignored -> BACK;
+                case Commands.ClockWise ignored -> CW;
+                case Commands.CounterClockWise ignored -> CCW;
+                case Commands.Speed ignored -> SPEED;
+                case Commands.Flip ignored -> FLIP;
+                case Commands.Go ignored -> GO;
+                case Commands.Curve ignored -> CURVE;
+                case Commands.Rc ignored -> RC;
+                default -> throw new IllegalArgumentException(String.format("No opcode for %s", command));
+            };
+        }
+
+        private void encode(Commands.Command command, ByteBuffer dst) {
+            dst.put((byte) ordinal());
+            if (command instanceof Commands.SingleParameterCommand<?> single) {
+                var x = single.getX();
+                dst.putShort(x instanceof Character c ? (short) c.charValue() : ((Integer) x).shortValue());
+            } else if (command instanceof Commands.MultiParameterCommand<?> multi) {
+                for (var parameter : multi.getParams()) {
+                    dst.putShort(((Integer) parameter).shortValue());
+                }
+            }
+        }
+
+        private Commands.Command decode(ByteBuffer src) {
+            return switch (this) {
+                case INIT -> Commands.Init.INSTANCE;
+                case TAKEOFF -> Commands.TakeOff.INSTANCE;
+                case LAND -> Commands.Land.INSTANCE;
+                case STREAMON -> Commands.StreamOn.INSTANCE;
+                case STREAMOFF -> Commands.StreamOff.INSTANCE;
+                case EMERGENCY -> Commands.Emergency.INSTANCE;
+                case STOP -> Commands.Stop.INSTANCE;
+                case READ_SPEED -> Commands.ReadSpeed.INSTANCE;
+                case READ_BATTERY -> Commands.ReadBattery.INSTANCE;
+                case READ_TIME -> Commands.ReadTime.INSTANCE;
+                case READ_WIFI -> Commands.ReadWifi.INSTANCE;
+                case UP -> new Commands.Up((int) src.getShort());
+                case DOWN -> new Commands.Down((int) src.getShort());
+                case LEFT -> new Commands.Left((int) src.getShort());
+                case RIGHT -> new Commands.Right((int) src.getShort());
+                case FORWARD -> new Commands.Forward((int) src.getShort());
+                case BACK -> new Commands.Back((int) src.getShort());
+                case CW -> new Commands.ClockWise((int) src.getShort());
+                case CCW -> new Commands.CounterClockWise((int) src.getShort());
+                case SPEED -> new Commands.Speed((int) src.getShort());
+                case FLIP -> new Commands.Flip((char) src.getShort());
+                case GO -> new Commands.Go((int) src.getShort(), (int) src.getShort(), (int) src.getShort(), (int) src.getShort());
+                case CURVE -> new Commands.Curve((int) src.getShort(), (int) src.getShort(), (int) src.getShort(),
+                        (int) src.getShort(), (int) src.getShort(), (int) src.getShort(), (int) src.getShort());
+                case RC -> new Commands.Rc((int) src.getShort(), (int) src.getShort(), (int) src.getShort(), (int) src.getShort());
+            };
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package de.tum.digitalagriculture.tello.commanders;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A {@link Commander} decorator that shortens the command sequence of another commander before it is flown.
+ * <p>
+ * Every command costs a round trip and the drone settles after every motion. The optimizer therefore
+ * <ul>
+ *     <li>merges consecutive rotations and drops rotations that cancel each other,</li>
+ *     <li>merges consecutive collinear moves and moves that cancel each other,</li>
+ *     <li>merges vertical moves with the neighbouring move into a single {@link Commands.Go}.</li>
+ * </ul>
+ * These merges keep the drone on the original path. If {@link #isCurves() curves} are enabled, two moves that meet at
+ * a corner are additionally flown as one {@link Commands.Curve} through the corner. The arc leaves the path: it bulges
+ * out of each leg by up to its sagitta, about 21 cm for a right-angled corner of two 1 m legs. Only enable it where
+ * there is room around the path.
+ * </p>
+ * <p>
+ * Merged commands have to stay within the limits of the SDK, otherwise they are flown separately. Every other
+ * command is a barrier that nothing is moved across. The source is consumed lazily with a lookahead of at most three
+ * commands, so it also works on streamed missions.
+ * </p>
+ */
+public class OptimizingCommander implements Commander {
+    private static final Logger logger = LoggerFactory.getLogger(OptimizingCommander.class);
+    private static final int DEFAULT_SPEED = 50;
+    private static final int MAX_DISTANCE = 500;
+    private static final int MIN_DISTANCE = 20;
+    private static final int MIN_CURVE_RADIUS = 50;
+    private static final int MAX_CURVE_RADIUS = 1000;
+    private static final int MIN_SPEED = 10;
+    private static final int MAX_GO_SPEED = 100;
+    private static final int MAX_CURVE_SPEED = 60;
+
+    private final Commander source;
+    private final ArrayDeque<Commands.Command> output;
+    /**
+     * Moves that were not emitted yet, at most two
+     */
+    private final ArrayDeque<Leg> legs;
+    /**
+     * Estimated flight of the commands of the source
+     *
+     * @return estimated flight of the commands of the source
+     */
+    @Getter
+    private final FlightEstimate original;
+    /**
+     * Estimated flight of the optimized commands
+     *
+     * @return estimated flight of the optimized commands
+     */
+    @Getter
+    private final FlightEstimate optimized;
+    /**
+     * Whether corners are flown as curves that deviate from the path
+     *
+     * @return whether corners are flown as curves that deviate from the path
+     */
+    @Getter
+    private final boolean curves;
+    private int speed;
+    private int yaw;
+    /**
+     * Number of rotations merged into {@link #yaw} and the last of them
+     */
+    private int rotations;
+    private Commands.Command rotation;
+    private boolean finished;
+
+    /**
+     * Optimize the commands of {@code source}, assuming the drone flies at 50 cm/s until a speed command is given
+     *
+     * @param source commander whose commands are optimized
+     */
+    public OptimizingCommander(@NonNull Commander source) {
+        this(source, DEFAULT_SPEED);
+    }
+
+    /**
+     * @param source commander whose commands are optimized
+     * @param speed speed of the drone in cm/s until a speed command is given. Used for the merged moves
+     */
+    public OptimizingCommander(@NonNull Commander source, int speed) {
+        this(source, speed, false);
+    }
+
+    /**
+     * @param source commander whose commands are optimized
+     * @param speed speed of the drone in cm/s until a speed command is given. Used for the merged moves. Defaults to 50
+     * @param curves fly corners as curves that leave the path, see {@link OptimizingCommander}. Defaults to false
+     */
+    @Builder
+    public OptimizingCommander(@NonNull Commander source, Integer speed, Boolean curves) {
+        this.source = source;
+        this.speed = Objects.requireNonNullElse(speed, DEFAULT_SPEED);
+        this.curves = Objects.requireNonNullElse(curves, false);
+        output = new ArrayDeque<>();
+        legs = new ArrayDeque<>(2);
+        original = new FlightEstimate(this.speed);
+        optimized = new FlightEstimate(this.speed);
+        yaw = 0;
+        finished = false;
+    }
+
+    /**
+     * Optimize a whole mission without flying it, e.g. to check the estimate before the flight
+     *
+     * @param commands the mission
+     * @return the optimizer after the mission was consumed. Use its estimates to compare the missions
+     */
+    public static OptimizingCommander analyze(@NonNull Iterator<Commands.Command> commands) {
+        var optimizer = new OptimizingCommander(new Commander() {
+            @Override
+            public boolean hasNext() {
+                return commands.hasNext();
+            }
+
+            @Override
+            public Commands.Command next() {
+                return commands.next();
+            }
+        });
+        while (optimizer.hasNext()) {
+            optimizer.next();
+        }
+        return optimizer;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (output.isEmpty() && !finished) {
+            step();
+        }
+        return !output.isEmpty();
+    }
+
+    @Override
+    public Commands.Command next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Iteration finished!");
+        }
+        return output.poll();
+    }
+
+    /**
+     * Consume one command of the source
+     */
+    @SuppressWarnings("unchecked")
+    private void step() {
+        if (!source.hasNext()) {
+            flushLegs();
+            flushRotation();
+            finished = true;
+            logger.info("Optimized {} commands ({} s) to {} commands ({} s)", original.getCommands(),
+                    Math.round(original.getSeconds()), optimized.getCommands(), Math.round(optimized.getSeconds()));
+            return;
+        }
+        var command = source.next();
+        original.add(command);
+        var move = Leg.of(command);
+        if (move != null) {
+            flushRotation();
+            addLeg(move);
+        } else if (command instanceof Commands.ClockWise || command instanceof Commands.CounterClockWise) {
+            flushLegs();
+            var degrees = ((Commands.SingleParameterCommand<Integer>) command).getX();
+            yaw += command instanceof Commands.ClockWise ? degrees : -degrees;
+            rotations++;
+            rotation = command;
+        } else {
+            flushLegs();
+            flushRotation();
+            if (command instanceof Commands.Speed newSpeed) {
+                speed = newSpeed.getX();
+            }
+            emit(command);
+        }
+    }
+
+    private void emit(Commands.Command command) {
+        optimized.add(command);
+        output.add(command);
+    }
+
+    private void addLeg(Leg move) {
+        var last = legs.peekLast();
+        if (last != null && last.canMerge(move)) {
+            var merged = last.plus(move);
+            if (merged.isZero()) {
+                legs.pollLast();
+                return;
+            }
+            if (merged.isGo()) {
+                legs.pollLast();
+                legs.add(merged);
+                return;
+            }
+        }
+        if (legs.size() == 2) {
+            flushLegs();
+        }
+        legs.add(move);
+    }
+
+    /**
+     * Emit the pending moves, as a curve through the corner if curves are enabled and possible
+     */
+    private void flushLegs() {
+        if (legs.size() == 2) {
+            var first = legs.poll();
+            var second = legs.poll();
+            var curve = curves ? curve(first, first.plus(second)) : null;
+            if (curve != null) {
+                emit(curve);
+            } else {
+                emit(first.toCommand(goSpeed()));
+                emit(second.toCommand(goSpeed()));
+            }
+        } else if (legs.size() == 1) {
+            emit(legs.poll().toCommand(goSpeed()));
+        }
+    }
+
+    /**
+     * Emit the pending rotations as a single rotation. A single rotation is kept as it is, so full turns survive
+     */
+    private void flushRotation() {
+        var degrees = Math.floorMod(yaw, 360);
+        var pending = rotations;
+        yaw = 0;
+        rotations = 0;
+        if (pending == 1) {
+            emit(rotation);
+            return;
+        }
+        if (degrees == 0) {
+            return;
+        }
+        emit(degrees <= 180 ? new Commands.ClockWise(degrees) : new Commands.CounterClockWise(360 - degrees));
+    }
+
+    private int goSpeed() {
+        return Math.max(MIN_SPEED, Math.min(speed, MAX_GO_SPEED));
+    }
+
+    /**
+     * Create a curve from the current position through {@code p1} to {@code p2} if it is within the limits of the SDK
+     *
+     * @return the curve or {@code null}
+     */
+    private Commands.Command curve(Leg p1, Leg p2) {
+        if (!p1.isGo() || !p2.isGo()) {
+            return null;
+        }
+        // radius of the circle through the origin, p1 and p2
+        var cross = p1.cross(p2);
+        var area = Math.sqrt(cross[0] * cross[0] + cross[1] * cross[1] + cross[2] * cross[2]);
+        if (area == 0) {
+            return null;
+        }
+        var radius = p1.length() * p2.length() * p2.minus(p1).length() / (2 * area);
+        if (radius < MIN_CURVE_RADIUS || radius > MAX_CURVE_RADIUS) {
+            return null;
+        }
+        var curveSpeed = Math.max(MIN_SPEED, Math.min(speed, MAX_CURVE_SPEED));
+        return new Commands.Curve(p1.x, p1.y, p1.z, p2.x, p2.y, p2.z, curveSpeed);
+    }
+
+    /**
+     * A move in the frame of the drone: {@code x} forward, {@code y} left, {@code z} up, in cm
+     */
+    private static final class Leg {
+        private final int x;
+        private final int y;
+        private final int z;
+        /**
+         * The command of the move, if it was not merged
+         */
+        private final Commands.Command command;
+
+        private Leg(int x, int y, int z, Commands.Command command) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.command = command;
+        }
+
+        /**
+         * @return the move of {@code command} or {@code null} if it is no move
+         */
+        private static Leg of(Commands.Command command) {
+            return switch (command) {
+                case Commands.Forward forward -> new Leg(forward.getX(), 0, 0, command);
+                case Commands.Back back -> new Leg(-back.getX(), 0, 0, command);
+                case Commands.Left left -> new Leg(0, left.getX(), 0, command);
+                case Commands.Right right -> new Leg(0, -right.getX(), 0, command);
+                case Commands.Up up -> new Leg(0, 0, up.getX(), command);
+                case Commands.Down down -> new Leg(0, 0, -down.getX(), command);
+                case Commands.Go go -> new Leg(go.getParams()[0], go.getParams()[1], go.getParams()[2], command);
+                default -> null;
+            };
+        }
+
+        private Leg plus(Leg other) {
+            return new Leg(x + other.x, y + other.y, z + other.z, null);
+        }
+
+        private Leg minus(Leg other) {
+            return new Leg(x - other.x, y - other.y, z - other.z, null);
+        }
+
+        private long[] cross(Leg other) {
+            return new long[]{
+                    (long) y * other.z - (long) z * other.y,
+                    (long) z * other.x - (long) x * other.z,
+                    (long) x * other.y - (long) y * other.x
+            };
+        }
+
+        private double length() {
+            return Math.sqrt((double) x * x + (double) y * y + (double) z * z);
+        }
+
+        private boolean isVertical() {
+            return x == 0 && y == 0;
+        }
+
+        private boolean isZero() {
+            return x == 0 && y == 0 && z == 0;
+        }
+
+        /**
+         * Collinear moves and vertical moves can be merged
+         */
+        private boolean canMerge(Leg other) {
+            var cross = cross(other);
+            return isVertical() || other.isVertical() || (cross[0] == 0 && cross[1] == 0 && cross[2] == 0);
+        }
+
+        /**
+         * @return whether the move can be flown with a go command
+         */
+        private boolean isGo() {
+            var inRange = Math.abs(x) <= MAX_DISTANCE && Math.abs(y) <= MAX_DISTANCE && Math.abs(z) <= MAX_DISTANCE;
+            var tooClose = Math.abs(x) <= MIN_DISTANCE && Math.abs(y) <= MIN_DISTANCE && Math.abs(z) <= MIN_DISTANCE;
+            return inRange && !tooClose;
+        }
+
+        private Commands.Command toCommand(int speed) {
+            return command != null ? command : new Commands.Go(x, y, z, speed);
+        }
+    }
+
+    /**
+     * A rough estimate of the flight time of a command sequence. Every motion command costs a round trip and the time
+     * the drone needs to settle, moves are flown at the current speed
+     */
+    public static final class FlightEstimate {
+        private static final double SETTLE_SECONDS = 1.0;
+        private static final double QUERY_SECONDS = 0.05;
+        private static final double TAKEOFF_SECONDS = 5.0;
+        private static final double DEGREES_PER_SECOND = 60.0;
+        private static final double FLIP_SECONDS = 2.0;
+
+        /**
+         * Number of commands
+         *
+         * @return number of commands
+         */
+        @Getter
+        private long commands;
+        /**
+         * Estimated flight time in seconds
+         *
+         * @return estimated flight time in seconds
+         */
+        @Getter
+        private double seconds;
+        private int speed;
+
+        private FlightEstimate(int speed) {
+            this.speed = speed;
+        }
+
+        private void add(Commands.Command command) {
+            commands++;
+            seconds += switch (command) {
+                case Commands.ReadCommand ignored -> QUERY_SECONDS;
+                case Commands.TakeOff ignored -> TAKEOFF_SECONDS;
+                case Commands.Land ignored -> TAKEOFF_SECONDS;
+                case Commands.Flip ignored -> FLIP_SECONDS;
+                case Commands.ClockWise cw -> SETTLE_SECONDS + cw.getX() / DEGREES_PER_SECOND;
+                case Commands.CounterClockWise ccw -> SETTLE_SECONDS + ccw.getX() / DEGREES_PER_SECOND;
+                case Commands.Speed newSpeed -> {
+                    speed = newSpeed.getX();
+                    yield QUERY_SECONDS;
+                }
+                case Commands.Go go -> SETTLE_SECONDS + length(go.getParams()[0], go.getParams()[1], go.getParams()[2]) / go.getParams()[3];
+                case Commands.Curve curve -> {
+                    var p = curve.getParams();
+                    // the arc is approximated by the chords through both points
+                    var chords = length(p[0], p[1], p[2]) + length(p[3] - p[0], p[4] - p[1], p[5] - p[2]);
+                    yield SETTLE_SECONDS + chords / p[6];
+                }
+                case Commands.SingleParameterCommand<?> move when move.getX() instanceof Integer distance -> SETTLE_SECONDS + (double) distance / speed;
+                default -> QUERY_SECONDS;
+            };
+        }
+
+        private static double length(double x, double y, double z) {
+            return Math.sqrt(x * x + y * y + z * z);
+        }
+    }
+}
@@ -9,24 +9,27 @@ import lombok.SneakyThrows;
 import org.bytedeco.javacpp.Loader;
 import org.bytedeco.opencv.opencv_java;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Executes the commands provided by {@code commands}
+ * Executes the commands provided by {@code commands} or streamed from a {@link MissionFile}
  */
-public class PathCommander implements Commander {
+public class PathCommander implements Commander, AutoCloseable {
     /**
      * Commands of the {@link PathCommander}
      *
      * @param commands set the commands
-     * @return commands that the {@link PathCommander} executes
+     * @return commands that the {@link PathCommander} executes, {@code null} if they are streamed from a mission file
      */
     @Getter
     @Setter
     private Commands.Command[] commands;
+    private final MissionFile mission;
     private Iterator<Commands.Command> iter;
 
     /**
@@ -34,27 +37,42 @@ public class PathCommander implements Commander {
      */
     public PathCommander(@NonNull Commands.Command... commands) {
         this.commands = commands;
+        mission = null;
         iter = Arrays.stream(commands).iterator();
     }
 
+    /**
+     * Stream the commands lazily from a mission file. Memory use does not depend on the length of the mission
+     *
+     * @param missionFile path of a mission file in one of the {@link MissionFile.Format}s
+     * @throws IOException failed to open the mission file
+     */
+    public PathCommander(@NonNull Path missionFile) throws IOException {
+        commands = null;
+        mission = new MissionFile(missionFile);
+        iter = mission;
+    }
+
     @SneakyThrows
     public static void main(String[] args) {
         Loader.load(opencv_java.class);
 
         Commands.Command[] commands = new Commands.Command[]{
-                new Commands.StreamOn(),
-                new Commands.TakeOff(),
+                Commands.StreamOn.INSTANCE,
+                Commands.TakeOff.INSTANCE,
                 new Commands.Up(50),
                 new Commands.Forward(100),
                 new Commands.ClockWise(180),
                 new Commands.Forward(100),
                 new Commands.CounterClockWise(180),
-                new Commands.Land(),
-                new Commands.StreamOff(),
+                Commands.Land.INSTANCE,
+                Commands.StreamOff.INSTANCE,
         };
-        var executor = new ScheduledThreadPoolExecutor(8);
+        // only schedules the keep alive, the stream is captured on a virtual thread
+        var executor = new ScheduledThreadPoolExecutor(1);
         var streamHandler = new StreamWriter("/tmp/flight0.avi");
-//        var controller = new FlightController<>("192.168.10.1", executor, streamHandler, FlightController.ConnectionOption.TIME_OUT);
+//        var controller = FlightController.<String, StreamWriter.Stream>builder().ip("192.168.10.1").executor(executor).streamHandler(streamHandler)
+//                .connectionOption(FlightController.ConnectionOption.TIME_OUT).executionMode(FlightController.ExecutionMode.VIRTUAL).build();
         var controller = new PrintController(100, TimeUnit.MILLISECONDS);
         var commander = new PathCommander(commands);
         commander.forEachRemaining(controller);
@@ -63,10 +81,14 @@ public class PathCommander implements Commander {
     }
 
     /**
-     * Restart the iterator
+     * Restart the iterator. A mission file is not read again but rewound
      */
     public void restart() {
-        iter = Arrays.stream(commands).iterator();
+        if (mission != null) {
+            mission.restart();
+        } else {
+            iter = Arrays.stream(commands).iterator();
+        }
     }
 
     @Override
@@ -78,4 +100,16 @@ public class PathCommander implements Commander {
     public Commands.Command next() {
         return iter.next();
     }
+
+    /**
+     * Close the mission file, if the commands are streamed from one
+     *
+     * @throws IOException failed to close the mission file
+     */
+    @Override
+    public void close() throws IOException {
+        if (mission != null) {
+            mission.close();
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.Selector;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking command channel to a single Tello drone.
+ * <p>
+ * A dedicated I/O thread drives a {@link Selector} over the command {@link DatagramChannel}. Commands are submitted
+ * asynchronously and several of them can be in flight at the same time. Motion commands are still executed one after
+ * another, read-only queries ({@link Commands.ReadCommand}) however do not wait for a running motion command.
+ * Deadlines and retries of the commands are defined by a {@link CommandPolicy}.
+ * </p>
+ */
+public class CommandChannel implements AutoCloseable {
+    private final CommandLoop loop;
+    private final CommandLoop.Session session;
+
+    /**
+     * Create a new {@link CommandChannel} and start its I/O thread
+     *
+     * @param channel the bound channel over which the commands are sent. The channel is owned by the {@link CommandChannel} afterwards
+     * @param remoteAddress address of the drone
+     * @throws IOException failed to setup the selector
+     */
+    public CommandChannel(@NonNull DatagramChannel channel, @NonNull InetSocketAddress remoteAddress) throws IOException {
+        this(channel, remoteAddress, CommandPolicy.DEFAULT);
+    }
+
+    /**
+     * Create a new {@link CommandChannel} and start its I/O thread
+     *
+     * @param channel the bound channel over which the commands are sent. The channel is owned by the {@link CommandChannel} afterwards
+     * @param remoteAddress address of the drone
+     * @param policy deadlines and retries of the commands
+     * @throws IOException failed to setup the selector
+     */
+    public CommandChannel(@NonNull DatagramChannel channel, @NonNull InetSocketAddress remoteAddress, @NonNull CommandPolicy policy) throws IOException {
+        this(channel, remoteAddress, policy, MetricsRegistry.global());
+    }
+
+    /**
+     * Create a new {@link CommandChannel} and start its I/O thread
+     *
+     * @param channel the bound channel over which the commands are sent. The channel is owned by the {@link CommandChannel} afterwards
+     * @param remoteAddress address of the drone
+     * @param policy deadlines and retries of the commands
+     * @param registry registry the outcomes of the commands are reported to
+     * @throws IOException failed to setup the selector
+     */
+    public CommandChannel(@NonNull DatagramChannel channel, @NonNull InetSocketAddress remoteAddress, @NonNull CommandPolicy policy, @NonNull MetricsRegistry registry) throws IOException {
+        session = new CommandLoop.Session(remoteAddress, 0, policy, registry);
+        loop = new CommandLoop("tello-command-io", new DatagramChannel[]{channel}, List.of(session));
+    }
+
+    /**
+     * Remote address of the drone
+     *
+     * @return the remote address of the drone
+     */
+    public InetSocketAddress getRemoteAddress() {
+        return session.getRemoteAddress();
+    }
+
+    /**
+     * Submit a command to the drone without waiting for the response
+     * <p>
+     * The returned future is completed on the I/O thread, dependent stages should therefore not block. It is
+     * completed exceptionally with a {@link java.util.concurrent.TimeoutException} if the drone does not respond in
+     * time.
+     * </p>
+     *
+     * @param command command to be sent
+     * @return future that is completed with the result of the execution
+     */
+    public CompletableFuture<Result> submit(@NonNull Commands.Command command) {
+        return loop.submit(session, command);
+    }
+
+    /**
+     * Send a datagram directly, past the pipeline. Only for commands the drone does not respond to
+     *
+     * @param datagram the encoded command
+     * @throws IOException failed to send the datagram
+     */
+    void sendUnacknowledged(@NonNull ByteBuffer datagram) throws IOException {
+        loop.sendUnacknowledged(session, datagram);
+    }
+
+    /**
+     * Stop the I/O thread, fail all pending commands and close the channel
+     *
+     * @throws IOException failed to close the channel
+     * @throws InterruptedException interrupted while waiting for the I/O thread
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        loop.close();
+    }
+}
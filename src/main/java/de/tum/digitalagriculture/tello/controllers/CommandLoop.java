@@ -0,0 +1,352 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The I/O loop behind {@link CommandChannel} and {@link SwarmController}.
+ * <p>
+ * A dedicated I/O thread drives a {@link Selector} over one or more command {@link DatagramChannel}s. Every drone has
+ * a {@link Session} with its own {@link CommandPipeline} and is reached over one of the channels; responses are routed
+ * to the session by their source address.
+ * </p>
+ */
+final class CommandLoop implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CommandLoop.class);
+    private static final int MAX_DATAGRAM_SIZE = 1024;
+    private static final long JOIN_TIMEOUT_MILLIS = 1000;
+
+    private final List<Session> sessions;
+    private final Map<SocketAddress, Session> sessionsByAddress;
+    private final DatagramChannel[] channels;
+    private final SelectionKey[] keys;
+    /**
+     * Channels whose socket buffer was full during the current flush
+     */
+    private final boolean[] blocked;
+    private final Selector selector;
+    private final ConcurrentLinkedQueue<Submission> submissions;
+    private final ByteBuffer sendBuffer;
+    private final ByteBuffer recvBuffer;
+    private final AtomicLong sequence;
+    private final Thread ioThread;
+    private volatile boolean running;
+
+    /**
+     * Create a new loop and start its I/O thread
+     *
+     * @param name name of the I/O thread
+     * @param channels the bound channels. They are owned by the loop afterwards and closed if the loop cannot be created
+     * @param sessions the drones. Every drone needs a distinct address
+     * @throws IOException failed to setup the selector
+     */
+    CommandLoop(@NonNull String name, @NonNull DatagramChannel[] channels, @NonNull List<Session> sessions) throws IOException {
+        this.channels = channels;
+        this.sessions = List.copyOf(sessions);
+        sessionsByAddress = new HashMap<>();
+        for (var session : this.sessions) {
+            if (session.channel < 0 || session.channel >= channels.length) {
+                throw closeAll(new IllegalArgumentException(String.format("Drone %s uses channel %d of %d", session.remoteAddress, session.channel, channels.length)), null);
+            }
+            if (sessionsByAddress.putIfAbsent(session.remoteAddress, session) != null) {
+                throw closeAll(new IllegalArgumentException(String.format("Drone %s added twice", session.remoteAddress)), null);
+            }
+        }
+        keys = new SelectionKey[channels.length];
+        blocked = new boolean[channels.length];
+        Selector opened = null;
+        try {
+            opened = Selector.open();
+            for (int i = 0; i < channels.length; i++) {
+                channels[i].configureBlocking(false);
+                keys[i] = channels[i].register(opened, SelectionKey.OP_READ, i);
+            }
+        } catch (IOException ioException) {
+            throw closeAll(ioException, opened);
+        }
+        selector = opened;
+        submissions = new ConcurrentLinkedQueue<>();
+        sendBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+        recvBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+        sequence = new AtomicLong();
+        running = true;
+        ioThread = new Thread(this::run, name);
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Close the channels and the selector after the constructor failed
+     *
+     * @return {@code exception}, with the exceptions of closing added as suppressed
+     */
+    private <E extends Exception> E closeAll(E exception, Selector opened) {
+        try {
+            if (opened != null) {
+                opened.close();
+            }
+        } catch (IOException ioException) {
+            exception.addSuppressed(ioException);
+        }
+        for (var channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException ioException) {
+                exception.addSuppressed(ioException);
+            }
+        }
+        return exception;
+    }
+
+    /**
+     * Submit a command to a drone without waiting for the response
+     *
+     * @param session the drone
+     * @param command command to be sent
+     * @return future that is completed with the result on the I/O thread
+     */
+    CompletableFuture<Result> submit(@NonNull Session session, @NonNull Commands.Command command) {
+        var inFlight = new CommandPipeline.InFlight(sequence.incrementAndGet(), command);
+        if (!running) {
+            inFlight.getFuture().completeExceptionally(new ClosedChannelException());
+            return inFlight.getFuture();
+        }
+        submissions.add(new Submission(session, inFlight));
+        if (!running) {
+            // the I/O thread stopped and drained the submissions between the check above and adding the command
+            failSubmissions(new ClosedChannelException());
+        }
+        selector.wakeup();
+        return inFlight.getFuture();
+    }
+
+    /**
+     * Send a datagram directly, past the pipeline. Only for commands the drone does not respond to
+     *
+     * @param session the drone
+     * @param datagram the encoded command
+     * @throws IOException failed to send the datagram
+     */
+    void sendUnacknowledged(@NonNull Session session, @NonNull ByteBuffer datagram) throws IOException {
+        channels[session.channel].send(datagram, session.remoteAddress);
+    }
+
+    /**
+     * Fail all submitted commands the I/O thread did not take yet. May be called from any thread
+     */
+    private void failSubmissions(Throwable cause) {
+        for (var submission = submissions.poll(); submission != null; submission = submissions.poll()) {
+            submission.inFlight.getFuture().completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * The I/O loop: accept submissions, send ready commands and dispatch responses
+     */
+    private void run() {
+        try {
+            var wakeUp = Long.MAX_VALUE;
+            while (running) {
+                select(selector, wakeUp);
+                for (var submission = submissions.poll(); submission != null; submission = submissions.poll()) {
+                    submission.session.pipeline.enqueue(submission.inFlight);
+                }
+                for (var key : selector.selectedKeys()) {
+                    if (key.isValid() && key.isReadable()) {
+                        receive((Integer) key.attachment());
+                    }
+                }
+                selector.selectedKeys().clear();
+                var now = System.nanoTime();
+                for (var session : sessions) {
+                    session.pipeline.expire(now);
+                }
+                flush();
+                wakeUp = Long.MAX_VALUE;
+                for (var session : sessions) {
+                    wakeUp = Math.min(wakeUp, session.pipeline.nextDeadline());
+                }
+            }
+        } catch (IOException ioException) {
+            logger.warn("Command channel failed: {}", ioException.getMessage());
+        } finally {
+            running = false;
+            var cause = new ClosedChannelException();
+            for (var session : sessions) {
+                session.pipeline.failAll(cause);
+            }
+            failSubmissions(cause);
+        }
+    }
+
+    /**
+     * Send the ready commands of all drones. If the socket buffer of a channel is full, wait until it becomes writable
+     */
+    private void flush() {
+        Arrays.fill(blocked, false);
+        for (var session : sessions) {
+            var pipeline = session.pipeline;
+            while (!blocked[session.channel] && pipeline.peekReady() != null) {
+                var inFlight = pipeline.peekReady();
+                var command = inFlight.getCommand();
+                sendBuffer.clear();
+                command.encode(sendBuffer);
+                sendBuffer.flip();
+                try {
+                    logger.debug("Sending command #{} {} to {}", inFlight.getSequence(), command, session.remoteAddress);
+                    if (channels[session.channel].send(sendBuffer, session.remoteAddress) == 0) {
+                        blocked[session.channel] = true;
+                        break;
+                    }
+                } catch (IOException ioException) {
+                    logger.warn("Sending command {} to {} failed: {}", command, session.remoteAddress, ioException.getMessage());
+                    pipeline.dropReady();
+                    inFlight.getFuture().complete(new Result(Result.ResultEnum.ERROR, ioException.getMessage()));
+                    continue;
+                }
+                pipeline.markSent(System.nanoTime());
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            keys[i].interestOps(blocked[i] ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Read all pending datagrams of a channel and complete the matching commands
+     */
+    private void receive(int channel) throws IOException {
+        SocketAddress source;
+        recvBuffer.clear();
+        while ((source = channels[channel].receive(recvBuffer)) != null) {
+            recvBuffer.flip();
+            var session = sessionsByAddress.get(source);
+            if (session == null || session.channel != channel) {
+                logger.warn("Ignoring datagram from unknown source {}", source);
+            } else {
+                dispatch(session, recvBuffer);
+            }
+            recvBuffer.clear();
+        }
+    }
+
+    /**
+     * Complete the in-flight command of {@code session} the response in {@code response} belongs to
+     */
+    private void dispatch(Session session, ByteBuffer response) {
+        var kind = Result.classify(response);
+        var now = System.nanoTime();
+        if (session.pipeline.isStale(kind, now)) {
+            session.metrics.stale();
+            logger.debug("Discarded late response from {}: {}", session.remoteAddress, StandardCharsets.US_ASCII.decode(response).toString().trim());
+            return;
+        }
+        var inFlight = session.pipeline.match(kind);
+        if (inFlight == null) {
+            session.metrics.unsolicited();
+            logger.warn("Received unsolicited response from {}: {}", session.remoteAddress, StandardCharsets.US_ASCII.decode(response).toString().trim());
+            return;
+        }
+        var result = Result.of(inFlight.getCommand(), response);
+        session.metrics.completed(inFlight, result, now);
+        logger.debug("Received result for #{} from {} after {}us: {}", inFlight.getSequence(), session.remoteAddress, (now - inFlight.getSentAt()) / 1000, result);
+        inFlight.getFuture().complete(result);
+    }
+
+    /**
+     * Wait until a channel is ready, a command was submitted or {@code wakeUp} is reached
+     *
+     * @param selector the selector to wait on
+     * @param wakeUp {@link System#nanoTime()} at which to return at the latest, {@link Long#MAX_VALUE} to wait without limit
+     * @throws IOException failed to select
+     */
+    private static void select(Selector selector, long wakeUp) throws IOException {
+        if (wakeUp == Long.MAX_VALUE) {
+            selector.select();
+            return;
+        }
+        var millis = (wakeUp - System.nanoTime() + 999_999) / 1_000_000;
+        if (millis > 0) {
+            selector.select(millis);
+        } else {
+            selector.selectNow();
+        }
+    }
+
+    /**
+     * Stop the I/O thread, fail all pending commands and close the channels
+     *
+     * @throws IOException failed to close a channel
+     * @throws InterruptedException interrupted while waiting for the I/O thread
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        selector.wakeup();
+        ioThread.join(JOIN_TIMEOUT_MILLIS);
+        selector.close();
+        for (var channel : channels) {
+            channel.close();
+        }
+    }
+
+    /**
+     * State of a single drone. The pipeline is only accessed from the I/O thread
+     */
+    static final class Session {
+        /**
+         * @return address of the drone
+         */
+        @Getter
+        private final InetSocketAddress remoteAddress;
+        private final int channel;
+        private final CommandPipeline pipeline;
+        private final CommandMetrics metrics;
+
+        /**
+         * @param remoteAddress address of the drone
+         * @param channel index of the channel the drone is reached over
+         * @param policy deadlines and retries of the commands
+         */
+        Session(@NonNull InetSocketAddress remoteAddress, int channel, @NonNull CommandPolicy policy) {
+            this(remoteAddress, channel, policy, MetricsRegistry.global());
+        }
+
+        /**
+         * @param remoteAddress address of the drone
+         * @param channel index of the channel the drone is reached over
+         * @param policy deadlines and retries of the commands
+         * @param registry registry the outcomes of the commands are reported to
+         */
+        Session(@NonNull InetSocketAddress remoteAddress, int channel, @NonNull CommandPolicy policy, @NonNull MetricsRegistry registry) {
+            this.remoteAddress = remoteAddress;
+            this.channel = channel;
+            metrics = new CommandMetrics(remoteAddress.toString(), registry);
+            pipeline = new CommandPipeline(policy, metrics);
+        }
+    }
+
+    private record Submission(Session session, CommandPipeline.InFlight inFlight) {
+    }
+}
@@ -0,0 +1,125 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.metrics.CommandEvent;
+import de.tum.digitalagriculture.tello.metrics.Counter;
+import de.tum.digitalagriculture.tello.metrics.LatencyHistogram;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import lombok.NonNull;
+
+import java.util.HashMap;
+
+/**
+ * Reports the outcomes of the commands of one drone to the {@link MetricsRegistry} and as {@link CommandEvent}s.
+ * <p>
+ * The round trip times are kept per command type, e.g. {@code command.rtt.forward}, the outcomes in the counters
+ * {@code command.ok}, {@code command.error}, {@code command.reading}, {@code command.retries},
+ * {@code command.timeouts}, {@code command.stale} and {@code command.unsolicited}, summed over all drones.
+ * </p>
+ * <p>
+ * Not thread safe, all methods have to be called from the I/O thread that owns the {@link CommandPipeline}.
+ * </p>
+ */
+final class CommandMetrics {
+    private final String drone;
+    private final MetricsRegistry registry;
+    private final HashMap<String, LatencyHistogram> roundTrips = new HashMap<>();
+    private final Counter ok;
+    private final Counter error;
+    private final Counter reading;
+    private final Counter retries;
+    private final Counter timeouts;
+    private final Counter stale;
+    private final Counter unsolicited;
+
+    /**
+     * @param drone address of the drone, used in the events
+     */
+    CommandMetrics(@NonNull String drone) {
+        this(drone, MetricsRegistry.global());
+    }
+
+    /**
+     * @param drone address of the drone, used in the events
+     * @param registry registry the metrics are reported to
+     */
+    CommandMetrics(@NonNull String drone, @NonNull MetricsRegistry registry) {
+        this.drone = drone;
+        this.registry = registry;
+        ok = registry.counter("command.ok");
+        error = registry.counter("command.error");
+        reading = registry.counter("command.reading");
+        retries = registry.counter("command.retries");
+        timeouts = registry.counter("command.timeouts");
+        stale = registry.counter("command.stale");
+        unsolicited = registry.counter("command.unsolicited");
+    }
+
+    /**
+     * A command was answered
+     *
+     * @param inFlight the answered command
+     * @param result the parsed response
+     * @param now {@link System#nanoTime()} when the response was received
+     */
+    void completed(CommandPipeline.InFlight inFlight, Result result, long now) {
+        var roundTrip = now - inFlight.getSentAt();
+        roundTrips.computeIfAbsent(inFlight.getCommand().getCommand(), type -> registry.histogram("command.rtt." + type))
+                .record(roundTrip);
+        switch (result.result()) {
+            case OK -> ok.increment();
+            case ERROR -> error.increment();
+            case READING -> reading.increment();
+        }
+        emit(inFlight, result.result().name(), roundTrip);
+    }
+
+    /**
+     * A query expired and is sent again
+     *
+     * @param inFlight the expired query
+     * @param now {@link System#nanoTime()}
+     */
+    void retried(CommandPipeline.InFlight inFlight, long now) {
+        retries.increment();
+        emit(inFlight, "RETRY", now - inFlight.getSentAt());
+    }
+
+    /**
+     * A command expired and failed
+     *
+     * @param inFlight the expired command
+     * @param now {@link System#nanoTime()}
+     */
+    void timedOut(CommandPipeline.InFlight inFlight, long now) {
+        timeouts.increment();
+        emit(inFlight, "TIMEOUT", now - inFlight.getSentAt());
+    }
+
+    /**
+     * A late response to an expired command was discarded
+     */
+    void stale() {
+        stale.increment();
+    }
+
+    /**
+     * A response arrived while no command was waiting for one
+     */
+    void unsolicited() {
+        unsolicited.increment();
+    }
+
+    private void emit(CommandPipeline.InFlight inFlight, String outcome, long roundTrip) {
+        var event = new CommandEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.setDrone(drone);
+        event.setCommand(inFlight.getCommand().toString());
+        event.setSequence(inFlight.getSequence());
+        event.setOutcome(outcome);
+        event.setSends(inFlight.getSends());
+        event.setRoundTrip(roundTrip);
+        event.commit();
+    }
+}
@@ -0,0 +1,368 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Book keeping of the commands that were submitted to a single drone.
+ * <p>
+ * Motion commands are serialized: only one of them is in flight at any time, the others wait behind the
+ * <em>motion lock</em>. Read-only queries are sent immediately. {@code emergency} and {@code stop} neither take nor
+ * wait for the motion lock and are sent ahead of everything else. As the Tello protocol carries no sequence numbers,
+ * responses are matched to the oldest in-flight command of the fitting kind: a reading to a query, an {@code ok} to
+ * {@code emergency} or {@code stop} before the motion command, an error to the motion command before the others.
+ * Responses without a fitting command are unsolicited.
+ * </p>
+ * <p>
+ * Sent commands expire after the deadline of the {@link CommandPolicy}. An expired query is sent again after a
+ * backoff; until then a late response still completes it. The late responses of a query that failed are discarded
+ * while no other query is in flight. A reading that arrives while a query is in flight completes that query, so a
+ * lost datagram never costs more than the query it was lost for; duplicate readings of a retried query are counted as
+ * unsolicited.
+ * An expired motion command keeps the motion lock for the stale window, so its late {@code ok} is discarded instead
+ * of completing the next motion command.
+ * </p>
+ * <p>
+ * Not thread safe, all methods have to be called from the I/O thread that owns the pipeline.
+ * </p>
+ */
+final class CommandPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(CommandPipeline.class);
+    private final CommandPolicy policy;
+    private final CommandMetrics metrics;
+    private final ArrayDeque<InFlight> waiting = new ArrayDeque<>();
+    private final ArrayDeque<InFlight> ready = new ArrayDeque<>();
+    private final ArrayDeque<InFlight> sent = new ArrayDeque<>();
+    /**
+     * Expired queries waiting for their retry
+     */
+    private final ArrayDeque<InFlight> retrying = new ArrayDeque<>();
+    /**
+     * Until when late responses of failed queries are expected, one entry per expected response
+     */
+    private final ArrayDeque<Long> tombstones = new ArrayDeque<>();
+    private InFlight motion = null;
+    /**
+     * Until when the expired {@link #motion} keeps the motion lock, 0 if it did not expire
+     */
+    private long quarantinedUntil = 0;
+
+    /**
+     * @param policy deadlines and retries of the commands
+     * @param metrics reports retries and timeouts
+     */
+    CommandPipeline(@NonNull CommandPolicy policy, @NonNull CommandMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Add a submitted command. It either becomes ready to be sent or waits for the motion lock
+     *
+     * @param inFlight the submitted command
+     */
+    void enqueue(@NonNull InFlight inFlight) {
+        if (inFlight.isUrgent()) {
+            ready.addFirst(inFlight);
+        } else if (inFlight.isQuery() || inFlight.isUnacknowledged()) {
+            ready.add(inFlight);
+        } else if (motion == null) {
+            motion = inFlight;
+            ready.add(inFlight);
+        } else {
+            waiting.add(inFlight);
+        }
+    }
+
+    /**
+     * @return the next command that should be sent or {@code null} if there is none
+     */
+    InFlight peekReady() {
+        return ready.peek();
+    }
+
+    /**
+     * Mark the head of the ready queue as sent
+     *
+     * @param sentAt {@link System#nanoTime()} when the command was sent
+     */
+    void markSent(long sentAt) {
+        var inFlight = ready.poll();
+        if (inFlight == null) {
+            throw new IllegalStateException("No command ready to be sent!");
+        }
+        inFlight.sentAt = sentAt;
+        if (inFlight.isUnacknowledged()) {
+            inFlight.future.complete(new Result(Result.ResultEnum.OK, ""));
+            return;
+        }
+        inFlight.deadline = sentAt + policy.timeoutNanos(inFlight.command);
+        inFlight.sends++;
+        sent.add(inFlight);
+    }
+
+    /**
+     * Remove the head of the ready queue because it could not be sent
+     *
+     * @return the removed command
+     */
+    InFlight dropReady() {
+        var inFlight = ready.poll();
+        if (inFlight != null) {
+            release(inFlight);
+        }
+        return inFlight;
+    }
+
+    /**
+     * Find the in-flight command a response belongs to and remove it from the pipeline
+     *
+     * @param kind kind of the received response
+     * @return the matched command or {@code null} if no command is waiting for a response of this kind
+     */
+    InFlight match(@NonNull Result.ResultEnum kind) {
+        InFlight matched;
+        if (kind == Result.ResultEnum.READING) {
+            matched = removeFirst(InFlight::isQuery);
+            if (matched == null) {
+                matched = retrying.poll();
+            }
+        } else if (kind == Result.ResultEnum.OK) {
+            matched = removeFirst(InFlight::isUrgent);
+            if (matched == null) {
+                matched = removeMotion();
+            }
+        } else {
+            matched = removeMotion();
+            if (matched == null) {
+                matched = removeFirst(InFlight::isUrgent);
+            }
+            if (matched == null) {
+                matched = removeFirst(InFlight::isQuery);
+            }
+        }
+        if (matched != null) {
+            release(matched);
+        }
+        return matched;
+    }
+
+    /**
+     * Decide whether a response is a late response to an expired command and has to be discarded
+     *
+     * @param kind kind of the received response
+     * @param now {@link System#nanoTime()}
+     * @return true if the response is stale
+     */
+    boolean isStale(@NonNull Result.ResultEnum kind, long now) {
+        while (!tombstones.isEmpty() && tombstones.peek() < now) {
+            tombstones.poll();
+        }
+        if (kind == Result.ResultEnum.READING) {
+            // a reading completes a query in flight, even if it might be the late response of a failed one
+            return !isQueryInFlight() && tombstones.poll() != null;
+        }
+        if (kind == Result.ResultEnum.OK && contains(InFlight::isUrgent)) {
+            // emergency and stop are answered at once, the ok is theirs
+            return false;
+        }
+        return quarantinedUntil != 0 && quarantinedUntil >= now;
+    }
+
+    private boolean isQueryInFlight() {
+        return !retrying.isEmpty() || contains(InFlight::isQuery);
+    }
+
+    private boolean contains(Predicate<InFlight> filter) {
+        for (var inFlight : sent) {
+            if (filter.test(inFlight)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Expire the sent commands whose deadline passed, send due retries and end the quarantine of an expired motion
+     * command
+     *
+     * @param now {@link System#nanoTime()}
+     */
+    void expire(long now) {
+        for (Iterator<InFlight> iter = sent.iterator(); iter.hasNext(); ) {
+            var inFlight = iter.next();
+            if (inFlight.deadline > now) {
+                continue;
+            }
+            iter.remove();
+            var waited = (now - inFlight.sentAt) / 1_000_000;
+            if (inFlight.sends <= policy.retries(inFlight.command)) {
+                logger.debug("No response to #{} {} after {} ms, retry {}", inFlight.sequence, inFlight.command, waited, inFlight.sends);
+                inFlight.retryAt = now + policy.backoffNanos(inFlight.sends);
+                retrying.add(inFlight);
+                metrics.retried(inFlight, now);
+                continue;
+            }
+            logger.warn("No response to #{} {} after {} ms", inFlight.sequence, inFlight.command, waited);
+            metrics.timedOut(inFlight, now);
+            inFlight.future.completeExceptionally(new TimeoutException(String.format("No response to %s after %d ms", inFlight.command, waited)));
+            if (inFlight == motion) {
+                quarantinedUntil = now + policy.getStaleWindow().toNanos();
+            } else if (inFlight.isQuery()) {
+                for (int i = 0; i < inFlight.sends; i++) {
+                    tombstones.add(now + policy.getStaleWindow().toNanos());
+                }
+            }
+        }
+        for (Iterator<InFlight> iter = retrying.iterator(); iter.hasNext(); ) {
+            var inFlight = iter.next();
+            if (inFlight.retryAt <= now) {
+                iter.remove();
+                ready.add(inFlight);
+            }
+        }
+        if (quarantinedUntil != 0 && quarantinedUntil < now) {
+            quarantinedUntil = 0;
+            release(motion);
+        }
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at which {@link #expire(long)} has to be called next, {@link Long#MAX_VALUE}
+     * if nothing expires
+     */
+    long nextDeadline() {
+        var next = quarantinedUntil != 0 ? quarantinedUntil + 1 : Long.MAX_VALUE;
+        for (var inFlight : sent) {
+            next = Math.min(next, inFlight.deadline);
+        }
+        for (var inFlight : retrying) {
+            next = Math.min(next, inFlight.retryAt);
+        }
+        return next;
+    }
+
+    /**
+     * Complete every command of the pipeline exceptionally
+     *
+     * @param cause why the commands failed
+     */
+    void failAll(@NonNull Throwable cause) {
+        fail(sent, cause);
+        fail(retrying, cause);
+        fail(ready, cause);
+        fail(waiting, cause);
+        motion = null;
+        quarantinedUntil = 0;
+    }
+
+    private static void fail(ArrayDeque<InFlight> queue, Throwable cause) {
+        for (var inFlight = queue.poll(); inFlight != null; inFlight = queue.poll()) {
+            inFlight.future.completeExceptionally(cause);
+        }
+    }
+
+    private InFlight removeFirst(Predicate<InFlight> filter) {
+        for (Iterator<InFlight> iter = sent.iterator(); iter.hasNext(); ) {
+            var inFlight = iter.next();
+            if (filter.test(inFlight)) {
+                iter.remove();
+                return inFlight;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the motion command if it was sent and is waiting for its response, {@code null} otherwise
+     */
+    private InFlight removeMotion() {
+        return motion != null && sent.remove(motion) ? motion : null;
+    }
+
+    /**
+     * Release the motion lock if {@code inFlight} holds it and hand it to the next waiting command
+     */
+    private void release(InFlight inFlight) {
+        if (inFlight != motion || quarantinedUntil != 0) {
+            return;
+        }
+        motion = waiting.poll();
+        if (motion != null) {
+            ready.add(motion);
+        }
+    }
+
+    /**
+     * A command that was submitted but not answered yet
+     */
+    static final class InFlight {
+        /**
+         * @return sequence number of the submission
+         */
+        @Getter
+        private final long sequence;
+        /**
+         * @return the submitted command
+         */
+        @Getter
+        private final Commands.Command command;
+        /**
+         * @return future that is completed with the response
+         */
+        @Getter
+        private final CompletableFuture<Result> future;
+        /**
+         * @return {@link System#nanoTime()} when the command was sent, 0 if it was not sent yet
+         */
+        @Getter
+        private long sentAt;
+        /**
+         * {@link System#nanoTime()} after which the command expires
+         */
+        private long deadline;
+        /**
+         * {@link System#nanoTime()} at which an expired query is sent again
+         */
+        private long retryAt;
+        /**
+         * @return how often the command was sent
+         */
+        @Getter
+        private int sends;
+
+        InFlight(long sequence, @NonNull Commands.Command command) {
+            this.sequence = sequence;
+            this.command = command;
+            this.future = new CompletableFuture<>();
+            this.sentAt = 0;
+        }
+
+        boolean isQuery() {
+            return command instanceof Commands.ReadCommand;
+        }
+
+        /**
+         * @return true if the drone does not respond to the command. It is completed once it was sent
+         */
+        boolean isUnacknowledged() {
+            return command instanceof Commands.Rc;
+        }
+
+        /**
+         * @return true if the command has to reach the drone even while a motion command is running
+         */
+        boolean isUrgent() {
+            return command instanceof Commands.Emergency || command instanceof Commands.Stop;
+        }
+    }
+}
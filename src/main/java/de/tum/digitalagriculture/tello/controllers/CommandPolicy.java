@@ -0,0 +1,165 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Deadlines and retries of the commands sent over a {@link CommandChannel} or {@link SwarmController}.
+ * <p>
+ * The Tello protocol runs over UDP, so a command or its response can get lost. Every sent command therefore has a
+ * deadline after which its future is completed with a {@link java.util.concurrent.TimeoutException}. Queries are
+ * idempotent and are retried with exponential backoff before they fail. Motion and control commands are never
+ * retried, as the drone might have executed them already.
+ * </p>
+ * <p>
+ * A response that arrives within the stale window after the deadline of its command is recognized as stale and
+ * discarded, so a delayed {@code ok} is not attributed to the next motion command.
+ * </p>
+ */
+public final class CommandPolicy {
+    /**
+     * Policy with the default deadlines and retries
+     */
+    public static final CommandPolicy DEFAULT = builder().build();
+
+    /**
+     * Deadline of queries
+     *
+     * @return deadline of queries
+     */
+    @Getter
+    private final Duration queryTimeout;
+    /**
+     * Deadline of control commands, e.g. {@code command}, {@code streamon} or {@code speed}
+     *
+     * @return deadline of control commands
+     */
+    @Getter
+    private final Duration controlTimeout;
+    /**
+     * Deadline of motion commands, including {@code takeoff} and {@code land}
+     *
+     * @return deadline of motion commands
+     */
+    @Getter
+    private final Duration motionTimeout;
+    /**
+     * How often a query is sent again after its deadline passed
+     *
+     * @return number of retries of a query
+     */
+    @Getter
+    private final int queryRetries;
+    /**
+     * Delay before the first retry, doubled for every further retry
+     *
+     * @return delay before the first retry
+     */
+    @Getter
+    private final Duration retryBackoff;
+    /**
+     * How long after a deadline late responses to the timed out command are expected. The next motion command is
+     * sent after this window
+     *
+     * @return how long late responses are expected
+     */
+    @Getter
+    private final Duration staleWindow;
+    private final Map<Class<? extends Commands.Command>, Long> timeoutNanos;
+    private final long queryNanos;
+    private final long controlNanos;
+    private final long motionNanos;
+
+    /**
+     * @param queryTimeout deadline of queries. Defaults to 1s
+     * @param controlTimeout deadline of control commands. Defaults to 5s
+     * @param motionTimeout deadline of motion commands. Defaults to 20s
+     * @param queryRetries how often a query is sent again after its deadline passed. Defaults to 3
+     * @param retryBackoff delay before the first retry, doubled for every further retry. Defaults to 100ms
+     * @param staleWindow how long after a deadline late responses are expected. Defaults to 2s
+     * @param timeouts deadlines of single command types that override the deadline of their kind. Add them one by one
+     *                 with {@link CommandPolicyBuilder#timeout(Class, Duration)}
+     */
+    @Builder
+    public CommandPolicy(Duration queryTimeout, Duration controlTimeout, Duration motionTimeout, Integer queryRetries, Duration retryBackoff, Duration staleWindow, Map<Class<? extends Commands.Command>, Duration> timeouts) {
+        this.queryTimeout = Objects.requireNonNullElse(queryTimeout, Duration.ofSeconds(1));
+        this.controlTimeout = Objects.requireNonNullElse(controlTimeout, Duration.ofSeconds(5));
+        this.motionTimeout = Objects.requireNonNullElse(motionTimeout, Duration.ofSeconds(20));
+        this.queryRetries = Objects.requireNonNullElse(queryRetries, 3);
+        this.retryBackoff = Objects.requireNonNullElse(retryBackoff, Duration.ofMillis(100));
+        this.staleWindow = Objects.requireNonNullElse(staleWindow, Duration.ofSeconds(2));
+        if (this.queryRetries < 0) {
+            throw new IllegalArgumentException("Number of retries cannot be negative: " + this.queryRetries);
+        }
+        queryNanos = this.queryTimeout.toNanos();
+        controlNanos = this.controlTimeout.toNanos();
+        motionNanos = this.motionTimeout.toNanos();
+        timeoutNanos = new HashMap<>();
+        if (timeouts != null) {
+            timeouts.forEach((type, timeout) -> timeoutNanos.put(type, timeout.toNanos()));
+        }
+    }
+
+    /**
+     * @param command a command
+     * @return the deadline of {@code command} in nanoseconds after it was sent
+     */
+    public long timeoutNanos(@NonNull Commands.Command command) {
+        var timeout = timeoutNanos.get(command.getClass());
+        if (timeout != null) {
+            return timeout;
+        }
+        if (command instanceof Commands.ReadCommand) {
+            return queryNanos;
+        }
+        return isControl(command) ? controlNanos : motionNanos;
+    }
+
+    /**
+     * @param command a command
+     * @return how often {@code command} is sent again after its deadline passed
+     */
+    public int retries(@NonNull Commands.Command command) {
+        return command instanceof Commands.ReadCommand ? queryRetries : 0;
+    }
+
+    /**
+     * @param attempt the number of the retry, starting at 1
+     * @return the delay in nanoseconds before the retry is sent
+     */
+    public long backoffNanos(int attempt) {
+        return retryBackoff.toNanos() << Math.min(attempt - 1, 16);
+    }
+
+    /**
+     * Builder of a {@link CommandPolicy}
+     */
+    public static class CommandPolicyBuilder {
+        /**
+         * Override the deadline of a single command type
+         *
+         * @param type the command type
+         * @param timeout deadline of the commands of {@code type}
+         * @return this builder
+         */
+        public CommandPolicyBuilder timeout(@NonNull Class<? extends Commands.Command> type, @NonNull Duration timeout) {
+            // a copy, the map passed to timeouts(Map) may be immutable
+            timeouts = timeouts == null ? new HashMap<>() : new HashMap<>(timeouts);
+            timeouts.put(type, timeout);
+            return this;
+        }
+    }
+
+    private static boolean isControl(Commands.Command command) {
+        return command instanceof Commands.Init || command instanceof Commands.StreamOn
+                || command instanceof Commands.StreamOff || command instanceof Commands.Emergency
+                || command instanceof Commands.Stop || command instanceof Commands.Speed;
+    }
+}
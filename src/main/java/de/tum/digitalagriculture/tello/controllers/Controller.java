@@ -7,4 +7,15 @@ import java.util.function.Consumer;
 /**
  * {@code Controller} executes the provided command. It extends the {@link Consumer} interface
  */
-public interface Controller extends Consumer<Commands.Command> {}
+public interface Controller extends Consumer<Commands.Command> {
+    /**
+     * Execute a command and return its result. Controllers that do not receive responses report {@code ok}
+     *
+     * @param command command to execute
+     * @return the result of the execution
+     */
+    default Result execute(Commands.Command command) {
+        accept(command);
+        return new Result(Result.ResultEnum.OK, "ok");
+    }
+}
@@ -1,18 +1,27 @@
 package de.tum.digitalagriculture.tello.controllers;
 
+import de.tum.digitalagriculture.tello.commanders.Commander;
 import de.tum.digitalagriculture.tello.commanders.Commands;
 import de.tum.digitalagriculture.tello.streams.StreamHandler;
+import de.tum.digitalagriculture.tello.telemetry.FlightLog;
+import de.tum.digitalagriculture.tello.telemetry.TelemetryHistory;
+import de.tum.digitalagriculture.tello.telemetry.TelemetryReceiver;
+import lombok.Builder;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.SneakyThrows;
-import lombok.Synchronized;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -25,6 +34,11 @@ import java.util.concurrent.TimeUnit;
  */
 public class FlightController<D, S extends StreamHandler.Stream<D>> implements Controller, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(FlightController.class);
+    /**
+     * One hour of state samples at 10 Hz
+     */
+    private static final int DEFAULT_HISTORY_CAPACITY = 36_000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 2000;
     /**
      * Options of the UDP connection
      *
@@ -32,6 +46,13 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
      */
     @Getter
     private final ConnectionOption connectionOption;
+    /**
+     * Threads the blocking tasks of the controller run on
+     *
+     * @return threads the blocking tasks of the controller run on
+     */
+    @Getter
+    private final ExecutionMode executionMode;
     /**
      * Remote address of the drone
      *
@@ -45,11 +66,31 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
      */
     @Getter
     private final String streamAddress;
-    private final DatagramChannel commandChannel;
-    private final DatagramChannel statusChannel;
+    private final CommandChannel commandChannel;
+    /**
+     * Receiver of the state datagrams the drone sends to the status port
+     *
+     * @return the receiver of the drone's state
+     */
+    @Getter
+    private final TelemetryReceiver telemetry;
+    /**
+     * Off-heap history of the received state samples
+     *
+     * @return the history of the drone's state
+     */
+    @Getter
+    private final TelemetryHistory telemetryHistory;
+    private final FlightLog flightLog;
     private final ScheduledExecutorService executor;
+    /**
+     * Runs the capture loop and commanders. {@link #executor} on platform threads, a thread per task otherwise
+     */
+    private final ExecutorService tasks;
     private final StreamHandler<S> streamHandler;
     private S stream;
+    private RcLoop rcLoop;
+    private volatile boolean closing;
 
     /**
      * @param ip IP of the Tello drone. Usually 10.0.0.1
@@ -58,20 +99,55 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
      * @param connectionOption How the connection to the Tello drone should be setup. When KEEP_ALIVE a keep alive command is send every 10s, otherwise the drone will disconnect after 15s
      */
     public FlightController(String ip, ScheduledExecutorService executor, StreamHandler<S> streamHandler, ConnectionOption connectionOption) {
-        this.connectionOption = connectionOption;
-        remoteAddress = new InetSocketAddress(ip, 8889);
+        this(ip, null, null, null, executor, streamHandler, connectionOption, null, null, null, null);
+    }
+
+    /**
+     * Create a {@link FlightController} with custom ports. Use {@link #builder()} to set only some of the options
+     *
+     * @param ip IP of the Tello drone. Usually 10.0.0.1
+     * @param port remote command port of the drone. Defaults to 8889
+     * @param commandPort local port of the command channel. Defaults to 8889, 0 binds an ephemeral port
+     * @param statusPort local port of the status channel. Defaults to 8890, 0 binds an ephemeral port
+     * @param executor Executor that handles simultaneous execution of stream and commands
+     * @param streamHandler Stream handler that controls how the stream is processed
+     * @param connectionOption How the connection to the Tello drone should be setup. Defaults to KEEP_ALIVE
+     * @param historyCapacity number of state samples kept in {@link #getTelemetryHistory()}. Defaults to one hour of samples
+     * @param flightLog file the state samples are persisted to. Not persisted if {@code null}
+     * @param executionMode threads the capture loop, commanders and telemetry run on. Defaults to PLATFORM
+     * @param commandPolicy deadlines and retries of the commands. Defaults to {@link CommandPolicy#DEFAULT}
+     */
+    @Builder
+    @SneakyThrows
+    public FlightController(@NonNull String ip, Integer port, Integer commandPort, Integer statusPort, @NonNull ScheduledExecutorService executor, @NonNull StreamHandler<S> streamHandler, ConnectionOption connectionOption, Integer historyCapacity, Path flightLog, ExecutionMode executionMode, CommandPolicy commandPolicy) {
+        this.connectionOption = Objects.requireNonNullElse(connectionOption, ConnectionOption.KEEP_ALIVE);
+        this.executionMode = Objects.requireNonNullElse(executionMode, ExecutionMode.PLATFORM);
+        tasks = this.executionMode == ExecutionMode.VIRTUAL
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tello-virtual-", 0).factory())
+                : executor;
+        remoteAddress = new InetSocketAddress(ip, Objects.requireNonNullElse(port, 8889));
         streamAddress = "udp://0.0.0.0:11111";
-        commandChannel = createChannel(8889);
-        statusChannel = createChannel(8890);
+        commandChannel = new CommandChannel(createChannel(Objects.requireNonNullElse(commandPort, 8889)), remoteAddress,
+                Objects.requireNonNullElse(commandPolicy, CommandPolicy.DEFAULT));
+        var statusChannel = createChannel(Objects.requireNonNullElse(statusPort, 8890));
+        telemetry = this.executionMode == ExecutionMode.VIRTUAL
+                ? new TelemetryReceiver(statusChannel, Thread.ofVirtual().factory())
+                : new TelemetryReceiver(statusChannel);
+        telemetryHistory = new TelemetryHistory(Objects.requireNonNullElse(historyCapacity, DEFAULT_HISTORY_CAPACITY));
+        telemetry.subscribe(telemetryHistory);
+        this.flightLog = flightLog != null ? FlightLog.create(flightLog) : null;
+        if (this.flightLog != null) {
+            telemetry.subscribe(this.flightLog);
+        }
         this.streamHandler = streamHandler;
         stream = null;
 
         this.executor = executor;
-        if (connectionOption == ConnectionOption.KEEP_ALIVE) {
-            executor.scheduleAtFixedRate(() -> sendAndRecv(new Commands.ReadBattery()), 14, 14, TimeUnit.SECONDS);
+        if (this.connectionOption == ConnectionOption.KEEP_ALIVE) {
+            executor.scheduleAtFixedRate(this::keepAlive, KeepAlive.PERIOD_SECONDS, KeepAlive.PERIOD_SECONDS, TimeUnit.SECONDS);
             logger.debug("Scheduled keep alive!");
         }
-        sendAndRecv(new Commands.Init());
+        sendAndRecv(Commands.Init.INSTANCE);
     }
 
     /**
@@ -89,6 +165,24 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
         return channel;
     }
 
+    /**
+     * Send a query to prevent the drone from timing out. The query does not wait for running motion commands.
+     * The outcomes are counted in {@code keepalive.ok} and {@code keepalive.failed}
+     */
+    private void keepAlive() {
+        KeepAlive.query(commandChannel.getRemoteAddress(), this::submit);
+    }
+
+    /**
+     * Send a command without waiting for the result of the execution. Motion commands are executed in the order they
+     * were submitted, queries are sent immediately
+     *
+     * @param command command to be sent
+     * @return future that is completed with the result of the execution
+     */
+    public CompletableFuture<Result> submit(@NonNull Commands.Command command) {
+        return commandChannel.submit(command);
+    }
 
     /**
      * Send a command and wait for the result of the execution
@@ -96,29 +190,15 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
      * @param command command to be sent
      * @return the result of the execution
      */
-    @Synchronized
     public Result sendAndRecv(Commands.Command command) {
-        var sendBuffer = ByteBuffer.wrap(command.toString().getBytes(StandardCharsets.UTF_8));
-        try {
-            logger.debug("Sending command {}", command);
-            this.commandChannel.send(sendBuffer, remoteAddress);
-        } catch (IOException ioException) {
-            logger.warn("Sending command {} failed: {}", command, ioException.getMessage());
-            return new Result(Result.ResultEnum.ERROR, ioException.getMessage());
-        }
-        var recvBuffer = ByteBuffer.allocate(1024);
         try {
-            logger.debug("Waiting for answer");
-            this.commandChannel.receive(recvBuffer);
-        } catch (IOException ioException) {
-            logger.warn("Reception failed: {}", ioException.getMessage());
-            return new Result(Result.ResultEnum.ERROR, ioException.getMessage());
+            var result = submit(command).join();
+            logger.debug("Received result: {}", result);
+            return result;
+        } catch (CompletionException | CancellationException exception) {
+            logger.warn("Execution of {} failed: {}", command, exception.getMessage());
+            return new Result(Result.ResultEnum.ERROR, String.valueOf(exception.getMessage()));
         }
-        recvBuffer.flip();
-        var response = StandardCharsets.UTF_8.decode(recvBuffer).toString();
-        var result = Result.of(command, response);
-        logger.debug("Received result: {}", result);
-        return result;
     }
 
     /**
@@ -128,6 +208,17 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
      */
     @Override
     public void accept(Commands.Command command) {
+        execute(command);
+    }
+
+    /**
+     * Send a command to the drone, wait for the result and start or stop the stream if requested
+     *
+     * @param command command to be sent to the drone
+     * @return the result of the execution
+     */
+    @Override
+    public Result execute(Commands.Command command) {
         var result = sendAndRecv(command);
         if (command instanceof Commands.StreamOn) {
             startStream(streamAddress);
@@ -136,6 +227,7 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
             stopStream();
         }
         logger.info(result.toString());
+        return result;
     }
 
     /**
@@ -147,7 +239,38 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
     private void startStream(String streamUrl) {
         stream = streamHandler.startStream(streamUrl);
         logger.debug("Starting stream!");
-        executor.submit(stream::capture);
+        tasks.submit(stream::capture);
+    }
+
+    /**
+     * Execute the commands of {@code commander} one after another on a thread of the {@link ExecutionMode}. Stops
+     * when the commander is exhausted or the controller is closed
+     *
+     * @param commander provides the commands to execute
+     * @return future that is completed once the commander is finished
+     */
+    public CompletableFuture<Void> run(@NonNull Commander commander) {
+        return CompletableFuture.runAsync(() -> {
+            while (!closing && commander.hasNext()) {
+                accept(commander.next());
+            }
+        }, tasks);
+    }
+
+    /**
+     * Start sending {@code rc} commands at a fixed rate. The setpoint of the returned loop is sent until it is
+     * closed, independent of other commands. Only one loop can run at a time
+     *
+     * @param rate ticks per second in [1, 50], 20 to 50 are recommended
+     * @param holdMillis how long a setpoint is sent before the drone is stopped, unless it is updated
+     * @return the running loop
+     */
+    public synchronized RcLoop startRcLoop(int rate, long holdMillis) {
+        if (rcLoop != null && rcLoop.isRunning()) {
+            throw new IllegalStateException("RC loop is already running");
+        }
+        rcLoop = new RcLoop(commandChannel::sendUnacknowledged, rate, holdMillis);
+        return rcLoop;
     }
 
     /**
@@ -174,14 +297,35 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
         return null;
     }
 
+    /**
+     * Shut the controller down. Running commanders stop after their current command, the stream is stopped and the
+     * controller waits for both before the channels are closed
+     *
+     * @throws Exception failed to close a channel
+     */
     @Override
     public void close() throws Exception {
+        closing = true;
         if (streamHandler.hasActiveStream()) {
             streamHandler.stopStream();
         }
-        executor.shutdown();
+        synchronized (this) {
+            if (rcLoop != null) {
+                rcLoop.close();
+            }
+        }
+        // fails commands that wait for a response, so commanders blocked in sendAndRecv return
         commandChannel.close();
-        statusChannel.close();
+        executor.shutdown();
+        tasks.shutdown();
+        if (!tasks.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            logger.warn("Tasks did not finish within {} ms", SHUTDOWN_TIMEOUT_MILLIS);
+            tasks.shutdownNow();
+        }
+        telemetry.close();
+        if (flightLog != null) {
+            flightLog.close();
+        }
     }
 
 
@@ -198,4 +342,19 @@ public class FlightController<D, S extends StreamHandler.Stream<D>> implements C
          */
         TIME_OUT
     }
+
+    /**
+     * Threads the blocking tasks of the controller run on
+     */
+    public enum ExecutionMode {
+        /**
+         * Run the capture loop and commanders on the executor that is passed to the controller
+         */
+        PLATFORM,
+        /**
+         * Run the capture loop, commanders and the telemetry receiver on a virtual thread each. The executor only
+         * schedules the keep alive
+         */
+        VIRTUAL
+    }
 }
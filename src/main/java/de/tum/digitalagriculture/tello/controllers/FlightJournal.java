@@ -0,0 +1,266 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.CommandParser;
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.telemetry.TelemetrySample;
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only binary journal of a flight: the sent commands, the received results and the state samples, each with
+ * the {@link System#nanoTime()} it happened at. Written by a {@link RecordingController}, played back by a
+ * {@link ReplayController}.
+ * <p>
+ * File format (big endian):
+ * </p>
+ * <pre>
+ *     header   := magic:int "TJNL" | version:int | startEpochMillis:long | startNanos:long
+ *     records  := record*
+ *     record   := type:byte | timestamp:long | length:short | payload (length bytes)
+ *     COMMAND  := the command as it is sent to the drone, ASCII
+ *     RESULT   := kind:byte (ordinal of {@link Result.ResultEnum}) | reading:int | the response, ASCII
+ *     STATE    := a {@link TelemetrySample} record of {@link TelemetrySample#BYTES} bytes
+ * </pre>
+ * <p>
+ * Every record is written to the {@link FileChannel} as soon as it is appended, so a journal of a crashed flight can
+ * be read up to its last complete record. Appending is thread safe; commands are usually appended by the commander's
+ * thread and state samples by the telemetry receiver.
+ * </p>
+ */
+public class FlightJournal implements Consumer<TelemetrySample>, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FlightJournal.class);
+    private static final int MAGIC = 0x544a4e4c; // "TJNL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int RECORD_HEADER_SIZE = Byte.BYTES + Long.BYTES + Short.BYTES;
+    private static final int MAX_PAYLOAD = 1024;
+    private static final byte COMMAND = 1;
+    private static final byte RESULT = 2;
+    private static final byte STATE = 3;
+
+    /**
+     * Path of the journal file
+     *
+     * @return path of the journal file
+     */
+    @Getter
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    /**
+     * Number of appended records
+     *
+     * @return number of appended records
+     */
+    @Getter
+    private long records;
+
+    private FlightJournal(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(RECORD_HEADER_SIZE + MAX_PAYLOAD).order(ByteOrder.BIG_ENDIAN);
+        records = 0;
+    }
+
+    /**
+     * Create a new journal at {@code path}. An existing file is overwritten
+     *
+     * @param path path of the journal file
+     * @return the opened journal
+     * @throws IOException failed to create the file
+     */
+    public static FlightJournal create(@NonNull Path path) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        var header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(System.currentTimeMillis())
+                .putLong(System.nanoTime())
+                .flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        logger.debug("Created flight journal {}", path);
+        return new FlightJournal(path, channel);
+    }
+
+    /**
+     * Append a sent command
+     *
+     * @param timestamp {@link System#nanoTime()} when the command was sent
+     * @param command the command
+     */
+    public synchronized void command(long timestamp, @NonNull Commands.Command command) {
+        begin(COMMAND, timestamp);
+        command.encode(buffer);
+        append();
+    }
+
+    /**
+     * Append a received result
+     *
+     * @param timestamp {@link System#nanoTime()} when the result was received
+     * @param result the result
+     */
+    public synchronized void result(long timestamp, @NonNull Result result) {
+        begin(RESULT, timestamp);
+        var response = result.response().getBytes(StandardCharsets.US_ASCII);
+        buffer.put((byte) result.result().ordinal())
+                .putInt(result.reading())
+                .put(response, 0, Math.min(response.length, MAX_PAYLOAD - Byte.BYTES - Integer.BYTES));
+        append();
+    }
+
+    /**
+     * Append a state sample
+     *
+     * @param sample the sample, its timestamp is used as the timestamp of the record
+     */
+    @Override
+    public synchronized void accept(@NonNull TelemetrySample sample) {
+        begin(STATE, sample.getTimestamp());
+        sample.write(buffer);
+        append();
+    }
+
+    private void begin(byte type, long timestamp) {
+        buffer.clear();
+        buffer.put(type).putLong(timestamp).putShort((short) 0);
+    }
+
+    private void append() {
+        buffer.putShort(Byte.BYTES + Long.BYTES, (short) (buffer.position() - RECORD_HEADER_SIZE));
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            records++;
+        } catch (IOException ioException) {
+            logger.warn("Appending to flight journal {} failed: {}", path, ioException.getMessage());
+        }
+    }
+
+    /**
+     * Flush the journal to the storage device and close it
+     *
+     * @throws IOException failed to flush the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        channel.force(true);
+        channel.close();
+        logger.debug("Closed flight journal {} with {} records", path, records);
+    }
+
+    /**
+     * Read all complete records of the journal at {@code path}
+     *
+     * @param path path of the journal file
+     * @return the records in the order they were appended
+     * @throws IOException failed to read the file
+     * @throws IllegalArgumentException if the file is not a journal
+     */
+    public static List<Entry> read(@NonNull Path path) throws IOException {
+        ByteBuffer file;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
+        }
+        if (file.limit() < HEADER_SIZE || file.getInt(0) != MAGIC || file.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a flight journal of version " + VERSION + ": " + path);
+        }
+        var entries = new ArrayList<Entry>();
+        var position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= file.limit()) {
+            var type = file.get(position);
+            var timestamp = file.getLong(position + Byte.BYTES);
+            var length = file.getShort(position + Byte.BYTES + Long.BYTES) & 0xffff;
+            var start = position + RECORD_HEADER_SIZE;
+            if (start + length > file.limit()) {
+                break;
+            }
+            var payload = file.slice(start, length).order(ByteOrder.BIG_ENDIAN);
+            switch (type) {
+                case COMMAND -> {
+                    var parsed = CommandParser.parse(payload);
+                    if (parsed.command() != null) {
+                        entries.add(new Sent(timestamp, parsed.command()));
+                    } else {
+                        logger.warn("Skipping unknown command in {}: {}", path, StandardCharsets.US_ASCII.decode(payload));
+                    }
+                }
+                case RESULT -> {
+                    var kind = Result.ResultEnum.values()[payload.get(0)];
+                    var reading = payload.getInt(Byte.BYTES);
+                    var response = StandardCharsets.US_ASCII.decode(payload.position(Byte.BYTES + Integer.BYTES)).toString();
+                    entries.add(new Received(timestamp, new Result(kind, response, reading)));
+                }
+                case STATE -> {
+                    var sample = new TelemetrySample();
+                    sample.read(payload, 0);
+                    entries.add(new State(timestamp, sample));
+                }
+                default -> logger.warn("Skipping record of unknown type {} in {}", type, path);
+            }
+            position = start + length;
+        }
+        if (position != file.limit()) {
+            logger.warn("Flight journal {} ends with an incomplete record", path);
+        }
+        return entries;
+    }
+
+    /**
+     * A record of the journal
+     */
+    public sealed interface Entry permits Sent, Received, State {
+        /**
+         * @return {@link System#nanoTime()} of the recording process when the record was appended
+         */
+        long timestamp();
+    }
+
+    /**
+     * A command was sent
+     *
+     * @param timestamp {@link System#nanoTime()} when the command was sent
+     * @param command the command
+     */
+    public record Sent(long timestamp, Commands.Command command) implements Entry {
+    }
+
+    /**
+     * A result was received
+     *
+     * @param timestamp {@link System#nanoTime()} when the result was received
+     * @param result the result
+     */
+    public record Received(long timestamp, Result result) implements Entry {
+    }
+
+    /**
+     * A state sample was received
+     *
+     * @param timestamp {@link System#nanoTime()} when the sample was received
+     * @param sample the sample
+     */
+    public record State(long timestamp, TelemetrySample sample) implements Entry {
+    }
+}
@@ -0,0 +1,60 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.metrics.KeepAliveEvent;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Keeps the connection to a drone alive. The drone lands and stops listening if it does not receive a command for 15 s.
+ * <p>
+ * The outcomes of the queries are counted in {@code keepalive.ok} and {@code keepalive.failed}, their round trip times
+ * are recorded in {@code keepalive.rtt} and as {@link KeepAliveEvent}s.
+ * </p>
+ */
+final class KeepAlive {
+    /**
+     * Period of the keep alive queries, below the timeout of the drone
+     */
+    static final long PERIOD_SECONDS = 14;
+    private static final Logger logger = LoggerFactory.getLogger(KeepAlive.class);
+
+    private KeepAlive() {
+    }
+
+    /**
+     * Send a query to prevent the drone from timing out. The query does not wait for running motion commands
+     *
+     * @param drone address of the drone, used in the events and logs
+     * @param submit submits a command to the drone without waiting for the response
+     */
+    static void query(@NonNull InetSocketAddress drone, @NonNull Function<Commands.Command, CompletableFuture<Result>> submit) {
+        var start = System.nanoTime();
+        submit.apply(Commands.ReadBattery.INSTANCE).whenComplete((result, throwable) -> {
+            var latency = System.nanoTime() - start;
+            var succeeded = throwable == null && result.result() != Result.ResultEnum.ERROR;
+            var registry = MetricsRegistry.global();
+            registry.counter(succeeded ? "keepalive.ok" : "keepalive.failed").increment();
+            registry.histogram("keepalive.rtt").record(latency);
+            var event = new KeepAliveEvent();
+            if (event.shouldCommit()) {
+                event.setDrone(drone.toString());
+                event.setSucceeded(succeeded);
+                event.setResponse(throwable != null ? throwable.getMessage() : result.response());
+                event.setLatency(latency);
+                event.commit();
+            }
+            if (throwable != null) {
+                logger.warn("Keep alive of {} failed: {}", drone, throwable.getMessage());
+            } else {
+                logger.debug("Keep alive of {}: {}", drone, result);
+            }
+        });
+    }
+}
@@ -45,7 +45,7 @@ public class PrintController implements Controller {
     public PrintController(long duration, TimeUnit unit) {
         this.duration = duration;
         this.unit = unit;
-        accept(new Commands.Init());
+        accept(Commands.Init.INSTANCE);
     }
 
     @Override
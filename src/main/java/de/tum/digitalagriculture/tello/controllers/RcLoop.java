@@ -0,0 +1,245 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the stick inputs of an {@link Commands.Rc} command at a fixed rate, e.g. for closed loop control.
+ * <p>
+ * The drone does not respond to {@code rc}, so the loop sends without waiting and bypasses the motion lock of the
+ * {@link CommandChannel}. Setpoints are not queued: {@link #set(int, int, int, int)} overwrites a single slot and every
+ * tick sends the latest setpoint. If the setpoint is not updated within the hold time, e.g. because the controlling
+ * thread died, the loop sends {@code rc 0 0 0 0} and the drone hovers.
+ * </p>
+ * <p>
+ * The loop runs on its own platform thread and schedules its ticks at absolute times, so late ticks do not shift the
+ * following ones. How late the ticks are sent is recorded in {@link #getJitter()}.
+ * </p>
+ */
+public class RcLoop implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RcLoop.class);
+    /**
+     * The last part of the wait is spun, parking is not precise enough
+     */
+    private static final long SPIN_NANOS = 200_000;
+    private static final long BUCKET_NANOS = 10_000;
+    private static final long JOIN_TIMEOUT_MILLIS = 1000;
+    private static final int MAX_CHANNEL = 100;
+    private static final int MAX_RATE = 50;
+
+    /**
+     * Ticks per second
+     *
+     * @return ticks per second
+     */
+    @Getter
+    private final int rate;
+    private final long periodNanos;
+    private final long holdMillis;
+    private final Transport transport;
+    /**
+     * The latest setpoint: the four channels in the lower 32 bits, the time it was set in ms after {@link #start} in
+     * the upper 32 bits
+     */
+    private final AtomicLong setpoint;
+    private final ByteBuffer buffer;
+    private final long start;
+    /**
+     * Lateness histogram, only written by the loop thread
+     */
+    private final long[] buckets;
+    private final Thread thread;
+    private volatile boolean running;
+    private long ticks;
+    private long missed;
+    private long totalLateness;
+    private long maxLateness;
+
+    /**
+     * Create a loop and start sending {@code rc 0 0 0 0}
+     *
+     * @param transport sends a datagram to the drone without waiting for a response
+     * @param rate ticks per second in [1, 50]
+     * @param holdMillis how long a setpoint is sent before the loop falls back to hovering
+     */
+    RcLoop(@NonNull Transport transport, int rate, long holdMillis) {
+        if (rate < 1 || rate > MAX_RATE) {
+            throw new IllegalArgumentException(String.format("Rate has to be in [1, %d] Hz: %d", MAX_RATE, rate));
+        }
+        this.rate = rate;
+        this.transport = transport;
+        this.holdMillis = holdMillis;
+        periodNanos = 1_000_000_000L / rate;
+        start = System.nanoTime();
+        setpoint = new AtomicLong(0);
+        buffer = ByteBuffer.allocateDirect(64);
+        buckets = new long[(int) (periodNanos / BUCKET_NANOS) + 1];
+        // load the encoding before the first tick
+        Commands.Rc.encode(buffer, 0, 0, 0, 0);
+        running = true;
+        thread = new Thread(this::run, "tello-rc");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+        logger.debug("Sending rc at {} Hz", rate);
+    }
+
+    /**
+     * Set the stick inputs that are sent from the next tick on. Values are clamped to [-100, 100]
+     *
+     * @param leftRight left/right channel
+     * @param forwardBackward forward/backward channel
+     * @param upDown up/down channel
+     * @param yaw yaw channel
+     */
+    public void set(int leftRight, int forwardBackward, int upDown, int yaw) {
+        var channels = (clamp(leftRight) & 0xffL)
+                | (clamp(forwardBackward) & 0xffL) << 8
+                | (clamp(upDown) & 0xffL) << 16
+                | (clamp(yaw) & 0xffL) << 24;
+        setpoint.set(elapsedMillis() << 32 | channels);
+    }
+
+    /**
+     * Stop moving, equivalent to {@code set(0, 0, 0, 0)}
+     */
+    public void hover() {
+        set(0, 0, 0, 0);
+    }
+
+    /**
+     * @return true until the loop is closed
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return how late the ticks were sent so far
+     */
+    public synchronized Jitter getJitter() {
+        var p99 = 0L;
+        var count = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            count += buckets[i];
+            if (count >= ticks * 0.99) {
+                p99 = (i + 1) * BUCKET_NANOS;
+                break;
+            }
+        }
+        return new Jitter(ticks, missed, ticks == 0 ? 0 : totalLateness / 1e3 / ticks, Math.min(p99, maxLateness) / 1e3, maxLateness / 1e3);
+    }
+
+    private void run() {
+        var next = System.nanoTime();
+        while (running) {
+            next += periodNanos;
+            var now = waitUntil(next);
+            if (!running) {
+                break;
+            }
+            send(setpoint.get());
+            var lateness = now - next;
+            if (lateness >= periodNanos) {
+                // skip the ticks that are already due instead of sending them in a burst
+                next += lateness / periodNanos * periodNanos;
+            }
+            record(lateness);
+        }
+        // the final hover is sent from this thread as well, the buffer is never shared
+        send(0);
+    }
+
+    private long waitUntil(long deadline) {
+        var now = System.nanoTime();
+        while (now < deadline - SPIN_NANOS && running) {
+            LockSupport.parkNanos(deadline - SPIN_NANOS - now);
+            now = System.nanoTime();
+        }
+        while (now < deadline) {
+            Thread.onSpinWait();
+            now = System.nanoTime();
+        }
+        return now;
+    }
+
+    private void send(long current) {
+        var isStale = elapsedMillis() - (current >>> 32) > holdMillis;
+        buffer.clear();
+        if (isStale) {
+            Commands.Rc.encode(buffer, 0, 0, 0, 0);
+        } else {
+            Commands.Rc.encode(buffer, (byte) current, (byte) (current >> 8), (byte) (current >> 16), (byte) (current >> 24));
+        }
+        buffer.flip();
+        try {
+            transport.send(buffer);
+        } catch (IOException ioException) {
+            logger.warn("Sending rc failed: {}", ioException.getMessage());
+        }
+    }
+
+    private synchronized void record(long lateness) {
+        ticks++;
+        missed += lateness / periodNanos;
+        totalLateness += lateness;
+        maxLateness = Math.max(maxLateness, lateness);
+        buckets[(int) Math.min(lateness / BUCKET_NANOS, buckets.length - 1)]++;
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(-MAX_CHANNEL, Math.min(MAX_CHANNEL, value));
+    }
+
+    /**
+     * Stop the loop, which sends {@code rc 0 0 0 0} once more before it exits, so the drone hovers
+     *
+     * @throws InterruptedException interrupted while waiting for the loop thread
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(JOIN_TIMEOUT_MILLIS);
+        if (thread.isAlive()) {
+            logger.warn("rc loop did not stop within {} ms, it sends the final hover when it does", JOIN_TIMEOUT_MILLIS);
+            return;
+        }
+        logger.debug("Stopped rc loop: {}", getJitter());
+    }
+
+    /**
+     * How late the ticks of the loop were sent
+     *
+     * @param ticks number of sent ticks
+     * @param missed number of ticks that were skipped because the loop was more than a period late
+     * @param meanMicros mean lateness in µs
+     * @param p99Micros 99th percentile of the lateness in µs, with a resolution of 10 µs
+     * @param maxMicros maximum lateness in µs
+     */
+    public record Jitter(long ticks, long missed, double meanMicros, double p99Micros, double maxMicros) {
+    }
+
+    /**
+     * Sends a datagram to the drone without waiting for a response
+     */
+    @FunctionalInterface
+    interface Transport {
+        void send(ByteBuffer datagram) throws IOException;
+    }
+}
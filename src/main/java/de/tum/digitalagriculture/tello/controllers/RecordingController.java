@@ -0,0 +1,89 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.telemetry.TelemetryReceiver;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Executes commands on another {@link Controller} and records every command, its result and the state samples of
+ * the drone in a {@link FlightJournal}, so the flight can be played back with a {@link ReplayController}.
+ * <pre>
+ *     {@code
+ *     try (var recorder = new RecordingController(controller, FlightJournal.create(path), controller.getTelemetry())) {
+ *         commander.forEachRemaining(recorder);
+ *     }
+ *     }
+ * </pre>
+ */
+public class RecordingController implements Controller, AutoCloseable {
+    private final Controller delegate;
+    /**
+     * The journal the flight is recorded to
+     *
+     * @return the journal the flight is recorded to
+     */
+    @Getter
+    private final FlightJournal journal;
+    private final TelemetryReceiver telemetry;
+
+    /**
+     * Record the commands and results of {@code delegate}
+     *
+     * @param delegate the controller that executes the commands
+     * @param journal the journal the flight is recorded to. Owned by the recorder afterwards
+     */
+    public RecordingController(@NonNull Controller delegate, @NonNull FlightJournal journal) {
+        this(delegate, journal, null);
+    }
+
+    /**
+     * Record the commands and results of {@code delegate} and the state samples of {@code telemetry}
+     *
+     * @param delegate the controller that executes the commands
+     * @param journal the journal the flight is recorded to. Owned by the recorder afterwards
+     * @param telemetry receiver of the drone's state samples. Not recorded if {@code null}
+     */
+    public RecordingController(@NonNull Controller delegate, @NonNull FlightJournal journal, TelemetryReceiver telemetry) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.telemetry = telemetry;
+        if (telemetry != null) {
+            telemetry.subscribe(journal);
+        }
+    }
+
+    @Override
+    public void accept(Commands.Command command) {
+        execute(command);
+    }
+
+    /**
+     * Execute the command on the delegate and record it together with its result
+     *
+     * @param command command to execute
+     * @return the result of the delegate
+     */
+    @Override
+    public Result execute(@NonNull Commands.Command command) {
+        journal.command(System.nanoTime(), command);
+        var result = delegate.execute(command);
+        journal.result(System.nanoTime(), result);
+        return result;
+    }
+
+    /**
+     * Stop recording and close the journal. The delegate is not closed
+     *
+     * @throws IOException failed to flush the journal
+     */
+    @Override
+    public void close() throws IOException {
+        if (telemetry != null) {
+            telemetry.unsubscribe(journal);
+        }
+        journal.close();
+    }
+}
@@ -0,0 +1,265 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.telemetry.TelemetrySample;
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Plays a {@link FlightJournal} back at its original or an accelerated speed.
+ * <p>
+ * Used as a {@link Controller}, it stands in for the recorded drone: every executed command is checked against the
+ * next recorded command and answered with the recorded result after the recorded response time. That allows to run a
+ * commander against a recorded flight without a drone. With {@link #replay(Controller)} the recorded commands are
+ * executed on another controller instead, and its results are compared with the recorded ones.
+ * </p>
+ * <p>
+ * In both cases the recorded state samples are passed to the subscribers at their recorded times, carrying their
+ * recorded timestamps. Replays therefore see the same sequence of samples and results as the recorded flight.
+ * </p>
+ */
+public class ReplayController implements Controller {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayController.class);
+    /**
+     * Replay without waiting between the records
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private final List<FlightJournal.Entry> entries;
+    /**
+     * How many times faster than recorded the journal is played back
+     *
+     * @return how many times faster than recorded the journal is played back
+     */
+    @Getter
+    private final double speed;
+    private final CopyOnWriteArrayList<Consumer<TelemetrySample>> subscribers;
+    private int position;
+    /**
+     * Journal timestamp and {@link System#nanoTime()} that are played back at the same time
+     */
+    private long origin;
+    private long replayStart;
+    /**
+     * Number of commands executed on this controller
+     *
+     * @return number of commands executed on this controller
+     */
+    @Getter
+    private int commands;
+    /**
+     * Number of commands executed on this controller that differ from the recorded ones
+     *
+     * @return number of commands that differ from the recorded ones
+     */
+    @Getter
+    private int mismatches;
+
+    /**
+     * @param entries the records of a journal, see {@link FlightJournal#read(Path)}
+     * @param speed how many times faster than recorded the journal is played back, e.g. 1 for the original speed or
+     *              {@link #AS_FAST_AS_POSSIBLE}
+     */
+    public ReplayController(@NonNull List<FlightJournal.Entry> entries, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed has to be positive: " + speed);
+        }
+        this.entries = List.copyOf(entries);
+        this.speed = speed;
+        subscribers = new CopyOnWriteArrayList<>();
+        position = 0;
+    }
+
+    /**
+     * Read the journal at {@code path} for replay
+     *
+     * @param path path of the journal file
+     * @param speed how many times faster than recorded the journal is played back
+     * @return the replay controller
+     * @throws IOException failed to read the journal
+     */
+    public static ReplayController open(@NonNull Path path, double speed) throws IOException {
+        return new ReplayController(FlightJournal.read(path), speed);
+    }
+
+    /**
+     * Register a subscriber that is called with every replayed state sample on the replaying thread
+     *
+     * @param subscriber the subscriber
+     */
+    public void subscribe(@NonNull Consumer<TelemetrySample> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Remove a subscriber
+     *
+     * @param subscriber the subscriber
+     */
+    public void unsubscribe(@NonNull Consumer<TelemetrySample> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * @return whether all records were played back
+     */
+    public synchronized boolean isFinished() {
+        return position == entries.size();
+    }
+
+    @Override
+    public void accept(Commands.Command command) {
+        execute(command);
+    }
+
+    /**
+     * Answer like the recorded drone. The state samples recorded before the next command are passed to the
+     * subscribers right away, then the command is checked against the recorded one and the recorded result is
+     * returned after the recorded response time, passing the samples recorded in the meantime
+     *
+     * @param command the command the drone would have to execute
+     * @return the recorded result, or an error if the journal has no further command
+     */
+    @Override
+    public synchronized Result execute(@NonNull Commands.Command command) {
+        commands++;
+        while (position < entries.size() && !(entries.get(position) instanceof FlightJournal.Sent)) {
+            deliver(entries.get(position++));
+        }
+        if (position == entries.size()) {
+            mismatches++;
+            logger.warn("Journal has no further command, expected {}", command);
+            return new Result(Result.ResultEnum.ERROR, "end of journal");
+        }
+        var sent = (FlightJournal.Sent) entries.get(position++);
+        if (!sent.command().toString().equals(command.toString())) {
+            mismatches++;
+            logger.warn("Command #{} differs from the recording: {} instead of {}", commands, command, sent.command());
+        }
+        // the recorded response time is kept, the time the commander needed between the commands is not
+        anchor(sent.timestamp());
+        while (position < entries.size()) {
+            var entry = entries.get(position);
+            if (entry instanceof FlightJournal.Sent) {
+                break;
+            }
+            position++;
+            waitFor(entry.timestamp());
+            if (entry instanceof FlightJournal.Received received) {
+                return received.result();
+            }
+            deliver(entry);
+        }
+        mismatches++;
+        logger.warn("No result recorded for {}", sent.command());
+        return new Result(Result.ResultEnum.ERROR, "no result recorded");
+    }
+
+    /**
+     * Execute the remaining recorded commands on {@code target} at their recorded times and compare the results. If
+     * {@code target} takes longer than the recorded drone, the following records are played back without waiting
+     * until the replay caught up
+     *
+     * @param target the controller that executes the commands
+     * @return what was replayed
+     */
+    public synchronized Summary replay(@NonNull Controller target) {
+        var start = System.nanoTime();
+        var replayed = 0;
+        var differing = 0;
+        var states = 0;
+        if (position < entries.size()) {
+            anchor(entries.get(position).timestamp());
+        }
+        while (position < entries.size()) {
+            var entry = entries.get(position++);
+            waitFor(entry.timestamp());
+            switch (entry) {
+                case FlightJournal.State state -> {
+                    deliver(state);
+                    states++;
+                }
+                case FlightJournal.Sent sent -> {
+                    replayed++;
+                    var result = target.execute(sent.command());
+                    var recorded = recordedResult();
+                    if (recorded == null || recorded.result() != result.result()) {
+                        differing++;
+                        logger.warn("Result of {} differs from the recording: {} instead of {}", sent.command(), result, recorded);
+                    }
+                }
+                case FlightJournal.Received ignored -> {
+                    // compared when its command was replayed
+                }
+            }
+        }
+        return new Summary(replayed, differing, states, System.nanoTime() - start);
+    }
+
+    /**
+     * @return the result recorded for the command before {@link #position}, {@code null} if there is none
+     */
+    private Result recordedResult() {
+        for (int i = position; i < entries.size(); i++) {
+            switch (entries.get(i)) {
+                case FlightJournal.Received received -> {
+                    return received.result();
+                }
+                case FlightJournal.Sent ignored -> {
+                    return null;
+                }
+                case FlightJournal.State ignored -> {
+                }
+            }
+        }
+        return null;
+    }
+
+    private void anchor(long timestamp) {
+        origin = timestamp;
+        replayStart = System.nanoTime();
+    }
+
+    private void waitFor(long timestamp) {
+        if (speed == AS_FAST_AS_POSSIBLE) {
+            return;
+        }
+        var deadline = replayStart + (long) ((timestamp - origin) / speed);
+        for (var now = System.nanoTime(); now < deadline; now = System.nanoTime()) {
+            LockSupport.parkNanos(deadline - now);
+        }
+    }
+
+    private void deliver(FlightJournal.Entry entry) {
+        if (!(entry instanceof FlightJournal.State state)) {
+            return;
+        }
+        for (var subscriber : subscribers) {
+            try {
+                subscriber.accept(state.sample());
+            } catch (RuntimeException exception) {
+                logger.warn("Replay subscriber failed: {}", exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * What {@link #replay(Controller)} played back
+     *
+     * @param commands number of executed commands
+     * @param mismatches number of commands whose result differs from the recorded one
+     * @param states number of state samples passed to the subscribers
+     * @param elapsedNanos how long the replay took
+     */
+    public record Summary(int commands, int mismatches, int states, long elapsedNanos) {
+    }
+}
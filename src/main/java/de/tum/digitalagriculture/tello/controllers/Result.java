@@ -3,10 +3,57 @@ package de.tum.digitalagriculture.tello.controllers;
 import de.tum.digitalagriculture.tello.commanders.Commands;
 import lombok.NonNull;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * The result of an execution
+ *
+ * @param result what kind of response was returned
+ * @param response the response the drone sent, or the reason the execution failed
+ * @param reading the value returned by a {@link Commands.ReadCommand}, {@link #NO_READING} for other results. The
+ *                unit depends on the query: percent for {@code battery?}, cm/s for {@code speed?}, the SNR for
+ *                {@code wifi?} and seconds for {@code time?}
  */
-public record Result(@NonNull ResultEnum result, @NonNull String response) {
+public record Result(@NonNull ResultEnum result, @NonNull String response, int reading) {
+    /**
+     * Value of {@link #reading()} if the result is not a reading
+     */
+    public static final int NO_READING = Integer.MIN_VALUE;
+    private static final String OK_RESPONSE = "ok";
+    private static final Result OK = new Result(ResultEnum.OK, OK_RESPONSE);
+    /**
+     * Longer numbers do not fit into an int
+     */
+    private static final int MAX_DIGITS = 9;
+    /**
+     * Responses of readings that are plain non-negative numbers below this bound share their string
+     */
+    private static final int CACHED_READINGS = 1024;
+    private static final String[] READING_RESPONSES = new String[CACHED_READINGS];
+
+    static {
+        for (int i = 0; i < CACHED_READINGS; i++) {
+            READING_RESPONSES[i] = Integer.toString(i);
+        }
+    }
+
+    /**
+     * Create a result without a reading
+     *
+     * @param result what kind of response was returned
+     * @param response the response the drone sent, or the reason the execution failed
+     */
+    public Result(@NonNull ResultEnum result, @NonNull String response) {
+        this(result, response, NO_READING);
+    }
+
+    /**
+     * @return true if the result carries a reading
+     */
+    public boolean hasReading() {
+        return result == ResultEnum.READING;
+    }
 
     /**
      * Parse the result to the executed {@code command}
@@ -15,8 +62,129 @@ public record Result(@NonNull ResultEnum result, @NonNull String response) {
      * @param response the response the drone sent
      * @return the result of the execution
      */
-    public static Result of(Commands.Command command, String response) {
-        return new Result(ResultEnum.OK, response);
+    public static Result of(@NonNull Commands.Command command, @NonNull String response) {
+        return of(command, ByteBuffer.wrap(response.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Parse the result to the executed {@code command} from the ASCII encoded response between the position and the
+     * limit of {@code response}. The position of the buffer is not changed.
+     * <p>
+     * Motion and control commands succeed with {@code ok}, queries succeed with a number. Everything else, e.g.
+     * {@code error} or {@code out of range}, is an error.
+     * </p>
+     *
+     * @param command the command that was executed
+     * @param response buffer that holds the response the drone sent
+     * @return the result of the execution
+     */
+    public static Result of(@NonNull Commands.Command command, @NonNull ByteBuffer response) {
+        var start = response.position();
+        var end = response.limit();
+        while (start < end && isBlank(response.get(start))) {
+            start++;
+        }
+        while (end > start && isBlank(response.get(end - 1))) {
+            end--;
+        }
+        if (isOk(response, start, end)) {
+            return OK;
+        }
+        if (command instanceof Commands.ReadCommand) {
+            var reading = parseReading(response, start, end);
+            if (reading != NO_READING) {
+                var text = reading >= 0 && reading < CACHED_READINGS && end - start == digits(reading)
+                        ? READING_RESPONSES[reading] : text(response, start, end);
+                return new Result(ResultEnum.READING, text, reading);
+            }
+        }
+        return new Result(ResultEnum.ERROR, text(response, start, end));
+    }
+
+    /**
+     * Decide which kind of command a response belongs to, without knowing the command. The position of the buffer is
+     * not changed
+     *
+     * @param response buffer that holds the response the drone sent
+     * @return the kind of the response
+     */
+    static ResultEnum classify(@NonNull ByteBuffer response) {
+        var start = response.position();
+        var end = response.limit();
+        while (start < end && isBlank(response.get(start))) {
+            start++;
+        }
+        while (end > start && isBlank(response.get(end - 1))) {
+            end--;
+        }
+        if (isOk(response, start, end)) {
+            return ResultEnum.OK;
+        }
+        if (start < end && (isDigit(response.get(start)) || response.get(start) == '-')) {
+            return ResultEnum.READING;
+        }
+        return ResultEnum.ERROR;
+    }
+
+    private static boolean isBlank(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == 0;
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isOk(ByteBuffer response, int start, int end) {
+        return end - start == 2 && (response.get(start) | 0x20) == 'o' && (response.get(start + 1) | 0x20) == 'k';
+    }
+
+    /**
+     * Parse an integer with an optional fraction, which is truncated, and an optional unit, e.g. {@code 87},
+     * {@code 100.0} or {@code 12s}
+     *
+     * @return the integer or {@link #NO_READING} if the response is not a number
+     */
+    private static int parseReading(ByteBuffer response, int start, int end) {
+        var position = start;
+        var negative = position < end && response.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+        var digitsStart = position;
+        var value = 0;
+        while (position < end && isDigit(response.get(position))) {
+            if (position - digitsStart == MAX_DIGITS) {
+                return NO_READING;
+            }
+            value = value * 10 + (response.get(position) - '0');
+            position++;
+        }
+        if (position == digitsStart) {
+            return NO_READING;
+        }
+        if (position < end && response.get(position) == '.') {
+            position++;
+            while (position < end && isDigit(response.get(position))) {
+                position++;
+            }
+        }
+        while (position < end && Character.isLetter(response.get(position))) {
+            position++;
+        }
+        if (position != end) {
+            return NO_READING;
+        }
+        return negative ? -value : value;
+    }
+
+    private static int digits(int value) {
+        return value < 10 ? 1 : value < 100 ? 2 : value < 1000 ? 3 : 4;
+    }
+
+    private static String text(ByteBuffer response, int start, int end) {
+        var bytes = new byte[end - start];
+        response.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
     }
 
     /**
@@ -25,4 +193,4 @@ public record Result(@NonNull ResultEnum result, @NonNull String response) {
     public enum ResultEnum {
         OK, ERROR, READING
     }
-}
\ No newline at end of file
+}
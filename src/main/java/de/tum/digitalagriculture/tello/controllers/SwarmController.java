@@ -0,0 +1,209 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commander;
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls several Tello drones from one process, e.g. Tello EDUs in station mode.
+ * <p>
+ * All drones share a small number of {@link DatagramChannel}s that are driven by a single {@link Selector} on one I/O
+ * thread. Responses are routed to the session of a drone by their source address. Every drone has its own
+ * {@link CommandPipeline}, so the motion commands of one drone never wait for another drone. Deadlines and retries
+ * are defined by a {@link CommandPolicy}. The I/O loop is the one of {@link CommandChannel}.
+ * </p>
+ * <p>
+ * Unless the connections may time out, a keep alive query is scheduled for every drone as in {@link FlightController},
+ * so drones that wait for the rest of the swarm stay connected.
+ * </p>
+ */
+public class SwarmController implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SwarmController.class);
+
+    /**
+     * Addresses of the drones, the index of a drone in this list identifies it
+     *
+     * @return addresses of the drones
+     */
+    @Getter
+    private final List<InetSocketAddress> drones;
+    /**
+     * How the connections to the drones are kept alive
+     *
+     * @return how the connections to the drones are kept alive
+     */
+    @Getter
+    private final FlightController.ConnectionOption connectionOption;
+    private final List<CommandLoop.Session> sessions;
+    private final CommandLoop loop;
+    /**
+     * Schedules the keep alive queries, {@code null} if the connections time out
+     */
+    private final ScheduledExecutorService keepAlive;
+
+    /**
+     * Create a new {@link SwarmController} and start its I/O thread
+     *
+     * @param drones addresses of the drones. Every drone needs a distinct address
+     * @param localPort local port of the first channel, the other channels use the following ports. 0 binds ephemeral ports. Defaults to 8889
+     * @param channels number of channels the drones are distributed over. Defaults to 1
+     * @param commandPolicy deadlines and retries of the commands. Defaults to {@link CommandPolicy#DEFAULT}
+     * @param connectionOption whether every drone is queried periodically to keep its connection alive. Defaults to KEEP_ALIVE
+     * @throws IOException failed to setup the channels
+     */
+    @Builder
+    public SwarmController(@NonNull List<InetSocketAddress> drones, Integer localPort, Integer channels, CommandPolicy commandPolicy, FlightController.ConnectionOption connectionOption) throws IOException {
+        var port = Objects.requireNonNullElse(localPort, 8889);
+        var policy = Objects.requireNonNullElse(commandPolicy, CommandPolicy.DEFAULT);
+        var channelCount = Math.min(Objects.requireNonNullElse(channels, 1), Math.max(drones.size(), 1));
+        this.drones = List.copyOf(drones);
+        if (new HashSet<>(this.drones).size() != this.drones.size()) {
+            throw new IllegalArgumentException(String.format("Every drone needs a distinct address: %s", this.drones));
+        }
+        sessions = new ArrayList<>(this.drones.size());
+        for (int i = 0; i < this.drones.size(); i++) {
+            sessions.add(new CommandLoop.Session(this.drones.get(i), i % channelCount, policy));
+        }
+        var opened = new DatagramChannel[channelCount];
+        try {
+            for (int i = 0; i < channelCount; i++) {
+                opened[i] = DatagramChannel.open();
+                opened[i].bind(new InetSocketAddress(port == 0 ? 0 : port + i));
+            }
+        } catch (IOException ioException) {
+            for (var channel : opened) {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException closeException) {
+                        ioException.addSuppressed(closeException);
+                    }
+                }
+            }
+            throw ioException;
+        }
+        loop = new CommandLoop("tello-swarm-io", opened, sessions);
+        this.connectionOption = Objects.requireNonNullElse(connectionOption, FlightController.ConnectionOption.KEEP_ALIVE);
+        if (this.connectionOption == FlightController.ConnectionOption.KEEP_ALIVE) {
+            keepAlive = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("tello-swarm-keepalive").daemon().factory());
+            for (var session : sessions) {
+                keepAlive.scheduleAtFixedRate(() -> KeepAlive.query(session.getRemoteAddress(), command -> loop.submit(session, command)),
+                        KeepAlive.PERIOD_SECONDS, KeepAlive.PERIOD_SECONDS, TimeUnit.SECONDS);
+            }
+            logger.debug("Scheduled keep alive!");
+        } else {
+            keepAlive = null;
+        }
+        logger.debug("Controlling {} drones over {} channels", this.drones.size(), channelCount);
+    }
+
+    /**
+     * Submit a command to a drone without waiting for the response. The returned future is completed on the I/O
+     * thread, dependent stages should therefore not block. It is completed exceptionally with a
+     * {@link java.util.concurrent.TimeoutException} if the drone does not respond in time
+     *
+     * @param drone index of the drone in {@link #getDrones()}
+     * @param command command to be sent
+     * @return future that is completed with the result of the execution
+     */
+    public CompletableFuture<Result> submit(int drone, @NonNull Commands.Command command) {
+        return loop.submit(sessions.get(drone), command);
+    }
+
+    /**
+     * Send a command to every drone
+     *
+     * @param command command to be sent
+     * @return future that is completed with the results in the order of {@link #getDrones()}
+     */
+    public CompletableFuture<List<Result>> broadcast(@NonNull Commands.Command command) {
+        var futures = new ArrayList<CompletableFuture<Result>>(sessions.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            futures.add(submit(i, command));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Run one {@link Commander} per drone concurrently. A drone gets its next command once the previous one was
+     * answered, no thread is blocked while a drone is flying
+     *
+     * @param commanders one commander per drone, in the order of {@link #getDrones()}
+     * @param executor executor the commanders are advanced on. Keeps possibly blocking commanders off the I/O thread
+     * @return future that is completed with the results of every drone once all commanders are finished
+     */
+    public CompletableFuture<List<List<Result>>> run(@NonNull List<? extends Commander> commanders, @NonNull Executor executor) {
+        if (commanders.size() != sessions.size()) {
+            throw new IllegalArgumentException(String.format("Expected %d commanders but got %d", sessions.size(), commanders.size()));
+        }
+        var missions = new ArrayList<CompletableFuture<List<Result>>>(commanders.size());
+        for (int i = 0; i < commanders.size(); i++) {
+            var mission = new CompletableFuture<List<Result>>();
+            var drone = i;
+            var commander = commanders.get(i);
+            executor.execute(() -> advance(drone, commander, new ArrayList<>(), mission, executor));
+            missions.add(mission);
+        }
+        return CompletableFuture.allOf(missions.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> missions.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Submit the next command of {@code commander} and schedule the following step once it is answered
+     */
+    private void advance(int drone, Commander commander, List<Result> results, CompletableFuture<List<Result>> mission, Executor executor) {
+        try {
+            if (!commander.hasNext()) {
+                mission.complete(results);
+                return;
+            }
+            var command = commander.next();
+            submit(drone, command).whenCompleteAsync((result, throwable) -> {
+                if (throwable != null) {
+                    mission.completeExceptionally(throwable);
+                    return;
+                }
+                if (result.result() == Result.ResultEnum.ERROR) {
+                    logger.warn("Drone {} failed to execute {}: {}", drone, command, result.response());
+                }
+                results.add(result);
+                advance(drone, commander, results, mission, executor);
+            }, executor);
+        } catch (RuntimeException exception) {
+            mission.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Stop the keep alive and the I/O thread, fail all pending commands and close the channels
+     *
+     * @throws IOException failed to close a channel
+     * @throws InterruptedException interrupted while waiting for the I/O thread
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        if (keepAlive != null) {
+            keepAlive.shutdownNow();
+        }
+        loop.close();
+    }
+}
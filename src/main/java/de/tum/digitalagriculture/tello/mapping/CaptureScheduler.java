@@ -0,0 +1,195 @@
+package de.tum.digitalagriculture.tello.mapping;
+
+import de.tum.digitalagriculture.tello.streams.FrameProcessor;
+import de.tum.digitalagriculture.tello.streams.ProcessingStage;
+import de.tum.digitalagriculture.tello.telemetry.PoseEstimator;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
+
+/**
+ * Captures still images for mosaicking whenever the drone has moved a given ground distance since the last capture.
+ * <p>
+ * The scheduler runs on a {@link ProcessingStage}, pass {@link #getStage()} to
+ * {@link de.tum.digitalagriculture.tello.streams.StreamHandler#setProcessor} of the stream handler. The workers of the
+ * stage look up the pose of the drone when each frame was grabbed from a {@link PoseEstimator}, and encode and write
+ * the frames that are due. Frames that arrive while all workers are busy are skipped by the stage, so the grabber never
+ * waits for the encoder, and the memory used is bounded by the frames of the stage no matter how many images a flight
+ * takes.
+ * </p>
+ * <p>
+ * Every image {@code capture-000042.jpg} is written with a sidecar {@code capture-000042.json} holding its pose, and a
+ * line is appended to {@code poses.csv} in the same directory:
+ * </p>
+ * <pre>
+ *     image,number,timestamp,x,y,height,yaw,pad
+ * </pre>
+ * <p>
+ * Positions are in cm relative to the takeoff point, see {@link PoseEstimator}.
+ * </p>
+ */
+public class CaptureScheduler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CaptureScheduler.class);
+    private static final String INDEX = "poses.csv";
+
+    /**
+     * Directory the images are written to
+     *
+     * @return directory the images are written to
+     */
+    @Getter
+    private final Path directory;
+    /**
+     * Ground distance in cm between two captures
+     *
+     * @return ground distance in cm between two captures
+     */
+    @Getter
+    private final double distance;
+    /**
+     * Image format, {@code jpg} or {@code png}
+     *
+     * @return image format
+     */
+    @Getter
+    private final String format;
+    /**
+     * The stage the scheduler runs on. Its subscribers receive the captured images; with several workers the stage
+     * discards an image whose result is overtaken by a newer one, the image is written nonetheless
+     *
+     * @return the stage the scheduler runs on
+     */
+    @Getter
+    private final ProcessingStage<Capture> stage;
+    private final PoseEstimator poses;
+    private final long frameDelayNanos;
+    private final IntPointer parameters;
+    private final BufferedWriter index;
+    private PoseEstimator.Pose last;
+    private long captured;
+
+    /**
+     * @param directory directory the images are written to, created if it does not exist
+     * @param poses the estimator that receives the state samples of the drone
+     * @param distance ground distance in cm between two captures. Defaults to 100cm
+     * @param format image format, {@code jpg} or {@code png}. Defaults to {@code jpg}
+     * @param quality JPEG quality from 0 to 100 or PNG compression level from 0 to 9. Defaults to 90 and 3
+     * @param frameDelay how long the video lags behind the state samples, subtracted from the time a frame was
+     *                   grabbed to look up its pose. Defaults to 0
+     * @param workers number of encoder threads. Defaults to 2
+     * @throws IOException failed to create the directory or the index
+     */
+    @Builder
+    public CaptureScheduler(@NonNull Path directory, @NonNull PoseEstimator poses, Double distance, String format, Integer quality, Duration frameDelay, Integer workers) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.poses = poses;
+        this.distance = Objects.requireNonNullElse(distance, 100.0);
+        this.format = Objects.requireNonNullElse(format, "jpg").toLowerCase(Locale.ROOT);
+        frameDelayNanos = Objects.requireNonNullElse(frameDelay, Duration.ZERO).toNanos();
+        parameters = switch (this.format) {
+            case "jpg", "jpeg" -> new IntPointer(IMWRITE_JPEG_QUALITY, Objects.requireNonNullElse(quality, 90));
+            case "png" -> new IntPointer(IMWRITE_PNG_COMPRESSION, Objects.requireNonNullElse(quality, 3));
+            default -> throw new IllegalArgumentException("Unsupported image format: " + this.format);
+        };
+        index = Files.newBufferedWriter(this.directory.resolve(INDEX));
+        index.write("image,number,timestamp,x,y,height,yaw,pad");
+        index.newLine();
+        index.flush();
+        last = null;
+        captured = 0;
+        stage = new ProcessingStage<>("capture", Objects.requireNonNullElse(workers, 2), Encoder::new);
+    }
+
+    /**
+     * @return number of captured images
+     */
+    public synchronized long getCaptured() {
+        return captured;
+    }
+
+    /**
+     * Claim a frame if the drone moved far enough since the last capture
+     *
+     * @return the number of the image, -1 if the frame is not captured
+     */
+    private synchronized long claim(PoseEstimator.Pose pose) {
+        if (last != null && pose.distance(last) < distance) {
+            return -1;
+        }
+        last = pose;
+        return captured++;
+    }
+
+    private synchronized void append(String line) throws IOException {
+        index.write(line);
+        index.newLine();
+        index.flush();
+    }
+
+    /**
+     * Stop the encoders, waiting for the images in progress, and close the index. Must not be called while a stream
+     * still offers frames to the stage
+     *
+     * @throws IOException failed to close the index
+     */
+    @Override
+    public void close() throws IOException {
+        stage.close();
+        synchronized (this) {
+            index.close();
+        }
+        parameters.close();
+        logger.debug("Captured {} images to {}", captured, directory);
+    }
+
+    /**
+     * Writes the frames that are due, one per worker of the stage
+     */
+    private final class Encoder implements FrameProcessor<Capture> {
+        @Override
+        public Capture process(Mat frame, long grabbedAt) throws IOException {
+            var pose = poses.at(grabbedAt - frameDelayNanos);
+            if (pose == null) {
+                return null;
+            }
+            var number = claim(pose);
+            if (number < 0) {
+                return null;
+            }
+            var name = String.format("capture-%06d", number);
+            var image = directory.resolve(name + "." + format);
+            if (!imwrite(image.toString(), frame, parameters)) {
+                throw new IOException("Could not write " + image);
+            }
+            Files.writeString(directory.resolve(name + ".json"), String.format(Locale.ROOT,
+                    "{\"image\":\"%s\",\"number\":%d,\"timestamp\":%d,\"x\":%.1f,\"y\":%.1f,\"height\":%.1f,\"yaw\":%d,\"pad\":%b}%n",
+                    image.getFileName(), number, grabbedAt, pose.x(), pose.y(), pose.height(), pose.yaw(), pose.onPad()));
+            append(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%.1f,%d,%b", image.getFileName(), number, grabbedAt,
+                    pose.x(), pose.y(), pose.height(), pose.yaw(), pose.onPad()));
+            return new Capture(image, pose);
+        }
+    }
+
+    /**
+     * A captured image
+     *
+     * @param image path of the image
+     * @param pose pose of the drone when the frame was grabbed
+     */
+    public record Capture(Path image, PoseEstimator.Pose pose) {
+    }
+}
@@ -0,0 +1,38 @@
+package de.tum.digitalagriculture.tello.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+/**
+ * JFR event of a command that was answered, retried or timed out
+ */
+@Name("de.tum.digitalagriculture.tello.Command")
+@Label("Command")
+@Description("A command that was answered, retried or timed out")
+@Category({"Tello", "Commands"})
+@StackTrace(false)
+@Setter
+public class CommandEvent extends Event {
+    @Label("Drone")
+    private String drone;
+    @Label("Command")
+    private String command;
+    @Label("Sequence")
+    private long sequence;
+    @Label("Outcome")
+    @Description("OK, ERROR, READING, RETRY or TIMEOUT")
+    private String outcome;
+    @Label("Sends")
+    @Description("How often the command was sent")
+    private int sends;
+    @Label("Round Trip")
+    @Description("Time from the last send to the response or the deadline")
+    @Timespan(Timespan.NANOSECONDS)
+    private long roundTrip;
+}
@@ -0,0 +1,53 @@
+package de.tum.digitalagriculture.tello.metrics;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count. Lock-free and cheap to increment from many threads at once
+ */
+public final class Counter implements Metric {
+    /**
+     * Name of the counter
+     *
+     * @return name of the counter
+     */
+    @Getter
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * @param name name of the counter
+     */
+    public Counter(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add one to the count
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * @param delta non-negative amount to add to the count
+     */
+    public void add(long delta) {
+        count.add(delta);
+    }
+
+    /**
+     * @return the current count
+     */
+    public long get() {
+        return count.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%d]", name, get());
+    }
+}
@@ -0,0 +1,41 @@
+package de.tum.digitalagriculture.tello.metrics;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A value that is read when the metrics are inspected, e.g. the occupancy of a frame pool
+ */
+public final class Gauge implements Metric {
+    /**
+     * Name of the gauge
+     *
+     * @return name of the gauge
+     */
+    @Getter
+    private final String name;
+    private final LongSupplier value;
+
+    /**
+     * @param name name of the gauge
+     * @param value reads the current value. Called from any thread, must not block
+     */
+    public Gauge(@NonNull String name, @NonNull LongSupplier value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * @return the current value
+     */
+    public long get() {
+        return value.getAsLong();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%d]", name, get());
+    }
+}
@@ -0,0 +1,32 @@
+package de.tum.digitalagriculture.tello.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+/**
+ * JFR event of a keep alive query
+ */
+@Name("de.tum.digitalagriculture.tello.KeepAlive")
+@Label("Keep Alive")
+@Description("A query sent to keep the connection to the drone alive")
+@Category({"Tello", "Commands"})
+@StackTrace(false)
+@Setter
+public class KeepAliveEvent extends Event {
+    @Label("Drone")
+    private String drone;
+    @Label("Succeeded")
+    private boolean succeeded;
+    @Label("Response")
+    @Description("The response or the reason the query failed")
+    private String response;
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    private long latency;
+}
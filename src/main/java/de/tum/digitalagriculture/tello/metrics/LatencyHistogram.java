@@ -0,0 +1,155 @@
+package de.tum.digitalagriculture.tello.metrics;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets, like an HDR histogram.
+ * <p>
+ * Values below 32ns get a bucket each, above that every power of two is split into 16 buckets, so a recorded value
+ * is reported with a relative error below 6.25%. Values up to about 68s are tracked, larger values land in the last
+ * bucket. Recording does not allocate, takes a few nanoseconds and is lock-free, so a histogram can be written and
+ * read by any number of threads.
+ * </p>
+ */
+public final class LatencyHistogram implements Metric {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    /**
+     * Largest tracked magnitude, 2^36ns is about 68s
+     */
+    private static final int MAX_MAGNITUDE = 36;
+    private static final int BUCKETS = index((1L << MAX_MAGNITUDE) - 1) + 1;
+
+    /**
+     * Name of the measured interval
+     *
+     * @return name of the measured interval
+     */
+    @Getter
+    private final String name;
+    private final AtomicLongArray counts;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param name name of the measured interval
+     */
+    public LatencyHistogram(@NonNull String name) {
+        this.name = name;
+        counts = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * Record a latency. Negative values are recorded as 0
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        var value = Math.max(nanos, 0);
+        var bucket = Math.min(index(value), BUCKETS - 1);
+        counts.getAndIncrement(bucket);
+        totalNanos.add(value);
+        if (value > maxNanos.getPlain()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+        count.increment();
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Summarize the recorded values. Values recorded while the snapshot is taken may be partially included
+     *
+     * @return percentiles of the recorded values
+     */
+    public Snapshot snapshot() {
+        var buckets = new long[BUCKETS];
+        var total = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+            total += buckets[i];
+        }
+        var max = maxNanos.get();
+        return new Snapshot(name, total, total == 0 ? 0 : totalNanos.sum() / total,
+                percentile(buckets, total, 0.5, max), percentile(buckets, total, 0.9, max),
+                percentile(buckets, total, 0.99, max), percentile(buckets, total, 0.999, max), max);
+    }
+
+    private static long percentile(long[] buckets, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        var rank = (long) Math.ceil(total * quantile);
+        var seen = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the bucket of {@code value}
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        var shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        var top = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + top - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value that falls into {@code bucket}
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        var shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        var top = (long) (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * Percentiles of a {@link LatencyHistogram} at one point in time. All latencies are in nanoseconds
+     *
+     * @param name name of the measured interval
+     * @param count number of recorded values
+     * @param meanNanos mean latency
+     * @param p50Nanos median latency
+     * @param p90Nanos 90th percentile
+     * @param p99Nanos 99th percentile
+     * @param p999Nanos 99.9th percentile
+     * @param maxNanos maximum latency
+     */
+    public record Snapshot(String name, long count, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+                           long p999Nanos, long maxNanos) {
+        @Override
+        public String toString() {
+            return String.format("%s[n=%d, mean=%.2fms, p50=%.2fms, p90=%.2fms, p99=%.2fms, p99.9=%.2fms, max=%.2fms]",
+                    name, count, meanNanos / 1e6, p50Nanos / 1e6, p90Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6,
+                    maxNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package de.tum.digitalagriculture.tello.metrics;
+
+/**
+ * A named measurement kept in a {@link MetricsRegistry}
+ */
+public sealed interface Metric permits Counter, Gauge, LatencyHistogram {
+    /**
+     * @return name of the metric, e.g. {@code command.timeouts}
+     */
+    String getName();
+}
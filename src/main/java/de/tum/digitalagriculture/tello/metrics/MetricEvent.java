@@ -0,0 +1,28 @@
+package de.tum.digitalagriculture.tello.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Periodic JFR event with the value of a counter or gauge of the {@link MetricsRegistry#global()} registry, or the
+ * count of a histogram
+ */
+@Name("de.tum.digitalagriculture.tello.Metric")
+@Label("Metric")
+@Description("Value of a counter or gauge of the metrics registry")
+@Category({"Tello", "Metrics"})
+@Period("1 s")
+@StackTrace(false)
+@Setter
+public class MetricEvent extends Event {
+    @Label("Name")
+    private String name;
+    @Label("Value")
+    private long value;
+}
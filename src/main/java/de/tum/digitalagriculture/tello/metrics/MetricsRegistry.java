@@ -0,0 +1,163 @@
+package de.tum.digitalagriculture.tello.metrics;
+
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process registry of the metrics of the controllers and streams.
+ * <p>
+ * Metrics are looked up by name once and then updated without locking, so they are cheap enough to stay enabled
+ * during flights. The registry can be inspected at any time with {@link #getMetrics()} and written to a file with
+ * {@link #dump(Path)}, e.g. after landing. While a JDK Flight Recorder recording is running, the counters and gauges
+ * of the {@link #global()} registry are also emitted as {@link MetricEvent}s every second.
+ * </p>
+ * <p>
+ * Names are dot separated, e.g. {@code command.rtt.forward} or {@code stream.writer.dropped}.
+ * </p>
+ */
+public final class MetricsRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    static {
+        jdk.jfr.FlightRecorder.addPeriodicEvent(MetricEvent.class, GLOBAL::emitEvents);
+    }
+
+    private final ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @return the registry the controllers and streams report to
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Get the counter {@code name}, creating it if it does not exist
+     *
+     * @param name name of the counter
+     * @return the counter
+     * @throws IllegalArgumentException if a metric of another type is registered as {@code name}
+     */
+    public Counter counter(@NonNull String name) {
+        return get(name, Counter.class, metrics.computeIfAbsent(name, Counter::new));
+    }
+
+    /**
+     * Get the histogram {@code name}, creating it if it does not exist
+     *
+     * @param name name of the histogram
+     * @return the histogram
+     * @throws IllegalArgumentException if a metric of another type is registered as {@code name}
+     */
+    public LatencyHistogram histogram(@NonNull String name) {
+        return get(name, LatencyHistogram.class, metrics.computeIfAbsent(name, LatencyHistogram::new));
+    }
+
+    /**
+     * Register a gauge, replacing the metric that was registered under its name before
+     *
+     * @param name name of the gauge
+     * @param value reads the current value. Called from any thread, must not block
+     * @return the registered gauge
+     */
+    public Gauge gauge(@NonNull String name, @NonNull LongSupplier value) {
+        return register(new Gauge(name, value));
+    }
+
+    /**
+     * Register a metric under its name, replacing the metric that was registered under the name before. Used for
+     * metrics that belong to a single stream and are replaced when the next stream starts
+     *
+     * @param metric the metric to register
+     * @param <M> type of the metric
+     * @return {@code metric}
+     */
+    public <M extends Metric> M register(@NonNull M metric) {
+        metrics.put(metric.getName(), metric);
+        return metric;
+    }
+
+    /**
+     * @param name name of a metric
+     * @return the metric registered as {@code name} or {@code null} if there is none
+     */
+    public Metric get(@NonNull String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * @return all registered metrics ordered by name
+     */
+    public List<Metric> getMetrics() {
+        return metrics.values().stream().sorted(Comparator.comparing(Metric::getName)).toList();
+    }
+
+    /**
+     * Write the current value of every metric to {@code path}, one tab separated line per metric. Latencies are in
+     * nanoseconds
+     *
+     * @param path file to write, replaced if it exists
+     * @throws IOException failed to write the file
+     */
+    public void dump(@NonNull Path path) throws IOException {
+        try (var writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            writer.printf("# metrics at %s%n", Instant.now());
+            writer.println("# name\ttype\tvalue / count\tmean\tp50\tp90\tp99\tp99.9\tmax");
+            for (var metric : getMetrics()) {
+                switch (metric) {
+                    case Counter counter -> writer.printf("%s\tcounter\t%d%n", counter.getName(), counter.get());
+                    case Gauge gauge -> writer.printf("%s\tgauge\t%d%n", gauge.getName(), gauge.get());
+                    case LatencyHistogram histogram -> {
+                        var snapshot = histogram.snapshot();
+                        writer.printf("%s\thistogram\t%d\t%d\t%d\t%d\t%d\t%d\t%d%n", histogram.getName(),
+                                snapshot.count(), snapshot.meanNanos(), snapshot.p50Nanos(), snapshot.p90Nanos(),
+                                snapshot.p99Nanos(), snapshot.p999Nanos(), snapshot.maxNanos());
+                    }
+                }
+            }
+        }
+        logger.debug("Dumped {} metrics to {}", metrics.size(), path);
+    }
+
+    /**
+     * Emit a {@link MetricEvent} per counter and gauge
+     */
+    private void emitEvents() {
+        for (var metric : metrics.values()) {
+            var value = switch (metric) {
+                case Counter counter -> counter.get();
+                case Gauge gauge -> gauge.get();
+                case LatencyHistogram histogram -> histogram.getCount();
+            };
+            var event = new MetricEvent();
+            event.setName(metric.getName());
+            event.setValue(value);
+            event.commit();
+        }
+    }
+
+    private static <M extends Metric> M get(String name, Class<M> type, Metric metric) {
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException(String.format("%s is registered as %s", name, metric.getClass().getSimpleName()));
+        }
+        return type.cast(metric);
+    }
+
+    @Override
+    public String toString() {
+        return getMetrics().toString();
+    }
+}
@@ -0,0 +1,551 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.CommandParser;
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_imgproc.FONT_HERSHEY_SIMPLEX;
+import static org.bytedeco.opencv.global.opencv_imgproc.LINE_8;
+import static org.bytedeco.opencv.global.opencv_imgproc.circle;
+import static org.bytedeco.opencv.global.opencv_imgproc.putText;
+
+/**
+ * An in-process simulator of a Tello drone that speaks the UDP protocol of the SDK 2.0, so the network and stream
+ * code of the {@link FlightController} can be exercised without a drone.
+ * <p>
+ * The simulator listens for commands on the command port and answers them after a log-normally distributed network
+ * latency. Motion commands are answered once the simple kinematic model finished the motion. After {@code command}
+ * was received, the state datagrams are sent to the state port of the ground station. With {@code video} enabled,
+ * {@code streamon} starts a synthetic H.264 stream of 960x720 frames at 30 fps to the video port, whose content moves
+ * with the drone.
+ * </p>
+ * <p>
+ * The model tracks position, yaw, battery and flight time. x points forward, y to the left and z up, relative to the
+ * pose at takeoff. Motions take {@code distance / speed} plus a short settling time, rotations 60 degrees per second.
+ * The simulated time can run faster than the wall clock with {@code timeScale}; network latencies are not scaled.
+ * </p>
+ * <p>
+ * Missions are flown end to end against the simulator. The command path alone is measured against the
+ * {@link StandInDrone}, which skips the model, the state and the video and whose loss and latency are deterministic.
+ * </p>
+ */
+public class DroneSimulator implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DroneSimulator.class);
+    private static final int MAX_DATAGRAM_SIZE = 1024;
+    private static final int TAKEOFF_HEIGHT = 80;
+    private static final double TAKEOFF_SECONDS = 4;
+    private static final double SETTLE_SECONDS = 0.5;
+    private static final double FLIP_SECONDS = 2;
+    private static final double DEGREES_PER_SECOND = 60;
+    private static final double LANDING_SPEED = 50;
+    private static final double MAX_RC_SPEED = 100;
+    private static final double MAX_RC_YAW_RATE = 100;
+    private static final int DEFAULT_SPEED = 50;
+    private static final int MIN_TAKEOFF_BATTERY = 10;
+    /**
+     * Battery drain in percent per simulated second, about 13 minutes of flight time
+     */
+    private static final double FLYING_DRAIN = 100.0 / 780;
+    private static final double IDLE_DRAIN = 100.0 / 3600;
+    private static final int WIDTH = 960;
+    private static final int HEIGHT = 720;
+    private static final int FPS = 30;
+    private static final double PIXELS_PER_CM = 2;
+    private static final double PIXELS_PER_DEGREE = 8;
+    private static final int GRID = 120;
+
+    private final DatagramChannel commandChannel;
+    private final DatagramChannel stateChannel;
+    private final ScheduledExecutorService scheduler;
+    private final Thread thread;
+    private final int statePort;
+    private final int videoPort;
+    private final long stateIntervalNanos;
+    private final double latencyMedianNanos;
+    private final double latencySigma;
+    private final boolean video;
+    private final Model model;
+    private volatile InetAddress groundStation;
+    private volatile VideoFeed feed;
+    private ScheduledFuture<?> stateTask;
+
+    /**
+     * Create a simulator and start listening for commands
+     *
+     * @param host address the command port is bound to. Defaults to 127.0.0.1
+     * @param commandPort local port of the command channel. Defaults to 8889, 0 binds an ephemeral port
+     * @param statePort port of the ground station the state is sent to. Defaults to 8890
+     * @param videoPort port of the ground station the video is sent to. Defaults to 11111
+     * @param stateRate state datagrams per second. Defaults to 10
+     * @param latency median of the network latency. Defaults to 10ms
+     * @param latencySigma standard deviation of the logarithm of the latency, the width of the distribution. Defaults to 0.5
+     * @param timeScale simulated seconds per wall clock second. Defaults to 1
+     * @param video whether {@code streamon} starts a synthetic video stream. Defaults to false
+     * @param battery initial battery percentage. Defaults to 100
+     * @throws IOException failed to bind the channels
+     */
+    @Builder
+    public DroneSimulator(String host, Integer commandPort, Integer statePort, Integer videoPort, Integer stateRate, Duration latency, Double latencySigma, Double timeScale, Boolean video, Integer battery) throws IOException {
+        this.statePort = Objects.requireNonNullElse(statePort, 8890);
+        this.videoPort = Objects.requireNonNullElse(videoPort, 11111);
+        stateIntervalNanos = 1_000_000_000L / Objects.requireNonNullElse(stateRate, 10);
+        latencyMedianNanos = Objects.requireNonNullElse(latency, Duration.ofMillis(10)).toNanos();
+        this.latencySigma = Objects.requireNonNullElse(latencySigma, 0.5);
+        this.video = Objects.requireNonNullElse(video, false);
+        model = new Model(Objects.requireNonNullElse(timeScale, 1.0), Objects.requireNonNullElse(battery, 100));
+        commandChannel = DatagramChannel.open();
+        commandChannel.bind(new InetSocketAddress(Objects.requireNonNullElse(host, "127.0.0.1"), Objects.requireNonNullElse(commandPort, 8889)));
+        stateChannel = DatagramChannel.open();
+        scheduler = Executors.newScheduledThreadPool(2);
+        thread = new Thread(this::serve, "tello-simulator");
+        thread.setDaemon(true);
+        thread.start();
+        logger.debug("Simulator listening on {}", getAddress());
+    }
+
+    /**
+     * @return the address the simulator receives commands on
+     */
+    @SneakyThrows
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) commandChannel.getLocalAddress();
+    }
+
+    /**
+     * @return the current state of the model
+     */
+    public State getState() {
+        return model.snapshot(System.nanoTime());
+    }
+
+    private void serve() {
+        var buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+        try {
+            while (commandChannel.isOpen()) {
+                buffer.clear();
+                var source = commandChannel.receive(buffer);
+                buffer.flip();
+                handle(buffer, source);
+            }
+        } catch (AsynchronousCloseException ignored) {
+            // closed by close()
+        } catch (IOException ioException) {
+            logger.warn("Simulator failed: {}", ioException.getMessage());
+        }
+    }
+
+    /**
+     * Execute a received command and schedule its response
+     */
+    private void handle(ByteBuffer datagram, SocketAddress source) {
+        var parsed = CommandParser.parse(datagram);
+        if (!parsed.isOk()) {
+            var isRange = parsed.error() == CommandParser.ParseError.OUT_OF_RANGE || parsed.error() == CommandParser.ParseError.TOO_CLOSE;
+            reply(isRange ? "out of range" : "unknown command: " + StandardCharsets.US_ASCII.decode(datagram).toString().trim(), 0, source);
+            return;
+        }
+        var command = parsed.command();
+        if (groundStation == null && !(command instanceof Commands.Init)) {
+            // the drone ignores everything until it is in SDK mode
+            return;
+        }
+        var now = System.nanoTime();
+        switch (command) {
+            case Commands.Init ignored -> {
+                enterSdkMode(((InetSocketAddress) source).getAddress());
+                reply("ok", 0, source);
+            }
+            case Commands.ReadBattery ignored -> reply(Integer.toString(model.snapshot(now).battery()), 0, source);
+            case Commands.ReadSpeed ignored -> reply(model.getSpeed() + ".0", 0, source);
+            case Commands.ReadTime ignored -> reply(model.snapshot(now).flightTime() + "s", 0, source);
+            case Commands.ReadWifi ignored -> reply("90", 0, source);
+            case Commands.Rc rc -> model.rc(now, rc.getParams()[0], rc.getParams()[1], rc.getParams()[2], rc.getParams()[3]);
+            case Commands.StreamOn ignored -> {
+                startVideo();
+                reply("ok", 0, source);
+            }
+            case Commands.StreamOff ignored -> {
+                stopVideo();
+                reply("ok", 0, source);
+            }
+            case Commands.Speed speed -> {
+                model.setSpeed(speed.getX());
+                reply("ok", 0, source);
+            }
+            case Commands.Emergency ignored -> {
+                model.emergency(now);
+                reply("ok", 0, source);
+            }
+            case Commands.Stop ignored -> {
+                model.stop(now);
+                reply("ok", 0, source);
+            }
+            default -> {
+                var duration = model.move(now, command);
+                reply(duration < 0 ? "error" : "ok", Math.max(duration, 0), source);
+            }
+        }
+    }
+
+    private synchronized void enterSdkMode(InetAddress address) {
+        groundStation = address;
+        if (stateTask == null) {
+            stateTask = scheduler.scheduleAtFixedRate(this::sendState, 0, stateIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Send {@code response} after {@code delay} ns and the network latency
+     */
+    private void reply(String response, long delay, SocketAddress target) {
+        var latency = (long) (latencyMedianNanos * Math.exp(latencySigma * ThreadLocalRandom.current().nextGaussian()));
+        scheduler.schedule(() -> {
+            try {
+                commandChannel.send(ByteBuffer.wrap(response.getBytes(StandardCharsets.US_ASCII)), target);
+            } catch (IOException ioException) {
+                logger.warn("Reply to {} failed: {}", target, ioException.getMessage());
+            }
+        }, delay + latency, TimeUnit.NANOSECONDS);
+    }
+
+    private void sendState() {
+        var state = model.snapshot(System.nanoTime());
+        var datagram = String.format(Locale.ROOT,
+                "mid:-1;x:-100;y:-100;z:-100;mpry:0,0,0;pitch:0;roll:0;yaw:%d;vgx:%d;vgy:%d;vgz:%d;templ:60;temph:63;tof:%d;h:%d;bat:%d;baro:%.2f;time:%d;agx:0.00;agy:0.00;agz:-1000.00;\r\n",
+                state.yaw(), Math.round(state.vx() / 10), Math.round(state.vy() / 10), Math.round(state.vz() / 10),
+                Math.round(state.z()) + 10, Math.round(state.z()), state.battery(), 100 + state.z() / 100, state.flightTime());
+        try {
+            stateChannel.send(ByteBuffer.wrap(datagram.getBytes(StandardCharsets.US_ASCII)), new InetSocketAddress(groundStation, statePort));
+        } catch (IOException ioException) {
+            logger.warn("Sending state failed: {}", ioException.getMessage());
+        }
+    }
+
+    private synchronized void startVideo() {
+        if (!video || feed != null) {
+            return;
+        }
+        feed = new VideoFeed(String.format("udp://%s:%d?pkt_size=1460", groundStation.getHostAddress(), videoPort));
+    }
+
+    private synchronized void stopVideo() {
+        if (feed != null) {
+            feed.close();
+            feed = null;
+        }
+    }
+
+    /**
+     * Stop answering commands, sending state and streaming
+     *
+     * @throws IOException failed to close a channel
+     */
+    @Override
+    public void close() throws IOException {
+        stopVideo();
+        commandChannel.close();
+        stateChannel.close();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * State of the simulated drone
+     *
+     * @param x position in cm, forward at takeoff
+     * @param y position in cm, left at takeoff
+     * @param z height in cm
+     * @param yaw yaw in degree in [-180, 180), clockwise
+     * @param vx velocity in x direction in cm/s
+     * @param vy velocity in y direction in cm/s
+     * @param vz velocity in z direction in cm/s
+     * @param battery battery percentage
+     * @param flightTime time the motors have been on in s
+     * @param flying whether the drone is in the air
+     */
+    public record State(double x, double y, double z, int yaw, double vx, double vy, double vz, int battery,
+                        int flightTime, boolean flying) {
+    }
+
+    /**
+     * Kinematic model of the drone. A motion interpolates linearly from its start to its end pose
+     */
+    private static final class Model {
+        private final double timeScale;
+        private double x;
+        private double y;
+        private double z;
+        private double yaw;
+        private double battery;
+        private double flightTime;
+        private boolean flying;
+        @Getter
+        private int speed = DEFAULT_SPEED;
+        private final double[] rc = new double[4];
+        private final double[] from = new double[4];
+        private final double[] to = new double[4];
+        private long motionStart;
+        private long motionEnd;
+        private boolean landing;
+        private long updated;
+
+        private Model(double timeScale, double battery) {
+            this.timeScale = timeScale;
+            this.battery = battery;
+            updated = System.nanoTime();
+        }
+
+        synchronized void setSpeed(int speed) {
+            this.speed = speed;
+        }
+
+        /**
+         * Start a motion command
+         *
+         * @return the wall clock duration of the motion in ns, -1 if the command cannot be executed now
+         */
+        synchronized long move(long now, Commands.Command command) {
+            advance(now);
+            if (motionEnd != 0) {
+                return -1;
+            }
+            if (command instanceof Commands.TakeOff) {
+                if (flying || battery < MIN_TAKEOFF_BATTERY) {
+                    return -1;
+                }
+                flying = true;
+                return start(now, 0, 0, TAKEOFF_HEIGHT - z, 0, TAKEOFF_SECONDS);
+            }
+            if (!flying) {
+                return -1;
+            }
+            return switch (command) {
+                case Commands.Land ignored -> {
+                    landing = true;
+                    yield start(now, 0, 0, -z, 0, SETTLE_SECONDS + z / LANDING_SPEED);
+                }
+                case Commands.Up up -> translate(now, 0, 0, up.getX(), speed);
+                case Commands.Down down -> translate(now, 0, 0, -down.getX(), speed);
+                case Commands.Left left -> translate(now, 0, left.getX(), 0, speed);
+                case Commands.Right right -> translate(now, 0, -right.getX(), 0, speed);
+                case Commands.Forward forward -> translate(now, forward.getX(), 0, 0, speed);
+                case Commands.Back back -> translate(now, -back.getX(), 0, 0, speed);
+                case Commands.ClockWise cw -> start(now, 0, 0, 0, cw.getX(), SETTLE_SECONDS + cw.getX() / DEGREES_PER_SECOND);
+                case Commands.CounterClockWise ccw -> start(now, 0, 0, 0, -ccw.getX(), SETTLE_SECONDS + ccw.getX() / DEGREES_PER_SECOND);
+                case Commands.Flip ignored -> start(now, 0, 0, 0, 0, FLIP_SECONDS);
+                case Commands.Go go -> translate(now, go.getParams()[0], go.getParams()[1], go.getParams()[2], go.getParams()[3]);
+                case Commands.Curve curve -> {
+                    var p = curve.getParams();
+                    var length = Math.sqrt(p[0] * p[0] + p[1] * p[1] + p[2] * p[2])
+                            + Math.sqrt(Math.pow(p[3] - p[0], 2) + Math.pow(p[4] - p[1], 2) + Math.pow(p[5] - p[2], 2));
+                    var forward = body(p[3], p[4]);
+                    yield start(now, forward[0], forward[1], p[5], 0, SETTLE_SECONDS + length / p[6]);
+                }
+                default -> -1;
+            };
+        }
+
+        private long translate(long now, double forward, double left, double up, int speed) {
+            var world = body(forward, left);
+            var distance = Math.sqrt(forward * forward + left * left + up * up);
+            return start(now, world[0], world[1], up, 0, SETTLE_SECONDS + distance / speed);
+        }
+
+        /**
+         * Rotate a vector of the body frame into the frame of the takeoff pose
+         */
+        private double[] body(double forward, double left) {
+            var heading = Math.toRadians(yaw);
+            return new double[]{forward * Math.cos(heading) + left * Math.sin(heading), left * Math.cos(heading) - forward * Math.sin(heading)};
+        }
+
+        private long start(long now, double dx, double dy, double dz, double dyaw, double seconds) {
+            from[0] = x;
+            from[1] = y;
+            from[2] = z;
+            from[3] = yaw;
+            to[0] = x + dx;
+            to[1] = y + dy;
+            to[2] = Math.max(0, z + dz);
+            to[3] = yaw + dyaw;
+            var duration = (long) (seconds / timeScale * 1e9);
+            // a motion command overrides the stick inputs
+            Arrays.fill(rc, 0);
+            motionStart = now;
+            motionEnd = now + Math.max(duration, 1);
+            return duration;
+        }
+
+        synchronized void rc(long now, int leftRight, int forwardBackward, int upDown, int yawRate) {
+            advance(now);
+            rc[0] = forwardBackward / 100.0 * MAX_RC_SPEED;
+            rc[1] = -leftRight / 100.0 * MAX_RC_SPEED;
+            rc[2] = upDown / 100.0 * MAX_RC_SPEED;
+            rc[3] = yawRate / 100.0 * MAX_RC_YAW_RATE;
+        }
+
+        synchronized void stop(long now) {
+            advance(now);
+            motionEnd = 0;
+            landing = false;
+            Arrays.fill(rc, 0);
+        }
+
+        synchronized void emergency(long now) {
+            stop(now);
+            z = 0;
+            flying = false;
+        }
+
+        /**
+         * Bring the model to {@code now}
+         */
+        private void advance(long now) {
+            var seconds = (now - updated) / 1e9 * timeScale;
+            updated = now;
+            battery = Math.max(0, battery - seconds * (flying ? FLYING_DRAIN : IDLE_DRAIN));
+            if (flying) {
+                flightTime += seconds;
+            }
+            if (motionEnd != 0) {
+                var progress = now >= motionEnd ? 1 : (double) (now - motionStart) / (motionEnd - motionStart);
+                x = from[0] + (to[0] - from[0]) * progress;
+                y = from[1] + (to[1] - from[1]) * progress;
+                z = from[2] + (to[2] - from[2]) * progress;
+                yaw = from[3] + (to[3] - from[3]) * progress;
+                if (progress >= 1) {
+                    motionEnd = 0;
+                    flying = !landing;
+                    landing = false;
+                }
+            } else if (flying) {
+                var heading = Math.toRadians(yaw);
+                x += (rc[0] * Math.cos(heading) + rc[1] * Math.sin(heading)) * seconds;
+                y += (rc[1] * Math.cos(heading) - rc[0] * Math.sin(heading)) * seconds;
+                z = Math.max(0, z + rc[2] * seconds);
+                yaw += rc[3] * seconds;
+            }
+        }
+
+        synchronized State snapshot(long now) {
+            advance(now);
+            double vx = 0;
+            double vy = 0;
+            double vz = 0;
+            if (motionEnd != 0) {
+                var seconds = (motionEnd - motionStart) / 1e9 * timeScale;
+                vx = (to[0] - from[0]) / seconds;
+                vy = (to[1] - from[1]) / seconds;
+                vz = (to[2] - from[2]) / seconds;
+            } else if (flying) {
+                var heading = Math.toRadians(yaw);
+                vx = rc[0] * Math.cos(heading) + rc[1] * Math.sin(heading);
+                vy = rc[1] * Math.cos(heading) - rc[0] * Math.sin(heading);
+                vz = rc[2];
+            }
+            var normalizedYaw = (int) Math.round(yaw);
+            normalizedYaw = Math.floorMod(normalizedYaw + 180, 360) - 180;
+            return new State(x, y, z, normalizedYaw, vx, vy, vz, (int) Math.ceil(battery), (int) flightTime, flying);
+        }
+    }
+
+    /**
+     * Encodes synthetic frames that move with the drone and streams them as raw H.264 over UDP
+     */
+    private final class VideoFeed implements AutoCloseable {
+        private final Thread thread;
+        private volatile boolean active = true;
+
+        private VideoFeed(String url) {
+            thread = new Thread(() -> stream(url), "tello-simulator-video");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void stream(String url) {
+            var converter = new OpenCVFrameConverter.ToMat();
+            try (var frame = new Mat(HEIGHT, WIDTH, CV_8UC3);
+                 var recorder = new FFmpegFrameRecorder(url, WIDTH, HEIGHT)) {
+                recorder.setFormat("h264");
+                recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
+                recorder.setFrameRate(FPS);
+                recorder.setGopSize(FPS);
+                recorder.setVideoOption("preset", "ultrafast");
+                recorder.setVideoOption("tune", "zerolatency");
+                recorder.start();
+                var background = new Scalar(60, 110, 80, 0);
+                var marker = new Scalar(230, 230, 230, 0);
+                var center = new Point();
+                var period = 1_000_000_000L / FPS;
+                var next = System.nanoTime();
+                while (active) {
+                    draw(frame, model.snapshot(System.nanoTime()), background, marker, center);
+                    recorder.record(converter.convert(frame));
+                    next += period;
+                    LockSupport.parkNanos(next - System.nanoTime());
+                }
+                recorder.stop();
+            } catch (Exception exception) {
+                logger.warn("Synthetic video failed: {}", exception.getMessage());
+            }
+        }
+
+        /**
+         * A grid of markers that scrolls sideways with yaw and lateral motion, vertically with the height, and whose
+         * markers grow when the drone moves forward
+         */
+        private void draw(Mat frame, State state, Scalar background, Scalar marker, Point center) {
+            frame.put(background);
+            var offsetX = (int) Math.round(state.yaw() * PIXELS_PER_DEGREE + state.y() * PIXELS_PER_CM);
+            var offsetY = (int) Math.round(state.z() * PIXELS_PER_CM);
+            var radius = 10 + Math.floorMod(Math.round(state.x()), 100) / 4;
+            for (int u = Math.floorMod(offsetX, GRID) - GRID; u < WIDTH + GRID; u += GRID) {
+                for (int v = Math.floorMod(offsetY, GRID) - GRID; v < HEIGHT + GRID; v += GRID) {
+                    circle(frame, center.x(u).y(v), radius, marker, -1, LINE_8, 0);
+                }
+            }
+            putText(frame, String.format(Locale.ROOT, "x %.0f y %.0f z %.0f yaw %d", state.x(), state.y(), state.z(), state.yaw()),
+                    center.x(20).y(40), FONT_HERSHEY_SIMPLEX, 1.0, marker);
+        }
+
+        @Override
+        public void close() {
+            active = false;
+            try {
+                thread.join(1000);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
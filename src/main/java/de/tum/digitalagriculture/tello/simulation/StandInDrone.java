@@ -0,0 +1,229 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local UDP stand-in for the Tello drone. Answers queries, {@code emergency} and {@code stop} immediately and motion
+ * commands after {@code motionDelay}.
+ * Useful to measure the command path without a drone. A noisy link can be emulated with {@link #setLoss(double)} and
+ * {@link #setLatency(long, long, TimeUnit)}, single commands can be lost deterministically with {@link #dropNext(int)}.
+ * Unlike the {@link DroneSimulator} it has no flight model, so it accepts any command in any order and is cheap enough
+ * to run dozens of drones in one process
+ */
+public class StandInDrone implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StandInDrone.class);
+    /**
+     * Commands that are acknowledged without the motion delay
+     */
+    private static final Set<String> IMMEDIATE = Set.of("command", "emergency", "stop");
+    private final DatagramChannel channel;
+    private final ScheduledExecutorService responder;
+    private final Thread thread;
+    /**
+     * Delay until a motion command is acknowledged
+     *
+     * @return delay in microseconds until a motion command is acknowledged
+     */
+    @Getter
+    private final long motionDelay;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rcReceived = new AtomicLong();
+    private final AtomicInteger dropNext = new AtomicInteger();
+    private volatile double loss = 0;
+    private volatile long latency = 0;
+    private volatile long jitter = 0;
+
+    /**
+     * Create a stand-in that listens on an ephemeral port of the loopback interface
+     *
+     * @param motionDelay delay until a motion command is acknowledged
+     * @param unit time unit of {@code motionDelay}
+     * @throws IOException failed to bind the channel
+     */
+    public StandInDrone(long motionDelay, TimeUnit unit) throws IOException {
+        this(0, motionDelay, unit);
+    }
+
+    /**
+     * Create a stand-in that listens on {@code port} of the loopback interface
+     *
+     * @param port local port of the command channel. 0 binds an ephemeral port
+     * @param motionDelay delay until a motion command is acknowledged
+     * @param unit time unit of {@code motionDelay}
+     * @throws IOException failed to bind the channel
+     */
+    public StandInDrone(int port, long motionDelay, TimeUnit unit) throws IOException {
+        this.motionDelay = unit.toMicros(motionDelay);
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress("127.0.0.1", port));
+        responder = Executors.newSingleThreadScheduledExecutor();
+        thread = new Thread(this::serve, "tello-stand-in");
+        thread.setDaemon(true);
+        thread.start();
+        logger.debug("Stand-in drone listening on {}", getAddress());
+    }
+
+    /**
+     * @return the address the stand-in listens on
+     */
+    @SneakyThrows
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    /**
+     * @return number of received commands, including {@code rc} commands and the dropped commands
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * @return number of commands and responses that were dropped
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return number of received {@code rc} commands, which are not answered
+     */
+    public long getRcReceived() {
+        return rcReceived.get();
+    }
+
+    /**
+     * Drop commands and responses
+     *
+     * @param loss probability in [0, 1] with which a received command and, independently, its response is dropped
+     */
+    public void setLoss(double loss) {
+        if (loss < 0 || loss > 1) {
+            throw new IllegalArgumentException("Loss has to be in [0, 1]: " + loss);
+        }
+        this.loss = loss;
+    }
+
+    /**
+     * Drop the next {@code commands} received commands that would be answered, independent of the loss
+     *
+     * @param commands number of commands to drop
+     */
+    public void dropNext(int commands) {
+        dropNext.set(commands);
+    }
+
+    /**
+     * Delay every response by the link latency. With jitter responses can arrive in a different order than the
+     * commands were sent
+     *
+     * @param latency constant delay of every response
+     * @param jitter maximum random delay that is added to {@code latency}, uniformly distributed
+     * @param unit time unit of {@code latency} and {@code jitter}
+     */
+    public void setLatency(long latency, long jitter, TimeUnit unit) {
+        this.latency = unit.toMicros(latency);
+        this.jitter = unit.toMicros(jitter);
+    }
+
+    private void serve() {
+        var buffer = ByteBuffer.allocate(1024);
+        try {
+            while (channel.isOpen()) {
+                buffer.clear();
+                var source = channel.receive(buffer);
+                buffer.flip();
+                var command = StandardCharsets.UTF_8.decode(buffer).toString().trim();
+                received.incrementAndGet();
+                var response = respond(command);
+                if (response == null) {
+                    continue;
+                }
+                if (dropNext.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0) {
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                if (isLost()) {
+                    continue;
+                }
+                var delay = jitter > 0 ? latency + ThreadLocalRandom.current().nextLong(jitter + 1) : latency;
+                if (response.equals("ok") && !IMMEDIATE.contains(command)) {
+                    delay += motionDelay;
+                }
+                if (delay > 0) {
+                    responder.schedule(() -> reply(response, source), delay, TimeUnit.MICROSECONDS);
+                } else {
+                    reply(response, source);
+                }
+            }
+        } catch (AsynchronousCloseException ignored) {
+            // closed by close()
+        } catch (IOException ioException) {
+            logger.warn("Stand-in drone failed: {}", ioException.getMessage());
+        }
+    }
+
+    /**
+     * Create the response to a command
+     *
+     * @param command the received command
+     * @return the response or {@code null} if the drone does not answer
+     */
+    private String respond(String command) {
+        if (command.startsWith("rc ")) {
+            rcReceived.incrementAndGet();
+            return null;
+        }
+        return switch (command) {
+            case "battery?" -> "87";
+            case "speed?" -> "100";
+            case "time?" -> "0s";
+            case "wifi?" -> "90";
+            default -> "ok";
+        };
+    }
+
+    private boolean isLost() {
+        if (loss > 0 && ThreadLocalRandom.current().nextDouble() < loss) {
+            dropped.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void reply(String response, SocketAddress target) {
+        if (isLost()) {
+            return;
+        }
+        try {
+            channel.send(ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8)), target);
+        } catch (IOException ioException) {
+            logger.warn("Reply to {} failed: {}", target, ioException.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        responder.shutdownNow();
+    }
+}
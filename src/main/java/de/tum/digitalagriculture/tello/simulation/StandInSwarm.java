@@ -0,0 +1,45 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.controllers.SwarmController;
+import lombok.SneakyThrows;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Several {@link StandInDrone}s on the loopback interface, to exercise a {@link SwarmController} without drones
+ */
+public class StandInSwarm implements AutoCloseable {
+    private final List<StandInDrone> drones;
+
+    /**
+     * Start {@code size} stand-ins on ephemeral ports
+     *
+     * @param size number of drones
+     * @param motionDelay delay until a motion command is acknowledged
+     * @param unit time unit of {@code motionDelay}
+     */
+    @SneakyThrows
+    public StandInSwarm(int size, long motionDelay, TimeUnit unit) {
+        drones = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            drones.add(new StandInDrone(motionDelay, unit));
+        }
+    }
+
+    /**
+     * @return the addresses of the stand-ins
+     */
+    public List<InetSocketAddress> getAddresses() {
+        return drones.stream().map(StandInDrone::getAddress).toList();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (var drone : drones) {
+            drone.close();
+        }
+    }
+}
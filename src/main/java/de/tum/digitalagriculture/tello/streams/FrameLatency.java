@@ -0,0 +1,212 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import de.tum.digitalagriculture.tello.metrics.Counter;
+import de.tum.digitalagriculture.tello.metrics.LatencyHistogram;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per frame latencies of a stream, taken from {@link System#nanoTime()} stamps at the stages a frame passes:
+ * <ul>
+ *     <li>grabbed: the grabber returned the decoded frame</li>
+ *     <li>converted: the frame was converted into a {@link org.bytedeco.opencv.opencv_core.Mat}</li>
+ *     <li>sunk: the sink is done with the frame, i.e. it was shown, buffered or written</li>
+ * </ul>
+ * <p>
+ * Besides the time between the stages the recorder estimates how far the grabbed frames lag behind the live stream by
+ * comparing their arrival with their presentation timestamps. The raw H.264 stream of the drone carries no timestamps,
+ * so they are derived from the frame number and the nominal frame rate. The frame that arrived earliest relative to
+ * its timestamp within the last 10 to 20s counts as live, so frames lost on the link do not add up, and a lag that
+ * grows shows frames piling up in the buffers of the grabber.
+ * </p>
+ * <p>
+ * {@link #grabbed(long, long)}, {@link #converted(long, long)} and {@link #dropped()} must only be called by the
+ * grabbing thread, {@link #sunk(long, long, long)} only by the sink's thread. Every {@code reportInterval} the sink's
+ * thread logs a summary of the latencies.
+ * </p>
+ * <p>
+ * The histograms and the frame counters are registered in the {@link MetricsRegistry#global()} registry as
+ * {@code stream.<name>.<metric>}, replacing the ones of the previous stream of the same name.
+ * </p>
+ */
+public class FrameLatency {
+    private static final Logger logger = LoggerFactory.getLogger(FrameLatency.class);
+    private static final long DEFAULT_REPORT_SECONDS = 10;
+    private static final long LAG_WINDOW_NANOS = 10_000_000_000L;
+
+    /**
+     * Name of the stream
+     *
+     * @return name of the stream
+     */
+    @Getter
+    private final String name;
+    /**
+     * How far the grabbed frames lag behind the live stream
+     *
+     * @return how far the grabbed frames lag behind the live stream
+     */
+    @Getter
+    private final LatencyHistogram lag;
+    /**
+     * Time from grabbed to converted
+     *
+     * @return time from grabbed to converted
+     */
+    @Getter
+    private final LatencyHistogram convert;
+    /**
+     * Time from converted to sunk, including the time the frame waited for the sink
+     *
+     * @return time from converted to sunk
+     */
+    @Getter
+    private final LatencyHistogram sink;
+    /**
+     * Time from grabbed to sunk
+     *
+     * @return time from grabbed to sunk
+     */
+    @Getter
+    private final LatencyHistogram total;
+    /**
+     * Number of grabbed frames
+     *
+     * @return number of grabbed frames
+     */
+    @Getter
+    private final Counter grabbedFrames;
+    /**
+     * Number of frames that were dropped because the sink fell behind
+     *
+     * @return number of dropped frames
+     */
+    @Getter
+    private final Counter droppedFrames;
+    private final long reportNanos;
+    private final long framePeriodNanos;
+    private long frames;
+    private long windowEnd;
+    private long minOffset;
+    private long previousMinOffset;
+    private long nextReport;
+
+    /**
+     * Create a recorder that logs a summary every 10s
+     *
+     * @param name name of the stream
+     * @param frameRate nominal frame rate, used for frames without a timestamp
+     */
+    public FrameLatency(@NonNull String name, double frameRate) {
+        this(name, frameRate, DEFAULT_REPORT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param name name of the stream
+     * @param frameRate nominal frame rate, used for frames without a timestamp. 0 to not estimate their lag
+     * @param reportInterval how often a summary is logged, 0 to never log one
+     * @param unit time unit of {@code reportInterval}
+     */
+    public FrameLatency(@NonNull String name, double frameRate, long reportInterval, @NonNull TimeUnit unit) {
+        this.name = name;
+        framePeriodNanos = frameRate > 0 ? Math.round(1e9 / frameRate) : 0;
+        var registry = MetricsRegistry.global();
+        var prefix = "stream." + name + ".";
+        lag = registry.register(new LatencyHistogram(prefix + "lag"));
+        convert = registry.register(new LatencyHistogram(prefix + "convert"));
+        sink = registry.register(new LatencyHistogram(prefix + "sink"));
+        total = registry.register(new LatencyHistogram(prefix + "total"));
+        grabbedFrames = registry.register(new Counter(prefix + "grabbed"));
+        droppedFrames = registry.register(new Counter(prefix + "dropped"));
+        reportNanos = unit.toNanos(reportInterval);
+        minOffset = Long.MAX_VALUE;
+        previousMinOffset = Long.MAX_VALUE;
+        nextReport = System.nanoTime() + reportNanos;
+    }
+
+    /**
+     * Record that a frame was grabbed
+     *
+     * @param grabbedAt {@link System#nanoTime()} when the grabber returned the frame
+     * @param timestampMicros presentation timestamp of the frame in µs, 0 if the frame has none
+     */
+    public void grabbed(long grabbedAt, long timestampMicros) {
+        grabbedFrames.increment();
+        var frame = frames++;
+        long timestamp;
+        if (timestampMicros > 0) {
+            timestamp = timestampMicros * 1000;
+        } else if (framePeriodNanos > 0) {
+            timestamp = frame * framePeriodNanos;
+        } else {
+            return;
+        }
+        if (grabbedAt - windowEnd >= 0) {
+            // the baseline is the minimum of the current and the previous window
+            windowEnd = grabbedAt + LAG_WINDOW_NANOS;
+            previousMinOffset = minOffset;
+            minOffset = Long.MAX_VALUE;
+        }
+        var offset = grabbedAt - timestamp;
+        minOffset = Math.min(minOffset, offset);
+        lag.record(offset - Math.min(minOffset, previousMinOffset));
+    }
+
+    /**
+     * Record that a grabbed frame was dropped instead of being handed to the sink
+     */
+    public void dropped() {
+        droppedFrames.increment();
+    }
+
+    /**
+     * Record that a frame was converted
+     *
+     * @param grabbedAt {@link System#nanoTime()} when the grabber returned the frame
+     * @param convertedAt {@link System#nanoTime()} when the frame was converted
+     */
+    public void converted(long grabbedAt, long convertedAt) {
+        convert.record(convertedAt - grabbedAt);
+    }
+
+    /**
+     * Record that the sink is done with a frame and log a summary if it is due
+     *
+     * @param grabbedAt {@link System#nanoTime()} when the grabber returned the frame
+     * @param convertedAt {@link System#nanoTime()} when the frame was converted
+     * @param sunkAt {@link System#nanoTime()} when the sink was done with the frame
+     */
+    public void sunk(long grabbedAt, long convertedAt, long sunkAt) {
+        sink.record(sunkAt - convertedAt);
+        total.record(sunkAt - grabbedAt);
+        if (reportNanos > 0 && sunkAt - nextReport >= 0) {
+            nextReport = sunkAt + reportNanos;
+            logger.info("{}", this);
+        }
+    }
+
+    /**
+     * @return the latencies of all stages
+     */
+    public List<LatencyHistogram.Snapshot> snapshot() {
+        return List.of(lag.snapshot(), convert.snapshot(), sink.snapshot(), total.snapshot());
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder(name).append(": grabbed=").append(grabbedFrames.get())
+                .append(", dropped=").append(droppedFrames.get());
+        for (var snapshot : snapshot()) {
+            if (snapshot.count() > 0) {
+                builder.append(' ').append(snapshot);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/**
+ * Hands frames from one producer thread to one consumer thread through a pool of reused {@link Mat}s.
+ * <p>
+ * The producer copies a frame into a free pooled {@link Frame} and publishes it. The consumer polls published frames
+ * and releases them back into the pool once it is done. Both directions use a lock-free {@link SpscQueue}. If the
+ * consumer falls behind and the pool runs empty, published frames are dropped instead of blocking the producer.
+ * </p>
+ */
+public class FramePipe {
+    /**
+     * Number of pooled frames
+     *
+     * @return number of pooled frames
+     */
+    @Getter
+    private final int capacity;
+    private final SpscQueue<Frame> filled;
+    private final SpscQueue<Frame> free;
+
+    /**
+     * @param capacity number of pooled frames
+     */
+    public FramePipe(int capacity) {
+        this.capacity = capacity;
+        filled = new SpscQueue<>(capacity);
+        free = new SpscQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            free.offer(new Frame());
+        }
+    }
+
+    /**
+     * Copy {@code frame} into a pooled frame and hand it to the consumer. Must only be called by the producer
+     *
+     * @param frame the frame to copy. Not retained by the pipe
+     * @return false if the frame was dropped because no pooled frame was free
+     */
+    public boolean publish(@NonNull Mat frame) {
+        return publish(frame, System.nanoTime());
+    }
+
+    /**
+     * Copy {@code frame} into a pooled frame and hand it to the consumer. Must only be called by the producer
+     *
+     * @param frame the frame to copy. Not retained by the pipe
+     * @param grabbedAt {@link System#nanoTime()} when the frame was grabbed
+     * @return false if the frame was dropped because no pooled frame was free
+     */
+    public boolean publish(@NonNull Mat frame, long grabbedAt) {
+        var pooled = free.poll();
+        if (pooled == null) {
+            return false;
+        }
+        // copyTo allocates only if the geometry of the pooled Mat does not match
+        frame.copyTo(pooled.mat);
+        pooled.grabbedAt = grabbedAt;
+        pooled.publishedAt = System.nanoTime();
+        filled.offer(pooled);
+        return true;
+    }
+
+    /**
+     * Take the oldest published frame. Must only be called by the consumer
+     *
+     * @return the oldest published frame or {@code null} if there is none
+     */
+    public Frame poll() {
+        return filled.poll();
+    }
+
+    /**
+     * Return a frame obtained by {@link #poll()} into the pool. Must only be called by the consumer
+     *
+     * @param frame the frame to return
+     */
+    public void release(@NonNull Frame frame) {
+        free.offer(frame);
+    }
+
+    /**
+     * @return approximate number of published frames that were not polled yet
+     */
+    public int size() {
+        return filled.size();
+    }
+
+    /**
+     * A pooled frame
+     */
+    public static final class Frame {
+        /**
+         * The image data. Reused once the frame is released
+         *
+         * @return the image data
+         */
+        @Getter
+        private final Mat mat = new Mat();
+        /**
+         * {@link System#nanoTime()} when the frame was published
+         *
+         * @return {@link System#nanoTime()} when the frame was published
+         */
+        @Getter
+        private long publishedAt;
+        /**
+         * {@link System#nanoTime()} when the frame was grabbed, the time it was published if it was not given
+         *
+         * @return {@link System#nanoTime()} when the frame was grabbed
+         */
+        @Getter
+        private long grabbedAt;
+
+        private Frame() {
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/**
+ * Live analysis of decoded frames, e.g. a crop row detector, run by a {@link ProcessingStage}. Every worker of the
+ * stage has its own processor, so a processor may keep scratch buffers between frames
+ *
+ * @param <R> the type of the result of a frame
+ */
+@FunctionalInterface
+public interface FrameProcessor<R> {
+    /**
+     * Analyse a frame that was grabbed at {@code grabbedAt}, e.g. to match it with the state of the drone at that time
+     *
+     * @param frame the frame. It is reused after the method returns and has to be copied if it needs to be retained
+     * @param grabbedAt {@link System#nanoTime()} when the frame was grabbed
+     * @return the result, passed to the subscribers of the stage. {@code null} if the frame has no result
+     * @throws Exception failed to analyse the frame, the frame is skipped
+     */
+    R process(Mat frame, long grabbedAt) throws Exception;
+
+    /**
+     * Analyse a frame that was just grabbed
+     *
+     * @param frame the frame. It is reused after the method returns and has to be copied if it needs to be retained
+     * @return the result. {@code null} if the frame has no result
+     * @throws Exception failed to analyse the frame
+     */
+    default R process(Mat frame) throws Exception {
+        return process(frame, System.nanoTime());
+    }
+}
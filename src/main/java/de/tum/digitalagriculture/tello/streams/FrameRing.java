@@ -0,0 +1,294 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded ring buffer of video frames backed by a pool of preallocated {@link Mat}s.
+ * <p>
+ * Frames are deep-copied into the pooled slots, so they do not alias the buffers of the grabber which are reused for
+ * the next frame. The native memory used is therefore bounded by {@code capacity} frames. What happens if a frame is
+ * offered to a full ring is decided by the {@link OverflowPolicy}.
+ * </p>
+ */
+public class FrameRing implements AutoCloseable {
+    /**
+     * Maximum number of frames in the ring
+     *
+     * @return maximum number of frames in the ring
+     */
+    @Getter
+    private final int capacity;
+    /**
+     * What happens if a frame is offered to a full ring
+     *
+     * @return what happens if a frame is offered to a full ring
+     */
+    @Getter
+    private final OverflowPolicy policy;
+    private final Mat[] slots;
+    private final ReentrantLock lock;
+    private final Condition notFull;
+    private final Condition notEmpty;
+    private int head;
+    private int size;
+    private boolean allocated;
+    private boolean closed;
+    private long offered;
+    private long dropped;
+    private int highWatermark;
+
+    /**
+     * @param capacity maximum number of frames in the ring
+     * @param policy what happens if a frame is offered to a full ring
+     */
+    public FrameRing(int capacity, @NonNull OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("Capacity has to be positive but was %d", capacity));
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        slots = new Mat[capacity];
+        lock = new ReentrantLock();
+        notFull = lock.newCondition();
+        notEmpty = lock.newCondition();
+        head = 0;
+        size = 0;
+        allocated = false;
+        closed = false;
+    }
+
+    /**
+     * Copy {@code frame} into the ring
+     *
+     * @param frame the frame to copy. Not retained by the ring
+     * @return whether the frame was stored
+     * @throws InterruptedException interrupted while waiting for a free slot with {@link OverflowPolicy#BLOCK}
+     */
+    public boolean offer(@NonNull Mat frame) throws InterruptedException {
+        lock.lock();
+        try {
+            offered++;
+            if (closed) {
+                dropped++;
+                return false;
+            }
+            if (!allocated) {
+                allocate(frame);
+            }
+            while (size == capacity && !closed) {
+                switch (policy) {
+                    case DROP_NEWEST -> {
+                        dropped++;
+                        return false;
+                    }
+                    case DROP_OLDEST -> {
+                        head = (head + 1) % capacity;
+                        size--;
+                        dropped++;
+                    }
+                    case BLOCK -> notFull.await();
+                }
+            }
+            if (closed) {
+                dropped++;
+                return false;
+            }
+            frame.copyTo(slots[(head + size) % capacity]);
+            size++;
+            highWatermark = Math.max(highWatermark, size);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Preallocate all slots with the size and type of the first frame
+     */
+    private void allocate(Mat frame) {
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Mat(frame.rows(), frame.cols(), frame.type());
+        }
+        allocated = true;
+    }
+
+    /**
+     * Remove the oldest frame. {@code reader} is called with the pooled slot, which is reused once it returns;
+     * the reader has to copy the frame if it needs to retain it
+     *
+     * @param reader called with the oldest frame while the ring is locked
+     * @return whether a frame was available
+     */
+    public boolean poll(@NonNull Consumer<Mat> reader) {
+        lock.lock();
+        try {
+            return remove(reader);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the oldest frame, waiting up to {@code timeout} for one to arrive
+     *
+     * @param reader called with the oldest frame while the ring is locked
+     * @param timeout how long to wait
+     * @param unit time unit of {@code timeout}
+     * @return whether a frame was available
+     * @throws InterruptedException interrupted while waiting
+     */
+    public boolean poll(@NonNull Consumer<Mat> reader, long timeout, TimeUnit unit) throws InterruptedException {
+        var remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (size == 0 && !closed && remaining > 0) {
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            return remove(reader);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean remove(Consumer<Mat> reader) {
+        if (size == 0) {
+            return false;
+        }
+        reader.accept(slots[head]);
+        head = (head + 1) % capacity;
+        size--;
+        notFull.signal();
+        return true;
+    }
+
+    /**
+     * Visit all stored frames from the oldest to the newest without removing them
+     *
+     * @param visitor called with every frame while the ring is locked
+     */
+    public void forEach(@NonNull Consumer<Mat> visitor) {
+        lock.lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                visitor.accept(slots[(head + i) % capacity]);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of frames currently stored
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of frames offered to the ring
+     */
+    public long getOffered() {
+        lock.lock();
+        try {
+            return offered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of frames that were dropped because the ring was full
+     */
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the maximum number of frames that were stored at the same time
+     */
+    public int getHighWatermark() {
+        lock.lock();
+        try {
+            return highWatermark;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return native memory held by the pool in bytes
+     */
+    public long getPoolBytes() {
+        lock.lock();
+        try {
+            long bytes = 0;
+            for (var slot : slots) {
+                if (slot != null) {
+                    bytes += slot.total() * slot.elemSize();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wake up all waiting threads and release the native memory of the pool
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            size = 0;
+            for (int i = 0; i < capacity; i++) {
+                if (slots[i] != null) {
+                    slots[i].release();
+                    slots[i] = null;
+                }
+            }
+            allocated = false;
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * What happens if a frame is offered to a full ring
+     */
+    public enum OverflowPolicy {
+        /**
+         * overwrite the oldest frame
+         */
+        DROP_OLDEST,
+        /**
+         * discard the offered frame
+         */
+        DROP_NEWEST,
+        /**
+         * wait until a frame is removed
+         */
+        BLOCK
+    }
+}
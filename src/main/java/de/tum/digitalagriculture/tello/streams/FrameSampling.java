@@ -0,0 +1,85 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import lombok.NonNull;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+
+/**
+ * Which frames of a stream are decoded and converted.
+ * <p>
+ * With {@link #KEY_FRAMES} the decoder discards all other frames before decoding them, which saves most of the CPU
+ * time of a stream; how many frames remain depends on the key frame interval of the encoder. Frames in between key
+ * frames are predicted from their predecessors, so a sub-rate without key frames still has to decode every frame. It
+ * only skips converting the frames that are not sampled into {@link org.bytedeco.opencv.opencv_core.Mat}s.
+ * </p>
+ *
+ * @param keyFramesOnly whether only key frames are decoded
+ * @param every only every n-th decoded frame is converted and handed on
+ */
+public record FrameSampling(boolean keyFramesOnly, int every) {
+    /**
+     * Decode and convert every frame
+     */
+    public static final FrameSampling ALL = new FrameSampling(false, 1);
+    /**
+     * Decode and convert key frames only
+     */
+    public static final FrameSampling KEY_FRAMES = new FrameSampling(true, 1);
+
+    public FrameSampling {
+        if (every <= 0) {
+            throw new IllegalArgumentException(String.format("Sampling interval has to be positive but was %d", every));
+        }
+    }
+
+    /**
+     * Decode every frame but convert only every n-th
+     *
+     * @param every the interval in frames
+     * @return the sampling
+     */
+    public static FrameSampling every(int every) {
+        return new FrameSampling(false, every);
+    }
+
+    /**
+     * Set the decoder options. Has to be called before the grabber is started
+     *
+     * @param grabber the grabber
+     */
+    public void configure(@NonNull FFmpegFrameGrabber grabber) {
+        if (keyFramesOnly) {
+            grabber.setVideoOption("skip_frame", "nokey");
+        }
+    }
+
+    /**
+     * Grab the next sampled frame, decoding but not converting the frames in between
+     *
+     * @param grabber the started grabber
+     * @return the converted frame, {@code null} at the end of the stream
+     * @throws FFmpegFrameGrabber.Exception failed to grab a frame
+     */
+    public Frame grab(@NonNull FFmpegFrameGrabber grabber) throws FFmpegFrameGrabber.Exception {
+        for (int i = 1; i < every; i++) {
+            if (grabber.grabFrame(false, true, false, false, false) == null) {
+                return null;
+            }
+        }
+        return grabber.grabImage();
+    }
+
+    /**
+     * @param frameRate nominal frame rate of the stream
+     * @return nominal rate of the sampled frames, 0 if it depends on the key frame interval
+     */
+    public double frameRate(double frameRate) {
+        return keyFramesOnly ? 0 : frameRate / every;
+    }
+
+    @Override
+    public String toString() {
+        var frames = keyFramesOnly ? "key frames" : "frames";
+        return every == 1 ? "all " + frames : String.format("1 in %d %s", every, frames);
+    }
+}
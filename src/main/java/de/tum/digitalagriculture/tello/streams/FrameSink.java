@@ -0,0 +1,44 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/**
+ * A consumer of decoded frames that is fed by a {@link StreamMultiplexer}. Each sink runs on its own thread, all
+ * methods are called from that thread
+ *
+ * @param <D> the type of data that the sink returns
+ */
+public interface FrameSink<D> extends AutoCloseable {
+    /**
+     * Called once before the first frame
+     *
+     * @param fps frame rate of the stream
+     * @throws Exception failed to setup the sink
+     */
+    default void start(double fps) throws Exception {
+    }
+
+    /**
+     * Consume a frame
+     *
+     * @param frame the frame. It is reused after the method returns and has to be copied if it needs to be retained
+     * @throws Exception failed to consume the frame
+     */
+    void accept(Mat frame) throws Exception;
+
+    /**
+     * Get the data of the sink
+     *
+     * @return relevant data of this type of sink
+     */
+    D getData();
+
+    /**
+     * Called once after the last frame
+     *
+     * @throws Exception failed to release the sink
+     */
+    @Override
+    default void close() throws Exception {
+    }
+}
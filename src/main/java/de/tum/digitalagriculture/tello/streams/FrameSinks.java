@@ -0,0 +1,182 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_videoio.VideoWriter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.opencv.global.opencv_highgui.*;
+
+/**
+ * {@link FrameSink}s that mirror the single-consumer stream handlers
+ */
+public final class FrameSinks {
+    private FrameSinks() {
+    }
+
+    /**
+     * Shows the frames in a window, like {@link StreamDisplay}
+     */
+    public static class Display implements FrameSink<Void> {
+        /**
+         * Title of the window
+         *
+         * @return title of the window
+         */
+        @Getter
+        private final String window;
+
+        /**
+         * @param window title of the window
+         */
+        public Display(@NonNull String window) {
+            this.window = window;
+        }
+
+        @Override
+        public void accept(Mat frame) {
+            imshow(window, frame);
+            waitKey(1);
+        }
+
+        /**
+         * @return null, the frames are displayed on screen
+         */
+        @Override
+        public Void getData() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            destroyWindow(window);
+        }
+    }
+
+    /**
+     * Writes the frames to an MJPG encoded file, like {@link StreamWriter}
+     */
+    public static class Writer implements FrameSink<String> {
+        private final String filename;
+        private VideoWriter writer;
+        private double fps;
+
+        /**
+         * @param filename The filename of the file the video should be stored in
+         */
+        public Writer(@NonNull String filename) {
+            this.filename = filename;
+            writer = null;
+        }
+
+        @Override
+        public void start(double fps) {
+            this.fps = fps;
+        }
+
+        @Override
+        public void accept(Mat frame) {
+            if (writer == null) {
+                var codec = VideoWriter.fourcc((byte) 'M', (byte) 'J', (byte) 'P', (byte) 'G');
+                writer = new VideoWriter(filename, codec, fps, frame.size(), true);
+                if (!writer.isOpened()) {
+                    throw new IllegalStateException("Could not open " + filename + " for writing!");
+                }
+            }
+            writer.write(frame);
+        }
+
+        /**
+         * @return the filename of the video
+         */
+        @Override
+        public String getData() {
+            return filename;
+        }
+
+        @Override
+        public void close() {
+            if (writer != null) {
+                writer.release();
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Keeps the frames in a bounded {@link FrameRing}, like {@link StreamArray}
+     */
+    public static class Array implements FrameSink<FrameRing> {
+        private final FrameRing ring;
+
+        /**
+         * @param capacity maximum number of frames that are kept
+         * @param policy what happens if a frame arrives while the ring is full
+         */
+        public Array(int capacity, @NonNull FrameRing.OverflowPolicy policy) {
+            ring = new FrameRing(capacity, policy);
+        }
+
+        @Override
+        public void accept(Mat frame) throws InterruptedException {
+            ring.offer(frame);
+        }
+
+        /**
+         * @return the ring of the captured frames
+         */
+        @Override
+        public FrameRing getData() {
+            return ring;
+        }
+    }
+
+    /**
+     * Keeps at most one frame per interval in a bounded {@link FrameRing}, e.g. for mapping while other sinks get every
+     * frame. The oldest frame is overwritten once the ring is full
+     */
+    public static class Sampler implements FrameSink<FrameRing> {
+        private final FrameRing ring;
+        /**
+         * Minimum time between two kept frames in nanoseconds
+         *
+         * @return minimum time between two kept frames in nanoseconds
+         */
+        @Getter
+        private final long intervalNanos;
+        private boolean sampled;
+        private long next;
+
+        /**
+         * @param capacity maximum number of frames that are kept
+         * @param interval minimum time between two kept frames
+         * @param unit time unit of {@code interval}
+         */
+        public Sampler(int capacity, long interval, @NonNull TimeUnit unit) {
+            ring = new FrameRing(capacity, FrameRing.OverflowPolicy.DROP_OLDEST);
+            intervalNanos = unit.toNanos(interval);
+            sampled = false;
+        }
+
+        @Override
+        public void accept(Mat frame) throws InterruptedException {
+            var now = System.nanoTime();
+            if (sampled && now - next < 0) {
+                return;
+            }
+            sampled = true;
+            next = now + intervalNanos;
+            ring.offer(frame);
+        }
+
+        /**
+         * @return the ring of the kept frames
+         */
+        @Override
+        public FrameRing getData() {
+            return ring;
+        }
+    }
+}
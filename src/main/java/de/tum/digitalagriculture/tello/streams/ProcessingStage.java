@@ -0,0 +1,298 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import de.tum.digitalagriculture.tello.metrics.Counter;
+import de.tum.digitalagriculture.tello.metrics.LatencyHistogram;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link FrameProcessor}s on the newest frame of a stream on a pool of worker threads.
+ * <p>
+ * The grabbing thread copies every frame into a pooled {@link Mat} and puts it into a single slot. A frame that is
+ * still in the slot when the next one arrives is stale and skipped, so the workers always start on the newest frame
+ * and never work off a backlog. The pool holds one frame more than the workers and the slot need, so the grabber
+ * always finds a free one: offering a frame never waits for the workers.
+ * </p>
+ * <p>
+ * Results are passed to the subscribers on the worker threads, in the order of their frames; frames for which the
+ * processor returns {@code null} have no result. With several workers a result that finishes after the result of a
+ * newer frame is discarded. The frame-to-result latency, from grabbing the frame to publishing its result, is
+ * registered in the {@link MetricsRegistry#global()} registry as {@code stream.processor.<name>.latency}, along with
+ * the processing time and the frame counters.
+ * </p>
+ *
+ * @param <R> the type of the result of a frame
+ */
+public class ProcessingStage<R> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessingStage.class);
+
+    /**
+     * Name of the stage
+     *
+     * @return name of the stage
+     */
+    @Getter
+    private final String name;
+    /**
+     * Time from grabbing a frame to publishing its result
+     *
+     * @return time from grabbing a frame to publishing its result
+     */
+    @Getter
+    private final LatencyHistogram latency;
+    /**
+     * Time the processors took for a frame that has a result
+     *
+     * @return time the processors took for a frame that has a result
+     */
+    @Getter
+    private final LatencyHistogram processing;
+    /**
+     * Number of frames whose results were published
+     *
+     * @return number of published results
+     */
+    @Getter
+    private final Counter processed;
+    /**
+     * Number of frames that were replaced by a newer frame before a worker took them
+     *
+     * @return number of skipped frames
+     */
+    @Getter
+    private final Counter skipped;
+    /**
+     * Number of frames whose processor failed or whose result was overtaken by the result of a newer frame
+     *
+     * @return number of discarded frames
+     */
+    @Getter
+    private final Counter discarded;
+    private final AtomicReference<Slot> newest;
+    private final ConcurrentLinkedQueue<Slot> free;
+    private final List<Slot> slots;
+    private final Semaphore available;
+    private final CopyOnWriteArrayList<Consumer<Result<R>>> subscribers;
+    private final AtomicReference<Result<R>> latest;
+    private final List<Thread> workers;
+    private volatile boolean running;
+    private long frames;
+
+    /**
+     * Create a stage with a single worker
+     *
+     * @param name name of the stage
+     * @param processor the processor
+     */
+    public ProcessingStage(@NonNull String name, @NonNull FrameProcessor<R> processor) {
+        this(name, 1, () -> processor);
+    }
+
+    /**
+     * @param name name of the stage
+     * @param workers number of worker threads
+     * @param processors creates the processor of every worker
+     */
+    public ProcessingStage(@NonNull String name, int workers, @NonNull Supplier<? extends FrameProcessor<R>> processors) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException(String.format("Number of workers has to be positive but was %d", workers));
+        }
+        this.name = name;
+        var registry = MetricsRegistry.global();
+        var prefix = "stream.processor." + name + ".";
+        latency = registry.register(new LatencyHistogram(prefix + "latency"));
+        processing = registry.register(new LatencyHistogram(prefix + "processing"));
+        processed = registry.register(new Counter(prefix + "processed"));
+        skipped = registry.register(new Counter(prefix + "skipped"));
+        discarded = registry.register(new Counter(prefix + "discarded"));
+        newest = new AtomicReference<>();
+        free = new ConcurrentLinkedQueue<>();
+        slots = new ArrayList<>(workers + 2);
+        // one frame per worker, one in the slot and one the grabber copies into
+        for (int i = 0; i < workers + 2; i++) {
+            var slot = new Slot();
+            slots.add(slot);
+            free.add(slot);
+        }
+        available = new Semaphore(0);
+        subscribers = new CopyOnWriteArrayList<>();
+        latest = new AtomicReference<>();
+        running = true;
+        this.workers = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            var processor = processors.get();
+            var thread = new Thread(() -> work(processor), "tello-processor-" + name + "-" + i);
+            thread.setDaemon(true);
+            this.workers.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Register a subscriber that is called with every published result on a worker thread
+     *
+     * @param subscriber the subscriber
+     */
+    public void subscribe(@NonNull Consumer<Result<R>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Remove a subscriber
+     *
+     * @param subscriber the subscriber
+     */
+    public void unsubscribe(@NonNull Consumer<Result<R>> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * @return the result of the newest processed frame, {@code null} if there is none yet
+     */
+    public Result<R> getLatest() {
+        return latest.get();
+    }
+
+    /**
+     * Hand a frame to the workers, replacing the frame that is waiting for them. Never blocks. Must only be called by
+     * the grabbing thread
+     *
+     * @param frame the frame to copy. Not retained by the stage
+     * @param grabbedAt {@link System#nanoTime()} when the frame was grabbed
+     */
+    public void offer(@NonNull Mat frame, long grabbedAt) {
+        if (!running) {
+            return;
+        }
+        var slot = free.poll();
+        if (slot == null) {
+            // only after close, the workers no longer return their frames
+            return;
+        }
+        frame.copyTo(slot.mat);
+        slot.frame = frames++;
+        slot.grabbedAt = grabbedAt;
+        var stale = newest.getAndSet(slot);
+        if (stale == null) {
+            available.release();
+        } else {
+            skipped.increment();
+            free.add(stale);
+        }
+    }
+
+    private void work(FrameProcessor<R> processor) {
+        while (running) {
+            try {
+                available.acquire();
+            } catch (InterruptedException interruptedException) {
+                return;
+            }
+            var slot = newest.getAndSet(null);
+            if (slot == null) {
+                // another worker took the frame that this permit was released for
+                continue;
+            }
+            var frame = slot.frame;
+            var grabbedAt = slot.grabbedAt;
+            var startedAt = System.nanoTime();
+            R value;
+            try {
+                value = processor.process(slot.mat, grabbedAt);
+            } catch (Exception exception) {
+                discarded.increment();
+                logger.warn("Processor {} failed on frame {}: {}", name, frame, exception.getMessage());
+                continue;
+            } finally {
+                free.add(slot);
+            }
+            if (value != null) {
+                publish(new Result<>(value, frame, grabbedAt, startedAt, System.nanoTime()));
+            }
+        }
+    }
+
+    private synchronized void publish(Result<R> result) {
+        var previous = latest.get();
+        if (previous != null && previous.frame() > result.frame()) {
+            discarded.increment();
+            return;
+        }
+        latest.set(result);
+        processing.record(result.finishedAt() - result.startedAt());
+        latency.record(result.latencyNanos());
+        processed.increment();
+        for (var subscriber : subscribers) {
+            try {
+                subscriber.accept(result);
+            } catch (RuntimeException exception) {
+                logger.warn("Subscriber of processor {} failed: {}", name, exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop the workers and release the pooled frames. Must not be called while a stream still offers frames
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (var worker : workers) {
+            worker.interrupt();
+        }
+        for (var worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        for (var slot : slots) {
+            slot.mat.release();
+        }
+        logger.debug("Processor {} stopped: {} processed, {} skipped, {} discarded, {}", name, processed.get(),
+                skipped.get(), discarded.get(), latency.snapshot());
+    }
+
+    /**
+     * A pooled frame
+     */
+    private static final class Slot {
+        private final Mat mat = new Mat();
+        private long frame;
+        private long grabbedAt;
+    }
+
+    /**
+     * The result of a frame
+     *
+     * @param value the value the processor returned
+     * @param frame number of the frame, counted from the first frame offered to the stage
+     * @param grabbedAt {@link System#nanoTime()} when the frame was grabbed
+     * @param startedAt {@link System#nanoTime()} when the processor started on the frame
+     * @param finishedAt {@link System#nanoTime()} when the processor returned
+     * @param <R> the type of the value
+     */
+    public record Result<R>(R value, long frame, long grabbedAt, long startedAt, long finishedAt) {
+        /**
+         * @return time from grabbing the frame to the result
+         */
+        public long latencyNanos() {
+            return finishedAt - grabbedAt;
+        }
+    }
+}
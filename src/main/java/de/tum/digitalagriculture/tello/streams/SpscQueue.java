@@ -0,0 +1,94 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, lock-free queue for exactly one producer thread and one consumer thread
+ *
+ * @param <T> type of the elements
+ */
+public class SpscQueue<T> {
+    /**
+     * Maximum number of elements in the queue
+     *
+     * @return maximum number of elements in the queue
+     */
+    @Getter
+    private final int capacity;
+    private final int mask;
+    private final Object[] elements;
+    /**
+     * Index of the next element to be read. Only written by the consumer
+     */
+    private final AtomicLong head;
+    /**
+     * Index of the next element to be written. Only written by the producer
+     */
+    private final AtomicLong tail;
+    private long cachedHead;
+    private long cachedTail;
+
+    /**
+     * @param capacity maximum number of elements, rounded up to the next power of two
+     */
+    public SpscQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("Capacity has to be positive but was %d", capacity));
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = this.capacity - 1;
+        elements = new Object[this.capacity];
+        head = new AtomicLong();
+        tail = new AtomicLong();
+    }
+
+    /**
+     * Add an element. Must only be called by the producer
+     *
+     * @param element the element to add
+     * @return false if the queue is full
+     */
+    public boolean offer(@NonNull T element) {
+        var currentTail = tail.getPlain();
+        if (currentTail - cachedHead >= capacity) {
+            cachedHead = head.getAcquire();
+            if (currentTail - cachedHead >= capacity) {
+                return false;
+            }
+        }
+        elements[(int) currentTail & mask] = element;
+        tail.setRelease(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Remove the oldest element. Must only be called by the consumer
+     *
+     * @return the oldest element or {@code null} if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        var currentHead = head.getPlain();
+        if (currentHead >= cachedTail) {
+            cachedTail = tail.getAcquire();
+            if (currentHead >= cachedTail) {
+                return null;
+            }
+        }
+        var index = (int) currentHead & mask;
+        var element = (T) elements[index];
+        elements[index] = null;
+        head.setRelease(currentHead + 1);
+        return element;
+    }
+
+    /**
+     * @return approximate number of elements in the queue
+     */
+    public int size() {
+        return (int) Math.max(0, tail.getAcquire() - head.getAcquire());
+    }
+}
@@ -0,0 +1,86 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and drop counters of a single stage of a stream pipeline. Written by the stage's thread only, readable from
+ * any thread
+ */
+public class StageCounters {
+    /**
+     * Name of the stage
+     *
+     * @return name of the stage
+     */
+    @Getter
+    private final String name;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param name name of the stage
+     */
+    public StageCounters(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record a processed frame
+     *
+     * @param nanos how long the stage took for the frame
+     */
+    public void record(long nanos) {
+        processed.setRelease(processed.getPlain() + 1);
+        totalNanos.setRelease(totalNanos.getPlain() + nanos);
+        if (nanos > maxNanos.getPlain()) {
+            maxNanos.setRelease(nanos);
+        }
+    }
+
+    /**
+     * Record a dropped frame
+     */
+    public void drop() {
+        dropped.setRelease(dropped.getPlain() + 1);
+    }
+
+    /**
+     * @return number of processed frames
+     */
+    public long getProcessed() {
+        return processed.getAcquire();
+    }
+
+    /**
+     * @return number of dropped frames
+     */
+    public long getDropped() {
+        return dropped.getAcquire();
+    }
+
+    /**
+     * @return mean latency of the stage in nanoseconds
+     */
+    public long getMeanNanos() {
+        var count = getProcessed();
+        return count == 0 ? 0 : totalNanos.getAcquire() / count;
+    }
+
+    /**
+     * @return maximum latency of the stage in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.getAcquire();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[processed=%d, dropped=%d, mean=%dus, max=%dus]", name, getProcessed(), getDropped(),
+                getMeanNanos() / 1000, getMaxNanos() / 1000);
+    }
+}
@@ -1,26 +1,87 @@
 package de.tum.digitalagriculture.tello.streams;
 
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.OpenCVFrameConverter;
-import org.bytedeco.opencv.opencv_core.Mat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * A stream handler that creates a stream that writes its data to an array
+ * A stream handler that creates a stream that writes its data to a bounded {@link FrameRing}.
+ * <p>
+ * The latencies and the number of buffered frames are reported as {@code stream.<name>.<metric>}, so several arrays
+ * need distinct names to be told apart.
+ * </p>
  */
 public class StreamArray implements StreamHandler<StreamArray.Stream> {
     private static final Logger logger = LoggerFactory.getLogger(StreamArray.class);
+    /**
+     * 10s of video at 30 fps
+     */
+    private static final int DEFAULT_CAPACITY = 300;
+    private static final String DEFAULT_NAME = "array";
 
+    /**
+     * Name of the streams in the metrics
+     *
+     * @return name of the streams in the metrics
+     */
+    @Getter
+    private final String name;
+    /**
+     * Maximum number of frames that are kept
+     *
+     * @return maximum number of frames that are kept
+     */
+    @Getter
+    private final int capacity;
+    /**
+     * What happens if a frame arrives while the buffer is full
+     *
+     * @return what happens if a frame arrives while the buffer is full
+     */
+    @Getter
+    private final FrameRing.OverflowPolicy policy;
     private Stream stream;
+    private ProcessingStage<?> processor;
+    private FrameSampling sampling;
 
+    /**
+     * Create a StreamArray that keeps the latest 300 frames
+     */
     public StreamArray() {
+        this(DEFAULT_CAPACITY, FrameRing.OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Create a new StreamArray
+     *
+     * @param capacity maximum number of frames that are kept
+     * @param policy what happens if a frame arrives while the buffer is full
+     */
+    public StreamArray(int capacity, @NonNull FrameRing.OverflowPolicy policy) {
+        this(DEFAULT_NAME, capacity, policy);
+    }
+
+    /**
+     * Create a new StreamArray
+     *
+     * @param name name of the streams in the metrics
+     * @param capacity maximum number of frames that are kept
+     * @param policy what happens if a frame arrives while the buffer is full
+     */
+    public StreamArray(@NonNull String name, int capacity, @NonNull FrameRing.OverflowPolicy policy) {
+        this.name = name;
+        this.capacity = capacity;
+        this.policy = policy;
         stream = null;
+        processor = null;
+        sampling = FrameSampling.ALL;
     }
 
     @SneakyThrows
@@ -31,13 +92,13 @@ public class StreamArray implements StreamHandler<StreamArray.Stream> {
         } else if (stream != null) {
             stream.close();
         }
-        stream = new Stream(streamUrl);
+        stream = new Stream(streamUrl, name, new FrameRing(capacity, policy), processor, sampling);
         return stream;
     }
 
     @Override
     public Boolean hasActiveStream() {
-        return null;
+        return stream != null && stream.isActive.get();
     }
 
     @Override
@@ -47,25 +108,49 @@ public class StreamArray implements StreamHandler<StreamArray.Stream> {
         }
     }
 
+    @Override
+    public void setProcessor(ProcessingStage<?> stage) {
+        processor = stage;
+    }
+
+    @Override
+    public void setSampling(@NonNull FrameSampling sampling) {
+        this.sampling = sampling;
+    }
+
     /**
-     * Stream that writes image data to an array
+     * Stream that copies image data into a {@link FrameRing}
      */
-    public static class Stream implements StreamHandler.Stream<ArrayList<Mat>> {
+    public static class Stream implements StreamHandler.Stream<FrameRing> {
         private final AtomicBoolean isActive;
         private final FFmpegFrameGrabber capture;
         private final OpenCVFrameConverter.ToMat converter;
-        private final ArrayList<Mat> data;
+        private final FrameRing data;
+        /**
+         * Latencies of the frames from grabbing to storing them in the ring
+         *
+         * @return latencies of the frames
+         */
+        @Getter
+        private final FrameLatency latency;
+        private final ProcessingStage<?> processor;
+        private final FrameSampling sampling;
 
         @SneakyThrows
-        private Stream(@NonNull String streamUrl) {
-            var url = streamUrl + "?overrun_nonfatal=1";
+        private Stream(@NonNull String streamUrl, @NonNull String name, @NonNull FrameRing data, ProcessingStage<?> processor, FrameSampling sampling) {
+            // the option only applies to network streams, recorded clips can be passed as plain files
+            var url = streamUrl.startsWith("udp:") ? streamUrl + "?overrun_nonfatal=1&timeout=" + READ_TIMEOUT_MICROS : streamUrl;
             converter = new OpenCVFrameConverter.ToMat();
             capture = new FFmpegFrameGrabber(url);
             capture.setNumBuffers(1024);
+            sampling.configure(capture);
             capture.start();
-            data = new ArrayList<>();
+            this.data = data;
+            this.processor = processor;
+            this.sampling = sampling;
+            latency = new FrameLatency(name, sampling.frameRate(FRAME_RATE));
+            MetricsRegistry.global().gauge("stream." + name + ".buffered", data::size);
             isActive = new AtomicBoolean(true);
-
         }
 
         @SneakyThrows
@@ -75,27 +160,48 @@ public class StreamArray implements StreamHandler<StreamArray.Stream> {
                 throw new IllegalStateException("Capture not running!");
             }
             while (capture.hasVideo() && isActive.get()) {
-                var frame = capture.grabImage();
+                var frame = sampling.grab(capture);
+                var grabbedAt = System.nanoTime();
+                if (frame == null) {
+                    // end of the stream
+                    break;
+                }
+                latency.grabbed(grabbedAt, frame.timestamp);
                 var img = converter.convert(frame);
-                data.add(img);
+                var convertedAt = System.nanoTime();
+                latency.converted(grabbedAt, convertedAt);
+                if (processor != null) {
+                    processor.offer(img, grabbedAt);
+                }
+                // the converted Mat aliases the grabber's buffer, the ring copies it into a pooled slot
+                if (data.offer(img)) {
+                    latency.sunk(grabbedAt, convertedAt, System.nanoTime());
+                } else {
+                    latency.dropped();
+                }
             }
+            logger.debug("Stream finished: {}", latency);
             capture.stop();
             capture.release();
         }
 
         /**
-         * Read the stream as an image array
+         * Read the stream as a ring of the latest images
          *
-         * @return the stream as an image array
+         * @return the captured images
          */
         @Override
-        public ArrayList<Mat> getData() {
+        public FrameRing getData() {
             return data;
         }
 
+        /**
+         * Stop the capture and release the buffered frames
+         */
         @Override
         public void close() throws Exception {
             isActive.set(false);
+            data.close();
             capture.stop();
             capture.release();
         }
@@ -1,6 +1,7 @@
 package de.tum.digitalagriculture.tello.streams;
 
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.FrameGrabber;
@@ -16,9 +17,13 @@ public class StreamDisplay implements StreamHandler<StreamDisplay.Stream> {
     private static final Logger logger = LoggerFactory.getLogger(StreamDisplay.class);
 
     private Stream stream;
+    private ProcessingStage<?> processor;
+    private FrameSampling sampling;
 
     public StreamDisplay() {
         this.stream = null;
+        this.processor = null;
+        this.sampling = FrameSampling.ALL;
     }
 
     @Override
@@ -29,7 +34,7 @@ public class StreamDisplay implements StreamHandler<StreamDisplay.Stream> {
         } else if (stream != null) {
             stream.close();
         }
-        stream = new Stream(streamUrl);
+        stream = new Stream(streamUrl, processor, sampling);
         return stream;
     }
 
@@ -46,19 +51,43 @@ public class StreamDisplay implements StreamHandler<StreamDisplay.Stream> {
         }
     }
 
+    @Override
+    public void setProcessor(ProcessingStage<?> stage) {
+        processor = stage;
+    }
+
+    @Override
+    public void setSampling(@NonNull FrameSampling sampling) {
+        this.sampling = sampling;
+    }
+
     public static class Stream implements StreamHandler.Stream<Void> {
         private final AtomicBoolean isActive;
         private final FFmpegFrameGrabber capture;
         @Getter
         private final Double fps;
+        /**
+         * Latencies of the frames from grabbing to showing them. The wait for the next frame after a frame was shown
+         * is not included but shows up in the lag of the following frames
+         *
+         * @return latencies of the frames
+         */
+        @Getter
+        private final FrameLatency latency;
+        private final ProcessingStage<?> processor;
+        private final FrameSampling sampling;
 
         @SneakyThrows
-        private Stream(String streamUrl) {
+        private Stream(String streamUrl, ProcessingStage<?> processor, FrameSampling sampling) {
             // Use small buffer size to decrease latency
-            capture = new FFmpegFrameGrabber(streamUrl + "?fifo_size=0&overrun_nonfatal=1");
+            capture = new FFmpegFrameGrabber(streamUrl + "?fifo_size=0&overrun_nonfatal=1&timeout=" + READ_TIMEOUT_MICROS);
             capture.setNumBuffers(0);
+            sampling.configure(capture);
             capture.start();
             fps = capture.getFrameRate();
+            latency = new FrameLatency("display", sampling.frameRate(FRAME_RATE));
+            this.processor = processor;
+            this.sampling = sampling;
             isActive = new AtomicBoolean(true);
         }
 
@@ -70,11 +99,23 @@ public class StreamDisplay implements StreamHandler<StreamDisplay.Stream> {
             }
             var converter = new OpenCVFrameConverter.ToMat();
             while (capture.hasVideo() && isActive.get()) {
-                var frame = capture.grabImage();
+                var frame = sampling.grab(capture);
+                var grabbedAt = System.nanoTime();
+                if (frame == null) {
+                    break;
+                }
+                latency.grabbed(grabbedAt, frame.timestamp);
                 var img = converter.convert(frame);
+                var convertedAt = System.nanoTime();
+                latency.converted(grabbedAt, convertedAt);
+                if (processor != null) {
+                    processor.offer(img, grabbedAt);
+                }
                 imshow("Feed", img);
+                latency.sunk(grabbedAt, convertedAt, System.nanoTime());
                 waitKey(1000 / fps.intValue());
             }
+            logger.debug("Stream finished: {}", latency);
             capture.stop();
             capture.release();
             destroyAllWindows();
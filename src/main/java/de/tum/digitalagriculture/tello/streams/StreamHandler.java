@@ -7,6 +7,15 @@ package de.tum.digitalagriculture.tello.streams;
  */
 @SuppressWarnings("rawtypes")
 public interface StreamHandler<S extends StreamHandler.Stream> {
+    /**
+     * How long a UDP stream may stay silent before reading it fails and the capture ends, e.g. after {@code streamoff}
+     */
+    long READ_TIMEOUT_MICROS = 5_000_000;
+    /**
+     * Frame rate of the drone's video stream. The raw H.264 stream does not carry it, FFmpeg guesses 25 fps
+     */
+    double FRAME_RATE = 30;
+
     /**
      * Start a new stream @ {@code streamUrl}
      * @param streamUrl url of the stream
@@ -26,6 +35,27 @@ public interface StreamHandler<S extends StreamHandler.Stream> {
      */
     void stopStream();
 
+    /**
+     * Hand every decoded frame of the streams started from now on to {@code stage} as well. The stage only copies the
+     * newest frame and never slows down the capture
+     *
+     * @param stage the stage, {@code null} to stop processing frames
+     * @throws UnsupportedOperationException if the streams of this handler do not decode the frames
+     */
+    default void setProcessor(ProcessingStage<?> stage) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not decode the frames");
+    }
+
+    /**
+     * Decode and convert only the sampled frames of the streams started from now on, see {@link FrameSampling}
+     *
+     * @param sampling which frames are decoded and converted
+     * @throws UnsupportedOperationException if the streams of this handler need every frame
+     */
+    default void setSampling(FrameSampling sampling) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " needs every frame");
+    }
+
     /**
      * The class that captures the drones video stream
      * @param <D> the type of data that the stream returns
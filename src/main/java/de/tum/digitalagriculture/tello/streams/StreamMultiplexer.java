@@ -0,0 +1,269 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A stream handler that decodes the stream once and broadcasts every frame to several {@link FrameSink}s.
+ * <p>
+ * Every sink has its own {@link FramePipe} and thread. A slow sink only drops its own frames and does neither slow
+ * down the grabber nor the other sinks.
+ * </p>
+ */
+public class StreamMultiplexer implements StreamHandler<StreamMultiplexer.Stream> {
+    private static final Logger logger = LoggerFactory.getLogger(StreamMultiplexer.class);
+    /**
+     * Frames in flight per sink, about 1s at 30 fps
+     */
+    private static final int DEFAULT_QUEUE_CAPACITY = 32;
+    private static final long IDLE_NANOS = 500_000;
+    private static final long JOIN_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Number of frames that can wait for each sink
+     *
+     * @return number of frames that can wait for each sink
+     */
+    @Getter
+    private final int queueCapacity;
+    private final Map<String, FrameSink<?>> sinks;
+    private Stream stream;
+    private ProcessingStage<?> processor;
+    private FrameSampling sampling;
+
+    /**
+     * Create a multiplexer with a queue of 32 frames per sink
+     */
+    public StreamMultiplexer() {
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param queueCapacity number of frames that can wait for each sink
+     */
+    public StreamMultiplexer(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        sinks = new LinkedHashMap<>();
+        stream = null;
+        processor = null;
+        sampling = FrameSampling.ALL;
+    }
+
+    /**
+     * Register a sink. Sinks are attached to the next stream that is started
+     *
+     * @param name unique name of the sink
+     * @param sink the sink
+     * @return this multiplexer
+     */
+    public StreamMultiplexer addSink(@NonNull String name, @NonNull FrameSink<?> sink) {
+        if (sinks.putIfAbsent(name, sink) != null) {
+            throw new IllegalArgumentException(String.format("Sink %s already registered", name));
+        }
+        return this;
+    }
+
+    @SneakyThrows
+    @Override
+    public Stream startStream(String streamUrl) {
+        if (hasActiveStream()) {
+            throw new IllegalStateException("startStream cannot be called if a stream is already running!");
+        } else if (stream != null) {
+            stream.close();
+        }
+        stream = new Stream(streamUrl, sinks);
+        return stream;
+    }
+
+    @Override
+    public Boolean hasActiveStream() {
+        return stream != null && stream.isActive.get();
+    }
+
+    @Override
+    public void stopStream() {
+        if (stream != null) {
+            stream.isActive.set(false);
+        }
+    }
+
+    @Override
+    public void setProcessor(ProcessingStage<?> stage) {
+        processor = stage;
+    }
+
+    @Override
+    public void setSampling(@NonNull FrameSampling sampling) {
+        this.sampling = sampling;
+    }
+
+    /**
+     * Stream that grabs and decodes frames and publishes them to the sinks
+     */
+    public class Stream implements StreamHandler.Stream<Map<String, FrameSink<?>>> {
+        private final AtomicBoolean isActive;
+        private final FFmpegFrameGrabber capture;
+        private final OpenCVFrameConverter.ToMat converter;
+        private final List<SinkWorker> workers;
+        private final Map<String, FrameSink<?>> data;
+        private final ProcessingStage<?> stage;
+        private final FrameSampling frameSampling;
+        @Getter
+        private final Double fps;
+
+        @SneakyThrows
+        private Stream(@NonNull String streamUrl, Map<String, FrameSink<?>> sinks) {
+            // the option only applies to network streams, recorded clips can be passed as plain files
+            var url = streamUrl.startsWith("udp:") ? streamUrl + "?overrun_nonfatal=1&timeout=" + READ_TIMEOUT_MICROS : streamUrl;
+            converter = new OpenCVFrameConverter.ToMat();
+            capture = new FFmpegFrameGrabber(url);
+            capture.setNumBuffers(1024);
+            frameSampling = sampling;
+            frameSampling.configure(capture);
+            capture.start();
+            // the sinks see the rate of the sampled frames. The key frame interval is unknown before the stream runs,
+            // encoders usually send about one key frame per second
+            var sampledRate = frameSampling.frameRate(capture.getVideoFrameRate());
+            fps = sampledRate > 0 ? sampledRate : 1.0;
+            stage = processor;
+            isActive = new AtomicBoolean(true);
+            data = Collections.unmodifiableMap(new LinkedHashMap<>(sinks));
+            workers = new ArrayList<>(sinks.size());
+            for (var entry : sinks.entrySet()) {
+                workers.add(new SinkWorker(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        @SneakyThrows
+        @Override
+        public void capture() {
+            if (!capture.hasVideo()) {
+                throw new IllegalStateException("Capture not running!");
+            }
+            try {
+                while (capture.hasVideo() && isActive.get()) {
+                    var frame = frameSampling.grab(capture);
+                    var grabbedAt = System.nanoTime();
+                    if (frame == null) {
+                        // end of the stream
+                        break;
+                    }
+                    var img = converter.convert(frame);
+                    if (stage != null) {
+                        stage.offer(img, grabbedAt);
+                    }
+                    for (var worker : workers) {
+                        if (!worker.pipe.publish(img)) {
+                            worker.counters.drop();
+                        }
+                    }
+                }
+            } finally {
+                isActive.set(false);
+                for (var worker : workers) {
+                    worker.thread.join(JOIN_TIMEOUT_MILLIS);
+                }
+                capture.stop();
+                capture.release();
+            }
+        }
+
+        /**
+         * Get the registered sinks, their data can be read with {@link FrameSink#getData()}
+         *
+         * @return the sinks by name
+         */
+        @Override
+        public Map<String, FrameSink<?>> getData() {
+            return data;
+        }
+
+        /**
+         * Latency and drop counters of every sink
+         *
+         * @return counters of the sinks by name
+         */
+        public Map<String, StageCounters> getCounters() {
+            var counters = new LinkedHashMap<String, StageCounters>();
+            for (var worker : workers) {
+                counters.put(worker.counters.getName(), worker.counters);
+            }
+            return counters;
+        }
+
+        @Override
+        public void close() throws Exception {
+            isActive.set(false);
+            for (var worker : workers) {
+                worker.thread.join(JOIN_TIMEOUT_MILLIS);
+            }
+            capture.stop();
+            capture.release();
+        }
+
+        /**
+         * Feeds one sink from its pipe on a dedicated thread
+         */
+        private final class SinkWorker {
+            private final FrameSink<?> sink;
+            private final FramePipe pipe;
+            private final StageCounters counters;
+            private final Thread thread;
+
+            private SinkWorker(String name, FrameSink<?> sink) {
+                this.sink = sink;
+                pipe = new FramePipe(queueCapacity);
+                counters = new StageCounters(name);
+                var registry = MetricsRegistry.global();
+                registry.gauge("stream.sink." + name + ".processed", counters::getProcessed);
+                registry.gauge("stream.sink." + name + ".dropped", counters::getDropped);
+                registry.gauge("stream.sink." + name + ".queued", pipe::size);
+                thread = new Thread(this::run, "tello-sink-" + name);
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            private void run() {
+                try {
+                    sink.start(fps);
+                    while (isActive.get() || pipe.size() > 0) {
+                        var frame = pipe.poll();
+                        if (frame == null) {
+                            LockSupport.parkNanos(IDLE_NANOS);
+                            continue;
+                        }
+                        try {
+                            sink.accept(frame.getMat());
+                            counters.record(System.nanoTime() - frame.getPublishedAt());
+                        } finally {
+                            pipe.release(frame);
+                        }
+                    }
+                } catch (Exception exception) {
+                    logger.warn("Sink {} failed: {}", counters.getName(), exception.getMessage());
+                } finally {
+                    try {
+                        sink.close();
+                    } catch (Exception exception) {
+                        logger.warn("Closing sink {} failed: {}", counters.getName(), exception.getMessage());
+                    }
+                    logger.debug("Sink finished: {}", counters);
+                }
+            }
+        }
+    }
+}
@@ -1,35 +1,72 @@
 package de.tum.digitalagriculture.tello.streams;
 
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
 import org.bytedeco.javacv.OpenCVFrameConverter;
 import org.bytedeco.opencv.opencv_videoio.VideoWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.bytedeco.ffmpeg.global.avcodec.av_packet_unref;
+import static org.bytedeco.ffmpeg.global.avutil.*;
 
 /**
  * Creates a stream that writes its data to disk
  */
 public class StreamWriter implements StreamHandler<StreamWriter.Stream>, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(StreamWriter.class);
+    /**
+     * Frames in flight between grabber and encoder, about 2s at 30 fps
+     */
+    private static final int POOL_SIZE = 64;
+    /**
+     * How long a network stream is probed before the first frame is decoded
+     */
+    private static final long ANALYZE_MICROS = 500_000;
+    private static final long IDLE_NANOS = 500_000;
+    private static final long JOIN_TIMEOUT_MILLIS = 1000;
     @Getter
     @Setter
     private String filename;
+    /**
+     * How the stream is written to disk
+     *
+     * @return how the stream is written to disk
+     */
+    @Getter
+    private final Mode mode;
     private Stream stream;
+    private ProcessingStage<?> processor;
 
     /**
-     * Create a new StreamWriter
+     * Create a new StreamWriter that re-encodes the stream to MJPG
      *
      * @param filename The filename of the file the video should be stored in
      */
     public StreamWriter(String filename) {
+        this(filename, Mode.TRANSCODE);
+    }
+
+    /**
+     * Create a new StreamWriter
+     *
+     * @param filename The filename of the file the video should be stored in. With {@link Mode#REMUX} the container is chosen by the extension, e.g. {@code .mp4} or {@code .mkv}
+     * @param mode how the stream is written to disk
+     */
+    public StreamWriter(String filename, @NonNull Mode mode) {
         this.filename = filename;
+        this.mode = mode;
         stream = null;
+        processor = null;
     }
 
     @SneakyThrows
@@ -57,37 +94,129 @@ public class StreamWriter implements StreamHandler<StreamWriter.Stream>, AutoClo
         }
     }
 
+    /**
+     * @throws UnsupportedOperationException with {@link Mode#REMUX}, which does not decode the frames
+     */
+    @Override
+    public void setProcessor(ProcessingStage<?> stage) {
+        if (mode == Mode.REMUX && stage != null) {
+            throw new UnsupportedOperationException("Remuxed streams are not decoded");
+        }
+        processor = stage;
+    }
+
     @Override
-    public void close() throws FFmpegFrameGrabber.Exception {
+    public void close() throws Exception {
         if (stream != null) {
             stream.close();
         }
     }
 
     /**
-     * Captures images and writes them to disk
+     * How the stream is written to disk
+     */
+    public enum Mode {
+        /**
+         * decode the H.264 stream and re-encode it to MJPG with OpenCV
+         */
+        TRANSCODE,
+        /**
+         * copy the compressed H.264 packets into a container without decoding them
+         */
+        REMUX
+    }
+
+    /**
+     * Captures images and writes them to disk.
+     * <p>
+     * Grabbing and encoding are decoupled: {@link #capture()} grabs and converts frames and copies them into pooled
+     * frames of a {@link FramePipe}, which hands them to a dedicated encoder thread without locking. If the encoder
+     * falls behind and the pool runs empty, frames are dropped instead of stalling the grabber.
+     * </p>
      */
     public class Stream implements StreamHandler.Stream<String> {
         private final AtomicBoolean isActive;
         private final FFmpegFrameGrabber capture;
         private final VideoWriter writer;
+        private final FFmpegFrameRecorder recorder;
         private final OpenCVFrameConverter.ToMat converter;
+        private final FramePipe pipe;
+        private final Thread encoder;
+        private volatile boolean grabbing;
+        private volatile long recordedFrames;
         @Getter
         private final Double fps;
+        /**
+         * Counters of the grab and convert stage, or of the remux stage with {@link Mode#REMUX}
+         *
+         * @return counters of the grab and convert stage
+         */
+        @Getter
+        private final StageCounters grabCounters;
+        /**
+         * Counters of the encoder stage. The latency includes the time a frame waited in the queue. Unused with {@link Mode#REMUX}
+         *
+         * @return counters of the encoder stage
+         */
+        @Getter
+        private final StageCounters encodeCounters;
+        /**
+         * Latencies of the frames from grabbing to writing them. With {@link Mode#REMUX} packets are neither decoded
+         * nor converted, only their total latency is recorded
+         *
+         * @return latencies of the frames
+         */
+        @Getter
+        private final FrameLatency latency;
+        private final ProcessingStage<?> stage;
 
         @SneakyThrows
         private Stream(@NonNull String streamUrl) {
-            var url = streamUrl + "?overrun_nonfatal=1";
+            // the option only applies to network streams, recorded clips can be passed as plain files
+            var url = streamUrl.startsWith("udp:") ? streamUrl + "?overrun_nonfatal=1&timeout=" + READ_TIMEOUT_MICROS : streamUrl;
             converter = new OpenCVFrameConverter.ToMat();
             capture = new FFmpegFrameGrabber(url);
             capture.setNumBuffers(1024);
+            if (streamUrl.startsWith("udp:")) {
+                // the frames buffered while probing are decoded in one burst, the default of 5s overflows the pipe
+                capture.setOption("analyzeduration", Long.toString(ANALYZE_MICROS));
+            }
             capture.start();
             fps = capture.getVideoFrameRate();
+            grabCounters = new StageCounters(mode == Mode.REMUX ? "remux" : "grab");
+            encodeCounters = new StageCounters("encode");
+            latency = new FrameLatency(mode == Mode.REMUX ? "remux" : "writer", FRAME_RATE);
+            MetricsRegistry.global().gauge("stream." + latency.getName() + ".written", this::getRecordedFrames);
+            stage = processor;
+            isActive = new AtomicBoolean(true);
+            grabbing = true;
+            if (mode == Mode.REMUX) {
+                recorder = new FFmpegFrameRecorder(filename, capture.getImageWidth(), capture.getImageHeight());
+                recorder.setVideoCodec(capture.getVideoCodec());
+                recorder.setFrameRate(fps);
+                // copies the codec parameters of the input streams, packets are written without re-encoding
+                recorder.start(capture.getFormatContext());
+                writer = null;
+                pipe = null;
+                encoder = null;
+                return;
+            }
+            recorder = null;
             var frame = capture.grabImage();
             var img = converter.convert(frame);
-            var codec = VideoWriter.fourcc((byte) 'M', (byte) 'P', (byte) 'J', (byte) 'G');
+            var codec = VideoWriter.fourcc((byte) 'M', (byte) 'J', (byte) 'P', (byte) 'G');
             writer = new VideoWriter(filename, codec, fps, img.size(), true);
-            isActive = new AtomicBoolean(true);
+            if (!writer.isOpened()) {
+                throw new IllegalStateException("Could not open " + filename + " for writing!");
+            }
+            // the frame that gave the size is the first of the video
+            writer.write(img);
+            recordedFrames++;
+            pipe = new FramePipe(POOL_SIZE);
+            MetricsRegistry.global().gauge("stream.writer.pool", pipe::size);
+            encoder = new Thread(this::encode, "tello-stream-encoder");
+            encoder.setDaemon(true);
+            encoder.start();
         }
 
         @SneakyThrows
@@ -96,14 +225,117 @@ public class StreamWriter implements StreamHandler<StreamWriter.Stream>, AutoClo
             if (!capture.hasVideo()) {
                 throw new IllegalStateException("Capture not running!");
             }
-            while (capture.hasVideo() && isActive.get()) {
-                var frame = capture.grabImage();
-                var img = converter.convert(frame);
-                writer.write(img);
+            if (mode == Mode.REMUX) {
+                remux();
+            } else {
+                transcode();
             }
-            capture.stop();
-            capture.release();
-            writer.release();
+        }
+
+        /**
+         * The grabber stage of {@link Mode#TRANSCODE}: grab, convert and hand the frames to the encoder
+         */
+        @SneakyThrows
+        private void transcode() {
+            try {
+                while (capture.hasVideo() && isActive.get()) {
+                    var start = System.nanoTime();
+                    var frame = capture.grabImage();
+                    var grabbedAt = System.nanoTime();
+                    if (frame == null) {
+                        // end of the stream
+                        break;
+                    }
+                    latency.grabbed(grabbedAt, frame.timestamp);
+                    var img = converter.convert(frame);
+                    if (stage != null) {
+                        stage.offer(img, grabbedAt);
+                    }
+                    if (!pipe.publish(img, grabbedAt)) {
+                        grabCounters.drop();
+                        latency.dropped();
+                        continue;
+                    }
+                    var publishedAt = System.nanoTime();
+                    latency.converted(grabbedAt, publishedAt);
+                    grabCounters.record(publishedAt - start);
+                }
+            } finally {
+                grabbing = false;
+                encoder.join();
+                capture.stop();
+                capture.release();
+                writer.release();
+                logger.debug("Stream finished: {}, {}, {}", grabCounters, encodeCounters, latency);
+            }
+        }
+
+        /**
+         * The encoder stage of {@link Mode#TRANSCODE}: write frames until the grabber finished and the queue is drained
+         */
+        private void encode() {
+            while (true) {
+                var frame = pipe.poll();
+                if (frame == null) {
+                    if (!grabbing) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+                writer.write(frame.getMat());
+                recordedFrames++;
+                var writtenAt = System.nanoTime();
+                encodeCounters.record(writtenAt - frame.getPublishedAt());
+                latency.sunk(frame.getGrabbedAt(), frame.getPublishedAt(), writtenAt);
+                pipe.release(frame);
+            }
+        }
+
+        /**
+         * {@link Mode#REMUX}: copy the compressed packets into the container
+         */
+        @SneakyThrows
+        private void remux() {
+            var formatContext = capture.getFormatContext();
+            var timestamps = new PacketTimestamps();
+            try {
+                while (isActive.get()) {
+                    var start = System.nanoTime();
+                    var packet = capture.grabPacket();
+                    var grabbedAt = System.nanoTime();
+                    if (packet == null) {
+                        break;
+                    }
+                    var stream = formatContext.streams(packet.stream_index());
+                    if (stream.codecpar().codec_type() != AVMEDIA_TYPE_VIDEO) {
+                        av_packet_unref(packet);
+                        continue;
+                    }
+                    latency.grabbed(grabbedAt, 0);
+                    timestamps.fix(packet, start, stream.time_base().num(), stream.time_base().den());
+                    // rescales the timestamps into the time base of the output stream
+                    recorder.recordPacket(packet);
+                    recordedFrames++;
+                    var writtenAt = System.nanoTime();
+                    grabCounters.record(writtenAt - start);
+                    latency.sunk(grabbedAt, grabbedAt, writtenAt);
+                }
+            } finally {
+                grabbing = false;
+                recorder.stop();
+                recorder.release();
+                capture.stop();
+                capture.release();
+                logger.debug("Stream finished: {}, {}", grabCounters, latency);
+            }
+        }
+
+        /**
+         * @return number of frames written to disk
+         */
+        public long getRecordedFrames() {
+            return recordedFrames;
         }
 
         @Override
@@ -111,12 +343,49 @@ public class StreamWriter implements StreamHandler<StreamWriter.Stream>, AutoClo
             return filename;
         }
 
+        @SneakyThrows(InterruptedException.class)
         @Override
-        public void close() throws FFmpegFrameGrabber.Exception {
+        public void close() throws Exception {
             isActive.set(false);
+            grabbing = false;
+            if (encoder != null) {
+                encoder.join(JOIN_TIMEOUT_MILLIS);
+            }
             capture.stop();
             capture.release();
-            writer.release();
+            if (writer != null) {
+                writer.release();
+            }
+            if (recorder != null) {
+                recorder.release();
+            }
+        }
+    }
+
+    /**
+     * Raw H.264 received over UDP usually carries no presentation timestamps. Missing timestamps are derived from the
+     * arrival time of the packets, so that the container reflects the real timing of the stream including dropped frames
+     */
+    private static final class PacketTimestamps {
+        private long firstArrival = -1;
+        private long lastDts = Long.MIN_VALUE;
+
+        private void fix(AVPacket packet, long arrival, int timeBaseNum, int timeBaseDen) {
+            if (firstArrival < 0) {
+                firstArrival = arrival;
+            }
+            if (packet.pts() == AV_NOPTS_VALUE || packet.dts() == AV_NOPTS_VALUE) {
+                var elapsed = arrival - firstArrival;
+                var timestamp = av_rescale(elapsed, timeBaseDen, timeBaseNum * 1_000_000_000L);
+                packet.pts(timestamp);
+                packet.dts(timestamp);
+            }
+            // muxers reject non-increasing decoding timestamps
+            if (packet.dts() <= lastDts) {
+                packet.dts(lastDts + 1);
+                packet.pts(Math.max(packet.pts(), packet.dts()));
+            }
+            lastDts = packet.dts();
         }
     }
 }
@@ -0,0 +1,230 @@
+package de.tum.digitalagriculture.tello.telemetry;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Binary flight log of {@link TelemetrySample}s that is appended through memory-mapped regions of the file.
+ * <p>
+ * File format (big endian):
+ * </p>
+ * <pre>
+ *     header  := magic:int "TLOG" | version:int | recordSize:int | reserved:int | startEpochMillis:long | startNanos:long | count:long
+ *     records := record*          (recordSize bytes each, see {@link TelemetrySample#BYTES})
+ *     record  := timestamp:long | mid, x, y, z, pitch, roll, yaw, vgx, vgy, vgz, templ, temph, tof, h, bat:int
+ *                | baro:float | time:int | agx, agy, agz:float
+ * </pre>
+ * <p>
+ * Record timestamps are {@link System#nanoTime()} values; {@code startEpochMillis} and {@code startNanos} allow to
+ * convert them to wall-clock time. Records are appended in reception order, so a file can be range-queried by
+ * timestamp with a binary search. The header count is updated after every append, so a log of a crashed flight can
+ * still be read. The file is not cut to the records on close, as a mapped file cannot be truncated on Windows: it ends
+ * with the unused, zeroed part of the last region of about 1 MiB, readers only use the records the count covers.
+ * </p>
+ */
+public class FlightLog implements Consumer<TelemetrySample>, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FlightLog.class);
+    private static final int MAGIC = 0x544c4f47; // "TLOG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int COUNT_OFFSET = 32;
+    /**
+     * Records mapped at once while appending (about 1 MiB)
+     */
+    private static final int RECORDS_PER_REGION = (1 << 20) / TelemetrySample.BYTES;
+
+    /**
+     * Path of the log file
+     *
+     * @return path of the log file
+     */
+    @Getter
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer region;
+    private long mappedRegion;
+    /**
+     * Number of records in the log
+     *
+     * @return number of records in the log
+     */
+    @Getter
+    private long count;
+
+    private FlightLog(Path path, FileChannel channel, MappedByteBuffer header, long count) {
+        this.path = path;
+        this.channel = channel;
+        this.header = header;
+        this.count = count;
+        this.region = null;
+        this.mappedRegion = -1;
+    }
+
+    /**
+     * Create a new flight log at {@code path}. An existing file is overwritten
+     *
+     * @param path path of the log file
+     * @return the opened flight log
+     * @throws IOException failed to create the file
+     */
+    public static FlightLog create(@NonNull Path path) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        var header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.BIG_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(TelemetrySample.BYTES)
+                .putInt(0)
+                .putLong(System.currentTimeMillis())
+                .putLong(System.nanoTime())
+                .putLong(0);
+        logger.debug("Created flight log {}", path);
+        return new FlightLog(path, channel, header, 0);
+    }
+
+    /**
+     * Append a sample. Allocates only when a new region of the file is mapped
+     *
+     * @param sample the sample to append
+     */
+    @Override
+    public void accept(@NonNull TelemetrySample sample) {
+        try {
+            var regionIndex = count / RECORDS_PER_REGION;
+            if (regionIndex != mappedRegion) {
+                region = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + regionIndex * RECORDS_PER_REGION * TelemetrySample.BYTES,
+                        (long) RECORDS_PER_REGION * TelemetrySample.BYTES);
+                mappedRegion = regionIndex;
+            }
+            region.position((int) (count % RECORDS_PER_REGION) * TelemetrySample.BYTES);
+            sample.write(region);
+            count++;
+            header.putLong(COUNT_OFFSET, count);
+        } catch (IOException ioException) {
+            logger.warn("Appending to flight log {} failed: {}", path, ioException.getMessage());
+        }
+    }
+
+    /**
+     * Flush the mapped regions and close the file
+     *
+     * @throws IOException failed to close the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (region != null) {
+            region.force();
+        }
+        header.force();
+        channel.close();
+    }
+
+    /**
+     * A read-only view of a flight log
+     */
+    public static final class Reader {
+        private final ByteBuffer records;
+        /**
+         * Number of records in the log
+         *
+         * @return number of records in the log
+         */
+        @Getter
+        private final int count;
+        /**
+         * Wall-clock time when the log was created
+         *
+         * @return milliseconds since the epoch when the log was created
+         */
+        @Getter
+        private final long startEpochMillis;
+        /**
+         * {@link System#nanoTime()} when the log was created
+         *
+         * @return {@link System#nanoTime()} when the log was created
+         */
+        @Getter
+        private final long startNanos;
+
+        private Reader(ByteBuffer file) {
+            if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION || file.getInt(8) != TelemetrySample.BYTES) {
+                throw new IllegalArgumentException("Not a flight log of version " + VERSION);
+            }
+            startEpochMillis = file.getLong(16);
+            startNanos = file.getLong(24);
+            var stored = (file.limit() - HEADER_SIZE) / TelemetrySample.BYTES;
+            count = (int) Math.min(file.getLong(COUNT_OFFSET), stored);
+            records = file.position(HEADER_SIZE).limit(HEADER_SIZE + count * TelemetrySample.BYTES).slice();
+        }
+
+        /**
+         * Map the flight log at {@code path} for reading
+         *
+         * @param path path of the log file
+         * @return the reader
+         * @throws IOException failed to map the file
+         */
+        public static Reader open(@NonNull Path path) throws IOException {
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return new Reader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        /**
+         * Read the record at {@code index}
+         *
+         * @param index index of the record
+         * @param destination sample the record is copied to
+         */
+        public void get(int index, @NonNull TelemetrySample destination) {
+            destination.read(records, index * TelemetrySample.BYTES);
+        }
+
+        /**
+         * Find the first record that was received at or after {@code timestamp}
+         *
+         * @param timestamp {@link System#nanoTime()} to search for
+         * @return index of the record, {@link #getCount()} if there is none
+         */
+        public int search(long timestamp) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (records.getLong(mid * TelemetrySample.BYTES) < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Zero-copy view of all records received in [{@code from}, {@code to})
+         *
+         * @param from first {@link System#nanoTime()} that is included
+         * @param to first {@link System#nanoTime()} that is excluded
+         * @return read-only buffer that contains the records back to back
+         */
+        public ByteBuffer range(long from, long to) {
+            var first = search(from);
+            var last = Math.max(first, search(to));
+            return records.slice(first * TelemetrySample.BYTES, (last - first) * TelemetrySample.BYTES).asReadOnlyBuffer();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package de.tum.digitalagriculture.tello.telemetry;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.function.Consumer;
+
+/**
+ * Estimates the position of the drone from its state samples.
+ * <p>
+ * The drone has no GPS. While a mission pad is detected its coordinates are used as they are, which assumes that the
+ * drone took off from the pad. Otherwise the position is dead reckoned by integrating the speeds {@code vgx} and
+ * {@code vgy}, so it drifts with the errors of the speed estimate. The height is the height {@code h} above the takeoff
+ * point.
+ * </p>
+ * <p>
+ * The most recent poses are kept, so that the pose at the time a video frame was grabbed can be looked up. Subscribe the
+ * estimator to a {@link TelemetryReceiver}; poses can be read from any thread.
+ * </p>
+ */
+public class PoseEstimator implements Consumer<TelemetrySample> {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int NO_PAD = -100;
+
+    /**
+     * Number of poses that are kept
+     *
+     * @return number of poses that are kept
+     */
+    @Getter
+    private final int capacity;
+    private final long[] timestamps;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] heights;
+    private final int[] yaws;
+    private final boolean[] onPad;
+    private long count;
+    private double x;
+    private double y;
+    private double vx;
+    private double vy;
+
+    /**
+     * Create an estimator that keeps the poses of the last 64 samples, about 6s
+     */
+    public PoseEstimator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of poses that are kept
+     */
+    public PoseEstimator(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("Capacity has to be positive but was %d", capacity));
+        }
+        this.capacity = capacity;
+        timestamps = new long[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        heights = new double[capacity];
+        yaws = new int[capacity];
+        onPad = new boolean[capacity];
+    }
+
+    /**
+     * Update the position with a new sample
+     *
+     * @param sample the sample
+     */
+    @Override
+    public synchronized void accept(@NonNull TelemetrySample sample) {
+        var padDetected = sample.getMid() >= 0 && sample.getX() != NO_PAD && sample.getY() != NO_PAD;
+        // speeds are in dm/s
+        var sampleVx = sample.getVgx() * 10.0;
+        var sampleVy = sample.getVgy() * 10.0;
+        if (padDetected) {
+            x = sample.getX();
+            y = sample.getY();
+        } else if (count > 0) {
+            var seconds = (sample.getTimestamp() - timestamps[index(count - 1)]) / 1e9;
+            // trapezoidal rule over the speeds of both samples
+            x += (vx + sampleVx) / 2 * seconds;
+            y += (vy + sampleVy) / 2 * seconds;
+        }
+        vx = sampleVx;
+        vy = sampleVy;
+        var slot = index(count);
+        timestamps[slot] = sample.getTimestamp();
+        xs[slot] = x;
+        ys[slot] = y;
+        heights[slot] = sample.getH();
+        yaws[slot] = sample.getYaw();
+        onPad[slot] = padDetected;
+        count++;
+    }
+
+    /**
+     * @return the pose of the latest sample, {@code null} if no sample was received yet
+     */
+    public synchronized Pose getLatest() {
+        return count == 0 ? null : pose(index(count - 1));
+    }
+
+    /**
+     * The pose at {@code timestamp}, interpolated between the kept poses. Before the oldest kept pose the oldest one is
+     * returned, after the latest one the latest
+     *
+     * @param timestamp {@link System#nanoTime()} of the pose, e.g. when a frame was grabbed
+     * @return the pose, {@code null} if no sample was received yet
+     */
+    public synchronized Pose at(long timestamp) {
+        if (count == 0) {
+            return null;
+        }
+        var oldest = Math.max(0, count - capacity);
+        var newer = count - 1;
+        if (timestamp - timestamps[index(newer)] >= 0) {
+            return pose(index(newer));
+        }
+        while (newer > oldest && timestamp - timestamps[index(newer - 1)] < 0) {
+            newer--;
+        }
+        if (newer == oldest) {
+            return pose(index(oldest));
+        }
+        var before = index(newer - 1);
+        var after = index(newer);
+        var fraction = (double) (timestamp - timestamps[before]) / (timestamps[after] - timestamps[before]);
+        return new Pose(timestamp,
+                xs[before] + fraction * (xs[after] - xs[before]),
+                ys[before] + fraction * (ys[after] - ys[before]),
+                heights[before] + fraction * (heights[after] - heights[before]),
+                fraction < 0.5 ? yaws[before] : yaws[after],
+                onPad[before] && onPad[after]);
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private Pose pose(int slot) {
+        return new Pose(timestamps[slot], xs[slot], ys[slot], heights[slot], yaws[slot], onPad[slot]);
+    }
+
+    /**
+     * Position of the drone relative to its takeoff point
+     *
+     * @param timestamp {@link System#nanoTime()} of the pose
+     * @param x position in cm, forward at takeoff
+     * @param y position in cm
+     * @param height height above the takeoff point in cm
+     * @param yaw yaw in degree
+     * @param onPad whether the position was measured by a mission pad instead of being dead reckoned
+     */
+    public record Pose(long timestamp, double x, double y, double height, int yaw, boolean onPad) {
+        /**
+         * @param other another pose
+         * @return horizontal distance to {@code other} in cm
+         */
+        public double distance(@NonNull Pose other) {
+            return Math.hypot(x - other.x, y - other.y);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package de.tum.digitalagriculture.tello.telemetry;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-capacity ring buffer of {@link TelemetrySample}s stored off-heap.
+ * <p>
+ * The samples are stored as a struct of arrays: every field has its own column in a single direct {@link ByteBuffer}.
+ * Once the capacity is reached the oldest samples are overwritten. Appending neither allocates nor locks. There may be
+ * only one writer, readers can run concurrently and skip samples that were overwritten while they were read.
+ * </p>
+ */
+public class TelemetryHistory implements Consumer<TelemetrySample> {
+    /**
+     * Columns of the ring buffer. The timestamp column is 8 bytes wide, all others 4 bytes
+     */
+    private static final int TIMESTAMP = 0, MID = 1, X = 2, Y = 3, Z = 4, PITCH = 5, ROLL = 6, YAW = 7, VGX = 8, VGY = 9,
+            VGZ = 10, TEMPL = 11, TEMPH = 12, TOF = 13, H = 14, BAT = 15, BARO = 16, TIME = 17, AGX = 18, AGY = 19, AGZ = 20;
+    private static final int COLUMNS = 21;
+    /**
+     * Bytes per sample over all columns
+     */
+    private static final int SAMPLE_BYTES = Long.BYTES + (COLUMNS - 1) * Integer.BYTES;
+    /**
+     * Largest capacity whose columns still fit into a single {@link ByteBuffer}
+     */
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / SAMPLE_BYTES;
+
+    /**
+     * Maximum number of samples that are kept
+     *
+     * @return maximum number of samples that are kept
+     */
+    @Getter
+    private final int capacity;
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+    /**
+     * Number of samples that were appended in total. Published after a sample is completely written
+     */
+    private final AtomicLong written;
+    /**
+     * Number of samples whose writing started. Ahead of {@link #written} by one while a sample is written
+     */
+    private final AtomicLong claimed;
+
+    /**
+     * @param capacity maximum number of samples that are kept, at most {@link #MAX_CAPACITY}
+     */
+    public TelemetryHistory(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(String.format("Capacity has to be in [1, %d] but was %d", MAX_CAPACITY, capacity));
+        }
+        this.capacity = capacity;
+        offsets = new int[COLUMNS];
+        var offset = Long.BYTES * capacity;
+        for (int column = 1; column < COLUMNS; column++) {
+            offsets[column] = offset;
+            offset += Integer.BYTES * capacity;
+        }
+        buffer = ByteBuffer.allocateDirect(offset);
+        written = new AtomicLong();
+        claimed = new AtomicLong();
+    }
+
+    /**
+     * Append a sample, overwriting the oldest one if the buffer is full
+     *
+     * @param sample the sample to append
+     */
+    @Override
+    public void accept(@NonNull TelemetrySample sample) {
+        var count = written.getPlain();
+        var slot = (int) (count % capacity);
+        // readers that see any of the writes below also see the claim
+        claimed.setPlain(count + 1);
+        VarHandle.storeStoreFence();
+        buffer.putLong(offsets[TIMESTAMP] + Long.BYTES * slot, sample.getTimestamp());
+        putInt(MID, slot, sample.getMid());
+        putInt(X, slot, sample.getX());
+        putInt(Y, slot, sample.getY());
+        putInt(Z, slot, sample.getZ());
+        putInt(PITCH, slot, sample.getPitch());
+        putInt(ROLL, slot, sample.getRoll());
+        putInt(YAW, slot, sample.getYaw());
+        putInt(VGX, slot, sample.getVgx());
+        putInt(VGY, slot, sample.getVgy());
+        putInt(VGZ, slot, sample.getVgz());
+        putInt(TEMPL, slot, sample.getTempl());
+        putInt(TEMPH, slot, sample.getTemph());
+        putInt(TOF, slot, sample.getTof());
+        putInt(H, slot, sample.getH());
+        putInt(BAT, slot, sample.getBat());
+        buffer.putFloat(offsets[BARO] + Integer.BYTES * slot, sample.getBaro());
+        putInt(TIME, slot, sample.getTime());
+        buffer.putFloat(offsets[AGX] + Integer.BYTES * slot, sample.getAgx());
+        buffer.putFloat(offsets[AGY] + Integer.BYTES * slot, sample.getAgy());
+        buffer.putFloat(offsets[AGZ] + Integer.BYTES * slot, sample.getAgz());
+        written.setRelease(count + 1);
+    }
+
+    private void putInt(int column, int slot, int value) {
+        buffer.putInt(offsets[column] + Integer.BYTES * slot, value);
+    }
+
+    private int getInt(int column, int slot) {
+        return buffer.getInt(offsets[column] + Integer.BYTES * slot);
+    }
+
+    private float getFloat(int column, int slot) {
+        return buffer.getFloat(offsets[column] + Integer.BYTES * slot);
+    }
+
+    /**
+     * @return number of samples appended since the creation of the buffer, including overwritten ones
+     */
+    public long getWritten() {
+        return written.getAcquire();
+    }
+
+    /**
+     * @return sequence number of the oldest sample that is still stored
+     */
+    public long getOldest() {
+        return Math.max(0, getWritten() - capacity);
+    }
+
+    /**
+     * Read the sample with sequence number {@code sequence}
+     *
+     * @param sequence sequence number in [{@link #getOldest()}, {@link #getWritten()})
+     * @param destination sample the stored values are copied to
+     * @return whether the sample was still stored
+     */
+    public boolean get(long sequence, @NonNull TelemetrySample destination) {
+        if (sequence < getOldest() || sequence >= getWritten()) {
+            return false;
+        }
+        var slot = (int) (sequence % capacity);
+        destination.set(buffer.getLong(offsets[TIMESTAMP] + Long.BYTES * slot),
+                getInt(MID, slot), getInt(X, slot), getInt(Y, slot), getInt(Z, slot),
+                getInt(PITCH, slot), getInt(ROLL, slot), getInt(YAW, slot),
+                getInt(VGX, slot), getInt(VGY, slot), getInt(VGZ, slot),
+                getInt(TEMPL, slot), getInt(TEMPH, slot), getInt(TOF, slot), getInt(H, slot), getInt(BAT, slot),
+                getFloat(BARO, slot), getInt(TIME, slot), getFloat(AGX, slot), getFloat(AGY, slot), getFloat(AGZ, slot));
+        // the writer may have overwritten the slot while it was read. Writing sample n overwrites sample n - capacity
+        // and is claimed before, the fence keeps the reads above the check
+        VarHandle.loadLoadFence();
+        return sequence >= claimed.getAcquire() - capacity;
+    }
+
+    /**
+     * Timestamp of the sample with sequence number {@code sequence}
+     *
+     * @param sequence sequence number in [{@link #getOldest()}, {@link #getWritten()})
+     * @return the {@link System#nanoTime()} the sample was received
+     */
+    public long getTimestamp(long sequence) {
+        return buffer.getLong(offsets[TIMESTAMP] + Long.BYTES * (int) (sequence % capacity));
+    }
+
+    /**
+     * Find the first stored sample that was received at or after {@code timestamp}
+     *
+     * @param timestamp {@link System#nanoTime()} to search for
+     * @return sequence number of the sample, {@link #getWritten()} if there is none
+     */
+    public long search(long timestamp) {
+        long low = getOldest();
+        long high = getWritten();
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (getTimestamp(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Visit all stored samples received in [{@code from}, {@code to}). The visited sample is reused
+     *
+     * @param from first {@link System#nanoTime()} that is included
+     * @param to first {@link System#nanoTime()} that is excluded
+     * @param visitor called for every sample in the range
+     * @return number of visited samples
+     */
+    public int forEach(long from, long to, @NonNull Consumer<TelemetrySample> visitor) {
+        var sample = new TelemetrySample();
+        var visited = 0;
+        for (var sequence = search(from); sequence < getWritten(); sequence++) {
+            if (!get(sequence, sample)) {
+                continue;
+            }
+            if (sample.getTimestamp() >= to) {
+                break;
+            }
+            visitor.accept(sample);
+            visited++;
+        }
+        return visited;
+    }
+}
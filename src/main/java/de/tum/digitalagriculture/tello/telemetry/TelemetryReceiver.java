@@ -0,0 +1,174 @@
+package de.tum.digitalagriculture.tello.telemetry;
+
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Receives the state datagrams that the Tello drone sends to port 8890.
+ * <p>
+ * A dedicated thread parses every datagram into a reused {@link TelemetrySample} and publishes it in a single-writer
+ * slot guarded by a sequence counter. Readers copy the latest sample with {@link #getLatest(TelemetrySample)} without
+ * taking a lock.
+ * </p>
+ */
+public class TelemetryReceiver implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryReceiver.class);
+    private static final int MAX_DATAGRAM_SIZE = 1024;
+    private static final long JOIN_TIMEOUT_MILLIS = 1000;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer buffer;
+    private final TelemetrySample scratch;
+    private final TelemetrySample latest;
+    /**
+     * Sequence counter of {@link #latest}. Odd while the receiver thread writes the slot
+     */
+    private final AtomicLong version;
+    private final AtomicLong malformed;
+    private final CopyOnWriteArrayList<Consumer<TelemetrySample>> subscribers;
+    private final Thread thread;
+
+    /**
+     * Create a new {@link TelemetryReceiver} and start its receiver thread
+     *
+     * @param channel the bound status channel. The channel is owned by the {@link TelemetryReceiver} afterwards
+     */
+    public TelemetryReceiver(@NonNull DatagramChannel channel) {
+        this(channel, Thread.ofPlatform().daemon().factory());
+    }
+
+    /**
+     * Create a new {@link TelemetryReceiver} and start its receiver on a thread of {@code threadFactory}
+     *
+     * @param channel the bound status channel. The channel is owned by the {@link TelemetryReceiver} afterwards
+     * @param threadFactory creates the thread that receives the datagrams, e.g. a virtual thread factory
+     */
+    public TelemetryReceiver(@NonNull DatagramChannel channel, @NonNull ThreadFactory threadFactory) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+        scratch = new TelemetrySample();
+        latest = new TelemetrySample();
+        version = new AtomicLong();
+        malformed = new AtomicLong();
+        subscribers = new CopyOnWriteArrayList<>();
+        thread = threadFactory.newThread(this::run);
+        thread.setName("tello-telemetry");
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (channel.isOpen()) {
+                buffer.clear();
+                channel.receive(buffer);
+                var timestamp = System.nanoTime();
+                buffer.flip();
+                if (!scratch.parse(buffer)) {
+                    malformed.incrementAndGet();
+                    continue;
+                }
+                scratch.setTimestamp(timestamp);
+                publish(scratch);
+                for (var subscriber : subscribers) {
+                    try {
+                        subscriber.accept(scratch);
+                    } catch (RuntimeException exception) {
+                        logger.warn("Telemetry subscriber failed: {}", exception.getMessage());
+                    }
+                }
+            }
+        } catch (AsynchronousCloseException ignored) {
+            // closed by close()
+        } catch (IOException ioException) {
+            logger.warn("Telemetry reception failed: {}", ioException.getMessage());
+        }
+    }
+
+    private void publish(TelemetrySample sample) {
+        var current = version.getPlain();
+        version.setOpaque(current + 1);
+        VarHandle.storeStoreFence();
+        latest.copyFrom(sample);
+        version.setRelease(current + 2);
+    }
+
+    /**
+     * Copy the latest sample into {@code destination}. Does not block and does not allocate
+     *
+     * @param destination the sample the latest state is copied to
+     * @return whether a sample was received yet
+     */
+    public boolean getLatest(@NonNull TelemetrySample destination) {
+        while (true) {
+            var before = version.getAcquire();
+            if (before == 0) {
+                return false;
+            }
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            destination.copyFrom(latest);
+            VarHandle.loadLoadFence();
+            if (version.getOpaque() == before) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return number of samples received
+     */
+    public long getReceived() {
+        return version.get() >> 1;
+    }
+
+    /**
+     * @return number of datagrams that could not be parsed
+     */
+    public long getMalformed() {
+        return malformed.get();
+    }
+
+    /**
+     * Register a subscriber that is called for every received sample on the receiver thread. The passed sample is
+     * reused for the next datagram and must not be retained, use {@link TelemetrySample#copyFrom(TelemetrySample)} instead
+     *
+     * @param subscriber the subscriber
+     */
+    public void subscribe(@NonNull Consumer<TelemetrySample> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Remove a subscriber
+     *
+     * @param subscriber the subscriber
+     */
+    public void unsubscribe(@NonNull Consumer<TelemetrySample> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Stop the receiver thread and close the channel
+     *
+     * @throws IOException failed to close the channel
+     * @throws InterruptedException interrupted while waiting for the receiver thread
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        channel.close();
+        thread.join(JOIN_TIMEOUT_MILLIS);
+    }
+}
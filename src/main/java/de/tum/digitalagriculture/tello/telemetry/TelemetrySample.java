@@ -0,0 +1,343 @@
+package de.tum.digitalagriculture.tello.telemetry;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One state datagram of the Tello drone. The drone sends it about 10 times per second to port 8890, e.g.
+ * <pre>
+ *     {@code pitch:0;roll:0;yaw:0;vgx:0;vgy:0;vgz:0;templ:60;temph:63;tof:10;h:0;bat:87;baro:96.11;time:0;agx:-2.00;agy:0.00;agz:-999.00;}
+ * </pre>
+ * <p>
+ * Samples are mutable and meant to be reused: {@link #parse(ByteBuffer)} overwrites the received fields without allocating.
+ * Fields that are missing in a datagram keep their previous value. The mission pad fields are -100 if no pad is detected.
+ * </p>
+ */
+@Getter
+public final class TelemetrySample {
+    /**
+     * Size of a sample in the binary record format
+     */
+    public static final int BYTES = Long.BYTES + 20 * Integer.BYTES;
+    /**
+     * {@link System#nanoTime()} when the datagram was received
+     */
+    private long timestamp;
+    /**
+     * id of the detected mission pad, -1 if none is detected
+     */
+    private int mid = -1;
+    /**
+     * x coordinate relative to the mission pad in cm
+     */
+    private int x = -100;
+    /**
+     * y coordinate relative to the mission pad in cm
+     */
+    private int y = -100;
+    /**
+     * z coordinate relative to the mission pad in cm
+     */
+    private int z = -100;
+    /**
+     * pitch in degree
+     */
+    private int pitch;
+    /**
+     * roll in degree
+     */
+    private int roll;
+    /**
+     * yaw in degree
+     */
+    private int yaw;
+    /**
+     * speed in x direction in dm/s
+     */
+    private int vgx;
+    /**
+     * speed in y direction in dm/s
+     */
+    private int vgy;
+    /**
+     * speed in z direction in dm/s
+     */
+    private int vgz;
+    /**
+     * lowest temperature in degree Celsius
+     */
+    private int templ;
+    /**
+     * highest temperature in degree Celsius
+     */
+    private int temph;
+    /**
+     * time of flight distance in cm
+     */
+    private int tof;
+    /**
+     * height in cm
+     */
+    private int h;
+    /**
+     * battery percentage
+     */
+    private int bat;
+    /**
+     * barometer measurement in m
+     */
+    private float baro;
+    /**
+     * time the motors have been on in s
+     */
+    private int time;
+    /**
+     * acceleration in x direction in 0.001g
+     */
+    private float agx;
+    /**
+     * acceleration in y direction in 0.001g
+     */
+    private float agy;
+    /**
+     * acceleration in z direction in 0.001g
+     */
+    private float agz;
+
+    /**
+     * Parse a state datagram into this sample. Consumes the remaining bytes of {@code datagram}
+     *
+     * @param datagram the received datagram
+     * @return whether at least one known field was parsed
+     */
+    public boolean parse(@NonNull ByteBuffer datagram) {
+        var parsed = false;
+        while (datagram.hasRemaining()) {
+            // read the key, packed into a long (all keys are shorter than 8 characters)
+            long key = 0;
+            var length = 0;
+            byte b = 0;
+            while (datagram.hasRemaining() && (b = datagram.get()) != ':') {
+                if (b == ';' || b <= ' ') {
+                    key = 0;
+                    length = 0;
+                    continue;
+                }
+                key = (key << 8) | (b & 0xff);
+                length++;
+            }
+            if (b != ':') {
+                break;
+            }
+            if (length == 0 || length > Long.BYTES) {
+                // not a known key, the following fields are still parsed
+                skipValue(datagram);
+                continue;
+            }
+            var field = Field.of(key);
+            if (field == null) {
+                skipValue(datagram);
+                continue;
+            }
+            // read the value as a decimal number
+            var negative = false;
+            long mantissa = 0;
+            long scale = 1;
+            var fraction = false;
+            var digits = 0;
+            while (datagram.hasRemaining()) {
+                b = datagram.get(datagram.position());
+                if (b == '-' && digits == 0 && !negative) {
+                    negative = true;
+                } else if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (fraction) {
+                        scale *= 10;
+                    }
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+                datagram.position(datagram.position() + 1);
+            }
+            if (digits == 0) {
+                skipValue(datagram);
+                continue;
+            }
+            set(field, negative ? -mantissa : mantissa, scale);
+            parsed = true;
+            skipValue(datagram);
+        }
+        return parsed;
+    }
+
+    private static void skipValue(ByteBuffer datagram) {
+        while (datagram.hasRemaining() && datagram.get() != ';') {
+            // skip until the end of the field
+        }
+    }
+
+    private void set(Field field, long mantissa, long scale) {
+        var value = (float) mantissa / scale;
+        var integer = (int) (mantissa / scale);
+        switch (field) {
+            case MID -> mid = integer;
+            case X -> x = integer;
+            case Y -> y = integer;
+            case Z -> z = integer;
+            case PITCH -> pitch = integer;
+            case ROLL -> roll = integer;
+            case YAW -> yaw = integer;
+            case VGX -> vgx = integer;
+            case VGY -> vgy = integer;
+            case VGZ -> vgz = integer;
+            case TEMPL -> templ = integer;
+            case TEMPH -> temph = integer;
+            case TOF -> tof = integer;
+            case H -> h = integer;
+            case BAT -> bat = integer;
+            case BARO -> baro = value;
+            case TIME -> time = integer;
+            case AGX -> agx = value;
+            case AGY -> agy = value;
+            case AGZ -> agz = value;
+        }
+    }
+
+    /**
+     * Set the reception time of the sample
+     *
+     * @param timestamp {@link System#nanoTime()} when the datagram was received
+     */
+    void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Copy all fields of {@code other} into this sample
+     *
+     * @param other the sample to copy
+     */
+    public void copyFrom(@NonNull TelemetrySample other) {
+        timestamp = other.timestamp;
+        mid = other.mid;
+        x = other.x;
+        y = other.y;
+        z = other.z;
+        pitch = other.pitch;
+        roll = other.roll;
+        yaw = other.yaw;
+        vgx = other.vgx;
+        vgy = other.vgy;
+        vgz = other.vgz;
+        templ = other.templ;
+        temph = other.temph;
+        tof = other.tof;
+        h = other.h;
+        bat = other.bat;
+        baro = other.baro;
+        time = other.time;
+        agx = other.agx;
+        agy = other.agy;
+        agz = other.agz;
+    }
+
+    /**
+     * Set all fields at once
+     */
+    void set(long timestamp, int mid, int x, int y, int z, int pitch, int roll, int yaw, int vgx, int vgy, int vgz,
+             int templ, int temph, int tof, int h, int bat, float baro, int time, float agx, float agy, float agz) {
+        this.timestamp = timestamp;
+        this.mid = mid;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.pitch = pitch;
+        this.roll = roll;
+        this.yaw = yaw;
+        this.vgx = vgx;
+        this.vgy = vgy;
+        this.vgz = vgz;
+        this.templ = templ;
+        this.temph = temph;
+        this.tof = tof;
+        this.h = h;
+        this.bat = bat;
+        this.baro = baro;
+        this.time = time;
+        this.agx = agx;
+        this.agy = agy;
+        this.agz = agz;
+    }
+
+    /**
+     * Write the sample as a fixed-size binary record of {@link #BYTES} bytes at the position of {@code destination}
+     *
+     * @param destination buffer the record is written to
+     */
+    public void write(@NonNull ByteBuffer destination) {
+        destination.putLong(timestamp)
+                .putInt(mid).putInt(x).putInt(y).putInt(z)
+                .putInt(pitch).putInt(roll).putInt(yaw)
+                .putInt(vgx).putInt(vgy).putInt(vgz)
+                .putInt(templ).putInt(temph).putInt(tof).putInt(h).putInt(bat)
+                .putFloat(baro).putInt(time).putFloat(agx).putFloat(agy).putFloat(agz);
+    }
+
+    /**
+     * Read a binary record written by {@link #write(ByteBuffer)} starting at {@code offset}
+     *
+     * @param source buffer the record is read from
+     * @param offset absolute offset of the record
+     */
+    public void read(@NonNull ByteBuffer source, int offset) {
+        set(source.getLong(offset),
+                source.getInt(offset + 8), source.getInt(offset + 12), source.getInt(offset + 16), source.getInt(offset + 20),
+                source.getInt(offset + 24), source.getInt(offset + 28), source.getInt(offset + 32),
+                source.getInt(offset + 36), source.getInt(offset + 40), source.getInt(offset + 44),
+                source.getInt(offset + 48), source.getInt(offset + 52), source.getInt(offset + 56), source.getInt(offset + 60),
+                source.getInt(offset + 64), source.getFloat(offset + 68), source.getInt(offset + 72),
+                source.getFloat(offset + 76), source.getFloat(offset + 80), source.getFloat(offset + 84));
+    }
+
+    @Override
+    public String toString() {
+        return "TelemetrySample[mid=" + mid + ", x=" + x + ", y=" + y + ", z=" + z + ", pitch=" + pitch + ", roll=" + roll
+                + ", yaw=" + yaw + ", vgx=" + vgx + ", vgy=" + vgy + ", vgz=" + vgz + ", templ=" + templ + ", temph=" + temph
+                + ", tof=" + tof + ", h=" + h + ", bat=" + bat + ", baro=" + baro + ", time=" + time + ", agx=" + agx
+                + ", agy=" + agy + ", agz=" + agz + "]";
+    }
+
+    /**
+     * The fields of the state datagram that are parsed
+     */
+    private enum Field {
+        MID("mid"), X("x"), Y("y"), Z("z"), PITCH("pitch"), ROLL("roll"), YAW("yaw"), VGX("vgx"), VGY("vgy"), VGZ("vgz"),
+        TEMPL("templ"), TEMPH("temph"), TOF("tof"), H("h"), BAT("bat"), BARO("baro"), TIME("time"), AGX("agx"),
+        AGY("agy"), AGZ("agz");
+
+        private static final Field[] FIELDS = values();
+        private final long key;
+
+        Field(String name) {
+            long packed = 0;
+            for (var c : name.toCharArray()) {
+                packed = (packed << 8) | c;
+            }
+            key = packed;
+        }
+
+        static Field of(long key) {
+            for (var field : FIELDS) {
+                if (field.key == key) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+}
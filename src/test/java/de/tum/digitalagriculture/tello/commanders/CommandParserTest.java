@@ -0,0 +1,180 @@
+package de.tum.digitalagriculture.tello.commanders;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandParserTest {
+
+    private static CommandParser.ParseResult assertError(String input, CommandParser.ParseError error, int position) {
+        var result = CommandParser.parse(input);
+        assertFalse(result.isOk(), input);
+        assertNull(result.command(), input);
+        assertEquals(error, result.error(), input);
+        assertEquals(position, result.position(), input);
+        return result;
+    }
+
+    private static Commands.Command assertOk(String input) {
+        var result = CommandParser.parse(input);
+        assertTrue(result.isOk(), () -> input + ": " + result.message());
+        assertNull(result.error());
+        return result.command();
+    }
+
+    @Test
+    void parsesCommandsWithoutParameters() {
+        assertSame(Commands.Init.INSTANCE, assertOk("command"));
+        assertSame(Commands.TakeOff.INSTANCE, assertOk("takeoff"));
+        assertSame(Commands.Land.INSTANCE, assertOk("land"));
+        assertSame(Commands.StreamOn.INSTANCE, assertOk("streamon"));
+        assertSame(Commands.StreamOff.INSTANCE, assertOk("streamoff"));
+        assertSame(Commands.Emergency.INSTANCE, assertOk("emergency"));
+        assertSame(Commands.Stop.INSTANCE, assertOk("stop"));
+        assertSame(Commands.ReadSpeed.INSTANCE, assertOk("speed?"));
+        assertSame(Commands.ReadBattery.INSTANCE, assertOk("battery?"));
+        assertSame(Commands.ReadTime.INSTANCE, assertOk("time?"));
+        assertSame(Commands.ReadWifi.INSTANCE, assertOk("wifi?"));
+    }
+
+    @Test
+    void parsesParametersSeparatedByBlanks() {
+        var go = (Commands.Go) assertOk(" \tgo  -100 +50\t0 60 \r\n");
+        assertArrayEquals(new Integer[]{-100, 50, 0, 60}, go.getParams());
+        var flip = (Commands.Flip) assertOk("flip b");
+        assertEquals('b', flip.getX());
+        assertEquals("curve 30 0 0 60 60 0 40", assertOk("curve 30 0 0 60 60 0 40").toString());
+        assertEquals("rc -100 0 100 5", assertOk("rc -100 0 100 5").toString());
+    }
+
+    @Test
+    void parsesByteBuffersFromTheirPosition() {
+        var bytes = "xxforward 120".getBytes(StandardCharsets.US_ASCII);
+        var buffer = ByteBuffer.wrap(bytes).position(2);
+        var result = CommandParser.parse(buffer);
+        assertTrue(result.isOk());
+        assertEquals(120, ((Commands.Forward) result.command()).getX());
+        assertEquals(2, buffer.position());
+
+        var error = CommandParser.parse(ByteBuffer.wrap("xxforward 12".getBytes(StandardCharsets.US_ASCII)).position(2));
+        assertEquals(CommandParser.ParseError.OUT_OF_RANGE, error.error());
+        assertEquals(8, error.position());
+    }
+
+    @Test
+    void reportsEmptyInput() {
+        assertError("", CommandParser.ParseError.EMPTY, 0);
+        assertError(" \t ", CommandParser.ParseError.EMPTY, 3);
+    }
+
+    @Test
+    void reportsUnknownCommands() {
+        assertError("hover", CommandParser.ParseError.UNKNOWN_COMMAND, 0);
+        assertError("  TAKEOFF", CommandParser.ParseError.UNKNOWN_COMMAND, 2);
+        assertError("forwards 20", CommandParser.ParseError.UNKNOWN_COMMAND, 0);
+        assertError("speed", CommandParser.ParseError.MISSING_PARAMETER, 5);
+    }
+
+    @Test
+    void reportsMissingParameters() {
+        assertError("up", CommandParser.ParseError.MISSING_PARAMETER, 2);
+        assertError("go 100 100 100 ", CommandParser.ParseError.MISSING_PARAMETER, 15);
+        assertError("flip", CommandParser.ParseError.MISSING_PARAMETER, 4);
+    }
+
+    @Test
+    void reportsTooManyParameters() {
+        assertError("land now", CommandParser.ParseError.TOO_MANY_PARAMETERS, 5);
+        assertError("cw 90 90", CommandParser.ParseError.TOO_MANY_PARAMETERS, 6);
+    }
+
+    @Test
+    void reportsInvalidNumbers() {
+        assertError("up 2O", CommandParser.ParseError.INVALID_NUMBER, 3);
+        assertError("up -", CommandParser.ParseError.INVALID_NUMBER, 3);
+        assertError("up 1.5", CommandParser.ParseError.INVALID_NUMBER, 3);
+        assertError("go 100 1e2 100 50", CommandParser.ParseError.INVALID_NUMBER, 7);
+    }
+
+    @Test
+    void reportsInvalidDirections() {
+        assertError("flip x", CommandParser.ParseError.INVALID_DIRECTION, 5);
+        assertError("flip lr", CommandParser.ParseError.INVALID_DIRECTION, 5);
+    }
+
+    @Test
+    void reportsTooCloseCoordinates() {
+        assertError("go 20 -20 0 50", CommandParser.ParseError.TOO_CLOSE, 3);
+        assertOk("go 21 -20 0 50");
+        assertError("curve 0 0 0 100 100 0 30", CommandParser.ParseError.TOO_CLOSE, 6);
+        assertError("curve 100 100 0 20 20 -20 30", CommandParser.ParseError.TOO_CLOSE, 6);
+        assertOk("curve 100 100 0 20 20 -21 30");
+    }
+
+    @Test
+    void enforcesTheRangesOfTheSdk() {
+        for (var keyword : new String[]{"up", "down", "left", "right", "forward", "back"}) {
+            assertOk(keyword + " 20");
+            assertOk(keyword + " 500");
+            assertError(keyword + " 19", CommandParser.ParseError.OUT_OF_RANGE, keyword.length() + 1);
+            assertError(keyword + " 501", CommandParser.ParseError.OUT_OF_RANGE, keyword.length() + 1);
+        }
+        for (var keyword : new String[]{"cw", "ccw"}) {
+            assertOk(keyword + " 1");
+            assertOk(keyword + " 360");
+            assertError(keyword + " 0", CommandParser.ParseError.OUT_OF_RANGE, keyword.length() + 1);
+            assertError(keyword + " 361", CommandParser.ParseError.OUT_OF_RANGE, keyword.length() + 1);
+        }
+        assertOk("speed 10");
+        assertOk("speed 100");
+        assertError("speed 9", CommandParser.ParseError.OUT_OF_RANGE, 6);
+        assertError("speed 101", CommandParser.ParseError.OUT_OF_RANGE, 6);
+
+        assertOk("go -500 500 0 10");
+        assertOk("go 500 0 0 100");
+        assertError("go -501 0 0 50", CommandParser.ParseError.OUT_OF_RANGE, 3);
+        assertError("go 100 0 0 9", CommandParser.ParseError.OUT_OF_RANGE, 11);
+        assertError("go 100 0 0 101", CommandParser.ParseError.OUT_OF_RANGE, 11);
+
+        assertOk("curve 500 0 0 -500 0 0 10");
+        assertOk("curve 100 0 0 0 100 0 60");
+        assertError("curve 100 0 0 0 501 0 30", CommandParser.ParseError.OUT_OF_RANGE, 16);
+        assertError("curve 100 0 0 0 100 0 61", CommandParser.ParseError.OUT_OF_RANGE, 22);
+
+        assertOk("rc -100 100 -100 100");
+        assertError("rc 0 0 0 101", CommandParser.ParseError.OUT_OF_RANGE, 9);
+        assertError("rc -101 0 0 0", CommandParser.ParseError.OUT_OF_RANGE, 3);
+    }
+
+    @Test
+    void rejectsNumbersWithTooManyDigits() {
+        assertOk("forward 000000500");
+        assertError("forward 0000000500", CommandParser.ParseError.OUT_OF_RANGE, 8);
+        assertError("forward 99999999999", CommandParser.ParseError.OUT_OF_RANGE, 8);
+    }
+
+    @Test
+    void messageContainsTheDescriptionAndPosition() {
+        var result = assertError("up 600", CommandParser.ParseError.OUT_OF_RANGE, 3);
+        assertEquals("Parameter is out of range at position 3", result.message());
+        assertEquals("ok", CommandParser.parse("land").message());
+    }
+
+    @Test
+    void validatesCommandsThatWereNotParsed() {
+        assertTrue(CommandParser.validate(new Commands.Forward(20)).isOk());
+        assertEquals(CommandParser.ParseError.OUT_OF_RANGE, CommandParser.validate(new Commands.Forward(19)).error());
+        assertEquals(CommandParser.ParseError.TOO_CLOSE, CommandParser.validate(new Commands.Go(0, 0, 0, 50)).error());
+        assertEquals(CommandParser.ParseError.INVALID_DIRECTION, CommandParser.validate(new Commands.Flip('u')).error());
+        assertTrue(CommandParser.validate(Commands.ReadBattery.INSTANCE).isOk());
+        var curve = CommandParser.validate(new Commands.Curve(50, 0, 0, 10, 10, 10, 30));
+        assertEquals(CommandParser.ParseError.TOO_CLOSE, curve.error());
+        assertEquals(3, curve.position());
+        var rc = CommandParser.validate(new Commands.Rc(0, 0, 101, 0));
+        assertEquals(CommandParser.ParseError.OUT_OF_RANGE, rc.error());
+        assertEquals(2, rc.position());
+    }
+}
@@ -0,0 +1,180 @@
+package de.tum.digitalagriculture.tello.commanders;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MissionFileTest {
+    private static final List<Commands.Command> MISSION = List.of(
+            Commands.Init.INSTANCE,
+            Commands.TakeOff.INSTANCE,
+            new Commands.Up(50),
+            new Commands.Forward(500),
+            new Commands.ClockWise(90),
+            new Commands.Flip('l'),
+            new Commands.Go(-100, 20, 0, 60),
+            new Commands.Curve(30, 0, 0, 60, 60, 0, 40),
+            new Commands.Rc(-100, 0, 100, 5),
+            Commands.ReadBattery.INSTANCE,
+            Commands.Land.INSTANCE);
+
+    @TempDir
+    Path directory;
+
+    private static List<String> readAll(MissionFile file) {
+        var commands = new ArrayList<String>();
+        file.forEachRemaining(command -> commands.add(command.toString()));
+        return commands;
+    }
+
+    private static List<String> strings(List<Commands.Command> commands) {
+        return commands.stream().map(Commands.Command::toString).toList();
+    }
+
+    private Path write(MissionFile.Format format, List<Commands.Command> commands) throws IOException {
+        var path = directory.resolve("mission." + format.name().toLowerCase());
+        MissionFile.write(path, format, commands.iterator());
+        return path;
+    }
+
+    private Path binary(byte... records) throws IOException {
+        var path = directory.resolve("raw.bin");
+        var buffer = ByteBuffer.allocate(8 + records.length);
+        buffer.putInt(MissionFile.MAGIC).putShort((short) 1).putShort((short) 0).put(records).flip();
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            channel.write(buffer);
+        }
+        return path;
+    }
+
+    @Test
+    void roundTripsTheTextFormat() throws IOException {
+        var path = write(MissionFile.Format.TEXT, MISSION);
+        assertEquals(strings(MISSION), Files.readAllLines(path));
+        try (var file = new MissionFile(path)) {
+            assertEquals(MissionFile.Format.TEXT, file.getFormat());
+            assertEquals(strings(MISSION), readAll(file));
+            assertFalse(file.hasNext());
+            assertThrows(NoSuchElementException.class, file::next);
+        }
+    }
+
+    @Test
+    void roundTripsTheBinaryFormat() throws IOException {
+        var path = write(MissionFile.Format.BINARY, MISSION);
+        try (var file = new MissionFile(path)) {
+            assertEquals(MissionFile.Format.BINARY, file.getFormat());
+            assertEquals(strings(MISSION), readAll(file));
+        }
+    }
+
+    @Test
+    void restartSeeksBackToTheFirstCommand() throws IOException {
+        for (var format : MissionFile.Format.values()) {
+            try (var file = new MissionFile(write(format, MISSION))) {
+                file.next();
+                file.next();
+                file.restart();
+                assertEquals(strings(MISSION), readAll(file), format.name());
+                file.restart();
+                assertEquals(strings(MISSION), readAll(file), format.name());
+            }
+        }
+    }
+
+    @Test
+    void readsMissionsLongerThanTheBuffer() throws IOException {
+        var mission = IntStream.range(0, 1000).<Commands.Command>mapToObj(i -> new Commands.Forward(20 + i % 481)).toList();
+        for (var format : MissionFile.Format.values()) {
+            try (var file = new MissionFile(write(format, mission), 64)) {
+                assertEquals(strings(mission), readAll(file), format.name());
+            }
+        }
+    }
+
+    @Test
+    void skipsBlankLinesAndComments() throws IOException {
+        var path = directory.resolve("mission.txt");
+        Files.writeString(path, "# survey\n\ncommand\r\n  \t\n  # climb\nup 20\nland");
+        try (var file = new MissionFile(path)) {
+            assertEquals(List.of("command", "up 20", "land"), readAll(file));
+        }
+    }
+
+    @Test
+    void rejectsLinesLongerThanTheBuffer() throws IOException {
+        var path = directory.resolve("mission.txt");
+        Files.writeString(path, "takeoff\n#" + "x".repeat(100) + "\nland\n");
+        try (var file = new MissionFile(path, 64)) {
+            assertEquals("takeoff", file.next().toString());
+            var exception = assertThrows(IOException.class, file::hasNext);
+            assertTrue(exception.getMessage().contains("Line 2"), exception.getMessage());
+        }
+    }
+
+    @Test
+    void reportsTheLineOfInvalidCommands() throws IOException {
+        var path = directory.resolve("mission.txt");
+        Files.writeString(path, "takeoff\nforward 600\n");
+        try (var file = new MissionFile(path)) {
+            file.next();
+            var exception = assertThrows(IllegalStateException.class, file::next);
+            assertTrue(exception.getMessage().contains(":2: Parameter is out of range"), exception.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedRecords() throws IOException {
+        var path = write(MissionFile.Format.BINARY, List.of(Commands.TakeOff.INSTANCE, new Commands.Go(100, 0, 0, 50)));
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        try (var file = new MissionFile(path)) {
+            assertSame(Commands.TakeOff.INSTANCE, file.next());
+            var exception = assertThrows(IllegalStateException.class, file::next);
+            assertTrue(exception.getMessage().contains("truncated"), exception.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsUnknownOpcodes() throws IOException {
+        try (var file = new MissionFile(binary((byte) 1, (byte) 100))) {
+            assertSame(Commands.TakeOff.INSTANCE, file.next());
+            var exception = assertThrows(IllegalStateException.class, file::next);
+            assertTrue(exception.getMessage().contains("unknown opcode 100 at offset 9"), exception.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsBinaryRecordsOutOfRange() throws IOException {
+        // forward 600 and go 0 0 0 50, which the text format rejects as well
+        try (var file = new MissionFile(binary((byte) 15, (byte) 0x02, (byte) 0x58))) {
+            var exception = assertThrows(IllegalStateException.class, file::next);
+            assertTrue(exception.getMessage().contains("out of range in record at offset 8"), exception.getMessage());
+        }
+        try (var file = new MissionFile(binary((byte) 22, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 50))) {
+            assertThrows(IllegalStateException.class, file::next);
+        }
+    }
+
+    @Test
+    void writeRejectsCommandsOutOfRange() {
+        for (var format : MissionFile.Format.values()) {
+            var mission = List.<Commands.Command>of(Commands.TakeOff.INSTANCE, new Commands.Forward(70000));
+            var exception = assertThrows(IllegalArgumentException.class, () -> write(format, mission));
+            assertTrue(exception.getMessage().contains("forward 70000"), exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package de.tum.digitalagriculture.tello.commanders;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimizingCommanderTest {
+
+    private static List<String> optimize(int speed, boolean curves, String... mission) {
+        var commands = Arrays.stream(mission).map(Commands.Command::parse).toArray(Commands.Command[]::new);
+        var optimizer = OptimizingCommander.builder().source(new PathCommander(commands)).speed(speed).curves(curves).build();
+        var output = new ArrayList<String>();
+        optimizer.forEachRemaining(command -> output.add(command.toString()));
+        for (var command : output) {
+            assertTrue(CommandParser.parse(command).isOk(), () -> command + " is not a valid command");
+        }
+        return output;
+    }
+
+    private static List<String> optimize(int speed, String... mission) {
+        return optimize(speed, false, mission);
+    }
+
+    private static List<String> optimize(String... mission) {
+        return optimize(50, mission);
+    }
+
+    private static List<String> optimizeWithCurves(String... mission) {
+        return optimize(50, true, mission);
+    }
+
+    @Test
+    void dropsRotationsThatCancel() {
+        assertEquals(List.of("land"), optimize("cw 90", "ccw 90", "land"));
+        assertEquals(List.of(), optimize("cw 180", "cw 180"));
+    }
+
+    @Test
+    void mergesConsecutiveRotations() {
+        assertEquals(List.of("cw 90"), optimize("cw 90", "cw 90", "cw 270"));
+        assertEquals(List.of("ccw 60"), optimize("cw 200", "cw 100"));
+        assertEquals(List.of("ccw 30", "land"), optimize("ccw 10", "ccw 20", "land"));
+    }
+
+    @Test
+    void keepsASingleFullTurn() {
+        assertEquals(List.of("cw 360"), optimize("cw 360"));
+    }
+
+    @Test
+    void doesNotMoveCommandsAcrossBarriers() {
+        assertEquals(List.of("forward 100", "cw 90", "forward 100"), optimize("forward 100", "cw 90", "forward 100"));
+        assertEquals(List.of("forward 100", "battery?", "forward 100"), optimize("forward 100", "battery?", "forward 100"));
+        assertEquals(List.of("cw 90", "flip l", "cw 90"), optimize("cw 90", "flip l", "cw 90"));
+    }
+
+    @Test
+    void mergesCollinearMoves() {
+        assertEquals(List.of("go 250 0 0 50"), optimize("forward 100", "forward 150"));
+        assertEquals(List.of("go 0 -300 0 50"), optimize("right 100", "right 100", "right 100"));
+        assertEquals(List.of("go 100 0 0 50", "land"), optimize("forward 300", "back 200", "land"));
+    }
+
+    @Test
+    void dropsMovesThatCancel() {
+        assertEquals(List.of("land"), optimize("forward 100", "back 100", "land"));
+        assertEquals(List.of(), optimize("up 50", "down 50"));
+    }
+
+    @Test
+    void foldsVerticalMovesIntoGo() {
+        assertEquals(List.of("go 100 0 50 50"), optimize("forward 100", "up 50"));
+        assertEquals(List.of("go 0 80 -30 50"), optimize("down 30", "left 80"));
+        assertEquals(List.of("speed 30", "go 100 0 50 30"), optimize("speed 30", "forward 100", "up 50"));
+    }
+
+    @Test
+    void clampsTheSpeedOfMergedMoves() {
+        assertEquals(List.of("go 250 0 0 10"), optimize(5, "forward 100", "forward 150"));
+        assertEquals(List.of("go 250 0 0 100"), optimize(200, "forward 100", "forward 150"));
+    }
+
+    @Test
+    void keepsCornersByDefault() {
+        assertEquals(List.of("forward 100", "left 100"), optimize("forward 100", "left 100"));
+        assertFalse(new OptimizingCommander(new PathCommander()).isCurves());
+    }
+
+    @Test
+    void fliesCornersAsCurvesIfEnabled() {
+        assertEquals(List.of("curve 100 0 0 100 100 0 50"), optimizeWithCurves("forward 100", "left 100"));
+        assertEquals(List.of("speed 100", "curve 100 0 0 100 100 0 60"), optimizeWithCurves("speed 100", "forward 100", "left 100"));
+        assertEquals(List.of("curve 100 0 0 100 100 0 50", "back 100"), optimizeWithCurves("forward 100", "left 100", "back 100"));
+    }
+
+    @Test
+    void fliesCornersSeparatelyIfTheRadiusIsOutOfRange() {
+        // radius of about 21 cm
+        assertEquals(List.of("forward 30", "left 30"), optimizeWithCurves("forward 30", "left 30"));
+        // radius of about 100 m
+        assertEquals(List.of("forward 300", "go 200 5 0 50"), optimizeWithCurves("forward 300", "go 200 5 0 50"));
+    }
+
+    @Test
+    void fliesMovesSeparatelyIfTheMergedMoveIsOutOfRange() {
+        // 600 cm is longer than a go command can fly, addLeg keeps both moves
+        assertEquals(List.of("forward 300", "forward 300"), optimize("forward 300", "forward 300"));
+        assertEquals(List.of("up 300", "up 300", "land"), optimize("up 300", "up 300", "land"));
+        // x, y and z within 20 cm cannot be flown with go
+        assertEquals(List.of("up 20", "forward 20"), optimize("up 20", "forward 20"));
+        // the move that was kept still merges with the next one
+        assertEquals(List.of("forward 300", "go 400 0 0 50"), optimize("forward 300", "forward 300", "forward 100"));
+    }
+
+    @Test
+    void estimatesTheSavedCommands() {
+        var optimizer = OptimizingCommander.analyze(List.of(
+                Commands.TakeOff.INSTANCE,
+                new Commands.Forward(100), new Commands.Forward(150),
+                new Commands.ClockWise(90), new Commands.CounterClockWise(90),
+                Commands.Land.INSTANCE).iterator());
+        assertFalse(optimizer.hasNext());
+        assertEquals(6, optimizer.getOriginal().getCommands());
+        assertEquals(3, optimizer.getOptimized().getCommands());
+        assertTrue(optimizer.getOptimized().getSeconds() < optimizer.getOriginal().getSeconds());
+    }
+}
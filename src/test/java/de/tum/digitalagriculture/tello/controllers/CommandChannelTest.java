@@ -0,0 +1,221 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.metrics.MetricsRegistry;
+import de.tum.digitalagriculture.tello.simulation.StandInDrone;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@link CommandChannel} against a {@link StandInDrone} whose link loses or delays datagrams, and against a
+ * socket of the test that answers with scripted responses. The outcomes are checked with the commands the drone
+ * received and the counters of a registry per test
+ */
+class CommandChannelTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private StandInDrone drone;
+    private CommandChannel channel;
+    private DatagramChannel scripted;
+    /**
+     * Address the commands to the scripted drone came from
+     */
+    private SocketAddress controller;
+
+    private CommandChannel connect(long motionDelayMillis, CommandPolicy policy) throws IOException {
+        drone = new StandInDrone(motionDelayMillis, TimeUnit.MILLISECONDS);
+        var socket = DatagramChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        channel = new CommandChannel(socket, drone.getAddress(), policy, registry);
+        return channel;
+    }
+
+    /**
+     * Connect to a socket of the test instead of a stand-in, the test receives the commands and sends the responses
+     */
+    private DatagramChannel scriptedDrone() throws IOException {
+        scripted = DatagramChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        var socket = DatagramChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        channel = new CommandChannel(socket, (InetSocketAddress) scripted.getLocalAddress(), CommandPolicy.DEFAULT, registry);
+        return scripted;
+    }
+
+    private String receive(DatagramChannel drone) throws IOException {
+        var buffer = ByteBuffer.allocate(1024);
+        controller = drone.receive(buffer);
+        return StandardCharsets.US_ASCII.decode(buffer.flip()).toString();
+    }
+
+    private void reply(DatagramChannel drone, String response) throws IOException {
+        drone.send(ByteBuffer.wrap(response.getBytes(StandardCharsets.US_ASCII)), controller);
+    }
+
+    private static void assertFails(Class<? extends Throwable> type, CompletableFuture<Result> future) {
+        var exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(type.isInstance(exception.getCause()), () -> "failed with " + exception.getCause());
+    }
+
+    private long counter(String name) {
+        return registry.counter(name).get();
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        if (channel != null) {
+            channel.close();
+        }
+        if (drone != null) {
+            drone.close();
+        }
+        if (scripted != null) {
+            scripted.close();
+        }
+    }
+
+    @Test
+    void completesCommandsAndQueries() throws Exception {
+        var channel = connect(5, CommandPolicy.DEFAULT);
+        var motion = channel.submit(new Commands.Forward(50));
+        var battery = channel.submit(Commands.ReadBattery.INSTANCE);
+        assertEquals(87, battery.get(5, TimeUnit.SECONDS).reading());
+        assertEquals(Result.ResultEnum.OK, motion.get(5, TimeUnit.SECONDS).result());
+    }
+
+    @Test
+    void failsCommandsAfterTheirDeadline() throws Exception {
+        var channel = connect(0, CommandPolicy.builder().queryTimeout(Duration.ofMillis(50)).queryRetries(0).build());
+        // the reading arrives long after the deadline, only the deadline can complete the query
+        drone.setLatency(500, 0, TimeUnit.MILLISECONDS);
+        assertFails(TimeoutException.class, channel.submit(Commands.ReadBattery.INSTANCE));
+        assertEquals(1, drone.getReceived());
+        assertEquals(1, counter("command.timeouts"));
+        assertEquals(0, counter("command.retries"));
+    }
+
+    @Test
+    void retriesLostQueries() throws Exception {
+        var channel = connect(0, CommandPolicy.builder().queryTimeout(Duration.ofMillis(100)).build());
+        drone.dropNext(1);
+        assertEquals(87, channel.submit(Commands.ReadBattery.INSTANCE).get(5, TimeUnit.SECONDS).reading());
+        assertEquals(1, drone.getDropped());
+        assertEquals(2, drone.getReceived());
+        assertEquals(1, counter("command.retries"));
+        assertEquals(0, counter("command.timeouts"));
+    }
+
+    @Test
+    void doesNotRetryMotionCommands() throws Exception {
+        var channel = connect(0, CommandPolicy.builder()
+                .motionTimeout(Duration.ofMillis(100))
+                .staleWindow(Duration.ofMillis(50))
+                .build());
+        drone.dropNext(1);
+        assertFails(TimeoutException.class, channel.submit(new Commands.Forward(50)));
+        // the motion lock is released after the stale window
+        assertEquals(Result.ResultEnum.OK, channel.submit(new Commands.Back(50)).get(5, TimeUnit.SECONDS).result());
+        // a retry of forward would have reached the drone before back
+        assertEquals(2, drone.getReceived());
+        assertEquals(0, counter("command.retries"));
+        assertEquals(1, counter("command.timeouts"));
+    }
+
+    @Test
+    void discardsTheLateResponseOfAnExpiredMotionCommand() throws Exception {
+        // the drone acknowledges motions after 150 ms, forward gives up after 50 ms
+        var channel = connect(150, CommandPolicy.builder()
+                .motionTimeout(Duration.ofMillis(50))
+                .staleWindow(Duration.ofMillis(300))
+                .timeout(Commands.Back.class, Duration.ofSeconds(2))
+                .build());
+        var forward = channel.submit(new Commands.Forward(50));
+        var back = channel.submit(new Commands.Back(50));
+        assertFails(TimeoutException.class, forward);
+        assertEquals(Result.ResultEnum.OK, back.get(5, TimeUnit.SECONDS).result());
+        // the ok of forward arrived within the stale window and was not taken for the ok of back
+        assertEquals(2, drone.getReceived());
+        assertEquals(1, counter("command.stale"));
+        assertEquals(0, counter("command.unsolicited"));
+    }
+
+    @Test
+    void aLostQueryDoesNotDelayLaterQueries() throws Exception {
+        var channel = connect(0, CommandPolicy.builder()
+                .queryTimeout(Duration.ofMillis(100))
+                .retryBackoff(Duration.ofMillis(10))
+                .staleWindow(Duration.ofSeconds(2))
+                .build());
+        drone.dropNext(1);
+        assertEquals(87, channel.submit(Commands.ReadBattery.INSTANCE).get(5, TimeUnit.SECONDS).reading());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(100, channel.submit(Commands.ReadSpeed.INSTANCE).get(5, TimeUnit.SECONDS).reading());
+        }
+        // only the lost query was sent twice
+        assertEquals(12, drone.getReceived());
+        assertEquals(1, counter("command.retries"));
+        assertEquals(0, counter("command.stale"));
+    }
+
+    @Test
+    void sendsEmergencyPastARunningMotionCommand() throws Exception {
+        var channel = connect(10_000, CommandPolicy.DEFAULT);
+        var motion = channel.submit(new Commands.Forward(50));
+        var queued = channel.submit(new Commands.Back(50));
+        assertEquals(Result.ResultEnum.OK, channel.submit(Commands.Emergency.INSTANCE).get(5, TimeUnit.SECONDS).result());
+        assertEquals(Result.ResultEnum.OK, channel.submit(Commands.Stop.INSTANCE).get(5, TimeUnit.SECONDS).result());
+        assertFalse(motion.isDone());
+        assertFalse(queued.isDone());
+    }
+
+    @Test
+    void matchesAnErrorToTheRunningMotionCommand() throws Exception {
+        var drone = scriptedDrone();
+        var query = channel.submit(Commands.ReadBattery.INSTANCE);
+        assertEquals("battery?", receive(drone));
+        var motion = channel.submit(new Commands.Forward(50));
+        assertEquals("forward 50", receive(drone));
+        reply(drone, "error Motor stop");
+        assertEquals(Result.ResultEnum.ERROR, motion.get(5, TimeUnit.SECONDS).result());
+        assertFalse(query.isDone());
+        reply(drone, "87");
+        assertEquals(87, query.get(5, TimeUnit.SECONDS).reading());
+    }
+
+    @Test
+    void doesNotCompleteAMotionCommandWithAReading() throws Exception {
+        var drone = scriptedDrone();
+        var motion = channel.submit(new Commands.Forward(50));
+        assertEquals("forward 50", receive(drone));
+        reply(drone, "87");
+        // a query sent after the reading is answered after it, so the reading was handled
+        var query = channel.submit(Commands.ReadSpeed.INSTANCE);
+        assertEquals("speed?", receive(drone));
+        reply(drone, "100");
+        assertEquals(100, query.get(5, TimeUnit.SECONDS).reading());
+        assertFalse(motion.isDone());
+        assertEquals(1, counter("command.unsolicited"));
+        reply(drone, "ok");
+        assertEquals(Result.ResultEnum.OK, motion.get(5, TimeUnit.SECONDS).result());
+    }
+
+    @Test
+    void failsPendingCommandsOnClose() throws Exception {
+        var channel = connect(1000, CommandPolicy.DEFAULT);
+        var motion = channel.submit(new Commands.Forward(50));
+        channel.close();
+        assertFails(ClosedChannelException.class, motion);
+        assertFails(ClosedChannelException.class, channel.submit(Commands.ReadBattery.INSTANCE));
+    }
+}
@@ -0,0 +1,102 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@link RcLoop} against a transport that records the sent datagrams
+ */
+class RcLoopTest {
+    private static final String HOVER = "rc 0 0 0 0";
+
+    private final LinkedBlockingQueue<String> sent = new LinkedBlockingQueue<>();
+    /**
+     * Name of a thread other than the loop thread that sent a datagram
+     */
+    private volatile String otherSender;
+    private RcLoop loop;
+
+    private RcLoop start(long holdMillis) {
+        loop = new RcLoop(datagram -> {
+            if (!Thread.currentThread().getName().equals("tello-rc")) {
+                otherSender = Thread.currentThread().getName();
+            }
+            sent.add(StandardCharsets.US_ASCII.decode(datagram).toString());
+        }, 50, holdMillis);
+        return loop;
+    }
+
+    /**
+     * Skip the sent datagrams until {@code expected} is sent
+     */
+    private void awaitSent(String expected) throws InterruptedException {
+        String datagram;
+        do {
+            datagram = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(datagram, () -> expected + " was not sent");
+        } while (!datagram.equals(expected));
+    }
+
+    @AfterEach
+    void close() throws InterruptedException {
+        if (loop != null) {
+            loop.close();
+        }
+        // the buffer of the loop is not thread safe, only the loop thread may send
+        assertNull(otherSender);
+    }
+
+    @Test
+    void hoversUntilASetpointIsSet() throws InterruptedException {
+        start(10_000);
+        assertEquals(HOVER, sent.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void clampsTheChannels() throws InterruptedException {
+        var loop = start(10_000);
+        loop.set(150, -150, 50, -101);
+        awaitSent("rc 100 -100 50 -100");
+        loop.set(-100, 100, 0, 7);
+        awaitSent("rc -100 100 0 7");
+    }
+
+    @Test
+    void hoversIfTheSetpointIsNotUpdated() throws InterruptedException {
+        var loop = start(100);
+        loop.set(10, 20, -30, 40);
+        awaitSent("rc 10 20 -30 40");
+        awaitSent(HOVER);
+        // the stale setpoint is not sent again
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HOVER, sent.poll(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void hoversOnClose() throws InterruptedException {
+        var loop = start(10_000);
+        loop.set(10, 20, 30, 40);
+        awaitSent("rc 10 20 30 40");
+        loop.close();
+        assertFalse(loop.isRunning());
+        String last = null;
+        for (var datagram = sent.poll(); datagram != null; datagram = sent.poll()) {
+            last = datagram;
+        }
+        assertEquals(HOVER, last);
+        assertTrue(loop.getJitter().ticks() > 0);
+    }
+
+    @Test
+    void rejectsRatesOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new RcLoop(datagram -> fail(), 0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new RcLoop(datagram -> fail(), 51, 100));
+    }
+}
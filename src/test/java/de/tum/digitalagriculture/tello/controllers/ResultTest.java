@@ -0,0 +1,120 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultTest {
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void assertReading(String response, int reading, String text) {
+        var result = Result.of(Commands.ReadBattery.INSTANCE, response);
+        assertEquals(Result.ResultEnum.READING, result.result(), response);
+        assertTrue(result.hasReading());
+        assertEquals(reading, result.reading(), response);
+        assertEquals(text, result.response(), response);
+    }
+
+    private static void assertError(Commands.Command command, String response, String text) {
+        var result = Result.of(command, response);
+        assertEquals(Result.ResultEnum.ERROR, result.result(), response);
+        assertFalse(result.hasReading());
+        assertEquals(Result.NO_READING, result.reading(), response);
+        assertEquals(text, result.response(), response);
+    }
+
+    @Test
+    void parsesOk() {
+        for (var response : new String[]{"ok", "OK", " ok\r\n", "ok\0\0"}) {
+            for (var command : new Commands.Command[]{new Commands.Forward(20), Commands.Init.INSTANCE, Commands.ReadSpeed.INSTANCE}) {
+                var result = Result.of(command, response);
+                assertEquals(Result.ResultEnum.OK, result.result(), response);
+                assertEquals("ok", result.response());
+                assertEquals(Result.NO_READING, result.reading());
+            }
+        }
+    }
+
+    @Test
+    void parsesReadings() {
+        assertReading("87", 87, "87");
+        assertReading("87\r\n", 87, "87");
+        assertReading("0", 0, "0");
+        assertReading("-5", -5, "-5");
+        assertReading("1500", 1500, "1500");
+        assertReading("999999999", 999999999, "999999999");
+    }
+
+    @Test
+    void sharesTheResponsesOfSmallReadings() {
+        assertSame(Result.of(Commands.ReadWifi.INSTANCE, "90").response(), Result.of(Commands.ReadBattery.INSTANCE, "90\n").response());
+    }
+
+    @Test
+    void truncatesFractionsAndSkipsUnits() {
+        assertReading("100.0", 100, "100.0");
+        assertReading("12.75", 12, "12.75");
+        assertReading("0s", 0, "0s");
+        assertReading("12s", 12, "12s");
+        assertReading("10.5cm", 10, "10.5cm");
+        assertReading("80dm", 80, "80dm");
+    }
+
+    @Test
+    void rejectsMalformedReadings() {
+        assertError(Commands.ReadTime.INSTANCE, "12 s", "12 s");
+        assertError(Commands.ReadTime.INSTANCE, "1.2.3", "1.2.3");
+        assertError(Commands.ReadSpeed.INSTANCE, "10cm/s", "10cm/s");
+        assertError(Commands.ReadTime.INSTANCE, "-", "-");
+        assertError(Commands.ReadTime.INSTANCE, ".5", ".5");
+        assertError(Commands.ReadTime.INSTANCE, "", "");
+    }
+
+    @Test
+    void rejectsReadingsWithMoreThanNineDigits() {
+        assertError(Commands.ReadBattery.INSTANCE, "1234567890", "1234567890");
+        assertError(Commands.ReadBattery.INSTANCE, "2147483648", "2147483648");
+        assertError(Commands.ReadBattery.INSTANCE, "-99999999999", "-99999999999");
+    }
+
+    @Test
+    void parsesErrors() {
+        assertError(new Commands.Forward(20), "out of range", "out of range");
+        assertError(Commands.ReadBattery.INSTANCE, "out of range\r\n", "out of range");
+        assertError(Commands.TakeOff.INSTANCE, "error", "error");
+        assertError(Commands.TakeOff.INSTANCE, "error Motor stop", "error Motor stop");
+        // a number is only a success for a query
+        assertError(new Commands.Forward(20), "87", "87");
+    }
+
+    @Test
+    void doesNotMoveThePositionOfTheBuffer() {
+        var buffer = ascii("xx87\r\n").position(2);
+        var result = Result.of(Commands.ReadSpeed.INSTANCE, buffer);
+        assertEquals(87, result.reading());
+        assertEquals(2, buffer.position());
+        assertEquals(Result.ResultEnum.READING, Result.classify(buffer));
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    void classifiesResponsesWithoutTheCommand() {
+        assertEquals(Result.ResultEnum.OK, Result.classify(ascii("ok")));
+        assertEquals(Result.ResultEnum.OK, Result.classify(ascii(" OK\r\n")));
+        assertEquals(Result.ResultEnum.READING, Result.classify(ascii("87")));
+        assertEquals(Result.ResultEnum.READING, Result.classify(ascii("0s")));
+        assertEquals(Result.ResultEnum.READING, Result.classify(ascii("-5")));
+        assertEquals(Result.ResultEnum.READING, Result.classify(ascii("12345678901")));
+        assertEquals(Result.ResultEnum.ERROR, Result.classify(ascii("out of range")));
+        assertEquals(Result.ResultEnum.ERROR, Result.classify(ascii("error")));
+        assertEquals(Result.ResultEnum.ERROR, Result.classify(ascii("okay")));
+        assertEquals(Result.ResultEnum.ERROR, Result.classify(ascii("\r\n")));
+    }
+}
@@ -0,0 +1,135 @@
+package de.tum.digitalagriculture.tello.controllers;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.commanders.PathCommander;
+import de.tum.digitalagriculture.tello.simulation.StandInDrone;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@link SwarmController} against several {@link StandInDrone}s
+ */
+class SwarmControllerTest {
+    private static final int DRONES = 4;
+
+    private final List<StandInDrone> standIns = new ArrayList<>();
+    private SwarmController swarm;
+    private ExecutorService executor;
+
+    /**
+     * Start the stand-ins, drone {@code i} acknowledges motion commands after {@code i * motionStep} ms
+     */
+    private SwarmController connect(int channels, long motionStep) throws IOException {
+        for (int i = 0; i < DRONES; i++) {
+            standIns.add(new StandInDrone(i * motionStep, TimeUnit.MILLISECONDS));
+        }
+        swarm = SwarmController.builder()
+                .drones(standIns.stream().map(StandInDrone::getAddress).toList())
+                .localPort(0)
+                .channels(channels)
+                .build();
+        return swarm;
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        if (swarm != null) {
+            swarm.close();
+        }
+        for (var standIn : standIns) {
+            standIn.close();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sendsCommandsToTheSelectedDrone() throws Exception {
+        var swarm = connect(2, 0);
+        for (int drone = 0; drone < DRONES; drone++) {
+            for (int i = 0; i <= drone; i++) {
+                // completed once sent, the stand-in does not answer rc
+                swarm.submit(drone, new Commands.Rc(0, 0, 0, 0)).get(5, TimeUnit.SECONDS);
+            }
+        }
+        // a query is answered after the rc commands were received
+        swarm.broadcast(Commands.ReadBattery.INSTANCE).get(5, TimeUnit.SECONDS);
+        for (int drone = 0; drone < DRONES; drone++) {
+            assertEquals(drone + 1, standIns.get(drone).getRcReceived(), "drone " + drone);
+        }
+    }
+
+    @Test
+    void routesResponsesToTheDroneThatSentThem() throws Exception {
+        var swarm = connect(2, 100);
+        var start = System.nanoTime();
+        var motions = new ArrayList<CompletableFuture<Long>>();
+        // the slowest drone first, so a response taken for the wrong drone would complete it too early
+        for (int drone = DRONES - 1; drone >= 0; drone--) {
+            motions.add(0, swarm.submit(drone, new Commands.Forward(50)).thenApply(result -> {
+                assertEquals(Result.ResultEnum.OK, result.result());
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }));
+        }
+        // queries of a drone do not wait for the motions of the others
+        assertEquals(List.of(87, 87, 87, 87), swarm.broadcast(Commands.ReadBattery.INSTANCE).get(5, TimeUnit.SECONDS)
+                .stream().map(Result::reading).toList());
+        assertFalse(motions.get(DRONES - 1).isDone());
+        for (int drone = 0; drone < DRONES; drone++) {
+            var completedAfter = motions.get(drone).get(5, TimeUnit.SECONDS);
+            assertTrue(completedAfter >= drone * 100L, "drone " + drone + " completed after " + completedAfter + " ms");
+        }
+    }
+
+    @Test
+    void runsOneMissionPerDrone() throws Exception {
+        var swarm = connect(3, 5);
+        executor = Executors.newFixedThreadPool(2);
+        var commanders = new ArrayList<PathCommander>();
+        for (int drone = 0; drone < DRONES; drone++) {
+            var mission = new ArrayList<Commands.Command>(List.of(Commands.Init.INSTANCE, Commands.TakeOff.INSTANCE));
+            for (int leg = 0; leg <= drone; leg++) {
+                mission.add(new Commands.Forward(50));
+                mission.add(Commands.ReadSpeed.INSTANCE);
+            }
+            mission.add(Commands.Land.INSTANCE);
+            commanders.add(new PathCommander(mission.toArray(Commands.Command[]::new)));
+        }
+        var results = swarm.run(commanders, executor).get(10, TimeUnit.SECONDS);
+        assertEquals(DRONES, results.size());
+        for (int drone = 0; drone < DRONES; drone++) {
+            var mission = results.get(drone);
+            assertEquals(2 * (drone + 1) + 3, mission.size(), "drone " + drone);
+            for (int i = 0; i < mission.size(); i++) {
+                var expected = i > 1 && i < mission.size() - 1 && i % 2 == 1 ? Result.ResultEnum.READING : Result.ResultEnum.OK;
+                assertEquals(expected, mission.get(i).result(), "drone " + drone + " command " + i);
+            }
+        }
+    }
+
+    @Test
+    void rejectsAMissionCountThatDoesNotMatchTheDrones() throws Exception {
+        var swarm = connect(1, 0);
+        executor = Executors.newSingleThreadExecutor();
+        assertThrows(IllegalArgumentException.class, () -> swarm.run(List.of(new PathCommander(Commands.Land.INSTANCE)), executor));
+    }
+
+    @Test
+    void rejectsDronesThatAreAddedTwice() {
+        var address = new InetSocketAddress("127.0.0.1", 8889);
+        var builder = SwarmController.builder().drones(List.of(address, new InetSocketAddress("127.0.0.1", 8890), address)).localPort(0);
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+}
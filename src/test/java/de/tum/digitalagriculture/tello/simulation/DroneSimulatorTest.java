@@ -0,0 +1,123 @@
+package de.tum.digitalagriculture.tello.simulation;
+
+import de.tum.digitalagriculture.tello.commanders.Commands;
+import de.tum.digitalagriculture.tello.commanders.PathCommander;
+import de.tum.digitalagriculture.tello.controllers.FlightController;
+import de.tum.digitalagriculture.tello.streams.StreamDisplay;
+import de.tum.digitalagriculture.tello.telemetry.TelemetrySample;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Flies missions with a {@link FlightController} against a {@link DroneSimulator} that runs 20 times faster than the
+ * wall clock
+ */
+class DroneSimulatorTest {
+    private DroneSimulator simulator;
+    private FlightController<Void, StreamDisplay.Stream> controller;
+
+    /**
+     * A port that was free a moment ago. The simulator needs the state port of the controller before the controller
+     * binds it
+     */
+    private static int freePort() throws IOException {
+        try (var socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @BeforeEach
+    void connect() throws IOException {
+        var statePort = freePort();
+        simulator = DroneSimulator.builder().commandPort(0).statePort(statePort).timeScale(20.0).build();
+        controller = FlightController.<Void, StreamDisplay.Stream>builder()
+                .ip("127.0.0.1")
+                .port(simulator.getAddress().getPort())
+                .commandPort(0)
+                .statusPort(statePort)
+                .executor(new ScheduledThreadPoolExecutor(1))
+                .streamHandler(new StreamDisplay())
+                .connectionOption(FlightController.ConnectionOption.TIME_OUT)
+                .build();
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        if (controller != null) {
+            controller.close();
+        }
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    private void fly(Commands.Command... mission) throws Exception {
+        controller.run(new PathCommander(mission)).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Wait for a state datagram with the height {@code h} and the yaw {@code yaw}
+     */
+    private TelemetrySample awaitTelemetry(int h, int yaw) throws Exception {
+        var received = new CompletableFuture<TelemetrySample>();
+        controller.getTelemetry().subscribe(sample -> {
+            if (sample.getH() == h && sample.getYaw() == yaw) {
+                var copy = new TelemetrySample();
+                copy.copyFrom(sample);
+                received.complete(copy);
+            }
+        });
+        return received.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void fliesAMission() throws Exception {
+        fly(Commands.TakeOff.INSTANCE,
+                new Commands.Forward(100),
+                new Commands.ClockWise(90),
+                new Commands.Forward(100),
+                new Commands.Up(50));
+        var state = simulator.getState();
+        assertTrue(state.flying());
+        assertEquals(100, state.x(), 1e-6);
+        assertEquals(-100, state.y(), 1e-6);
+        assertEquals(130, state.z(), 1e-6);
+        assertEquals(90, state.yaw());
+        assertTrue(state.battery() < 100);
+
+        var sample = awaitTelemetry(130, 90);
+        assertEquals(140, sample.getTof());
+        assertEquals(0, sample.getVgx());
+        assertTrue(controller.getTelemetry().getReceived() > 0);
+
+        fly(Commands.Land.INSTANCE);
+        state = simulator.getState();
+        assertFalse(state.flying());
+        assertEquals(0, state.z(), 1e-6);
+        awaitTelemetry(0, 90);
+    }
+
+    @Test
+    void answersQueriesFromTheModel() throws Exception {
+        assertEquals(100, controller.sendAndRecv(Commands.ReadBattery.INSTANCE).reading());
+        fly(new Commands.Speed(30));
+        assertEquals(30, controller.sendAndRecv(Commands.ReadSpeed.INSTANCE).reading());
+    }
+
+    @Test
+    void rejectsMotionsOnTheGround() throws Exception {
+        fly(new Commands.Forward(100));
+        var state = simulator.getState();
+        assertFalse(state.flying());
+        assertEquals(0, state.x(), 1e-6);
+    }
+}
@@ -0,0 +1,172 @@
+package de.tum.digitalagriculture.tello.streams;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameRingTest {
+    private FrameRing ring;
+
+    /**
+     * A 4x4 frame whose pixels are all {@code value}
+     */
+    private static Mat frame(int value) {
+        return new Mat(4, 4, CV_8UC1, new Scalar(value));
+    }
+
+    private static int value(Mat frame) {
+        return frame.ptr(3, 3).get() & 0xff;
+    }
+
+    private List<Integer> drain() {
+        var values = new ArrayList<Integer>();
+        while (ring.poll(frame -> values.add(value(frame)))) {
+            // collect all frames
+        }
+        return values;
+    }
+
+    private void offer(int... values) throws InterruptedException {
+        for (var value : values) {
+            ring.offer(frame(value));
+        }
+    }
+
+    /**
+     * Wait until {@code thread} waits on a condition of the ring
+     */
+    private static void await(Thread thread, Thread.State state) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != state) {
+            assertTrue(System.nanoTime() < deadline, () -> thread.getName() + " is " + thread.getState());
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Offer a frame on another thread and wait until it blocks
+     *
+     * @return completed with the result of the offer
+     */
+    private CompletableFuture<Boolean> offerBlocked(int value) throws InterruptedException {
+        var stored = new CompletableFuture<Boolean>();
+        var thread = new Thread(() -> {
+            try {
+                stored.complete(ring.offer(frame(value)));
+            } catch (InterruptedException interruptedException) {
+                stored.completeExceptionally(interruptedException);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        await(thread, Thread.State.WAITING);
+        return stored;
+    }
+
+    @AfterEach
+    void close() {
+        if (ring != null) {
+            ring.close();
+        }
+    }
+
+    @Test
+    void dropOldestKeepsTheLatestFrames() throws InterruptedException {
+        ring = new FrameRing(3, FrameRing.OverflowPolicy.DROP_OLDEST);
+        offer(0, 1, 2, 3, 4);
+        assertEquals(3, ring.size());
+        assertEquals(5, ring.getOffered());
+        assertEquals(2, ring.getDropped());
+        assertEquals(3, ring.getHighWatermark());
+        assertEquals(List.of(2, 3, 4), drain());
+        assertEquals(0, ring.size());
+        assertEquals(3, ring.getHighWatermark());
+    }
+
+    @Test
+    void dropNewestKeepsTheOldestFrames() throws InterruptedException {
+        ring = new FrameRing(3, FrameRing.OverflowPolicy.DROP_NEWEST);
+        assertTrue(ring.offer(frame(0)));
+        offer(1, 2);
+        assertFalse(ring.offer(frame(3)));
+        assertFalse(ring.offer(frame(4)));
+        assertEquals(5, ring.getOffered());
+        assertEquals(2, ring.getDropped());
+        assertEquals(List.of(0, 1, 2), drain());
+        assertTrue(ring.offer(frame(5)));
+        assertEquals(List.of(5), drain());
+    }
+
+    @Test
+    void blockWaitsForAFreeSlot() throws Exception {
+        ring = new FrameRing(1, FrameRing.OverflowPolicy.BLOCK);
+        offer(0);
+        var stored = offerBlocked(1);
+        assertFalse(stored.isDone());
+        assertTrue(ring.poll(frame -> assertEquals(0, value(frame))));
+        assertTrue(stored.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1), drain());
+        assertEquals(2, ring.getOffered());
+        assertEquals(0, ring.getDropped());
+    }
+
+    @Test
+    void closeReleasesABlockedOffer() throws Exception {
+        ring = new FrameRing(1, FrameRing.OverflowPolicy.BLOCK);
+        offer(0);
+        var stored = offerBlocked(1);
+        ring.close();
+        assertFalse(stored.get(5, TimeUnit.SECONDS));
+        assertEquals(1, ring.getDropped());
+        assertFalse(ring.offer(frame(2)));
+        assertEquals(0, ring.getPoolBytes());
+    }
+
+    @Test
+    void copiesTheOfferedFrames() throws InterruptedException {
+        ring = new FrameRing(2, FrameRing.OverflowPolicy.DROP_OLDEST);
+        var frame = frame(7);
+        ring.offer(frame);
+        frame.put(new Scalar(9));
+        ring.offer(frame);
+        var values = new ArrayList<Integer>();
+        ring.forEach(stored -> values.add(value(stored)));
+        assertEquals(List.of(7, 9), values);
+        assertEquals(2, ring.size());
+        // both slots are allocated with the first frame
+        assertEquals(2 * 16, ring.getPoolBytes());
+    }
+
+    @Test
+    void pollWaitsForAFrame() throws Exception {
+        ring = new FrameRing(2, FrameRing.OverflowPolicy.DROP_OLDEST);
+        assertFalse(ring.poll(frame -> fail(), 10, TimeUnit.MILLISECONDS));
+        var polled = new CompletableFuture<Integer>();
+        var thread = new Thread(() -> {
+            try {
+                ring.poll(frame -> polled.complete(value(frame)), 5, TimeUnit.SECONDS);
+            } catch (InterruptedException interruptedException) {
+                polled.completeExceptionally(interruptedException);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        await(thread, Thread.State.TIMED_WAITING);
+        offer(3);
+        assertEquals(3, polled.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectsAnEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new FrameRing(0, FrameRing.OverflowPolicy.BLOCK));
+    }
+}
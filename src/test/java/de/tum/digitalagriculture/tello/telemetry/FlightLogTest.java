@@ -0,0 +1,100 @@
+package de.tum.digitalagriculture.tello.telemetry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightLogTest {
+    /**
+     * More records than fit into one mapped region
+     */
+    private static final int RECORDS = 12_500;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * A sample whose fields are derived from {@code i}, received at {@code 1000 * i} ns
+     */
+    static TelemetrySample sample(int i) {
+        var sample = new TelemetrySample();
+        sample.set(1000L * i, i % 8, i, -i, i / 2, i % 90, -(i % 90), i % 360, i % 10, -(i % 10), i % 5,
+                60, 63, 10 + i % 100, i % 300, 100 - i % 100, 96.11f + i, i / 10, -2.0f, 0.5f * i, -999.0f);
+        return sample;
+    }
+
+    private Path write(int records) throws IOException {
+        var path = directory.resolve("flight.tlog");
+        try (var log = FlightLog.create(path)) {
+            for (int i = 0; i < records; i++) {
+                log.accept(sample(i));
+            }
+            assertEquals(records, log.getCount());
+        }
+        return path;
+    }
+
+    @Test
+    void readsBackAllRecords() throws IOException {
+        var before = System.currentTimeMillis();
+        var reader = FlightLog.Reader.open(write(RECORDS));
+        assertEquals(RECORDS, reader.getCount());
+        assertTrue(reader.getStartEpochMillis() >= before && reader.getStartEpochMillis() <= System.currentTimeMillis());
+        var sample = new TelemetrySample();
+        for (int i = 0; i < RECORDS; i++) {
+            reader.get(i, sample);
+            assertEquals(sample(i).toString(), sample.toString(), "record " + i);
+            assertEquals(1000L * i, sample.getTimestamp());
+        }
+    }
+
+    @Test
+    void keepsTheUnusedPartOfTheLastRegion() throws IOException {
+        var path = write(3);
+        // the file is not truncated on close, the count in the header marks the end of the records
+        assertTrue(Files.size(path) > 40 + 3 * TelemetrySample.BYTES);
+        assertEquals(3, FlightLog.Reader.open(path).getCount());
+    }
+
+    @Test
+    void readsALogThatWasNotClosed() throws IOException {
+        var path = directory.resolve("crashed.tlog");
+        var log = FlightLog.create(path);
+        for (int i = 0; i < 5; i++) {
+            log.accept(sample(i));
+        }
+        var reader = FlightLog.Reader.open(path);
+        assertEquals(5, reader.getCount());
+        var sample = new TelemetrySample();
+        reader.get(4, sample);
+        assertEquals(sample(4).toString(), sample.toString());
+        log.close();
+    }
+
+    @Test
+    void searchesRecordsByTimestamp() throws IOException {
+        var reader = FlightLog.Reader.open(write(100));
+        assertEquals(0, reader.search(-1));
+        assertEquals(10, reader.search(10_000));
+        assertEquals(11, reader.search(10_001));
+        assertEquals(100, reader.search(1_000_000));
+        var range = reader.range(10_000, 20_000);
+        assertEquals(10 * TelemetrySample.BYTES, range.remaining());
+        var sample = new TelemetrySample();
+        sample.read(range, 0);
+        assertEquals(sample(10).toString(), sample.toString());
+        assertEquals(0, reader.range(20_000, 10_000).remaining());
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        var path = directory.resolve("other.bin");
+        Files.write(path, new byte[64]);
+        assertThrows(IllegalArgumentException.class, () -> FlightLog.Reader.open(path));
+    }
+}
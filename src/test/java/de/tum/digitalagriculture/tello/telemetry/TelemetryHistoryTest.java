@@ -0,0 +1,66 @@
+package de.tum.digitalagriculture.tello.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.tum.digitalagriculture.tello.telemetry.FlightLogTest.sample;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryHistoryTest {
+
+    private static TelemetryHistory append(int capacity, int samples) {
+        var history = new TelemetryHistory(capacity);
+        for (int i = 0; i < samples; i++) {
+            history.accept(sample(i));
+        }
+        return history;
+    }
+
+    @Test
+    void readsBackAllSamples() {
+        var history = append(16, 10);
+        assertEquals(10, history.getWritten());
+        assertEquals(0, history.getOldest());
+        var sample = new TelemetrySample();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(history.get(i, sample));
+            assertEquals(sample(i).toString(), sample.toString(), "sample " + i);
+            assertEquals(1000L * i, sample.getTimestamp());
+        }
+        assertFalse(history.get(10, sample));
+        assertFalse(history.get(-1, sample));
+    }
+
+    @Test
+    void overwritesTheOldestSamples() {
+        var history = append(4, 10);
+        assertEquals(10, history.getWritten());
+        assertEquals(6, history.getOldest());
+        var sample = new TelemetrySample();
+        assertFalse(history.get(5, sample));
+        for (int i = 6; i < 10; i++) {
+            assertTrue(history.get(i, sample));
+            assertEquals(sample(i).toString(), sample.toString(), "sample " + i);
+        }
+    }
+
+    @Test
+    void searchesStoredSamplesByTimestamp() {
+        var history = append(8, 20);
+        assertEquals(12, history.search(0));
+        assertEquals(15, history.search(14_500));
+        assertEquals(20, history.search(100_000));
+        var visited = new ArrayList<Long>();
+        assertEquals(3, history.forEach(14_000, 17_000, sample -> visited.add(sample.getTimestamp())));
+        assertEquals(List.of(14_000L, 15_000L, 16_000L), visited);
+        assertEquals(0, history.forEach(17_000, 14_000, sample -> fail()));
+    }
+
+    @Test
+    void rejectsInvalidCapacities() {
+        assertThrows(IllegalArgumentException.class, () -> new TelemetryHistory(0));
+        assertThrows(IllegalArgumentException.class, () -> new TelemetryHistory(TelemetryHistory.MAX_CAPACITY + 1));
+    }
+}
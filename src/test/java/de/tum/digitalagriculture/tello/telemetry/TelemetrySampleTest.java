@@ -0,0 +1,132 @@
+package de.tum.digitalagriculture.tello.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetrySampleTest {
+    private static final String DATAGRAM = "mid:3;x:12;y:-40;z:95;mpry:0,0,0;pitch:1;roll:-2;yaw:-87;vgx:4;vgy:-5;vgz:6;"
+            + "templ:60;temph:63;tof:97;h:90;bat:87;baro:96.11;time:12;agx:-2.00;agy:0.50;agz:-999.00;";
+
+    private static boolean parse(TelemetrySample sample, String datagram) {
+        var buffer = ByteBuffer.wrap(datagram.getBytes(StandardCharsets.US_ASCII));
+        var parsed = sample.parse(buffer);
+        assertFalse(buffer.hasRemaining(), datagram);
+        return parsed;
+    }
+
+    @Test
+    void parsesAllFields() {
+        var sample = new TelemetrySample();
+        assertTrue(parse(sample, DATAGRAM));
+        assertEquals(3, sample.getMid());
+        assertEquals(12, sample.getX());
+        assertEquals(-40, sample.getY());
+        assertEquals(95, sample.getZ());
+        assertEquals(1, sample.getPitch());
+        assertEquals(-2, sample.getRoll());
+        assertEquals(-87, sample.getYaw());
+        assertEquals(4, sample.getVgx());
+        assertEquals(-5, sample.getVgy());
+        assertEquals(6, sample.getVgz());
+        assertEquals(60, sample.getTempl());
+        assertEquals(63, sample.getTemph());
+        assertEquals(97, sample.getTof());
+        assertEquals(90, sample.getH());
+        assertEquals(87, sample.getBat());
+        assertEquals(96.11f, sample.getBaro(), 1e-4);
+        assertEquals(12, sample.getTime());
+        assertEquals(-2.0f, sample.getAgx());
+        assertEquals(0.5f, sample.getAgy());
+        assertEquals(-999.0f, sample.getAgz());
+    }
+
+    @Test
+    void parsesADatagramWithoutMissionPad() {
+        var sample = new TelemetrySample();
+        assertTrue(parse(sample, "pitch:0;roll:0;yaw:0;vgx:0;vgy:0;vgz:0;templ:60;temph:63;tof:10;h:0;bat:87;baro:96.11;time:0;agx:-2.00;agy:0.00;agz:-999.00;"));
+        assertEquals(-1, sample.getMid());
+        assertEquals(-100, sample.getX());
+        assertEquals(87, sample.getBat());
+    }
+
+    @Test
+    void toleratesATrailingLineBreak() {
+        var sample = new TelemetrySample();
+        assertTrue(parse(sample, DATAGRAM + "\r\n"));
+        assertEquals(-999.0f, sample.getAgz());
+        assertTrue(parse(sample, "bat:50;h:20\r\n"));
+        assertEquals(50, sample.getBat());
+        assertEquals(20, sample.getH());
+    }
+
+    @Test
+    void skipsOverLongKeys() {
+        var sample = new TelemetrySample();
+        assertTrue(parse(sample, "averyveryverylongkey:5;bat:80;h:30;"));
+        assertEquals(80, sample.getBat());
+        assertEquals(30, sample.getH());
+        // the last eight characters of the key are those of a known key padded with zeros
+        assertTrue(parse(sample, "xxxxxxxxxbat:5;h:40;"));
+        assertEquals(80, sample.getBat());
+        assertEquals(40, sample.getH());
+    }
+
+    @Test
+    void skipsUnknownFields() {
+        var sample = new TelemetrySample();
+        assertTrue(parse(sample, "foo:1;mpry:1,2,3;bat:75;bar:-2.5;"));
+        assertEquals(75, sample.getBat());
+        assertFalse(parse(sample, "foo:1;bar:2;"));
+        assertEquals(75, sample.getBat());
+    }
+
+    @Test
+    void keepsMissingFields() {
+        var sample = new TelemetrySample();
+        parse(sample, DATAGRAM);
+        assertTrue(parse(sample, "bat:70;h:120;"));
+        assertEquals(70, sample.getBat());
+        assertEquals(120, sample.getH());
+        assertEquals(-87, sample.getYaw());
+        assertEquals(96.11f, sample.getBaro(), 1e-4);
+    }
+
+    @Test
+    void skipsFieldsWithoutDigits() {
+        var sample = new TelemetrySample();
+        parse(sample, DATAGRAM);
+        assertTrue(parse(sample, "bat:;h:-;yaw:abc;tof:15;"));
+        assertEquals(87, sample.getBat());
+        assertEquals(90, sample.getH());
+        assertEquals(-87, sample.getYaw());
+        assertEquals(15, sample.getTof());
+    }
+
+    @Test
+    void ignoresATruncatedField() {
+        var sample = new TelemetrySample();
+        assertTrue(parse(sample, "bat:87;h:90;te"));
+        assertEquals(87, sample.getBat());
+        assertFalse(parse(sample, ""));
+        assertFalse(parse(sample, ";;\r\n"));
+    }
+
+    @Test
+    void roundTripsTheBinaryRecord() {
+        var sample = new TelemetrySample();
+        parse(sample, DATAGRAM);
+        sample.setTimestamp(123_456_789L);
+        var buffer = ByteBuffer.allocate(TelemetrySample.BYTES + 4);
+        buffer.position(4);
+        sample.write(buffer);
+        assertFalse(buffer.hasRemaining());
+        var copy = new TelemetrySample();
+        copy.read(buffer, 4);
+        assertEquals(sample.toString(), copy.toString());
+        assertEquals(123_456_789L, copy.getTimestamp());
+    }
+}